@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.maven;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.analysis.CoverageTemplate;
+import org.jacoco.core.analysis.CoverageTemplateBuilder;
+
+/**
+ * Cache for the analyzed structure of class files. The plugin's class realm is
+ * shared by all executions within a Maven build, therefore the goals
+ * <code>check</code>, <code>report</code>, <code>report-integration</code> and
+ * <code>report-aggregate</code> analyze the class files of every module only
+ * once and apply their respective execution data to the cached
+ * {@link CoverageTemplate}.
+ *
+ * Entries are keyed by the path, size and modification time of all class files
+ * and are held by soft references, so they can be reclaimed if memory is
+ * needed.
+ */
+final class AnalysisCache {
+
+	/** Shared instance for all executions within the class realm */
+	static final AnalysisCache INSTANCE = new AnalysisCache();
+
+	private final Map<String, SoftReference<CoverageTemplate>> templates;
+
+	private AnalysisCache() {
+		templates = new HashMap<String, SoftReference<CoverageTemplate>>();
+	}
+
+	/**
+	 * Returns the template for the given class files. The files are only
+	 * analyzed if there is no cached template for the current content. This
+	 * method may be called concurrently and does not produce log output, the
+	 * caller can report cache hits with {@link Result#isCached()}.
+	 *
+	 * @param files
+	 *            class files, directories or archives to analyze
+	 * @return template for the given files
+	 * @throws IOException
+	 *             if class files can't be read
+	 */
+	Result getTemplate(final List<File> files) throws IOException {
+		final String key = createKey(files);
+		final CoverageTemplate cached = lookup(key);
+		if (cached != null) {
+			return new Result(cached, true);
+		}
+		final CoverageTemplateBuilder builder = new CoverageTemplateBuilder();
+		for (final File file : files) {
+			builder.analyzeAll(file);
+		}
+		final CoverageTemplate template = builder.getTemplate();
+		store(key, template);
+		return new Result(template, false);
+	}
+
+	/**
+	 * Template returned by the cache.
+	 */
+	static final class Result {
+
+		private final CoverageTemplate template;
+
+		private final boolean cached;
+
+		Result(final CoverageTemplate template, final boolean cached) {
+			this.template = template;
+			this.cached = cached;
+		}
+
+		/**
+		 * @return template for the requested class files
+		 */
+		CoverageTemplate getTemplate() {
+			return template;
+		}
+
+		/**
+		 * @return <code>true</code> if the template was taken from the cache
+		 */
+		boolean isCached() {
+			return cached;
+		}
+
+	}
+
+	private CoverageTemplate lookup(final String key) {
+		synchronized (templates) {
+			final SoftReference<CoverageTemplate> ref = templates.get(key);
+			return ref == null ? null : ref.get();
+		}
+	}
+
+	private void store(final String key, final CoverageTemplate template) {
+		synchronized (templates) {
+			final Iterator<SoftReference<CoverageTemplate>> i = templates
+					.values().iterator();
+			while (i.hasNext()) {
+				if (i.next().get() == null) {
+					i.remove();
+				}
+			}
+			templates.put(key, new SoftReference<CoverageTemplate>(template));
+		}
+	}
+
+	private static String createKey(final List<File> files) throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(buffer);
+		for (final File file : files) {
+			out.writeUTF(file.getAbsolutePath());
+			out.writeLong(file.length());
+			out.writeLong(file.lastModified());
+		}
+		out.close();
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new AssertionError(e);
+		}
+		return new BigInteger(1, digest.digest(buffer.toByteArray()))
+				.toString(16);
+	}
+
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.shared.model.fileset.FileSet;
+import org.apache.maven.shared.model.fileset.util.FileSetManager;
+import org.jacoco.core.tools.ExecFileDiff;
+
+/**
+ * Mojo for calculating the union, intersection or subtraction of a set of
+ * execution data files (*.exec) with a baseline. The result is written to a new
+ * execution data file. Only the baseline is loaded into memory, all other files
+ * are streamed.
+ *
+ * @since 0.8.8
+ */
+@Mojo(name = "diff", defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
+public class DiffMojo extends AbstractJacocoMojo {
+
+	private static final String MSG_SKIPPING = "Skipping JaCoCo diff execution due to missing execution data files";
+
+	/**
+	 * Path to the output file for execution data.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/jacoco-diff.exec")
+	private File destFile;
+
+	/**
+	 * Operation applied to the execution data files and the baseline, one of
+	 * <code>UNION</code>, <code>INTERSECTION</code> or
+	 * <code>SUBTRACTION</code>. With <code>SUBTRACTION</code> the result
+	 * contains the probes which have been executed according to the execution
+	 * data files but not according to the baseline.
+	 */
+	@Parameter(defaultValue = "SUBTRACTION")
+	private ExecFileDiff.Operation operation;
+
+	/**
+	 * Execution data file sets to compare with the baseline.
+	 *
+	 * <pre>
+	 * <code>
+	 * &lt;fileSets&gt;
+	 *   &lt;fileSet&gt;
+	 *     &lt;directory&gt;${project.build.directory}&lt;/directory&gt;
+	 *     &lt;includes&gt;
+	 *       &lt;include&gt;jacoco-it.exec&lt;/include&gt;
+	 *     &lt;/includes&gt;
+	 *   &lt;/fileSet&gt;
+	 * &lt;/fileSets&gt;
+	 * </code>
+	 * </pre>
+	 */
+	@Parameter(required = true)
+	private List<FileSet> fileSets;
+
+	/**
+	 * Execution data file sets which form the baseline. They are specified in
+	 * the same way as <code>fileSets</code>.
+	 */
+	@Parameter
+	private List<FileSet> baselineFileSets;
+
+	@Override
+	protected void executeMojo()
+			throws MojoExecutionException, MojoFailureException {
+		final List<File> inputs = getFiles(fileSets);
+		if (inputs.isEmpty()) {
+			getLog().info(MSG_SKIPPING);
+			return;
+		}
+		final ExecFileDiff diff = new ExecFileDiff(operation);
+		for (final File file : getFiles(baselineFileSets)) {
+			getLog().info("Loading baseline execution data file "
+					+ file.getAbsolutePath());
+			try {
+				diff.loadBaseline(file);
+			} catch (final IOException e) {
+				throw new MojoExecutionException(
+						"Unable to read " + file.getAbsolutePath(), e);
+			}
+		}
+		getLog().info("Writing " + operation.name().toLowerCase(Locale.ENGLISH)
+				+ " of execution data to " + destFile.getAbsolutePath());
+		try {
+			diff.save(inputs, destFile);
+		} catch (final IOException e) {
+			throw new MojoExecutionException(
+					"Unable to write " + destFile.getAbsolutePath(), e);
+		}
+	}
+
+	private List<File> getFiles(final List<FileSet> sets) {
+		final List<File> files = new ArrayList<File>();
+		if (sets == null) {
+			return files;
+		}
+		final FileSetManager fileSetManager = new FileSetManager(getLog());
+		for (final FileSet fileSet : sets) {
+			for (final String includedFilename : fileSetManager
+					.getIncludedFiles(fileSet)) {
+				final File file = new File(fileSet.getDirectory(),
+						includedFilename);
+				if (!file.isDirectory()) {
+					files.add(file);
+				}
+			}
+		}
+		return files;
+	}
+
+}
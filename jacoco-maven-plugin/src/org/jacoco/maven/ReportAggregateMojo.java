@@ -82,6 +82,16 @@ public class ReportAggregateMojo extends AbstractReportMojo {
 	@Parameter(defaultValue = "${project.reporting.outputDirectory}/jacoco-aggregate")
 	private File outputDirectory;
 
+	/**
+	 * Number of threads used to analyze the class files of the projects
+	 * included in the report. Must be at least 1. Defaults to the number of
+	 * available processors.
+	 *
+	 * @since 0.8.8
+	 */
+	@Parameter(property = "jacoco.threads")
+	private Integer threads;
+
 	/**
 	 * The projects in the reactor.
 	 */
@@ -131,12 +141,25 @@ public class ReportAggregateMojo extends AbstractReportMojo {
 	void createReport(final IReportGroupVisitor visitor,
 			final ReportSupport support) throws IOException {
 		final IReportGroupVisitor group = visitor.visitGroup(title);
-		for (final MavenProject dependency : findDependencies(
+		final List<MavenProject> dependencies = findDependencies(
 				Artifact.SCOPE_COMPILE, Artifact.SCOPE_RUNTIME,
-				Artifact.SCOPE_PROVIDED)) {
-			support.processProject(group, dependency.getArtifactId(),
-					dependency, getIncludes(), getExcludes(), sourceEncoding);
+				Artifact.SCOPE_PROVIDED);
+		support.processProjects(group, dependencies, getIncludes(),
+				getExcludes(), sourceEncoding, getThreads(dependencies.size()));
+	}
+
+	private int getThreads(final int projects) throws IOException {
+		final int count;
+		if (threads == null) {
+			count = Runtime.getRuntime().availableProcessors();
+		} else if (threads.intValue() < 1) {
+			throw new IOException(
+					"Parameter threads must be at least 1, but was " + threads
+							+ ".");
+		} else {
+			count = threads.intValue();
 		}
+		return Math.max(1, Math.min(count, projects));
 	}
 
 	public File getReportOutputDirectory() {
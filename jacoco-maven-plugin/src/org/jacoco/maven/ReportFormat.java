@@ -38,6 +38,7 @@ public enum ReportFormat {
 			final HTMLFormatter htmlFormatter = new HTMLFormatter();
 			htmlFormatter.setOutputEncoding(mojo.outputEncoding);
 			htmlFormatter.setLocale(locale);
+			htmlFormatter.setSourcePrefetch(true);
 			if (mojo.footer != null) {
 				htmlFormatter.setFooterText(mojo.footer);
 			}
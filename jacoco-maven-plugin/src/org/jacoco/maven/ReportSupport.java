@@ -16,24 +16,28 @@ package org.jacoco.maven;
 import static java.lang.String.format;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
-import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.internal.Futures;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.IndexedSourceFileLocator;
 import org.jacoco.report.MultiReportVisitor;
 import org.jacoco.report.check.IViolationsOutput;
 import org.jacoco.report.check.Rule;
@@ -49,7 +53,8 @@ import org.jacoco.report.check.RulesChecker;
  * <code>loadExecutionData()</code></li>
  * <li>Add one or multiple formatters with <code>addXXX()</code> methods</li>
  * <li>Create the root visitor with <code>initRootVisitor()</code></li>
- * <li>Process one or multiple projects with <code>processProject()</code></li>
+ * <li>Process one or multiple projects with <code>processProject()</code> or
+ * <code>processProjects()</code></li>
  * </ol>
  */
 final class ReportSupport {
@@ -150,34 +155,99 @@ final class ReportSupport {
 				new SourceFileCollection(project, srcEncoding));
 	}
 
+	/**
+	 * Calculates coverage for the given projects and emits it to the report
+	 * group including source references. The projects are analyzed
+	 * concurrently, the bundles are emitted in the order of the given list and
+	 * named after the artifact id of the respective project.
+	 *
+	 * @param visitor
+	 *            group visitor to emit the projects' coverage to
+	 * @param projects
+	 *            the MavenProjects
+	 * @param includes
+	 *            list of includes patterns
+	 * @param excludes
+	 *            list of excludes patterns
+	 * @param srcEncoding
+	 *            encoding of the source files within the projects
+	 * @param threads
+	 *            number of threads used for analysis
+	 * @throws IOException
+	 *             if class files can't be read
+	 */
+	public void processProjects(final IReportGroupVisitor visitor,
+			final List<MavenProject> projects, final List<String> includes,
+			final List<String> excludes, final String srcEncoding,
+			final int threads) throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<Analysis>> analyses = new ArrayList<Future<Analysis>>();
+			for (final MavenProject project : projects) {
+				analyses.add(executor.submit(new Callable<Analysis>() {
+					public Analysis call() throws IOException {
+						return analyze(project.getArtifactId(), project,
+								includes, excludes);
+					}
+				}));
+			}
+			for (int i = 0; i < projects.size(); i++) {
+				final Analysis analysis = Futures.get(analyses.get(i));
+				logAnalysisInfo(analysis);
+				visitor.visitBundle(analysis.bundle,
+						new SourceFileCollection(projects.get(i), srcEncoding));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private void processProject(final IReportGroupVisitor visitor,
 			final String bundleName, final MavenProject project,
 			final List<String> includes, final List<String> excludes,
 			final ISourceFileLocator locator) throws IOException {
+		final Analysis analysis = analyze(bundleName, project, includes,
+				excludes);
+		logAnalysisInfo(analysis);
+		visitor.visitBundle(analysis.bundle, locator);
+	}
+
+	/**
+	 * Analyzes the given project without log output, so it can be called
+	 * concurrently.
+	 */
+	private Analysis analyze(final String bundleName,
+			final MavenProject project, final List<String> includes,
+			final List<String> excludes) throws IOException {
 		final CoverageBuilder builder = new CoverageBuilder();
 		final File classesDir = new File(
 				project.getBuild().getOutputDirectory());
 
+		AnalysisCache.Result cacheResult = null;
 		if (classesDir.isDirectory()) {
-			final Analyzer analyzer = new Analyzer(
-					loader.getExecutionDataStore(), builder);
 			final FileFilter filter = new FileFilter(includes, excludes);
-			for (final File file : filter.getFiles(classesDir)) {
-				analyzer.analyzeAll(file);
-			}
+			cacheResult = AnalysisCache.INSTANCE
+					.getTemplate(filter.getFiles(classesDir));
+			cacheResult.getTemplate().accept(loader.getExecutionDataStore(),
+					builder);
 		}
 
-		final IBundleCoverage bundle = builder.getBundle(bundleName);
-		logBundleInfo(bundle, builder.getNoMatchClasses());
+		return new Analysis(builder.getBundle(bundleName), cacheResult);
+	}
 
-		visitor.visitBundle(bundle, locator);
+	private void logAnalysisInfo(final Analysis analysis) {
+		if (analysis.cacheResult != null && analysis.cacheResult.isCached()) {
+			log.info(format("Reusing analysis of %s classes", Integer.valueOf(
+					analysis.cacheResult.getTemplate().getClassCount())));
+		}
+		logBundleInfo(analysis.bundle);
 	}
 
-	private void logBundleInfo(final IBundleCoverage bundle,
-			final Collection<IClassCoverage> nomatch) {
+	private void logBundleInfo(final IBundleCoverage bundle) {
 		log.info(format("Analyzed bundle '%s' with %s classes",
 				bundle.getName(),
 				Integer.valueOf(bundle.getClassCounter().getTotalCount())));
+		final Collection<IClassCoverage> nomatch = getNoMatchClasses(bundle);
 		if (!nomatch.isEmpty()) {
 			log.warn(format(
 					"Classes in bundle '%s' do not match with execution data. "
@@ -195,6 +265,32 @@ final class ReportSupport {
 		}
 	}
 
+	private static Collection<IClassCoverage> getNoMatchClasses(
+			final IBundleCoverage bundle) {
+		final Collection<IClassCoverage> result = new ArrayList<IClassCoverage>();
+		for (final IPackageCoverage p : bundle.getPackages()) {
+			for (final IClassCoverage c : p.getClasses()) {
+				if (c.isNoMatch()) {
+					result.add(c);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static class Analysis {
+
+		final IBundleCoverage bundle;
+
+		final AnalysisCache.Result cacheResult;
+
+		Analysis(final IBundleCoverage bundle,
+				final AnalysisCache.Result cacheResult) {
+			this.bundle = bundle;
+			this.cacheResult = cacheResult;
+		}
+	}
+
 	private class NoSourceLocator implements ISourceFileLocator {
 
 		public Reader getSourceFile(final String packageName,
@@ -207,37 +303,11 @@ final class ReportSupport {
 		}
 	}
 
-	private class SourceFileCollection implements ISourceFileLocator {
-
-		private final List<File> sourceRoots;
-		private final String encoding;
+	private static class SourceFileCollection extends IndexedSourceFileLocator {
 
 		public SourceFileCollection(final MavenProject project,
 				final String encoding) {
-			this.sourceRoots = getCompileSourceRoots(project);
-			this.encoding = encoding;
-		}
-
-		public Reader getSourceFile(final String packageName,
-				final String fileName) throws IOException {
-			final String r;
-			if (packageName.length() > 0) {
-				r = packageName + '/' + fileName;
-			} else {
-				r = fileName;
-			}
-			for (final File sourceRoot : sourceRoots) {
-				final File file = new File(sourceRoot, r);
-				if (file.exists() && file.isFile()) {
-					return new InputStreamReader(new FileInputStream(file),
-							encoding);
-				}
-			}
-			return null;
-		}
-
-		public int getTabWidth() {
-			return 4;
+			super(getCompileSourceRoots(project), encoding, 4);
 		}
 	}
 
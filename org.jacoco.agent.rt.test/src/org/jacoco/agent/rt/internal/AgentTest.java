@@ -48,6 +48,10 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 
 	private Boolean writeExecutionDataReset;
 
+	private int writeExecutionDataCount;
+
+	private boolean writeContextData;
+
 	private Exception loggedException;
 
 	@Before
@@ -123,6 +127,9 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 
 					public void writeExecutionData(boolean reset) {
 					}
+
+					public void writeContextData() {
+					}
 				};
 			}
 		};
@@ -180,6 +187,28 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		assertNull(loggedException);
 	}
 
+	@Test
+	public void startup_should_start_periodic_dumps_when_enabled()
+			throws Exception {
+		options.setDumpInterval(10);
+		options.setDumpOnExit(false);
+		Agent agent = createAgent();
+		agent.startup();
+
+		final long end = System.currentTimeMillis() + 5000;
+		while (getWriteExecutionDataCount() < 3) {
+			assertTrue(System.currentTimeMillis() < end);
+			Thread.sleep(10);
+		}
+		agent.shutdown();
+		final int count = getWriteExecutionDataCount();
+		Thread.sleep(50);
+
+		assertEquals(count, getWriteExecutionDataCount());
+		assertEquals(Boolean.FALSE, writeExecutionDataReset);
+		assertNull(loggedException);
+	}
+
 	@Test
 	public void shutdown_should_not_write_execution_data_when_disabled()
 			throws Exception {
@@ -210,6 +239,9 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 
 					public void writeExecutionData(boolean reset) {
 					}
+
+					public void writeContextData() {
+					}
 				};
 			}
 		};
@@ -348,6 +380,28 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		assertNull(loggedException);
 	}
 
+	@Test
+	public void startContext_should_start_context_in_runtime_data()
+			throws Exception {
+		Agent agent = createAgent();
+		agent.startup();
+
+		agent.startContext("test1");
+
+		assertEquals("test1", agent.getData().getContextId());
+	}
+
+	@Test
+	public void endContext_should_trigger_writeContextData() throws Exception {
+		Agent agent = createAgent();
+		agent.startup();
+
+		agent.endContext();
+
+		assertTrue(writeContextData);
+		assertNull(loggedException);
+	}
+
 	private Agent createAgent() {
 		return new Agent(options, this) {
 			@Override
@@ -371,8 +425,17 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 	public void shutdown() {
 	}
 
-	public void writeExecutionData(boolean reset) {
+	public synchronized void writeExecutionData(boolean reset) {
 		writeExecutionDataReset = Boolean.valueOf(reset);
+		writeExecutionDataCount++;
+	}
+
+	private synchronized int getWriteExecutionDataCount() {
+		return writeExecutionDataCount;
+	}
+
+	public void writeContextData() {
+		writeContextData = true;
 	}
 
 }
@@ -13,13 +13,22 @@
 package org.jacoco.agent.rt.internal;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -33,46 +42,169 @@ public class ClassFileDumperTest {
 	@Rule
 	public TemporaryFolder folder = new TemporaryFolder();
 
+	private ExceptionRecorder recorder;
+
+	private File location;
+
 	private byte[] contents;
 
 	@Before
 	public void setup() throws IOException {
+		recorder = new ExceptionRecorder();
+		location = new File(folder.getRoot(), "classes");
 		contents = "just some bytes".getBytes("UTF-8");
 	}
 
+	@After
+	public void teardown() {
+		recorder.assertNoException();
+	}
+
 	@Test
-	public void testDumpClassWithPackage() throws IOException {
-		final File location = new File(folder.getRoot(), "classes");
-		final ClassFileDumper dumper = new ClassFileDumper(location.toString());
+	public void testDumpClassWithPackage() throws Exception {
+		final ClassFileDumper dumper = createDumper(false);
 		dumper.dump("org/jacoco/examples/Foo$Inner", contents);
+		dumper.shutdown();
 		assertContents(location,
 				"org/jacoco/examples/Foo$Inner.aff06045a340cd62.class");
 	}
 
 	@Test
-	public void testDumpClassInDefaultPackage() throws IOException {
-		final File location = new File(folder.getRoot(), "classes");
-		final ClassFileDumper dumper = new ClassFileDumper(location.toString());
+	public void testDumpClassInDefaultPackage() throws Exception {
+		final ClassFileDumper dumper = createDumper(false);
+		dumper.dump("Main", contents);
+		dumper.shutdown();
+		assertContents(location, "Main.aff06045a340cd62.class");
+	}
+
+	@Test
+	public void testDumpAfterShutdown() throws Exception {
+		final ClassFileDumper dumper = createDumper(false);
+		dumper.shutdown();
 		dumper.dump("Main", contents);
 		assertContents(location, "Main.aff06045a340cd62.class");
 	}
 
 	@Test
-	public void testNoDumps() throws IOException {
-		final ClassFileDumper dumper = new ClassFileDumper(null);
+	public void testNoDumps() throws Exception {
+		final ClassFileDumper dumper = new ClassFileDumper(null, false,
+				recorder);
 		dumper.dump("Main", contents);
+		dumper.shutdown();
+	}
+
+	@Test
+	public void testDumpToArchive() throws Exception {
+		final ClassFileDumper dumper = createDumper(true);
+		dumper.dump("org/jacoco/examples/Foo", contents);
+		dumper.dump("Main", contents);
+		dumper.dump("Main", contents);
+		dumper.shutdown();
+
+		final ZipInputStream zip = new ZipInputStream(
+				new FileInputStream(getArchive()));
+		assertEntry(zip, "org/jacoco/examples/Foo.aff06045a340cd62.class");
+		assertEntry(zip, "Main.aff06045a340cd62.class");
+		assertNull(zip.getNextEntry());
+		zip.close();
+	}
+
+	@Test
+	public void testDumpToArchiveAfterShutdown() throws Exception {
+		final ClassFileDumper dumper = createDumper(true);
+		dumper.dump("org/jacoco/examples/Foo", contents);
+		dumper.shutdown();
+		dumper.dump("Main", contents);
+
+		assertContents(location, "Main.aff06045a340cd62.class");
+		final File[] files = location.listFiles();
+		assertEquals(2, files.length);
+	}
+
+	@Test
+	public void testConcurrentDumpsDuringShutdown() throws Exception {
+		final ClassFileDumper dumper = createDumper(false);
+		final int count = 200;
+		final Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t * count;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < count; i++) {
+						try {
+							dumper.dump("C" + (offset + i), contents);
+						} catch (final IOException e) {
+							recorder.logExeption(e);
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		dumper.shutdown();
+		for (final Thread t : threads) {
+			t.join();
+		}
+
+		assertEquals(threads.length * count, location.listFiles().length);
+	}
+
+	@Test
+	public void testAnalyzeArchive() throws Exception {
+		final ClassFileDumper dumper = createDumper(true);
+		final String name = ClassFileDumperTest.class.getName().replace('.',
+				'/');
+		dumper.dump(name, readClass(name));
+		dumper.shutdown();
+
+		final CoverageBuilder builder = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(new ExecutionDataStore(),
+				builder);
+		assertEquals(1, analyzer.analyzeAll(location));
+		final IClassCoverage coverage = builder.getClasses().iterator().next();
+		assertEquals(name, coverage.getName());
+	}
+
+	private ClassFileDumper createDumper(final boolean archive) {
+		return new ClassFileDumper(location.toString(), archive, recorder);
+	}
+
+	private File getArchive() {
+		final File[] files = location.listFiles();
+		assertEquals(1, files.length);
+		return files[0];
+	}
+
+	private void assertEntry(final ZipInputStream zip, final String name)
+			throws IOException {
+		final ZipEntry entry = zip.getNextEntry();
+		assertEquals(name, entry.getName());
+		assertArrayEquals(contents, readFully(zip));
 	}
 
 	private void assertContents(File location, String filename)
 			throws IOException {
 		InputStream in = new FileInputStream(new File(location, filename));
+		assertArrayEquals(contents, readFully(in));
+		in.close();
+	}
+
+	private static byte[] readClass(final String name) throws IOException {
+		final InputStream in = ClassFileDumperTest.class
+				.getResourceAsStream("/" + name + ".class");
+		final byte[] bytes = readFully(in);
+		in.close();
+		return bytes;
+	}
+
+	private static byte[] readFully(final InputStream in) throws IOException {
 		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 		int b;
 		while ((b = in.read()) != -1) {
 			buffer.write(b);
 		}
-		in.close();
-		assertArrayEquals(contents, buffer.toByteArray());
+		return buffer.toByteArray();
 	}
 
 }
@@ -165,6 +165,40 @@ public class CoverageTransformerTest {
 				t.filter(classLoader, "org/jacoco/core/Foo", protectionDomain));
 	}
 
+	@Test
+	public void testFilterCachedPackageDecisions() {
+		options.setIncludes("org.jacoco.core.*:org.example.*Impl");
+		options.setExcludes("org.jacoco.core.internal.*:*Test");
+		CoverageTransformer t = createTransformer();
+		for (int i = 0; i < 2; i++) {
+			assertTrue(t.filter(classLoader, "org/jacoco/core/Foo",
+					protectionDomain));
+			assertFalse(t.filter(classLoader, "org/jacoco/core/FooTest",
+					protectionDomain));
+			assertFalse(t.filter(classLoader, "org/jacoco/core/internal/Foo",
+					protectionDomain));
+			assertTrue(t.filter(classLoader, "org/example/FooImpl",
+					protectionDomain));
+			assertFalse(
+					t.filter(classLoader, "org/example/Foo", protectionDomain));
+			assertFalse(t.filter(classLoader, "org/other/FooImpl",
+					protectionDomain));
+		}
+	}
+
+	@Test
+	public void testFilterCachedClassLoaderDecisions() {
+		options.setExclClassloader(
+				"org.jacoco.agent.rt.internal.CoverageTransformerTest$*");
+		CoverageTransformer t = createTransformer();
+		for (int i = 0; i < 2; i++) {
+			assertFalse(t.filter(new ClassLoader(null) {
+			}, "org/example/Foo", protectionDomain));
+			assertTrue(
+					t.filter(classLoader, "org/example/Foo", protectionDomain));
+		}
+	}
+
 	@Test
 	public void testFilterSourceLocationPositive1() {
 		CoverageTransformer t = createTransformer();
@@ -17,9 +17,15 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
+import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.tools.ExecFileLoader;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -62,6 +68,113 @@ public class FileOutputTest {
 				destFile.length() > 0);
 	}
 
+	@Test
+	public void testWriteCompressedData() throws Exception {
+		File destFile = folder.newFile("jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setCompress(true);
+		RuntimeData data = new RuntimeData();
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 1)
+				.getProbes()[0] = true;
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		controller.writeExecutionData(false);
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(destFile);
+		assertEquals("Foo",
+				loader.getExecutionDataStore().get(0x12345678).getName());
+		assertEquals(2, loader.getSessionInfoStore().getInfos().size());
+	}
+
+	@Test
+	public void testWriteContextData() throws Exception {
+		File destFile = folder.newFile("jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setAppend(false);
+		RuntimeData data = new RuntimeData();
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 1)
+				.getProbes()[0] = true;
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		data.startContext("test1");
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 1)
+				.getProbes()[0] = true;
+		controller.writeContextData();
+		data.startContext("test2");
+		controller.writeContextData();
+		controller.writeExecutionData(false);
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		// append=false still applies to the destination file:
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(destFile);
+		assertEquals(Collections.singleton("<none>"), getSessionIds(loader));
+		assertTrue(
+				loader.getExecutionDataStore().get(0x12345678).getProbes()[0]);
+
+		loader = new ExecFileLoader();
+		loader.load(new File(folder.getRoot(), "jacoco-contexts.exec"));
+		assertEquals(new HashSet<String>(Arrays.asList("test1", "test2")),
+				getSessionIds(loader));
+	}
+
+	@Test
+	public void testContextFileIsReplacedWithoutAppend() throws Exception {
+		File destFile = folder.newFile("jacoco.exec");
+		File contextFile = folder.newFile("jacoco-contexts.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setAppend(false);
+		RuntimeData data = new RuntimeData();
+
+		for (String id : Arrays.asList("run1", "run2")) {
+			FileOutput controller = new FileOutput();
+			controller.startup(options, data);
+			data.startContext(id);
+			controller.writeContextData();
+			controller.shutdown();
+		}
+
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(contextFile);
+		assertEquals(Collections.singleton("run2"), getSessionIds(loader));
+	}
+
+	@Test
+	public void testContextDataIsNotRotated() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setRotate(true);
+		options.setMaxFiles(1);
+		RuntimeData data = new RuntimeData();
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		for (int i = 0; i < 3; i++) {
+			data.startContext("test" + i);
+			controller.writeContextData();
+		}
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		final String[] files = folder.getRoot().list();
+		assertEquals(2, files.length);
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(new File(folder.getRoot(), "jacoco-contexts.exec"));
+		assertEquals(
+				new HashSet<String>(Arrays.asList("test0", "test1", "test2")),
+				getSessionIds(loader));
+	}
+
 	@Test(expected = IOException.class)
 	public void testInvalidDestFile() throws Exception {
 		AgentOptions options = new AgentOptions();
@@ -72,4 +185,64 @@ public class FileOutputTest {
 		controller.startup(options, new RuntimeData());
 	}
 
+	@Test
+	public void testRotate() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setRotate(true);
+		RuntimeData data = new RuntimeData();
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 1)
+				.getProbes()[0] = true;
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		controller.writeExecutionData(false);
+		controller.writeExecutionData(false);
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		final String[] files = folder.getRoot().list();
+		assertEquals(3, files.length);
+		for (final String name : files) {
+			assertTrue(name,
+					name.matches("jacoco-\\d{8}-\\d{6}-\\d{3}\\.exec"));
+			final ExecFileLoader loader = new ExecFileLoader();
+			loader.load(new File(folder.getRoot(), name));
+			assertTrue(loader.getExecutionDataStore().get(0x12345678)
+					.getProbes()[0]);
+		}
+	}
+
+	@Test
+	public void testRotateMaxFiles() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setRotate(true);
+		options.setMaxFiles(2);
+		File other = folder.newFile("jacoco-other");
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, new RuntimeData());
+		final Set<String> names = new HashSet<String>();
+		for (int i = 0; i < 5; i++) {
+			controller.writeExecutionData(false);
+			names.clear();
+			names.addAll(Arrays.asList(folder.getRoot().list()));
+			assertEquals(Math.min(i + 1, 2) + 1, names.size());
+		}
+		controller.shutdown();
+
+		assertTrue(other.exists());
+	}
+
+	private static Set<String> getSessionIds(final ExecFileLoader loader) {
+		final Set<String> ids = new HashSet<String>();
+		for (SessionInfo info : loader.getSessionInfoStore().getInfos()) {
+			ids.add(info.getId());
+		}
+		return ids;
+	}
+
 }
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link SpoolFile}.
+ */
+public class SpoolFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	@Before
+	public void setup() {
+		file = new File(folder.getRoot(), "spool.exec");
+	}
+
+	@Test
+	public void read_should_return_null_for_empty_file() throws IOException {
+		assertNull(new SpoolFile(file, 1000).read());
+	}
+
+	@Test
+	public void discard_should_keep_data_appended_after_read()
+			throws IOException {
+		final SpoolFile spool = new SpoolFile(file, 1000);
+		final byte[] first = createData(1, new boolean[] { true, false });
+		final byte[] second = createData(2, new boolean[] { false, true });
+		spool.append(first);
+
+		final int generation = spool.getGeneration();
+		final byte[] content = spool.read();
+		spool.append(second);
+		spool.discard(content.length, generation);
+
+		assertArrayEquals(second, spool.read());
+	}
+
+	@Test
+	public void discard_should_keep_content_merged_after_read()
+			throws IOException {
+		final byte[] first = createData(1, new boolean[] { true, false });
+		final byte[] second = createData(1, new boolean[] { false, true });
+		// Second append exceeds the limit and merges the content:
+		final SpoolFile spool = new SpoolFile(file, first.length + 1);
+		spool.append(first);
+
+		final int generation = spool.getGeneration();
+		final byte[] content = spool.read();
+		spool.append(second);
+		spool.discard(content.length, generation);
+
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(new ByteArrayInputStream(spool.read()));
+		assertArrayEquals(new boolean[] { true, true },
+				loader.getExecutionDataStore().get(1).getProbes());
+	}
+
+	@Test
+	public void discard_should_delete_file_when_all_data_was_sent()
+			throws IOException {
+		final SpoolFile spool = new SpoolFile(file, 1000);
+		spool.append(createData(1, new boolean[] { true }));
+
+		final int generation = spool.getGeneration();
+		spool.discard(spool.read().length, generation);
+
+		assertNull(spool.read());
+		assertFalse(file.exists());
+	}
+
+	private static byte[] createData(final long id, final boolean[] probes)
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
+		writer.visitClassExecution(new ExecutionData(id, "Foo", probes));
+		writer.flush();
+		return buffer.toByteArray();
+	}
+
+}
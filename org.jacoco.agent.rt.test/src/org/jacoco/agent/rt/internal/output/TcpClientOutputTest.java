@@ -15,8 +15,12 @@ package org.jacoco.agent.rt.internal.output;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.ConnectException;
 import java.net.Socket;
 import java.util.List;
 
@@ -30,13 +34,18 @@ import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 import org.jacoco.core.runtime.RuntimeData;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Unit tests for {@link TcpClientOutput}.
  */
 public class TcpClientOutputTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private ExceptionRecorder logger;
 
 	private IAgentOutput controller;
@@ -120,4 +129,124 @@ public class TcpClientOutputTest {
 		controller.shutdown();
 	}
 
+	@Test
+	public void should_spool_data_while_disconnected_and_replay_on_reconnect()
+			throws Exception {
+		controller.shutdown();
+		logger.assertNoException();
+
+		final MockSocketConnection con = new MockSocketConnection();
+		final boolean[] available = new boolean[1];
+		final IAgentOutput client = new TcpClientOutput(logger) {
+			@Override
+			protected Socket createSocket(AgentOptions options)
+					throws IOException {
+				synchronized (available) {
+					if (!available[0]) {
+						throw new ConnectException("Connection refused");
+					}
+				}
+				return con.getSocketA();
+			}
+		};
+		final File spoolfile = new File(folder.getRoot(), "spool.exec");
+		final AgentOptions options = new AgentOptions();
+		options.setReconnectDelay(10);
+		options.setSpoolFile(spoolfile.getPath());
+		client.startup(options, data);
+		logger.assertException(ConnectException.class, "Connection refused");
+		logger.clear();
+
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0] = true;
+		client.writeExecutionData(false);
+		awaitFile(spoolfile, true);
+
+		synchronized (available) {
+			available[0] = true;
+		}
+		final RemoteControlReader reader = new RemoteControlReader(
+				con.getSocketB().getInputStream());
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		reader.setExecutionDataVisitor(execStore);
+		reader.setSessionInfoVisitor(new SessionInfoStore());
+		assertTrue(reader.read());
+
+		assertEquals("Foo", execStore.get(0x12345678).getName());
+		awaitFile(spoolfile, false);
+		client.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void shutdown_should_report_data_which_could_not_be_sent()
+			throws Exception {
+		controller.shutdown();
+
+		final IAgentOutput client = new TcpClientOutput(logger) {
+			@Override
+			protected Socket createSocket(AgentOptions options)
+					throws IOException {
+				throw new ConnectException("Connection refused");
+			}
+		};
+		final AgentOptions options = new AgentOptions();
+		options.setShutdownTimeout(100);
+		client.startup(options, data);
+		logger.clear();
+		client.writeExecutionData(false);
+
+		try {
+			client.shutdown();
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Not connected, execution data discarded.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void should_discard_oldest_dump_when_buffer_is_full()
+			throws Exception {
+		controller.shutdown();
+
+		final IAgentOutput client = new TcpClientOutput(logger) {
+			@Override
+			protected Socket createSocket(AgentOptions options)
+					throws IOException {
+				throw new ConnectException("Connection refused");
+			}
+		};
+		final AgentOptions options = new AgentOptions();
+		options.setSpoolLimit(1);
+		options.setShutdownTimeout(100);
+		client.startup(options, data);
+		logger.clear();
+
+		client.writeExecutionData(false);
+		logger.assertNoException();
+		client.writeExecutionData(false);
+		logger.assertException(IOException.class,
+				"Output buffer limit exceeded, 1 pending execution data dumps discarded.");
+
+		try {
+			client.shutdown();
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Not connected, execution data discarded.",
+					e.getMessage());
+		}
+	}
+
+	private static void awaitFile(File file, boolean exists)
+			throws InterruptedException {
+		final long end = System.currentTimeMillis() + 5000;
+		while (file.exists() != exists) {
+			if (System.currentTimeMillis() > end) {
+				fail("Timeout waiting for " + file);
+			}
+			Thread.sleep(10);
+		}
+	}
+
 }
@@ -14,14 +14,17 @@ package org.jacoco.agent.rt.internal.output;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.data.SessionInfo;
@@ -197,6 +200,55 @@ public class TcpConnectionTest extends ExecutorTestBase {
 				mockConnection.getSocketB().getInputStream().available());
 	}
 
+	@Test
+	public void testLocalContextWithoutInit() throws Exception {
+		data.startContext("test1");
+		final TcpConnection con = new TcpConnection(mockConnection.getSocketA(),
+				data);
+		// Must not write any data as we're not initialized:
+		con.writeContextData();
+
+		assertEquals(0,
+				mockConnection.getSocketB().getInputStream().available());
+		assertNull(data.getContextId());
+	}
+
+	@Test
+	public void send_should_keep_name_table_of_compressed_connection()
+			throws Exception {
+		data.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes()[0] = true;
+		new RemoteControlWriter(mockConnection.getSocketB().getOutputStream());
+		final TcpConnection con = new TcpConnection(mockConnection.getSocketA(),
+				data, true);
+		con.init();
+		final RemoteControlReader remoteReader = new RemoteControlReader(
+				mockConnection.getSocketB().getInputStream());
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		remoteReader.setSessionInfoVisitor(new SessionInfoStore());
+
+		con.writeExecutionData(false);
+		assertTrue(remoteReader.read());
+
+		final ByteArrayOutputStream pushed = new ByteArrayOutputStream();
+		final ExecutionDataWriter pushedWriter = new ExecutionDataWriter(pushed,
+				true);
+		pushedWriter.visitClassExecution(
+				new ExecutionData(2, "Bar", new boolean[] { true }));
+		pushedWriter.flush();
+		con.send(pushed.toByteArray());
+		assertTrue(remoteReader.read());
+
+		data.getExecutionData(Long.valueOf(3), "Baz", 1).getProbes()[0] = true;
+		con.writeExecutionData(false);
+		assertTrue(remoteReader.read());
+
+		assertEquals("Foo", execStore.get(1).getName());
+		assertEquals("Bar", execStore.get(2).getName());
+		assertEquals("Baz", execStore.get(3).getName());
+		con.close();
+	}
+
 	private void readAndAssertData() throws IOException {
 		final RemoteControlReader remoteReader = new RemoteControlReader(
 				mockConnection.getSocketB().getInputStream());
@@ -68,4 +68,27 @@ public interface IAgent {
 	 */
 	void dump(boolean reset) throws IOException;
 
+	/**
+	 * Starts a new coverage context, e.g. for a single test. All coverage
+	 * recorded until the next call of {@link #endContext()} is attributed to
+	 * this context. The overall execution data is not affected by contexts.
+	 *
+	 * @param id
+	 *            identifier of the context, e.g. the name of the test
+	 */
+	void startContext(String id);
+
+	/**
+	 * Ends the current coverage context and writes the execution data of all
+	 * classes executed within this context through the configured output. The
+	 * data is tagged with a session info block carrying the identifier of the
+	 * context.
+	 *
+	 * @throws IOException
+	 *             if the output can't write execution data
+	 * @throws IllegalStateException
+	 *             if no context has been started
+	 */
+	void endContext() throws IOException, IllegalStateException;
+
 }
@@ -89,6 +89,8 @@ public class Agent implements IAgent {
 
 	private Callable<Void> jmxRegistration;
 
+	private PeriodicDump periodicDump;
+
 	/**
 	 * Creates a new agent with the given agent options.
 	 *
@@ -130,6 +132,11 @@ public class Agent implements IAgent {
 			if (options.getJmx()) {
 				jmxRegistration = new JmxRegistration(this);
 			}
+			if (options.getDumpInterval() > 0) {
+				periodicDump = new PeriodicDump(this, options.getDumpInterval(),
+						logger);
+				periodicDump.start();
+			}
 		} catch (final Exception e) {
 			logger.logExeption(e);
 			throw e;
@@ -141,6 +148,9 @@ public class Agent implements IAgent {
 	 */
 	public void shutdown() {
 		try {
+			if (periodicDump != null) {
+				periodicDump.stop();
+			}
 			if (options.getDumpOnExit()) {
 				output.writeExecutionData(false);
 			}
@@ -208,7 +218,7 @@ public class Agent implements IAgent {
 		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 		try {
 			final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
-			data.collect(writer, writer, reset);
+			data.collectSnapshot(writer, writer, reset);
 		} catch (final IOException e) {
 			// Must not happen with ByteArrayOutputStream
 			throw new AssertionError(e);
@@ -220,4 +230,12 @@ public class Agent implements IAgent {
 		output.writeExecutionData(reset);
 	}
 
+	public void startContext(final String id) {
+		data.startContext(id);
+	}
+
+	public void endContext() throws IOException {
+		output.writeContextData();
+	}
+
 }
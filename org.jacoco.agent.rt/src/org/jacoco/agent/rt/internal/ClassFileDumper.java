@@ -12,66 +12,288 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.internal.data.CRC64;
 
 /**
- * Internal dumper for class files.
+ * Internal dumper for class files. Class files are handed over to a background
+ * thread which writes them either as individual files or into a JAR archive in
+ * the dump location. If the background thread can't keep up the calling threads
+ * are blocked. After shutdown class files are written directly as individual
+ * files, as the archive has been closed.
  */
 class ClassFileDumper {
 
+	/** Maximum number of class files waiting to be written */
+	private static final int QUEUE_CAPACITY = 1024;
+
+	private static final Dump END = new Dump(null, null);
+
 	private final File location;
 
+	private final boolean archive;
+
+	private final IExceptionLogger logger;
+
+	private final BlockingQueue<Dump> queue = new ArrayBlockingQueue<Dump>(
+			QUEUE_CAPACITY);
+
+	private volatile Thread worker;
+
+	private boolean shutdown;
+
+	/** Number of class files which are currently added to the queue */
+	private int enqueuing;
+
+	/**
+	 * Lock for the output files. The monitor of this instance is only held
+	 * briefly by threads enqueuing class files and never while writing.
+	 */
+	private final Object outputLock = new Object();
+
+	/** Current archive or <code>null</code> if not opened yet */
+	private ZipOutputStream zip;
+
+	/** Whether the archive has been closed on shutdown */
+	private boolean closed;
+
+	/** Names of the entries written to the current archive */
+	private final Set<String> entries = new HashSet<String>();
+
 	/**
 	 * Create a new dumper for the given location.
 	 *
 	 * @param location
 	 *            relative path to dump directory. <code>null</code> if no dumps
 	 *            should be written
+	 * @param archive
+	 *            if <code>true</code> class files are written to a JAR archive
+	 *            in the dump directory
+	 * @param logger
+	 *            logger for problems while writing in background
 	 */
-	ClassFileDumper(final String location) {
+	ClassFileDumper(final String location, final boolean archive,
+			final IExceptionLogger logger) {
 		if (location == null) {
 			this.location = null;
 		} else {
 			this.location = new File(location);
 		}
+		this.archive = archive;
+		this.logger = logger;
 	}
 
 	/**
 	 * Dumps the given binary content under the given name if a non-
-	 * <code>null</code> location has been specified.
+	 * <code>null</code> location has been specified. The content is written
+	 * asynchronously and must not be modified afterwards.
 	 *
 	 * @param name
 	 *            qualified class name in VM notation
 	 * @param contents
 	 *            binary contents
 	 * @throws IOException
-	 *             in case of problems while dumping the file
+	 *             in case of problems while dumping the file synchronously
 	 */
 	void dump(final String name, final byte[] contents) throws IOException {
-		if (location != null) {
-			final File outputdir;
-			final String localname;
-			final int pkgpos = name.lastIndexOf('/');
-			if (pkgpos != -1) {
-				outputdir = new File(location, name.substring(0, pkgpos));
-				localname = name.substring(pkgpos + 1);
-			} else {
-				outputdir = location;
-				localname = name;
+		if (location == null) {
+			return;
+		}
+		final Dump dump = new Dump(name, contents);
+		// Classes loaded by the writer itself and after shutdown are written
+		// directly:
+		if (Thread.currentThread() == worker || !startEnqueue()) {
+			write(dump);
+			flush();
+			return;
+		}
+		try {
+			queue.put(dump);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			write(dump);
+		} finally {
+			endEnqueue();
+		}
+	}
+
+	/**
+	 * Starts the background thread if not running yet and registers the calling
+	 * thread, so that shutdown waits until its class file has been added to the
+	 * queue.
+	 *
+	 * @return <code>false</code> if the dumper has been shut down already
+	 */
+	private synchronized boolean startEnqueue() {
+		if (shutdown) {
+			return false;
+		}
+		enqueuing++;
+		if (worker == null) {
+			final Thread t = new Thread(new Runnable() {
+				public void run() {
+					work();
+				}
+			});
+			t.setName(getClass().getName());
+			t.setDaemon(true);
+			worker = t;
+			t.start();
+		}
+		return true;
+	}
+
+	private synchronized void endEnqueue() {
+		enqueuing--;
+		notifyAll();
+	}
+
+	private void work() {
+		while (true) {
+			final Dump dump;
+			try {
+				dump = queue.take();
+			} catch (final InterruptedException e) {
+				return;
+			}
+			if (dump == END) {
+				return;
 			}
+			try {
+				write(dump);
+				if (queue.isEmpty()) {
+					flush();
+				}
+			} catch (final IOException e) {
+				logger.logExeption(e);
+			}
+		}
+	}
+
+	/**
+	 * Writes all pending class files and closes the archive. Class files dumped
+	 * afterwards are written directly.
+	 *
+	 * @throws IOException
+	 *             in case of problems while closing the archive
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the background thread
+	 */
+	void shutdown() throws IOException, InterruptedException {
+		final Thread t;
+		synchronized (this) {
+			shutdown = true;
+			// Class files must be queued before the end marker:
+			while (enqueuing > 0) {
+				wait();
+			}
+			t = worker;
+		}
+		if (t != null) {
+			queue.put(END);
+			t.join();
+		}
+		close();
+	}
+
+	private void write(final Dump dump) throws IOException {
+		synchronized (outputLock) {
+			writeUnlocked(dump);
+		}
+	}
+
+	private void writeUnlocked(final Dump dump) throws IOException {
+		final String localname;
+		final String pkgpath;
+		final int pkgpos = dump.name.lastIndexOf('/');
+		if (pkgpos != -1) {
+			pkgpath = dump.name.substring(0, pkgpos);
+			localname = dump.name.substring(pkgpos + 1);
+		} else {
+			pkgpath = null;
+			localname = dump.name;
+		}
+		final Long id = Long.valueOf(CRC64.classId(dump.contents));
+		final String filename = String.format("%s.%016x.class", localname, id);
+		if (archive && !closed) {
+			writeEntry(pkgpath == null ? filename : pkgpath + "/" + filename,
+					dump.contents);
+		} else {
+			final File outputdir = pkgpath == null ? location
+					: new File(location, pkgpath);
 			outputdir.mkdirs();
-			final Long id = Long.valueOf(CRC64.classId(contents));
-			final File file = new File(outputdir,
-					String.format("%s.%016x.class", localname, id));
-			final OutputStream out = new FileOutputStream(file);
-			out.write(contents);
-			out.close();
+			final OutputStream out = new FileOutputStream(
+					new File(outputdir, filename));
+			try {
+				out.write(dump.contents);
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+	private void writeEntry(final String name, final byte[] contents)
+			throws IOException {
+		if (zip == null) {
+			location.mkdirs();
+			final File file = File.createTempFile("classes", ".jar", location);
+			zip = new ZipOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file)));
+			entries.clear();
+		}
+		// Identical class files might be loaded by different class loaders
+		if (entries.add(name)) {
+			zip.putNextEntry(new ZipEntry(name));
+			zip.write(contents);
+			zip.closeEntry();
 		}
 	}
 
+	/**
+	 * Writes buffered content to the archive file, so that all entries written
+	 * so far can be read even if the VM terminates before the archive is
+	 * closed.
+	 */
+	private void flush() throws IOException {
+		synchronized (outputLock) {
+			if (zip != null) {
+				zip.flush();
+			}
+		}
+	}
+
+	private void close() throws IOException {
+		synchronized (outputLock) {
+			closed = true;
+			if (zip != null) {
+				zip.close();
+				zip = null;
+			}
+		}
+	}
+
+	private static class Dump {
+
+		final String name;
+
+		final byte[] contents;
+
+		Dump(final String name, final byte[] contents) {
+			this.name = name;
+			this.contents = contents;
+		}
+
+	}
+
 }
@@ -16,6 +16,8 @@ import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.runtime.AgentOptions;
@@ -50,6 +52,24 @@ public class CoverageTransformer implements ClassFileTransformer {
 
 	private final boolean inclNoLocationClasses;
 
+	/**
+	 * Cached results of the <code>exclclassloader</code> option per class
+	 * loader type name. Names are used as keys to not prevent unloading of the
+	 * class loaders.
+	 */
+	private final Map<String, Boolean> loaderDecisions = new ConcurrentHashMap<String, Boolean>();
+
+	/**
+	 * Cached results of the <code>includes</code> and <code>excludes</code>
+	 * options per package. Packages which need to be decided per class are
+	 * cached as well.
+	 */
+	private final Map<String, Decision> packageDecisions = new ConcurrentHashMap<String, Decision>();
+
+	private enum Decision {
+		INCLUDE, EXCLUDE, PER_CLASS
+	}
+
 	/**
 	 * New transformer with the given delegates.
 	 *
@@ -68,7 +88,8 @@ public class CoverageTransformer implements ClassFileTransformer {
 		includes = new WildcardMatcher(toVMName(options.getIncludes()));
 		excludes = new WildcardMatcher(toVMName(options.getExcludes()));
 		exclClassloader = new WildcardMatcher(options.getExclClassloader());
-		classFileDumper = new ClassFileDumper(options.getClassDumpDir());
+		classFileDumper = new ClassFileDumper(options.getClassDumpDir(),
+				options.getClassDumpArchive(), logger);
 		inclBootstrapClasses = options.getInclBootstrapClasses();
 		inclNoLocationClasses = options.getInclNoLocationClasses();
 	}
@@ -100,6 +121,18 @@ public class CoverageTransformer implements ClassFileTransformer {
 		}
 	}
 
+	/**
+	 * Writes all pending class file dumps. Must be called before the VM
+	 * terminates.
+	 */
+	public void shutdown() {
+		try {
+			classFileDumper.shutdown();
+		} catch (final Exception e) {
+			logger.logExeption(e);
+		}
+	}
+
 	/**
 	 * Checks whether this class should be instrumented.
 	 *
@@ -122,16 +155,57 @@ public class CoverageTransformer implements ClassFileTransformer {
 					&& !hasSourceLocation(protectionDomain)) {
 				return false;
 			}
-			if (exclClassloader.matches(loader.getClass().getName())) {
+			if (isExcluded(loader.getClass().getName())) {
 				return false;
 			}
 		}
 
-		return !classname.startsWith(AGENT_PREFIX) &&
+		if (classname.startsWith(AGENT_PREFIX)) {
+			return false;
+		}
 
-				includes.matches(classname) &&
+		switch (getDecision(classname)) {
+		case INCLUDE:
+			return true;
+		case EXCLUDE:
+			return false;
+		default:
+			return includes.matches(classname) && !excludes.matches(classname);
+		}
+	}
 
-				!excludes.matches(classname);
+	private boolean isExcluded(final String loaderType) {
+		Boolean excluded = loaderDecisions.get(loaderType);
+		if (excluded == null) {
+			excluded = Boolean.valueOf(exclClassloader.matches(loaderType));
+			loaderDecisions.put(loaderType, excluded);
+		}
+		return excluded.booleanValue();
+	}
+
+	/**
+	 * Returns the decision for the package of the given class. If the
+	 * <code>includes</code> and <code>excludes</code> expressions give the same
+	 * result for all classes of the package it is reused for subsequent
+	 * classes.
+	 */
+	private Decision getDecision(final String classname) {
+		final String packagename = classname.substring(0,
+				classname.lastIndexOf('/') + 1);
+		Decision decision = packageDecisions.get(packagename);
+		if (decision == null) {
+			if (!includes.matchesAnyWithPrefix(packagename)
+					|| excludes.matchesAllWithPrefix(packagename)) {
+				decision = Decision.EXCLUDE;
+			} else if (includes.matchesAllWithPrefix(packagename)
+					&& !excludes.matchesAnyWithPrefix(packagename)) {
+				decision = Decision.INCLUDE;
+			} else {
+				decision = Decision.PER_CLASS;
+			}
+			packageDecisions.put(packagename, decision);
+		}
+		return decision;
 	}
 
 	/**
@@ -57,9 +57,8 @@ public final class Offline {
 	 */
 	public static boolean[] getProbes(final long classid,
 			final String classname, final int probecount) {
-		return getRuntimeData()
-				.getExecutionData(Long.valueOf(classid), classname, probecount)
-				.getProbes();
+		return getRuntimeData().getProbes(Long.valueOf(classid), classname,
+				probecount);
 	}
 
 }
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.IOException;
+
+import org.jacoco.agent.rt.IAgent;
+
+/**
+ * Background thread which dumps the execution data of an agent in a fixed
+ * interval. Dumps which are overdue, e.g. because a previous dump took longer
+ * than the interval, are skipped.
+ */
+class PeriodicDump {
+
+	private final IAgent agent;
+
+	private final long interval;
+
+	private final IExceptionLogger logger;
+
+	private final Object lock = new Object();
+
+	private boolean stopped;
+
+	private Thread thread;
+
+	/**
+	 * Creates a new periodic dump which is not started yet.
+	 *
+	 * @param agent
+	 *            agent to dump
+	 * @param interval
+	 *            interval in milliseconds
+	 * @param logger
+	 *            logger for exceptions during dumps
+	 */
+	PeriodicDump(final IAgent agent, final long interval,
+			final IExceptionLogger logger) {
+		this.agent = agent;
+		this.interval = interval;
+		this.logger = logger;
+	}
+
+	/**
+	 * Starts the background thread.
+	 */
+	void start() {
+		thread = new Thread(new Runnable() {
+			public void run() {
+				work();
+			}
+		});
+		thread.setName(getClass().getName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the background thread and waits for a dump which is currently in
+	 * progress.
+	 *
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	void stop() throws InterruptedException {
+		synchronized (lock) {
+			stopped = true;
+			lock.notifyAll();
+		}
+		thread.join();
+	}
+
+	private void work() {
+		long next = System.currentTimeMillis() + interval;
+		while (true) {
+			synchronized (lock) {
+				while (!stopped) {
+					final long remaining = next - System.currentTimeMillis();
+					if (remaining <= 0) {
+						break;
+					}
+					try {
+						lock.wait(remaining);
+					} catch (final InterruptedException e) {
+						return;
+					}
+				}
+				if (stopped) {
+					return;
+				}
+			}
+			try {
+				agent.dump(false);
+			} catch (final IOException e) {
+				logger.logExeption(e);
+			}
+			final long now = System.currentTimeMillis();
+			next += interval;
+			if (next <= now) {
+				next = now + interval;
+			}
+		}
+	}
+
+}
@@ -51,8 +51,17 @@ public final class PreMain {
 
 		final IRuntime runtime = createRuntime(inst);
 		runtime.startup(agent.getData());
-		inst.addTransformer(new CoverageTransformer(runtime, agentOptions,
-				IExceptionLogger.SYSTEM_ERR));
+		final CoverageTransformer transformer = new CoverageTransformer(runtime,
+				agentOptions, IExceptionLogger.SYSTEM_ERR);
+		inst.addTransformer(transformer);
+		if (agentOptions.getClassDumpDir() != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					transformer.shutdown();
+				}
+			});
+		}
 	}
 
 	private static IRuntime createRuntime(final Instrumentation inst)
@@ -12,10 +12,17 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal.output;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
 
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.AgentOptions;
@@ -27,34 +34,83 @@ import org.jacoco.core.runtime.RuntimeData;
  * <ul>
  * <li>destfile</li>
  * <li>append</li>
+ * <li>compress</li>
+ * <li>rotate</li>
+ * <li>maxfiles</li>
  * </ul>
+ *
+ * Execution data is copied in memory first, so the file is written without
+ * blocking the instrumented application. The execution data of coverage
+ * contexts is written to a separate file next to the destination file, which is
+ * neither rotated nor deleted.
  */
 public class FileOutput implements IAgentOutput {
 
+	private static final String TIMESTAMP_FORMAT = "yyyyMMdd-HHmmss-SSS";
+
 	private RuntimeData data;
 
 	private File destFile;
 
 	private boolean append;
 
+	private boolean compress;
+
+	private boolean rotate;
+
+	private int maxFiles;
+
+	/** Time stamp of the last rotated file */
+	private long lastRotation;
+
+	/** Whether context data has been written to the context file already */
+	private boolean contextFileStarted;
+
 	public final void startup(final AgentOptions options,
 			final RuntimeData data) throws IOException {
 		this.data = data;
 		this.destFile = new File(options.getDestfile()).getAbsoluteFile();
 		this.append = options.getAppend();
+		this.compress = options.getCompress();
+		this.rotate = options.getRotate();
+		this.maxFiles = options.getMaxFiles();
 		final File folder = destFile.getParentFile();
 		if (folder != null) {
 			folder.mkdirs();
 		}
-		// Make sure we can write to the file:
-		openFile().close();
+		if (!rotate) {
+			// Make sure we can write to the file:
+			openFile(destFile, append).close();
+		}
 	}
 
 	public void writeExecutionData(final boolean reset) throws IOException {
-		final OutputStream output = openFile();
+		final OutputStream output;
+		if (rotate) {
+			output = new FileOutputStream(createRotatedFile());
+		} else {
+			output = openFile(destFile, append);
+		}
 		try {
-			final ExecutionDataWriter writer = new ExecutionDataWriter(output);
-			data.collect(writer, writer, reset);
+			final ExecutionDataWriter writer = new ExecutionDataWriter(
+					new BufferedOutputStream(output), compress);
+			data.collectSnapshot(writer, writer, reset);
+			writer.flush();
+		} finally {
+			output.close();
+		}
+		if (rotate && maxFiles > 0) {
+			deleteRotatedFiles();
+		}
+	}
+
+	public void writeContextData() throws IOException {
+		final OutputStream output = openContextFile();
+		try {
+			final ExecutionDataWriter writer = new ExecutionDataWriter(
+					new BufferedOutputStream(output), compress);
+			data.endContext(writer, writer);
+			writer.flush();
 		} finally {
 			output.close();
 		}
@@ -64,11 +120,96 @@ public class FileOutput implements IAgentOutput {
 		// Nothing to do
 	}
 
-	private OutputStream openFile() throws IOException {
-		final FileOutputStream file = new FileOutputStream(destFile, append);
+	/**
+	 * Opens the context file. The first context of this agent truncates the
+	 * file unless the <code>append</code> option is set.
+	 */
+	private synchronized OutputStream openContextFile() throws IOException {
+		final OutputStream output = openFile(getContextFile(),
+				append || contextFileStarted);
+		contextFileStarted = true;
+		return output;
+	}
+
+	private static OutputStream openFile(final File file, final boolean append)
+			throws IOException {
+		final FileOutputStream output = new FileOutputStream(file, append);
 		// Avoid concurrent writes from different agents running in parallel:
-		file.getChannel().lock();
-		return file;
+		output.getChannel().lock();
+		return output;
+	}
+
+	/**
+	 * Creates a new file next to the destination file with a UTC time stamp
+	 * appended to the name. The time stamp is incremented if the file already
+	 * exists, e.g. from a different agent.
+	 */
+	private synchronized File createRotatedFile() throws IOException {
+		final SimpleDateFormat format = new SimpleDateFormat(TIMESTAMP_FORMAT);
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		long time = Math.max(System.currentTimeMillis(), lastRotation + 1);
+		while (true) {
+			final File file = getRotatedFile(format.format(new Date(time)));
+			if (file.createNewFile()) {
+				lastRotation = time;
+				return file;
+			}
+			time++;
+		}
+	}
+
+	private File getRotatedFile(final String timestamp) {
+		return getSiblingFile(timestamp);
+	}
+
+	/**
+	 * Returns the file for context data next to the destination file, e.g.
+	 * <code>jacoco-contexts.exec</code> for <code>jacoco.exec</code>.
+	 *
+	 * @return file for context data
+	 */
+	File getContextFile() {
+		return getSiblingFile("contexts");
+	}
+
+	private File getSiblingFile(final String qualifier) {
+		final String name = destFile.getName();
+		final int ext = name.lastIndexOf('.');
+		final String sibling;
+		if (ext > 0) {
+			sibling = name.substring(0, ext) + "-" + qualifier
+					+ name.substring(ext);
+		} else {
+			sibling = name + "-" + qualifier;
+		}
+		return new File(destFile.getParentFile(), sibling);
+	}
+
+	/**
+	 * Deletes the oldest rotated files exceeding the maximum number of files.
+	 * As the time stamp is part of the file names they can be ordered by name.
+	 */
+	private synchronized void deleteRotatedFiles() {
+		final String pattern = getRotatedFile(TIMESTAMP_FORMAT).getName();
+		final String prefix = pattern.substring(0,
+				pattern.indexOf(TIMESTAMP_FORMAT));
+		final String suffix = pattern
+				.substring(prefix.length() + TIMESTAMP_FORMAT.length());
+		final List<String> names = new ArrayList<String>();
+		final String[] files = destFile.getParentFile().list();
+		if (files == null) {
+			return;
+		}
+		for (final String name : files) {
+			if (name.length() == pattern.length() && name.startsWith(prefix)
+					&& name.endsWith(suffix)) {
+				names.add(name);
+			}
+		}
+		Collections.sort(names);
+		for (int i = 0; i < names.size() - maxFiles; i++) {
+			new File(destFile.getParentFile(), names.get(i)).delete();
+		}
 	}
 
 }
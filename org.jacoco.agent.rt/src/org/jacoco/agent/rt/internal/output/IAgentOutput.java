@@ -55,4 +55,18 @@ public interface IAgentOutput {
 	 */
 	void writeExecutionData(boolean reset) throws IOException;
 
+	/**
+	 * Ends the current coverage context of the runtime and writes the execution
+	 * data recorded within this context to a location determined by the agent
+	 * controller. If the controller can't deliver the data it is only kept as
+	 * part of the overall execution data. This method should only be called by
+	 * the Agent
+	 *
+	 * @throws IOException
+	 *             in case writing fails
+	 * @see RuntimeData#endContext(org.jacoco.core.data.IExecutionDataVisitor,
+	 *      org.jacoco.core.data.ISessionInfoVisitor)
+	 */
+	void writeContextData() throws IOException;
+
 }
@@ -20,15 +20,21 @@ import org.jacoco.core.runtime.RuntimeData;
  */
 public class NoneOutput implements IAgentOutput {
 
+	private RuntimeData data;
+
 	public final void startup(final AgentOptions options,
 			final RuntimeData data) {
-		// Nothing to do
+		this.data = data;
 	}
 
 	public void writeExecutionData(final boolean reset) {
 		// Nothing to do
 	}
 
+	public void writeContextData() {
+		data.endContext();
+	}
+
 	public void shutdown() {
 		// Nothing to do
 	}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.jacoco.core.tools.ExecFileLoader;
+
+/**
+ * Local file which buffers execution data while it can't be sent. The size of
+ * the file is limited: If new data would exceed the limit, the existing content
+ * is merged with the new data. Only if the merged data still exceeds the limit
+ * the new data is rejected.
+ *
+ * Content which has been sent is removed with {@link #discard(int, int)}. As
+ * merging rewrites the file, every merge starts a new generation of the
+ * content. Sent bytes are only removed if the generation has not changed since
+ * the content was read, otherwise they are sent again, which is harmless as
+ * merging execution data is idempotent.
+ */
+class SpoolFile {
+
+	private final File file;
+
+	private final long limit;
+
+	private int generation;
+
+	/**
+	 * Creates a spool file at the given location.
+	 *
+	 * @param file
+	 *            location of the file
+	 * @param limit
+	 *            maximum size of the file in bytes
+	 */
+	SpoolFile(final File file, final long limit) {
+		this.file = file;
+		this.limit = limit;
+	}
+
+	/**
+	 * Appends the given execution data.
+	 *
+	 * @param data
+	 *            execution data in execution data file format
+	 * @throws IOException
+	 *             if the data can't be written or exceeds the limit
+	 */
+	synchronized void append(final byte[] data) throws IOException {
+		if (file.length() + data.length <= limit) {
+			write(data, true);
+			return;
+		}
+		final ExecFileLoader loader = new ExecFileLoader();
+		if (file.exists()) {
+			loader.load(file);
+		}
+		loader.load(new ByteArrayInputStream(data));
+		final File tmp = new File(file.getPath() + ".tmp");
+		loader.save(tmp, false);
+		if (tmp.length() > limit) {
+			tmp.delete();
+			throw new IOException(
+					"Spool limit exceeded, execution data discarded.");
+		}
+		generation++;
+		file.delete();
+		if (!tmp.renameTo(file)) {
+			throw new IOException("Unable to rename " + tmp + ".");
+		}
+	}
+
+	/**
+	 * Returns the current generation of the content. Must be called before
+	 * {@link #read()} to be passed to {@link #discard(int, int)} later.
+	 *
+	 * @return current generation
+	 */
+	synchronized int getGeneration() {
+		return generation;
+	}
+
+	private void write(final byte[] data, final boolean append)
+			throws IOException {
+		final File folder = file.getAbsoluteFile().getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final OutputStream out = new FileOutputStream(file, append);
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads the complete content of the spool file.
+	 *
+	 * @return content or <code>null</code> if the spool file is empty
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	synchronized byte[] read() throws IOException {
+		if (!file.exists() || file.length() == 0) {
+			return null;
+		}
+		final byte[] content = new byte[(int) file.length()];
+		final InputStream in = new FileInputStream(file);
+		try {
+			int pos = 0;
+			while (pos < content.length) {
+				final int count = in.read(content, pos, content.length - pos);
+				if (count == -1) {
+					break;
+				}
+				pos += count;
+			}
+		} finally {
+			in.close();
+		}
+		return content;
+	}
+
+	/**
+	 * Removes the given number of bytes from the start of the file after they
+	 * have been sent successfully. Data appended meanwhile is preserved. If the
+	 * content has been merged since the given generation nothing is removed.
+	 *
+	 * @param count
+	 *            number of bytes to remove
+	 * @param readGeneration
+	 *            generation of the content when it has been read
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	synchronized void discard(final int count, final int readGeneration)
+			throws IOException {
+		if (generation != readGeneration) {
+			return;
+		}
+		final byte[] content = read();
+		if (content == null || content.length <= count) {
+			file.delete();
+			return;
+		}
+		final byte[] rest = new byte[content.length - count];
+		System.arraycopy(content, count, rest, 0, rest.length);
+		write(rest, false);
+	}
+
+}
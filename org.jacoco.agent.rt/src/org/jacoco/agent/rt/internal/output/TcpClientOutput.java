@@ -12,10 +12,14 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal.output;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.Socket;
+import java.util.LinkedList;
 
 import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
 
@@ -25,14 +29,45 @@ import org.jacoco.core.runtime.RuntimeData;
  * <ul>
  * <li>address</li>
  * <li>port</li>
+ * <li>reconnectdelay</li>
+ * <li>spoolfile</li>
+ * <li>spoollimit</li>
+ * <li>shutdowntimeout</li>
+ * <li>compress</li>
  * </ul>
+ *
+ * Execution data is collected in the calling thread and sent by a background
+ * thread. If the connection is lost the background thread reconnects with
+ * increasing delays. Meanwhile execution data is buffered in memory and in the
+ * spool file, if configured, and sent after the connection has been established
+ * again.
  */
 public class TcpClientOutput implements IAgentOutput {
 
+	private static final long MAX_RECONNECT_DELAY = 60000;
+
 	private final IExceptionLogger logger;
 
+	private final Object lock = new Object();
+
+	/** Collected execution data which has not been sent yet */
+	private final LinkedList<byte[]> pending = new LinkedList<byte[]>();
+
+	private int pendingBytes;
+
+	private AgentOptions options;
+
+	private RuntimeData data;
+
+	private SpoolFile spool;
+
+	/** Currently open connection or <code>null</code> */
 	private TcpConnection connection;
 
+	private Thread reader;
+
+	private boolean shutdown;
+
 	private Thread worker;
 
 	/**
@@ -47,16 +82,21 @@ public class TcpClientOutput implements IAgentOutput {
 
 	public void startup(final AgentOptions options, final RuntimeData data)
 			throws IOException {
-		final Socket socket = createSocket(options);
-		connection = new TcpConnection(socket, data);
-		connection.init();
+		this.options = options;
+		this.data = data;
+		final String spoolfile = options.getSpoolFile();
+		if (spoolfile != null) {
+			spool = new SpoolFile(new File(spoolfile), options.getSpoolLimit());
+		}
+		try {
+			connect();
+		} catch (final IOException e) {
+			// Not fatal, we try again in background
+			logger.logExeption(e);
+		}
 		worker = new Thread(new Runnable() {
 			public void run() {
-				try {
-					connection.run();
-				} catch (final IOException e) {
-					logger.logExeption(e);
-				}
+				work();
 			}
 		});
 		worker.setName(getClass().getName());
@@ -65,12 +105,266 @@ public class TcpClientOutput implements IAgentOutput {
 	}
 
 	public void shutdown() throws Exception {
-		connection.close();
-		worker.join();
+		synchronized (lock) {
+			shutdown = true;
+			lock.notifyAll();
+		}
+		final long deadline = System.currentTimeMillis()
+				+ options.getShutdownTimeout();
+		join(worker, deadline);
+		if (worker.isAlive()) {
+			// Time budget exceeded, abort current transmission
+			final TcpConnection c;
+			synchronized (lock) {
+				c = connection;
+			}
+			if (c != null) {
+				c.close();
+			}
+			spoolPending();
+		}
+		final Thread r;
+		synchronized (lock) {
+			r = reader;
+		}
+		if (r != null) {
+			join(r, deadline);
+		}
+		synchronized (lock) {
+			if (!pending.isEmpty()) {
+				throw new IOException(
+						"Not connected, execution data discarded.");
+			}
+		}
+	}
+
+	private static void join(final Thread thread, final long deadline)
+			throws InterruptedException {
+		final long remaining = deadline - System.currentTimeMillis();
+		if (remaining > 0) {
+			thread.join(remaining);
+		}
 	}
 
 	public void writeExecutionData(final boolean reset) throws IOException {
-		connection.writeExecutionData(reset);
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				options.getCompress());
+		data.collectSnapshot(writer, writer, reset);
+		writer.flush();
+		enqueue(buffer.toByteArray());
+	}
+
+	public void writeContextData() throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				options.getCompress());
+		data.endContext(writer, writer);
+		writer.flush();
+		enqueue(buffer.toByteArray());
+	}
+
+	/**
+	 * Hands the given data over to the background thread without ever blocking
+	 * the calling thread. If the buffer is full the data is written to the
+	 * spool file. Without spool file the oldest pending dumps are discarded to
+	 * make room for the new data.
+	 */
+	private void enqueue(final byte[] bytes) throws IOException {
+		final long limit = options.getSpoolLimit();
+		final boolean spill;
+		int discarded = 0;
+		synchronized (lock) {
+			spill = spool != null && pendingBytes > 0
+					&& pendingBytes + bytes.length > limit;
+			if (!spill) {
+				while (!pending.isEmpty()
+						&& pendingBytes + bytes.length > limit) {
+					pendingBytes -= pending.removeFirst().length;
+					discarded++;
+				}
+				pending.add(bytes);
+				pendingBytes += bytes.length;
+				lock.notifyAll();
+			}
+		}
+		if (spill) {
+			spool.append(bytes);
+		}
+		if (discarded > 0) {
+			logger.logExeption(new IOException(String.format(
+					"Output buffer limit exceeded, %s pending execution data dumps discarded.",
+					Integer.valueOf(discarded))));
+		}
+	}
+
+	private void work() {
+		long delay = options.getReconnectDelay();
+		while (true) {
+			final TcpConnection c;
+			final byte[] bytes;
+			synchronized (lock) {
+				while (!shutdown && connection != null && pending.isEmpty()) {
+					try {
+						lock.wait();
+					} catch (final InterruptedException e) {
+						return;
+					}
+				}
+				c = connection;
+				if (shutdown && (c == null || pending.isEmpty())) {
+					break;
+				}
+				bytes = c == null ? null : pending.removeFirst();
+			}
+			if (c == null) {
+				spoolPending();
+				if (!await(delay)) {
+					continue;
+				}
+				try {
+					connect();
+					delay = options.getReconnectDelay();
+				} catch (final IOException e) {
+					// Collector still not available
+					delay = Math.min(delay * 2,
+							Math.max(MAX_RECONNECT_DELAY, delay));
+				}
+				continue;
+			}
+			try {
+				c.send(bytes);
+				synchronized (lock) {
+					pendingBytes -= bytes.length;
+					lock.notifyAll();
+				}
+			} catch (final IOException e) {
+				synchronized (lock) {
+					// Send again after reconnect, merging is idempotent
+					pending.addFirst(bytes);
+				}
+				disconnected(c);
+			}
+		}
+		spoolPending();
+		synchronized (lock) {
+			if (connection != null) {
+				closeQuietly(connection);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the given time unless shutdown is requested. Data which is
+	 * dumped meanwhile is moved to the spool file.
+	 *
+	 * @return <code>true</code> if the full time has elapsed
+	 */
+	private boolean await(final long time) {
+		final long deadline = System.currentTimeMillis() + time;
+		while (true) {
+			synchronized (lock) {
+				if (shutdown) {
+					return false;
+				}
+				if (spool == null || pending.isEmpty()) {
+					final long remaining = deadline
+							- System.currentTimeMillis();
+					if (remaining <= 0) {
+						return true;
+					}
+					try {
+						lock.wait(remaining);
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return false;
+					}
+					continue;
+				}
+			}
+			spoolPending();
+		}
+	}
+
+	/**
+	 * Moves all pending data to the spool file, if configured.
+	 */
+	private void spoolPending() {
+		if (spool == null) {
+			return;
+		}
+		while (true) {
+			final byte[] bytes;
+			synchronized (lock) {
+				if (pending.isEmpty()) {
+					return;
+				}
+				bytes = pending.removeFirst();
+				pendingBytes -= bytes.length;
+				lock.notifyAll();
+			}
+			try {
+				spool.append(bytes);
+			} catch (final IOException e) {
+				logger.logExeption(e);
+			}
+		}
+	}
+
+	private void connect() throws IOException {
+		final Socket socket = createSocket(options);
+		final TcpConnection c = new TcpConnection(socket, data,
+				options.getCompress());
+		try {
+			c.init();
+			if (spool != null) {
+				final int generation = spool.getGeneration();
+				final byte[] spooled = spool.read();
+				if (spooled != null) {
+					c.send(spooled);
+					spool.discard(spooled.length, generation);
+				}
+			}
+		} catch (final IOException e) {
+			closeQuietly(c);
+			throw e;
+		}
+		final Thread t = new Thread(new Runnable() {
+			public void run() {
+				try {
+					c.run();
+				} catch (final IOException e) {
+					logger.logExeption(e);
+				} finally {
+					disconnected(c);
+				}
+			}
+		});
+		t.setName(getClass().getName() + ".reader");
+		t.setDaemon(true);
+		synchronized (lock) {
+			connection = c;
+			reader = t;
+		}
+		t.start();
+	}
+
+	private void disconnected(final TcpConnection c) {
+		closeQuietly(c);
+		synchronized (lock) {
+			if (connection == c) {
+				connection = null;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private static void closeQuietly(final TcpConnection c) {
+		try {
+			c.close();
+		} catch (final IOException e) {
+			// ignore
+		}
 	}
 
 	/**
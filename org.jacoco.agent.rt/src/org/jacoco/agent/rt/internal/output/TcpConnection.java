@@ -12,10 +12,13 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal.output;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
 
+import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.runtime.IRemoteCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
@@ -30,6 +33,8 @@ class TcpConnection implements IRemoteCommandVisitor {
 
 	private final Socket socket;
 
+	private final boolean compress;
+
 	private RemoteControlWriter writer;
 
 	private RemoteControlReader reader;
@@ -37,13 +42,20 @@ class TcpConnection implements IRemoteCommandVisitor {
 	private boolean initialized;
 
 	public TcpConnection(final Socket socket, final RuntimeData data) {
+		this(socket, data, false);
+	}
+
+	public TcpConnection(final Socket socket, final RuntimeData data,
+			final boolean compress) {
 		this.socket = socket;
 		this.data = data;
+		this.compress = compress;
 		this.initialized = false;
 	}
 
 	public void init() throws IOException {
-		this.writer = new RemoteControlWriter(socket.getOutputStream());
+		final OutputStream output = socket.getOutputStream();
+		this.writer = new RemoteControlWriter(output, compress);
 		this.reader = new RemoteControlReader(socket.getInputStream());
 		this.reader.setRemoteCommandVisitor(this);
 		this.initialized = true;
@@ -84,6 +96,42 @@ class TcpConnection implements IRemoteCommandVisitor {
 		}
 	}
 
+	/**
+	 * Ends the current coverage context of the runtime and writes its execution
+	 * data if the connection is already initialized and the underlying socket
+	 * is still open.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void writeContextData() throws IOException {
+		if (initialized && !socket.isClosed()) {
+			data.endContext(writer, writer);
+		} else {
+			data.endContext();
+		}
+	}
+
+	/**
+	 * Sends execution data which has been collected before. The data must be in
+	 * execution data file format and is followed by an acknowledgement like for
+	 * a dump command. The data is decoded and written again through the writer
+	 * of this connection, as its header and name table must not be mixed with
+	 * the stream of the connection.
+	 *
+	 * @param data
+	 *            execution data including the header
+	 * @throws IOException
+	 *             if the data can't be sent
+	 */
+	public synchronized void send(final byte[] data) throws IOException {
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(data));
+		reader.setSessionInfoVisitor(writer);
+		reader.setExecutionDataVisitor(writer);
+		reader.read();
+		writer.sendCmdOk();
+	}
+
 	/**
 	 * Closes the underlying socket if not closed yet.
 	 *
@@ -97,10 +145,10 @@ class TcpConnection implements IRemoteCommandVisitor {
 
 	// === IRemoteCommandVisitor ===
 
-	public void visitDumpCommand(final boolean dump, final boolean reset)
-			throws IOException {
+	public synchronized void visitDumpCommand(final boolean dump,
+			final boolean reset) throws IOException {
 		if (dump) {
-			data.collect(writer, writer, reset);
+			data.collectSnapshot(writer, writer, reset);
 		} else {
 			if (reset) {
 				data.reset();
@@ -27,10 +27,13 @@ import org.jacoco.core.runtime.RuntimeData;
  * <ul>
  * <li>address</li>
  * <li>port</li>
+ * <li>compress</li>
  * </ul>
  */
 public class TcpServerOutput implements IAgentOutput {
 
+	private RuntimeData data;
+
 	private TcpConnection connection;
 
 	private final IExceptionLogger logger;
@@ -51,6 +54,7 @@ public class TcpServerOutput implements IAgentOutput {
 
 	public void startup(final AgentOptions options, final RuntimeData data)
 			throws IOException {
+		this.data = data;
 		serverSocket = createServerSocket(options);
 		worker = new Thread(new Runnable() {
 			public void run() {
@@ -58,7 +62,8 @@ public class TcpServerOutput implements IAgentOutput {
 					try {
 						synchronized (serverSocket) {
 							connection = new TcpConnection(
-									serverSocket.accept(), data);
+									serverSocket.accept(), data,
+									options.getCompress());
 						}
 						connection.init();
 						connection.run();
@@ -93,6 +98,14 @@ public class TcpServerOutput implements IAgentOutput {
 		}
 	}
 
+	public void writeContextData() throws IOException {
+		if (connection != null) {
+			connection.writeContextData();
+		} else {
+			data.endContext();
+		}
+	}
+
 	/**
 	 * Open a server socket based on the given configuration.
 	 *
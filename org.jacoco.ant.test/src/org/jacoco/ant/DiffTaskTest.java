@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.ant;
+
+import java.io.File;
+
+import org.apache.ant.antunit.junit3.AntUnitSuite;
+import org.apache.ant.antunit.junit4.AntUnitSuiteRunner;
+import org.junit.runner.RunWith;
+
+import junit.framework.TestSuite;
+
+@RunWith(AntUnitSuiteRunner.class)
+public class DiffTaskTest {
+
+	public static TestSuite suite() {
+		final File file = new File("src/org/jacoco/ant/DiffTaskTest.xml");
+		return new AntUnitSuite(file, DiffTaskTest.class);
+	}
+
+}
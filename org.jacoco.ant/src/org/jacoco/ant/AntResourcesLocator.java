@@ -17,7 +17,7 @@ import java.util.Iterator;
 
 import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.resources.FileResource;
-import org.jacoco.report.DirectorySourceFileLocator;
+import org.jacoco.report.IndexedSourceFileLocator;
 import org.jacoco.report.MultiSourceFileLocator;
 
 /**
@@ -30,17 +30,19 @@ import org.jacoco.report.MultiSourceFileLocator;
  */
 class AntResourcesLocator extends MultiSourceFileLocator {
 
-	private final String encoding;
 	private final AntFilesLocator filesLocator;
+	private final IndexedSourceFileLocator directoriesLocator;
 
 	private boolean empty;
 
 	AntResourcesLocator(final String encoding, final int tabWidth) {
 		super(tabWidth);
-		this.encoding = encoding;
 		this.filesLocator = new AntFilesLocator(encoding, tabWidth);
+		this.directoriesLocator = new IndexedSourceFileLocator(encoding,
+				tabWidth);
 		this.empty = true;
 		super.add(filesLocator);
+		super.add(directoriesLocator);
 	}
 
 	/**
@@ -53,8 +55,7 @@ class AntResourcesLocator extends MultiSourceFileLocator {
 		empty = false;
 		if (resource.isDirectory()) {
 			final FileResource dir = (FileResource) resource;
-			super.add(new DirectorySourceFileLocator(dir.getFile(), encoding,
-					getTabWidth()));
+			directoriesLocator.add(dir.getFile());
 		} else {
 			filesLocator.add(resource);
 		}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.ant;
+
+import static java.lang.String.format;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Locale;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Task;
+import org.apache.tools.ant.types.Resource;
+import org.apache.tools.ant.types.ResourceCollection;
+import org.apache.tools.ant.types.resources.Union;
+import org.apache.tools.ant.util.FileUtils;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.tools.ExecFileDiff;
+import org.jacoco.core.tools.ExecFileDiff.Operation;
+
+/**
+ * Task for calculating the union, intersection or difference of a set of
+ * execution data files (*.exec) with a baseline. Only the baseline is loaded
+ * into memory, all other files are streamed to the destination file.
+ */
+public class DiffTask extends Task {
+
+	private File destfile;
+
+	private Operation operation = Operation.SUBTRACTION;
+
+	private final Union files = new Union();
+
+	private final Union baseline = new Union();
+
+	/**
+	 * Sets the location of the resulting data store
+	 *
+	 * @param destfile
+	 *            Destination data store location
+	 */
+	public void setDestfile(final File destfile) {
+		this.destfile = destfile;
+	}
+
+	/**
+	 * Sets the operation to apply, one of <code>union</code>,
+	 * <code>intersection</code> or <code>subtraction</code>. Default is
+	 * <code>subtraction</code>.
+	 *
+	 * @param operation
+	 *            name of the operation
+	 */
+	public void setOperation(final String operation) {
+		try {
+			this.operation = Operation
+					.valueOf(operation.toUpperCase(Locale.ENGLISH));
+		} catch (final IllegalArgumentException e) {
+			throw new BuildException(format("Unknown operation %s", operation),
+					getLocation());
+		}
+	}
+
+	/**
+	 * Returns the nested resource collection for baseline execution data files.
+	 *
+	 * @return resource collection for baseline execution data files
+	 */
+	public Union createBaseline() {
+		return baseline;
+	}
+
+	/**
+	 * This task accepts any number of execution data resources.
+	 *
+	 * @param resources
+	 *            Execution data resources
+	 */
+	public void addConfigured(final ResourceCollection resources) {
+		files.add(resources);
+	}
+
+	@Override
+	public void execute() throws BuildException {
+		if (destfile == null) {
+			throw new BuildException("Destination file must be supplied",
+					getLocation());
+		}
+
+		final ExecFileDiff diff = new ExecFileDiff(operation);
+
+		loadBaseline(diff);
+		save(diff);
+	}
+
+	private void loadBaseline(final ExecFileDiff diff) {
+		final Iterator<?> resourceIterator = baseline.iterator();
+		while (resourceIterator.hasNext()) {
+			final Resource resource = (Resource) resourceIterator.next();
+
+			if (resource.isDirectory()) {
+				continue;
+			}
+
+			log(format("Loading baseline execution data file %s", resource));
+
+			InputStream resourceStream = null;
+			try {
+				resourceStream = resource.getInputStream();
+				diff.loadBaseline(resourceStream);
+			} catch (final IOException e) {
+				throw new BuildException(format("Unable to read %s", resource),
+						e, getLocation());
+			} finally {
+				FileUtils.close(resourceStream);
+			}
+		}
+	}
+
+	private void save(final ExecFileDiff diff) {
+		log(format("Writing %s of execution data to %s",
+				operation.name().toLowerCase(Locale.ENGLISH),
+				destfile.getAbsolutePath()));
+		final File folder = destfile.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		OutputStream output = null;
+		try {
+			output = new BufferedOutputStream(new FileOutputStream(destfile));
+			final ExecutionDataWriter writer = new ExecutionDataWriter(output);
+			process(diff, writer);
+			diff.finish(writer);
+			output.close();
+		} catch (final IOException e) {
+			throw new BuildException(format("Unable to write diff file %s",
+					destfile.getAbsolutePath()), e, getLocation());
+		} finally {
+			FileUtils.close(output);
+		}
+	}
+
+	private void process(final ExecFileDiff diff,
+			final ExecutionDataWriter writer) {
+		final Iterator<?> resourceIterator = files.iterator();
+		while (resourceIterator.hasNext()) {
+			final Resource resource = (Resource) resourceIterator.next();
+
+			if (resource.isDirectory()) {
+				continue;
+			}
+
+			log(format("Loading execution data file %s", resource));
+
+			InputStream resourceStream = null;
+			try {
+				resourceStream = resource.getInputStream();
+				diff.process(resourceStream, writer);
+			} catch (final IOException e) {
+				throw new BuildException(format("Unable to read %s", resource),
+						e, getLocation());
+			} finally {
+				FileUtils.close(resourceStream);
+			}
+		}
+	}
+
+}
@@ -251,6 +251,7 @@ public class ReportTask extends Task {
 			formatter.setFooterText(footer);
 			formatter.setOutputEncoding(encoding);
 			formatter.setLocale(locale);
+			formatter.setSourcePrefetch(true);
 			return formatter.createVisitor(output);
 		}
 
@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import static org.junit.Assert.assertTrue;
+
 import org.jacoco.cli.internal.CommandTestBase;
 import org.junit.Test;
 
@@ -61,4 +63,45 @@ public class ClassInfoTest extends CommandTestBase {
 		assertContains("line", out);
 	}
 
+	@Test
+	public void should_print_package_totals_when_summary() throws Exception {
+		execute("classinfo", "--summary", getClassPath());
+
+		assertOk();
+		assertContains("package org/jacoco/cli/internal/commands", out);
+		assertContains("total", out);
+		assertContainsNot("class", out);
+	}
+
+	@Test
+	public void should_print_locations_in_given_order() throws Exception {
+		final String classes = getClassPath() + "/org/jacoco/cli/internal/";
+		execute("classinfo", "--threads", "2",
+				classes + "commands/ClassInfoTest.class",
+				classes + "CommandTestBase.class");
+
+		assertOk();
+		final String output = out.toString();
+		final int first = output.indexOf("commands/ClassInfoTest");
+		final int second = output.indexOf("internal/CommandTestBase");
+		assertTrue(first > 0);
+		assertTrue(second > first);
+	}
+
+	@Test
+	public void should_print_locations_in_given_order_with_single_thread()
+			throws Exception {
+		final String classes = getClassPath() + "/org/jacoco/cli/internal/";
+		execute("classinfo", "--threads", "1",
+				classes + "commands/ClassInfoTest.class",
+				classes + "CommandTestBase.class");
+
+		assertOk();
+		final String output = out.toString();
+		final int first = output.indexOf("commands/ClassInfoTest");
+		final int second = output.indexOf("internal/CommandTestBase");
+		assertTrue(first > 0);
+		assertTrue(second > first);
+	}
+
 }
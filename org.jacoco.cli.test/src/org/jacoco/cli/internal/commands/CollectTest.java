@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jacoco.cli.internal.CommandTestBase;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.RemoteControlWriter;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link Collect}.
+ */
+public class CollectTest extends CommandTestBase {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void should_print_usage_when_no_argument_is_given()
+			throws Exception {
+		execute("collect");
+		assertFailure();
+		assertContains("\"--destfile\"", err);
+		assertContains("java -jar jacococli.jar collect [--address <address>]",
+				err);
+	}
+
+	@Test
+	public void should_fail_when_interval_is_not_positive() throws Exception {
+		execute("collect", "--destfile",
+				new File(tmp.getRoot(), "jacoco.exec").getAbsolutePath(),
+				"--interval", "0");
+		assertFailure();
+		assertContains("[ERROR] Interval must be greater than 0.", err);
+	}
+
+	@Test
+	public void should_write_collected_data_when_terminated() throws Exception {
+		final File execfile = new File(tmp.getRoot(), "jacoco.exec");
+		final Exception[] failure = new Exception[1];
+		final Thread command = new Thread() {
+			@Override
+			public void run() {
+				try {
+					execute("collect", "--destfile", execfile.getAbsolutePath(),
+							"--port", "0");
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			}
+		};
+		command.start();
+
+		final Socket agent = new Socket(InetAddress.getByName(null),
+				awaitPort());
+		final RemoteControlWriter writer = new RemoteControlWriter(
+				agent.getOutputStream());
+		writer.visitSessionInfo(new SessionInfo("agent", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(0x10, "Foo", new boolean[] { true }));
+		awaitOutput("connected");
+		agent.close();
+		awaitOutput("disconnected");
+
+		command.interrupt();
+		command.join(5000);
+
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+		assertOk();
+		assertContains("[INFO] Writing execution data to "
+				+ execfile.getAbsolutePath(), out);
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(execfile);
+		assertArrayEquals(new boolean[] { true },
+				loader.getExecutionDataStore().get(0x10).getProbes());
+	}
+
+	private int awaitPort() throws InterruptedException {
+		final Pattern pattern = Pattern.compile("Listening on port (\\d+)");
+		awaitOutput("Listening on port");
+		final Matcher matcher = pattern.matcher(out.toString());
+		matcher.find();
+		return Integer.parseInt(matcher.group(1));
+	}
+
+	private void awaitOutput(String expected) throws InterruptedException {
+		final long end = System.currentTimeMillis() + 5000;
+		while (!out.toString().contains(expected)) {
+			if (System.currentTimeMillis() > end) {
+				fail("Expected output " + expected + " but was " + out);
+			}
+			Thread.sleep(10);
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.jacoco.cli.internal.CommandTestBase;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link Diff}.
+ */
+public class DiffTest extends CommandTestBase {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void should_print_usage_when_no_options_are_given()
+			throws Exception {
+		execute("diff");
+
+		assertFailure();
+		assertContains("\"--destfile\"", err);
+		assertContains("java -jar jacococli.jar diff [<execfiles> ...]", err);
+	}
+
+	@Test
+	public void should_print_warning_when_no_exec_files_are_provided()
+			throws Exception {
+		File dest = new File(tmp.getRoot(), "diff.exec");
+		execute("diff", "--destfile", dest.getAbsolutePath());
+
+		assertOk();
+		assertContains("[WARN] No execution data files provided.", out);
+		assertEquals(0, loadExecFile(dest).getContents().size());
+	}
+
+	@Test
+	public void should_subtract_baseline_by_default() throws Exception {
+		File base = createExecFile("base", new boolean[] { true, false });
+		File test = createExecFile("test", new boolean[] { true, true });
+		File dest = new File(tmp.getRoot(), "diff.exec");
+
+		execute("diff", "--baseline", base.getAbsolutePath(), "--destfile",
+				dest.getAbsolutePath(), test.getAbsolutePath());
+
+		assertOk();
+		assertContains("[INFO] Loading baseline execution data file "
+				+ base.getAbsolutePath(), out);
+		assertContains("[INFO] Writing subtraction of execution data to "
+				+ dest.getAbsolutePath(), out);
+		assertArrayEquals(new boolean[] { false, true },
+				loadExecFile(dest).get(1).getProbes());
+	}
+
+	@Test
+	public void should_calculate_intersection() throws Exception {
+		File base = createExecFile("base", new boolean[] { true, false });
+		File test = createExecFile("test", new boolean[] { false, true });
+		File dest = new File(tmp.getRoot(), "diff.exec");
+
+		execute("diff", "--operation", "INTERSECTION", "--baseline",
+				base.getAbsolutePath(), "--destfile", dest.getAbsolutePath(),
+				test.getAbsolutePath());
+
+		assertOk();
+		assertNull(loadExecFile(dest).get(1));
+	}
+
+	@Test
+	public void should_calculate_union() throws Exception {
+		File base = createExecFile("base", new boolean[] { true, false });
+		File test = createExecFile("test", new boolean[] { false, true });
+		File dest = new File(tmp.getRoot(), "diff.exec");
+
+		execute("diff", "--operation", "UNION", "--baseline",
+				base.getAbsolutePath(), "--destfile", dest.getAbsolutePath(),
+				test.getAbsolutePath());
+
+		assertOk();
+		assertArrayEquals(new boolean[] { true, true },
+				loadExecFile(dest).get(1).getProbes());
+	}
+
+	private File createExecFile(String name, boolean[] probes)
+			throws IOException {
+		File file = new File(tmp.getRoot(), name + ".exec");
+		final FileOutputStream execout = new FileOutputStream(file);
+		ExecutionDataWriter writer = new ExecutionDataWriter(execout);
+		writer.visitClassExecution(new ExecutionData(1, "Foo", probes));
+		execout.close();
+		return file;
+	}
+
+	private ExecutionDataStore loadExecFile(File file) throws IOException {
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(file);
+		return loader.getExecutionDataStore();
+	}
+
+}
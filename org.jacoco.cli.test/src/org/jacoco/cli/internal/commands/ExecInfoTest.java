@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import static org.junit.Assert.assertTrue;
+
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -66,13 +68,57 @@ public class ExecInfoTest extends CommandTestBase {
 		assertContains("0000000000001234    2 of   3   foo/MyClass", out);
 	}
 
+	@Test
+	public void should_print_package_totals_when_summary() throws Exception {
+		File execfile = createExecFile();
+
+		execute("execinfo", "--summary", execfile.getAbsolutePath());
+
+		assertOk();
+		assertContains("[INFO] Loading exec file " + execfile.getAbsolutePath(),
+				out);
+		assertContains("Session \"testid\":", out);
+		assertContains("CLASSES        HITS      PROBES   RATIO   PACKAGE",
+				out);
+		assertContains("      1           1           4   25.0%   default",
+				out);
+		assertContains("      2           3           5   60.0%   foo", out);
+		assertContains("      3           4           9   44.4%   (total)",
+				out);
+		assertContainsNot("foo/MyClass", out);
+	}
+
+	@Test
+	public void should_print_summaries_in_given_order() throws Exception {
+		File execfile1 = createExecFile("first.exec");
+		File execfile2 = createExecFile("second.exec");
+
+		execute("execinfo", "--summary", "--threads", "2",
+				execfile1.getAbsolutePath(), execfile2.getAbsolutePath());
+
+		assertOk();
+		final String output = out.toString();
+		final int first = output.indexOf(execfile1.getAbsolutePath());
+		final int second = output.indexOf(execfile2.getAbsolutePath());
+		assertTrue(first >= 0);
+		assertTrue(second > first);
+	}
+
 	private File createExecFile() throws IOException {
-		File f = new File(tmp.getRoot(), "test.exec");
+		return createExecFile("test.exec");
+	}
+
+	private File createExecFile(String name) throws IOException {
+		File f = new File(tmp.getRoot(), name);
 		final FileOutputStream out = new FileOutputStream(f);
 		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
 		writer.visitSessionInfo(new SessionInfo("testid", 1, 2));
 		writer.visitClassExecution(new ExecutionData(0x1234, "foo/MyClass",
 				new boolean[] { false, true, true }));
+		writer.visitClassExecution(new ExecutionData(0x1235, "foo/Other",
+				new boolean[] { true, false }));
+		writer.visitClassExecution(new ExecutionData(0x1236, "Default",
+				new boolean[] { true, false, false, false }));
 		out.close();
 		return f;
 	}
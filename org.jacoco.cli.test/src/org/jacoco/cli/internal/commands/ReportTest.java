@@ -57,7 +57,7 @@ public class ReportTest extends CommandTestBase {
 		execute("report", "--classfiles", getClassPath());
 
 		assertOk();
-		assertContains("[INFO] Analyzing 14 classes.", out);
+		assertContains("[INFO] Analyzing 17 classes.", out);
 	}
 
 	@Test
@@ -16,17 +16,22 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
 import org.jacoco.cli.internal.Command;
 import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ICoverageNode;
 import org.jacoco.core.analysis.ICoverageVisitor;
 import org.jacoco.core.analysis.ILine;
 import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.Option;
@@ -42,6 +47,12 @@ public class ClassInfo extends Command {
 	@Option(name = "--verbose", usage = "show method and line number details")
 	boolean verbose = false;
 
+	@Option(name = "--summary", usage = "show totals per package instead of every class")
+	boolean summary = false;
+
+	@Option(name = "--threads", usage = "number of locations analyzed concurrently (default number of processors)", metaVar = "<count>")
+	int threads = Runtime.getRuntime().availableProcessors();
+
 	@Override
 	public String description() {
 		return "Print information about Java class files at the provided location.";
@@ -53,13 +64,54 @@ public class ClassInfo extends Command {
 		if (classfiles.isEmpty()) {
 			out.println("[WARN] No class files provided.");
 		} else {
+			final Printer printer = new Printer(out);
+			final CoverageBuilder builder = new CoverageBuilder();
+			analyze(summary ? builder : printer);
+			if (summary) {
+				printer.printSummary(builder.getBundle("classinfo"));
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Analyzes the locations and reports the classes to the given visitor in
+	 * the order of the locations. With multiple threads the locations are
+	 * analyzed concurrently and the classes of a location are kept in memory
+	 * until all previous locations have been reported, otherwise every class is
+	 * reported directly.
+	 */
+	private void analyze(final ICoverageVisitor visitor) throws IOException {
+		if (threads <= 1 || classfiles.size() == 1) {
 			final Analyzer analyzer = new Analyzer(new ExecutionDataStore(),
-					new Printer(out));
+					visitor);
 			for (final File file : classfiles) {
 				analyzer.analyzeAll(file);
 			}
+			return;
 		}
-		return 0;
+		new ConcurrentFileProcessor<List<IClassCoverage>>() {
+			@Override
+			List<IClassCoverage> process(final File file) throws IOException {
+				final List<IClassCoverage> classes = new ArrayList<IClassCoverage>();
+				final Analyzer analyzer = new Analyzer(new ExecutionDataStore(),
+						new ICoverageVisitor() {
+							public void visitCoverage(
+									final IClassCoverage coverage) {
+								classes.add(coverage);
+							}
+						});
+				analyzer.analyzeAll(file);
+				return classes;
+			}
+
+			@Override
+			void consume(final List<IClassCoverage> classes) {
+				for (final IClassCoverage c : classes) {
+					visitor.visitCoverage(c);
+				}
+			}
+		}.run(classfiles, threads);
 	}
 
 	private class Printer implements ICoverageVisitor {
@@ -83,6 +135,23 @@ public class ClassInfo extends Command {
 			}
 		}
 
+		void printSummary(final IBundleCoverage bundle) {
+			final List<IPackageCoverage> packages = new ArrayList<IPackageCoverage>(
+					bundle.getPackages());
+			Collections.sort(packages, new Comparator<IPackageCoverage>() {
+				public int compare(final IPackageCoverage p1,
+						final IPackageCoverage p2) {
+					return p1.getName().compareTo(p2.getName());
+				}
+			});
+			for (final IPackageCoverage p : packages) {
+				final String name = p.getName().length() == 0 ? "default"
+						: p.getName();
+				printDetails("package " + name, p);
+			}
+			printDetails("total", bundle);
+		}
+
 		private void printMethod(final IMethodCoverage method,
 				final boolean more) {
 			final String desc = String.format("+- method %s%s",
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import org.jacoco.cli.internal.Command;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.tools.ExecCollector;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>collect</code> command.
+ */
+public class Collect extends Command {
+
+	@Option(name = "--address", usage = "host name or ip address to listen on (default localhost)", metaVar = "<address>")
+	String address = AgentOptions.DEFAULT_ADDRESS;
+
+	@Option(name = "--port", usage = "the port to listen on (default 6300)", metaVar = "<port>")
+	int port = AgentOptions.DEFAULT_PORT;
+
+	@Option(name = "--destfile", usage = "file to write execution data to", metaVar = "<path>", required = true)
+	File destfile;
+
+	@Option(name = "--interval", usage = "seconds between writes of the destination file (default 60)", metaVar = "<seconds>")
+	int interval = 60;
+
+	@Option(name = "--dump", usage = "request execution data from all agents at every interval and wait up to one interval for it")
+	boolean dump = false;
+
+	@Option(name = "--reset", usage = "reset execution data on agents after dump")
+	boolean reset = false;
+
+	@Override
+	public String description() {
+		return "Collect execution data from JaCoCo agents running in 'tcpclient' output mode until terminated.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws Exception {
+		if (interval <= 0) {
+			err.println("[ERROR] Interval must be greater than 0.");
+			return -1;
+		}
+		final ExecCollector collector = new ExecCollector(
+				new InetSocketAddress(InetAddress.getByName(address), port)) {
+			@Override
+			protected void onConnected(final SocketAddress address) {
+				out.printf("[INFO] Agent %s connected.%n", address);
+				out.flush();
+			}
+
+			@Override
+			protected void onDisconnected(final SocketAddress address) {
+				out.printf("[INFO] Agent %s disconnected.%n", address);
+				out.flush();
+			}
+
+			@Override
+			protected void onError(final SocketAddress address,
+					final Exception exception) {
+				err.printf("[WARN] %s.%n", exception.getMessage());
+				err.flush();
+			}
+		};
+		collector.start();
+		out.printf("[INFO] Listening on port %s.%n",
+				Integer.valueOf(collector.getPort()));
+		out.flush();
+
+		final Thread main = Thread.currentThread();
+		final Thread hook = new Thread() {
+			@Override
+			public void run() {
+				main.interrupt();
+				try {
+					main.join();
+				} catch (final InterruptedException e) {
+					// terminate anyways
+				}
+			}
+		};
+		Runtime.getRuntime().addShutdownHook(hook);
+		try {
+			while (true) {
+				Thread.sleep(interval * 1000L);
+				if (dump) {
+					collector.requestDump(reset);
+					if (!collector.awaitDumps(interval * 1000L)) {
+						err.println(
+								"[WARN] Not all agents answered the dump request.");
+						err.flush();
+					}
+				}
+				save(collector, out);
+			}
+		} catch (final InterruptedException e) {
+			// regular termination
+		} finally {
+			// Save before the connections are closed by the shutdown
+			save(collector, out);
+			collector.shutdown();
+			try {
+				Runtime.getRuntime().removeShutdownHook(hook);
+			} catch (final IllegalStateException e) {
+				// VM is already shutting down
+			}
+		}
+		return 0;
+	}
+
+	private void save(final ExecCollector collector, final PrintWriter out)
+			throws Exception {
+		out.printf("[INFO] Writing execution data to %s.%n",
+				destfile.getAbsolutePath());
+		out.flush();
+		collector.save(destfile);
+	}
+
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jacoco.core.internal.Futures;
+
+/**
+ * Processes files concurrently. The results are consumed in the calling thread
+ * in the order of the given files, so output stays deterministic.
+ *
+ * @param <T>
+ *            type of the result for a single file
+ */
+abstract class ConcurrentFileProcessor<T> {
+
+	/**
+	 * Processes all given files and consumes the results in order.
+	 *
+	 * @param files
+	 *            files to process
+	 * @param threads
+	 *            maximum number of files processed at the same time
+	 * @throws IOException
+	 *             if processing of a file fails
+	 */
+	void run(final List<File> files, final int threads) throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(threads, files.size())));
+		try {
+			final List<Future<T>> results = new ArrayList<Future<T>>();
+			for (final File file : files) {
+				results.add(executor.submit(new Callable<T>() {
+					public T call() throws IOException {
+						return process(file);
+					}
+				}));
+			}
+			for (final Future<T> result : results) {
+				consume(Futures.get(result));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Processes a single file. This method is called concurrently.
+	 *
+	 * @param file
+	 *            file to process
+	 * @return result for this file
+	 * @throws IOException
+	 *             if the file can't be processed
+	 */
+	abstract T process(File file) throws IOException;
+
+	/**
+	 * Consumes the result for the next file in the calling thread.
+	 *
+	 * @param result
+	 *            result of {@link #process(File)}
+	 * @throws IOException
+	 *             if the result can't be consumed
+	 */
+	abstract void consume(T result) throws IOException;
+
+}
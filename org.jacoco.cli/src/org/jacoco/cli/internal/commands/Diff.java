@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.jacoco.cli.internal.Command;
+import org.jacoco.core.tools.ExecFileDiff;
+import org.jacoco.core.tools.ExecFileDiff.Operation;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>diff</code> command.
+ */
+public class Diff extends Command {
+
+	@Argument(usage = "list of JaCoCo *.exec files to read", metaVar = "<execfiles>")
+	List<File> execfiles = new ArrayList<File>();
+
+	@Option(name = "--baseline", usage = "JaCoCo *.exec file to compare with, may be specified multiple times", metaVar = "<path>")
+	List<File> baseline = new ArrayList<File>();
+
+	@Option(name = "--operation", usage = "UNION, INTERSECTION or SUBTRACTION (default) of the execution data and the baseline", metaVar = "<operation>")
+	Operation operation = Operation.SUBTRACTION;
+
+	@Option(name = "--destfile", usage = "file to write the resulting execution data to", metaVar = "<path>", required = true)
+	File destfile;
+
+	@Override
+	public String description() {
+		return "Calculates union, intersection or subtraction of exec files with a baseline and writes the result to a new exec file.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws IOException {
+		final ExecFileDiff diff = new ExecFileDiff(operation);
+		for (final File file : baseline) {
+			out.printf("[INFO] Loading baseline execution data file %s.%n",
+					file.getAbsolutePath());
+			diff.loadBaseline(file);
+		}
+		if (execfiles.isEmpty()) {
+			out.println("[WARN] No execution data files provided.");
+		}
+		out.printf("[INFO] Writing %s of execution data to %s.%n",
+				operation.name().toLowerCase(Locale.ENGLISH),
+				destfile.getAbsolutePath());
+		diff.save(execfiles, destfile);
+		return 0;
+	}
+
+}
@@ -12,21 +12,29 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.jacoco.cli.internal.Command;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.ISessionInfoVisitor;
 import org.jacoco.core.data.SessionInfo;
 import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
 
 /**
  * The <code>execinfo</code> command.
@@ -36,6 +44,12 @@ public class ExecInfo extends Command {
 	@Argument(usage = "list of JaCoCo *.exec files to read", metaVar = "<execfiles>")
 	List<File> execfiles = new ArrayList<File>();
 
+	@Option(name = "--summary", usage = "print probe totals per package instead of every class")
+	boolean summary = false;
+
+	@Option(name = "--threads", usage = "number of exec files summarized concurrently (default number of processors)", metaVar = "<count>")
+	int threads = Runtime.getRuntime().availableProcessors();
+
 	@Override
 	public String description() {
 		return "Print exec file content in human readable format.";
@@ -46,6 +60,8 @@ public class ExecInfo extends Command {
 			throws IOException {
 		if (execfiles.isEmpty()) {
 			out.println("[WARN] No execution data files provided.");
+		} else if (summary) {
+			summarize(out);
 		} else {
 			for (final File file : execfiles) {
 				dump(file, out);
@@ -59,16 +75,7 @@ public class ExecInfo extends Command {
 		out.printf("[INFO] Loading exec file %s.%n", file);
 		out.println("CLASS ID         HITS/PROBES   CLASS NAME");
 
-		final FileInputStream in = new FileInputStream(file);
-		final ExecutionDataReader reader = new ExecutionDataReader(in);
-		reader.setSessionInfoVisitor(new ISessionInfoVisitor() {
-			public void visitSessionInfo(final SessionInfo info) {
-				out.printf("Session \"%s\": %s - %s%n", info.getId(),
-						new Date(info.getStartTimeStamp()),
-						new Date(info.getDumpTimeStamp()));
-			}
-		});
-		reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+		read(file, out, new IExecutionDataVisitor() {
 			public void visitClassExecution(final ExecutionData data) {
 				out.printf("%016x  %3d of %3d   %s%n",
 						Long.valueOf(data.getId()),
@@ -77,12 +84,105 @@ public class ExecInfo extends Command {
 						data.getName());
 			}
 		});
-		reader.read();
-		in.close();
 		out.println();
 	}
 
-	private int getHitCount(final boolean[] data) {
+	/**
+	 * The summaries are small, so the files are read concurrently and the
+	 * output of every file is buffered until it is printed in the given order.
+	 */
+	private void summarize(final PrintWriter out) throws IOException {
+		new ConcurrentFileProcessor<String>() {
+			@Override
+			String process(final File file) throws IOException {
+				final StringWriter buffer = new StringWriter();
+				summarize(file, new PrintWriter(buffer));
+				return buffer.toString();
+			}
+
+			@Override
+			void consume(final String result) {
+				out.print(result);
+				out.flush();
+			}
+		}.run(execfiles, threads);
+	}
+
+	private void summarize(final File file, final PrintWriter out)
+			throws IOException {
+		out.printf("[INFO] Loading exec file %s.%n", file);
+
+		final ExecutionDataStore store = new ExecutionDataStore();
+		read(file, out, store);
+
+		final Map<String, long[]> packages = new TreeMap<String, long[]>();
+		for (final ExecutionData data : store.getContents()) {
+			final String name = data.getName();
+			final int pos = name.lastIndexOf('/');
+			final String packageName = pos == -1 ? "default"
+					: name.substring(0, pos);
+			long[] totals = packages.get(packageName);
+			if (totals == null) {
+				totals = new long[3];
+				packages.put(packageName, totals);
+			}
+			add(totals, 1, getHitCount(data.getProbes()),
+					data.getProbes().length);
+		}
+
+		out.println("CLASSES        HITS      PROBES   RATIO   PACKAGE");
+		final long[] total = new long[3];
+		for (final Map.Entry<String, long[]> entry : packages.entrySet()) {
+			final long[] totals = entry.getValue();
+			printTotals(out, totals, entry.getKey());
+			add(total, totals[0], totals[1], totals[2]);
+		}
+		printTotals(out, total, "(total)");
+		out.println();
+	}
+
+	private static void add(final long[] totals, final long classes,
+			final long hits, final long probes) {
+		totals[0] += classes;
+		totals[1] += hits;
+		totals[2] += probes;
+	}
+
+	private static void printTotals(final PrintWriter out, final long[] totals,
+			final String name) {
+		final String ratio;
+		if (totals[2] == 0) {
+			ratio = "-";
+		} else {
+			ratio = String.format(Locale.ENGLISH, "%.1f%%",
+					Double.valueOf(100.0 * totals[1] / totals[2]));
+		}
+		out.printf("%7d  %10d  %10d  %6s   %s%n", Long.valueOf(totals[0]),
+				Long.valueOf(totals[1]), Long.valueOf(totals[2]), ratio, name);
+	}
+
+	private static void read(final File file, final PrintWriter out,
+			final IExecutionDataVisitor executionDataVisitor)
+			throws IOException {
+		final InputStream in = new BufferedInputStream(
+				new FileInputStream(file));
+		try {
+			final ExecutionDataReader reader = new ExecutionDataReader(in);
+			reader.setSessionInfoVisitor(new ISessionInfoVisitor() {
+				public void visitSessionInfo(final SessionInfo info) {
+					out.printf("Session \"%s\": %s - %s%n", info.getId(),
+							new Date(info.getStartTimeStamp()),
+							new Date(info.getDumpTimeStamp()));
+				}
+			});
+			reader.setExecutionDataVisitor(executionDataVisitor);
+			reader.read();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static int getHitCount(final boolean[] data) {
 		int count = 0;
 		for (final boolean hit : data) {
 			if (hit) {
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Analysis of all classes of a corpus with
+ * {@link Analyzer#analyzeClass(byte[], String)}. Run with <code>-prof gc</code>
+ * to see the allocation rate of the analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+	@Param({ Corpus.JACOCO, Corpus.ASM, Corpus.VALIDATION })
+	public String corpus;
+
+	private List<String> names;
+
+	private List<byte[]> classes;
+
+	@Setup
+	public void setup() throws Exception {
+		final Corpus c = Corpus.load(corpus);
+		names = c.getNames();
+		classes = c.getClasses();
+	}
+
+	@Benchmark
+	public void analyzeClass(final Blackhole blackhole) throws Exception {
+		final Analyzer analyzer = new Analyzer(new ExecutionDataStore(),
+				new ICoverageVisitor() {
+					public void visitCoverage(final IClassCoverage coverage) {
+						blackhole.consume(coverage);
+					}
+				});
+		for (int i = 0; i < classes.size(); i++) {
+			analyzer.analyzeClass(classes.get(i), names.get(i));
+		}
+	}
+
+}
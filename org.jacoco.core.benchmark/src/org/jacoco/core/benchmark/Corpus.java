@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.test.validation.java5.targets.BooleanExpressionsTarget;
+import org.jacoco.core.test.validation.java8.targets.InterfaceDefaultMethodsTarget;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Set of class files used as input for the benchmarks. Predefined corpora are
+ * identified by name, any other value is interpreted as a list of JAR files or
+ * directories separated by {@link File#pathSeparator}.
+ */
+public final class Corpus {
+
+	/** Class files of the JaCoCo core library */
+	public static final String JACOCO = "jacoco";
+
+	/** Class files of the ASM library */
+	public static final String ASM = "asm";
+
+	/** Class files of the validation test targets */
+	public static final String VALIDATION = "validation";
+
+	private final List<String> names;
+
+	private final List<byte[]> classes;
+
+	private Corpus() {
+		names = new ArrayList<String>();
+		classes = new ArrayList<byte[]>();
+	}
+
+	/**
+	 * Loads the given corpus.
+	 *
+	 * @param corpus
+	 *            name of a predefined corpus or list of files
+	 * @return loaded class files
+	 * @throws IOException
+	 *             if the class files can not be read
+	 */
+	public static Corpus load(final String corpus) throws IOException {
+		final Corpus c = new Corpus();
+		if (JACOCO.equals(corpus)) {
+			c.addLocation(Analyzer.class);
+		} else if (ASM.equals(corpus)) {
+			c.addLocation(ClassReader.class);
+		} else if (VALIDATION.equals(corpus)) {
+			c.addLocation(BooleanExpressionsTarget.class);
+			c.addLocation(InterfaceDefaultMethodsTarget.class);
+		} else {
+			for (final String path : corpus.split(File.pathSeparator)) {
+				c.addFile(new File(path));
+			}
+		}
+		if (c.classes.isEmpty()) {
+			throw new IOException("No class files found in " + corpus);
+		}
+		return c;
+	}
+
+	private void addLocation(final Class<?> anchor) throws IOException {
+		try {
+			addFile(new File(anchor.getProtectionDomain().getCodeSource()
+					.getLocation().toURI()));
+		} catch (final URISyntaxException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private void addFile(final File file) throws IOException {
+		if (file.isDirectory()) {
+			final File[] children = file.listFiles();
+			if (children != null) {
+				for (final File child : children) {
+					addFile(child);
+				}
+			}
+		} else if (file.getName().endsWith(".class")) {
+			final InputStream in = new FileInputStream(file);
+			try {
+				addClass(file.getPath(), in);
+			} finally {
+				in.close();
+			}
+		} else if (file.getName().endsWith(".jar")) {
+			final ZipInputStream in = new ZipInputStream(
+					new FileInputStream(file));
+			try {
+				ZipEntry entry;
+				while ((entry = in.getNextEntry()) != null) {
+					if (entry.getName().endsWith(".class")) {
+						addClass(entry.getName(), in);
+					}
+				}
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	private void addClass(final String name, final InputStream in)
+			throws IOException {
+		if (name.endsWith("module-info.class")) {
+			return;
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[1024];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			out.write(buffer, 0, len);
+		}
+		names.add(name);
+		classes.add(out.toByteArray());
+	}
+
+	/**
+	 * @return number of class files in this corpus
+	 */
+	public int size() {
+		return classes.size();
+	}
+
+	/**
+	 * @return names of all class files in this corpus
+	 */
+	public List<String> getNames() {
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * @return contents of all class files in this corpus
+	 */
+	public List<byte[]> getClasses() {
+		return Collections.unmodifiableList(classes);
+	}
+
+}
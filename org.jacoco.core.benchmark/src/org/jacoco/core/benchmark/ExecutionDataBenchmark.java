@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfoStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the execution data file format and merging of execution data
+ * with {@link ExecutionDataStore}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionDataBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int classCount;
+
+	@Param({ "100" })
+	public int probeCount;
+
+	private List<ExecutionData> contents;
+
+	private byte[] file;
+
+	private ExecutionDataStore target;
+
+	@Setup
+	public void setup() throws IOException {
+		final Random random = new Random(42);
+		contents = new ArrayList<ExecutionData>();
+		target = new ExecutionDataStore();
+		for (int i = 0; i < classCount; i++) {
+			final String name = "org/jacoco/example/Class" + i;
+			final boolean[] probes = new boolean[probeCount];
+			for (int p = 0; p < probeCount; p++) {
+				probes[p] = random.nextBoolean();
+			}
+			contents.add(new ExecutionData(i, name, probes));
+			target.put(new ExecutionData(i, name, probeCount));
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(out);
+		file = out.toByteArray();
+	}
+
+	private void write(final OutputStream out) throws IOException {
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		for (final ExecutionData data : contents) {
+			writer.visitClassExecution(data);
+		}
+		writer.flush();
+	}
+
+	@Benchmark
+	public void write() throws IOException {
+		write(new NullOutputStream());
+	}
+
+	@Benchmark
+	public ExecutionDataStore read() throws IOException {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(file));
+		reader.setExecutionDataVisitor(store);
+		reader.setSessionInfoVisitor(new SessionInfoStore());
+		reader.read();
+		return store;
+	}
+
+	@Benchmark
+	public ExecutionDataStore merge() {
+		for (final ExecutionData data : contents) {
+			target.put(data);
+		}
+		return target;
+	}
+
+	private static class NullOutputStream extends OutputStream {
+
+		@Override
+		public void write(final int b) {
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.benchmark;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.test.TargetLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Execution time of instrumented code compared to the same code without
+ * instrumentation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionOverheadBenchmark {
+
+	@Param({ "org.jacoco.core.test.perf.targets.Target01",
+			"org.jacoco.core.test.perf.targets.Target02",
+			"org.jacoco.core.test.perf.targets.Target03" })
+	public String target;
+
+	private IRuntime runtime;
+
+	private Callable<?> original;
+
+	private Callable<?> instrumented;
+
+	@Setup
+	public void setup() throws Exception {
+		final Class<?> targetClass = Class.forName(target);
+		original = (Callable<?>) targetClass.newInstance();
+
+		runtime = new LoggerRuntime();
+		runtime.startup(new RuntimeData());
+		final Instrumenter instrumenter = new Instrumenter(runtime);
+		final byte[] bytes = instrumenter.instrument(
+				TargetLoader.getClassDataAsBytes(targetClass), target);
+		instrumented = (Callable<?>) new TargetLoader().add(targetClass, bytes)
+				.newInstance();
+	}
+
+	@TearDown
+	public void teardown() {
+		runtime.shutdown();
+	}
+
+	@Benchmark
+	public Object original() throws Exception {
+		return original.call();
+	}
+
+	@Benchmark
+	public Object instrumented() throws Exception {
+		return instrumented.call();
+	}
+
+}
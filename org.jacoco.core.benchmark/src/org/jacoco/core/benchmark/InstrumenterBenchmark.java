@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Instrumentation of all classes of a corpus with
+ * {@link Instrumenter#instrument(byte[], String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InstrumenterBenchmark {
+
+	@Param({ Corpus.JACOCO, Corpus.ASM, Corpus.VALIDATION })
+	public String corpus;
+
+	private List<String> names;
+
+	private List<byte[]> classes;
+
+	private Instrumenter instrumenter;
+
+	@Setup
+	public void setup() throws Exception {
+		final Corpus c = Corpus.load(corpus);
+		names = c.getNames();
+		classes = c.getClasses();
+		instrumenter = new Instrumenter(
+				new OfflineInstrumentationAccessGenerator());
+	}
+
+	@Benchmark
+	public void instrument(final Blackhole blackhole) throws Exception {
+		for (int i = 0; i < classes.size(); i++) {
+			blackhole.consume(
+					instrumenter.instrument(classes.get(i), names.get(i)));
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.RuntimeData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Access to the probe arrays through {@link RuntimeData} from multiple threads
+ * as it happens when instrumented classes are initialized in parallel, with and
+ * without concurrent dumps or snapshots of the execution data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RuntimeDataBenchmark {
+
+	@Param({ "1000" })
+	public int classCount;
+
+	private RuntimeData data;
+
+	private Long[] ids;
+
+	private String[] names;
+
+	@Setup
+	public void setup() {
+		data = new RuntimeData();
+		ids = new Long[classCount];
+		names = new String[classCount];
+		for (int i = 0; i < classCount; i++) {
+			ids[i] = Long.valueOf(i);
+			names[i] = "org/jacoco/example/Class" + i;
+			data.getExecutionData(ids[i], names[i], 10).getProbes()[0] = true;
+		}
+	}
+
+	/**
+	 * Per thread position in the list of classes.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int position;
+
+		int next(final int count) {
+			position = (position + 1) % count;
+			return position;
+		}
+
+	}
+
+	@Benchmark
+	@Threads(4)
+	public ExecutionData getExecutionData(final Cursor cursor) {
+		final int i = cursor.next(classCount);
+		return data.getExecutionData(ids[i], names[i], 10);
+	}
+
+	@Benchmark
+	@Group("dump")
+	@GroupThreads(3)
+	public ExecutionData getExecutionDataWhileDumping(final Cursor cursor) {
+		final int i = cursor.next(classCount);
+		return data.getExecutionData(ids[i], names[i], 10);
+	}
+
+	@Benchmark
+	@Group("dump")
+	@GroupThreads(1)
+	public void collect(final Blackhole blackhole) {
+		data.collect(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				blackhole.consume(data);
+			}
+		}, new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+				blackhole.consume(info);
+			}
+		}, false);
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(3)
+	public ExecutionData getExecutionDataWhileSnapshotting(
+			final Cursor cursor) {
+		final int i = cursor.next(classCount);
+		return data.getExecutionData(ids[i], names[i], 10);
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(1)
+	public void collectSnapshot(final Blackhole blackhole) {
+		data.collectSnapshot(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				blackhole.consume(data);
+			}
+		}, new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+				blackhole.consume(info);
+			}
+		}, false);
+	}
+
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.runtime.WildcardMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matching of class names against a long list of exclude expressions as the
+ * agent does for every loaded class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WildcardMatcherBenchmark {
+
+	@Param({ "150" })
+	public int expressionCount;
+
+	private WildcardMatcher matcher;
+
+	private String[] names;
+
+	private int position;
+
+	@Setup
+	public void setup() {
+		final StringBuilder expression = new StringBuilder();
+		for (int i = 0; i < expressionCount; i++) {
+			if (i > 0) {
+				expression.append(':');
+			}
+			switch (i % 3) {
+			case 0:
+				expression.append("org/example/package").append(i).append("/*");
+				break;
+			case 1:
+				expression.append("*Generated").append(i);
+				break;
+			default:
+				expression.append("org/*/module").append(i).append("/*Impl");
+				break;
+			}
+		}
+		matcher = new WildcardMatcher(expression.toString());
+		names = new String[] { "java/lang/Object",
+				"java/util/concurrent/ConcurrentHashMap$Node",
+				"org/example/package42/Foo", "org/example/module43/FooImpl",
+				"com/example/service/CustomerServiceGenerated1" };
+	}
+
+	@Benchmark
+	public boolean matches() {
+		position = (position + 1) % names.length;
+		return matcher.matches(names[position]);
+	}
+
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ConcurrentCoverageBuilder}.
+ */
+public class ConcurrentCoverageBuilderTest {
+
+	private static final int THREADS = 8;
+
+	private ConcurrentCoverageBuilder coverageBuilder;
+
+	private ExecutorService executor;
+
+	@Before
+	public void setup() {
+		coverageBuilder = new ConcurrentCoverageBuilder();
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void teardown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void should_create_source_file() {
+		addClass(123L, false, "Sample", "Sample.java", 3);
+		addClass(234L, false, "Second", "Sample.java", 6);
+
+		final Collection<ISourceFileCoverage> sourcefiles = coverageBuilder
+				.getSourceFiles();
+		assertEquals(1, sourcefiles.size());
+		final ISourceFileCoverage s = sourcefiles.iterator().next();
+		assertEquals(2, s.getClassCounter().getTotalCount());
+		assertEquals(3, s.getFirstLine());
+		assertEquals(6, s.getLastLine());
+	}
+
+	@Test
+	public void should_ignore_duplicate_class_with_same_id() {
+		addClass(123L, false, "Sample", "Sample.java", 3);
+		addClass(123L, false, "Sample", "Sample.java", 3);
+
+		assertEquals(1, coverageBuilder.getClasses().size());
+		assertEquals(1, coverageBuilder.getSourceFiles().iterator().next()
+				.getClassCounter().getTotalCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void should_fail_for_duplicate_class_with_different_id() {
+		addClass(123L, false, "Sample", null, 3);
+		addClass(345L, false, "Sample", null, 3);
+	}
+
+	@Test
+	public void should_return_no_match_classes() {
+		addClass(1, true, "Sample1", null, 1);
+		addClass(2, false, "Sample2", null, 2);
+
+		final Collection<IClassCoverage> noMatch = coverageBuilder
+				.getNoMatchClasses();
+		assertEquals(1, noMatch.size());
+		assertEquals("Sample1", noMatch.iterator().next().getName());
+	}
+
+	@Test
+	public void should_create_bundle() {
+		addClass(1, false, "org/jacoco/examples/Sample1", "Sample1.java", 3);
+		addClass(2, false, "Sample2", null, 1);
+
+		final IBundleCoverage bundle = coverageBuilder.getBundle("testbundle");
+
+		assertEquals("testbundle", bundle.getName());
+		assertEquals(2, bundle.getPackages().size());
+		assertEquals(2, bundle.getClassCounter().getTotalCount());
+	}
+
+	@Test
+	public void should_aggregate_source_files_from_multiple_threads()
+			throws Exception {
+		final int classesPerThread = 500;
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Future<Void>> results = new ArrayList<Future<Void>>();
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			results.add(executor.submit(new Callable<Void>() {
+				public Void call() throws Exception {
+					start.await();
+					for (int i = 0; i < classesPerThread; i++) {
+						// All threads add classes to the same source files:
+						addClass(thread * classesPerThread + i, false,
+								"pkg/C" + thread + "_" + i,
+								"Source" + i % 10 + ".java", i % 7 + 1);
+					}
+					return null;
+				}
+			}));
+		}
+		start.countDown();
+		for (final Future<Void> r : results) {
+			r.get();
+		}
+
+		assertEquals(THREADS * classesPerThread,
+				coverageBuilder.getClasses().size());
+		assertEquals(10, coverageBuilder.getSourceFiles().size());
+		for (final ISourceFileCoverage s : coverageBuilder.getSourceFiles()) {
+			assertEquals(THREADS * classesPerThread / 10,
+					s.getClassCounter().getTotalCount());
+			assertEquals(THREADS * classesPerThread / 10,
+					s.getInstructionCounter().getTotalCount());
+		}
+		final IBundleCoverage bundle = coverageBuilder.getBundle("test");
+		assertEquals(THREADS * classesPerThread,
+				bundle.getInstructionCounter().getMissedCount());
+	}
+
+	@Test
+	public void should_calculate_same_coverage_as_coverage_builder_with_shared_analyzer()
+			throws Exception {
+		final Class<?>[] classes = { Analyzer.class, CoverageBuilder.class,
+				ConcurrentCoverageBuilder.class, CoverageNodeImpl.class,
+				CoverageTemplate.class, CoverageTemplateBuilder.class,
+				ConcurrentCoverageBuilderTest.class };
+		final CoverageBuilder expected = new CoverageBuilder();
+		final Analyzer sequential = new Analyzer(new ExecutionDataStore(),
+				expected);
+		for (final Class<?> c : classes) {
+			sequential.analyzeClass(TargetLoader.getClassDataAsBytes(c), "");
+		}
+
+		final Analyzer shared = new Analyzer(new ExecutionDataStore(),
+				coverageBuilder);
+		final List<Future<Void>> results = new ArrayList<Future<Void>>();
+		for (final Class<?> c : classes) {
+			results.add(executor.submit(new Callable<Void>() {
+				public Void call() throws Exception {
+					shared.analyzeClass(TargetLoader.getClassDataAsBytes(c),
+							"");
+					return null;
+				}
+			}));
+		}
+		for (final Future<Void> r : results) {
+			r.get();
+		}
+
+		final Map<String, ISourceFileCoverage> actual = new HashMap<String, ISourceFileCoverage>();
+		for (final ISourceFileCoverage s : coverageBuilder.getSourceFiles()) {
+			actual.put(s.getPackageName() + "/" + s.getName(), s);
+		}
+		assertEquals(expected.getSourceFiles().size(), actual.size());
+		for (final ISourceFileCoverage e : expected.getSourceFiles()) {
+			final ISourceFileCoverage a = actual
+					.get(e.getPackageName() + "/" + e.getName());
+			assertNotNull(a);
+			for (final ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity
+					.values()) {
+				assertEquals(e.getCounter(entity), a.getCounter(entity));
+			}
+		}
+		assertEquals(expected.getBundle("b").getInstructionCounter(),
+				coverageBuilder.getBundle("b").getInstructionCounter());
+	}
+
+	@Test
+	public void getBundle_should_contain_source_files() {
+		addClass(1, false, "Sample", "Sample.java", 3);
+
+		final IBundleCoverage bundle = coverageBuilder.getBundle("test");
+
+		assertSame(coverageBuilder.getSourceFiles().iterator().next(),
+				bundle.getPackages().iterator().next().getSourceFiles()
+						.iterator().next());
+	}
+
+	private void addClass(final long id, final boolean nomatch,
+			final String name, final String source, final int line) {
+		final MethodCoverageImpl method = new MethodCoverageImpl("doit", "()V",
+				null);
+		method.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0,
+				line);
+		method.incrementMethodCounter();
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(name, id,
+				nomatch);
+		coverage.setSourceFileName(source);
+		coverage.addMethod(method);
+		coverageBuilder.visitCoverage(coverage);
+	}
+
+}
@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.ClassProbesVisitor;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Unit tests for {@link CoverageModelWriter} and {@link CoverageModelReader}.
+ */
+public class CoverageModelTest {
+
+	private static final Class<?>[] CLASSES = { Analyzer.class,
+			CoverageBuilder.class, CoverageNodeImpl.class,
+			CoverageModelReader.class, CoverageModelWriter.class,
+			ICoverageNode.CounterEntity.class, CoverageModelTest.class };
+
+	@Test
+	public void should_read_same_bundle_as_written() throws IOException {
+		final IBundleCoverage expected = analyze("Test",
+				createExecutionData(new Random(42)));
+
+		final IBundleCoverage actual = roundtrip(expected);
+
+		assertSameBundle(expected, actual);
+	}
+
+	@Test
+	public void should_read_bundle_without_coverage() throws IOException {
+		final IBundleCoverage expected = analyze("Empty",
+				new ExecutionDataStore());
+
+		assertSameBundle(expected, roundtrip(expected));
+	}
+
+	@Test
+	public void should_read_multiple_bundles() throws IOException {
+		final IBundleCoverage b1 = analyze("b1",
+				createExecutionData(new Random(1)));
+		final IBundleCoverage b2 = analyze("b2",
+				createExecutionData(new Random(2)));
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final CoverageModelWriter writer = new CoverageModelWriter(buffer);
+		writer.writeBundle(b1);
+		writer.writeBundle(b2);
+		writer.flush();
+
+		final CoverageModelReader reader = new CoverageModelReader(
+				new ByteArrayInputStream(buffer.toByteArray()));
+
+		assertSameBundle(b1, reader.readBundle());
+		assertSameBundle(b2, reader.readBundle());
+		assertNull(reader.readBundle());
+	}
+
+	@Test
+	public void should_keep_no_match_flag() throws IOException {
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(CoverageModelTest.class);
+		final ExecutionDataStore executionData = new ExecutionDataStore();
+		executionData.put(new ExecutionData(CRC64.classId(bytes) + 1,
+				"org/jacoco/core/analysis/CoverageModelTest", new boolean[0]));
+		final CoverageBuilder builder = new CoverageBuilder();
+		new Analyzer(executionData, builder).analyzeClass(bytes, "");
+
+		final IBundleCoverage actual = roundtrip(builder.getBundle("Test"));
+
+		final IClassCoverage c = actual.getPackages().iterator().next()
+				.getClasses().iterator().next();
+		assertTrue(c.isNoMatch());
+	}
+
+	@Test
+	public void should_write_names_only_once() throws IOException {
+		final IBundleCoverage bundle = analyze("Test",
+				new ExecutionDataStore());
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final CoverageModelWriter writer = new CoverageModelWriter(buffer);
+		writer.writeBundle(bundle);
+		final int size = buffer.size();
+
+		writer.writeBundle(bundle);
+
+		assertTrue(buffer.size() - size < size / 2);
+	}
+
+	@Test
+	public void should_fail_for_invalid_header() throws IOException {
+		final CoverageModelReader reader = new CoverageModelReader(
+				new ByteArrayInputStream(new byte[] { 0x01, 0x02, 0x03 }));
+		try {
+			reader.readBundle();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid coverage model file.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void should_fail_for_incompatible_version() throws IOException {
+		final CoverageModelReader reader = new CoverageModelReader(
+				new ByteArrayInputStream(
+						new byte[] { (byte) 0xC0, (byte) 0xC1, 0x7f, 0x7f }));
+		try {
+			reader.readBundle();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals(
+					"Cannot read coverage model version 0x7f7f. This version of JaCoCo uses coverage model version 0x1.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void should_fail_for_unknown_block() throws IOException {
+		final CoverageModelReader reader = new CoverageModelReader(
+				new ByteArrayInputStream(new byte[] { (byte) 0xC0, (byte) 0xC1,
+						0x00, 0x01, 0x22 }));
+		try {
+			reader.readBundle();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Unknown block type 22.", e.getMessage());
+		}
+	}
+
+	private static IBundleCoverage roundtrip(final IBundleCoverage bundle)
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final CoverageModelWriter writer = new CoverageModelWriter(buffer);
+		writer.writeBundle(bundle);
+		writer.flush();
+		final CoverageModelReader reader = new CoverageModelReader(
+				new ByteArrayInputStream(buffer.toByteArray()));
+		final IBundleCoverage result = reader.readBundle();
+		assertNull(reader.readBundle());
+		return result;
+	}
+
+	private static IBundleCoverage analyze(final String name,
+			final ExecutionDataStore executionData) throws IOException {
+		final CoverageBuilder builder = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(executionData, builder);
+		for (final Class<?> c : CLASSES) {
+			analyzer.analyzeClass(TargetLoader.getClassDataAsBytes(c), "");
+		}
+		return builder.getBundle(name);
+	}
+
+	private static ExecutionDataStore createExecutionData(final Random random)
+			throws IOException {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		for (final Class<?> c : CLASSES) {
+			final byte[] bytes = TargetLoader.getClassDataAsBytes(c);
+			final ClassReader reader = InstrSupport.classReaderFor(bytes);
+			final int[] count = new int[1];
+			reader.accept(new ClassProbesAdapter(new ClassProbesVisitor() {
+				@Override
+				public MethodProbesVisitor visitMethod(final int access,
+						final String name, final String desc,
+						final String signature, final String[] exceptions) {
+					return null;
+				}
+
+				@Override
+				public void visitTotalProbeCount(final int total) {
+					count[0] = total;
+				}
+			}, false), 0);
+			final boolean[] probes = store
+					.get(Long.valueOf(CRC64.classId(bytes)),
+							reader.getClassName(), count[0])
+					.getProbes();
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] = random.nextBoolean();
+			}
+		}
+		return store;
+	}
+
+	private static void assertSameBundle(final IBundleCoverage expected,
+			final IBundleCoverage actual) {
+		assertNotNull(actual);
+		assertSameNode(expected, actual);
+		assertEquals(expected.getPackages().size(),
+				actual.getPackages().size());
+		final Iterator<IPackageCoverage> ai = actual.getPackages().iterator();
+		for (final IPackageCoverage ep : expected.getPackages()) {
+			final IPackageCoverage ap = ai.next();
+			assertSameNode(ep, ap);
+			assertSameClasses(ep.getClasses(), ap.getClasses());
+			assertEquals(ep.getSourceFiles().size(),
+					ap.getSourceFiles().size());
+			final Iterator<ISourceFileCoverage> asi = ap.getSourceFiles()
+					.iterator();
+			for (final ISourceFileCoverage es : ep.getSourceFiles()) {
+				final ISourceFileCoverage as = asi.next();
+				assertSameSourceNode(es, as);
+			}
+		}
+	}
+
+	private static void assertSameClasses(
+			final Collection<IClassCoverage> expected,
+			final Collection<IClassCoverage> actual) {
+		assertEquals(expected.size(), actual.size());
+		final Iterator<IClassCoverage> ai = actual.iterator();
+		for (final IClassCoverage e : expected) {
+			final IClassCoverage a = ai.next();
+			assertEquals(e.getId(), a.getId());
+			assertEquals(e.isNoMatch(), a.isNoMatch());
+			assertEquals(e.getSignature(), a.getSignature());
+			assertEquals(e.getSuperName(), a.getSuperName());
+			assertTrue(Arrays.equals(e.getInterfaceNames(),
+					a.getInterfaceNames()));
+			assertEquals(e.getSourceFileName(), a.getSourceFileName());
+			assertSameSourceNode(e, a);
+			assertEquals(e.getMethods().size(), a.getMethods().size());
+			final Iterator<IMethodCoverage> ami = a.getMethods().iterator();
+			for (final IMethodCoverage em : e.getMethods()) {
+				final IMethodCoverage am = ami.next();
+				assertEquals(em.getDesc(), am.getDesc());
+				assertEquals(em.getSignature(), am.getSignature());
+				assertSameSourceNode(em, am);
+			}
+		}
+	}
+
+	private static void assertSameSourceNode(final ISourceNode expected,
+			final ISourceNode actual) {
+		assertSameNode(expected, actual);
+		final String name = expected.getName();
+		assertEquals(name, expected.getFirstLine(), actual.getFirstLine());
+		assertEquals(name, expected.getLastLine(), actual.getLastLine());
+		for (int i = expected.getFirstLine(); i <= expected
+				.getLastLine(); i++) {
+			final ILine el = expected.getLine(i);
+			final ILine al = actual.getLine(i);
+			assertEquals(name + ":" + i, el.getInstructionCounter(),
+					al.getInstructionCounter());
+			assertEquals(name + ":" + i, el.getBranchCounter(),
+					al.getBranchCounter());
+		}
+	}
+
+	private static void assertSameNode(final ICoverageNode expected,
+			final ICoverageNode actual) {
+		final String name = expected.getName();
+		assertEquals(name, expected.getName(), actual.getName());
+		assertEquals(name, expected.getElementType(), actual.getElementType());
+		for (final ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity
+				.values()) {
+			assertEquals(name + " " + entity, expected.getCounter(entity),
+					actual.getCounter(entity));
+		}
+	}
+
+}
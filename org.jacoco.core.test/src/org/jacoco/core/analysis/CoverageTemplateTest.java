@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.InputStreams;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.ClassProbesVisitor;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Unit tests for {@link CoverageTemplate} and {@link CoverageTemplateBuilder}.
+ */
+public class CoverageTemplateTest {
+
+	private static Map<String, byte[]> classes;
+
+	private static CoverageTemplate template;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		classes = new LinkedHashMap<String, byte[]>();
+		collectClasses(location(Analyzer.class));
+		collectClasses(location(CoverageTemplateTest.class));
+
+		final CoverageTemplateBuilder builder = new CoverageTemplateBuilder();
+		for (final Map.Entry<String, byte[]> c : classes.entrySet()) {
+			builder.analyzeClass(c.getValue(), c.getKey());
+		}
+		template = builder.getTemplate();
+	}
+
+	@Test
+	public void getClassCount_should_return_number_of_analyzed_classes()
+			throws IOException {
+		final CoverageBuilder builder = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(new ExecutionDataStore(),
+				builder);
+		for (final Map.Entry<String, byte[]> c : classes.entrySet()) {
+			analyzer.analyzeClass(c.getValue(), c.getKey());
+		}
+		assertEquals(builder.getClasses().size(), template.getClassCount());
+	}
+
+	@Test
+	public void should_calculate_same_coverage_as_analyzer_without_execution_data()
+			throws IOException {
+		assertSameCoverage(new ExecutionDataStore());
+	}
+
+	@Test
+	public void should_calculate_same_coverage_as_analyzer_with_full_execution_data()
+			throws IOException {
+		assertSameCoverage(createExecutionData(new Random(0), 1.0));
+	}
+
+	@Test
+	public void should_calculate_same_coverage_as_analyzer_with_random_execution_data()
+			throws IOException {
+		final Random random = new Random(42);
+		for (int i = 0; i < 5; i++) {
+			assertSameCoverage(createExecutionData(random, 0.5));
+		}
+	}
+
+	@Test
+	public void should_report_no_match() throws IOException {
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(CoverageTemplateTest.class);
+		final CoverageTemplateBuilder builder = new CoverageTemplateBuilder();
+		builder.analyzeClass(bytes, "");
+		final ExecutionDataStore executionData = new ExecutionDataStore();
+		executionData.put(new ExecutionData(CRC64.classId(bytes) + 1,
+				"org/jacoco/core/analysis/CoverageTemplateTest",
+				new boolean[0]));
+
+		final CoverageBuilder coverage = new CoverageBuilder();
+		builder.getTemplate().accept(executionData, coverage);
+
+		assertEquals(1, coverage.getNoMatchClasses().size());
+	}
+
+	@Test
+	public void createBundle_should_aggregate_all_classes() {
+		final IBundleCoverage bundle = template.createBundle("Test",
+				new ExecutionDataStore());
+
+		assertEquals("Test", bundle.getName());
+		assertFalse(bundle.getPackages().isEmpty());
+		assertEquals(0, bundle.getInstructionCounter().getCoveredCount());
+		assertTrue(bundle.getInstructionCounter().getMissedCount() > 0);
+	}
+
+	private void assertSameCoverage(final ExecutionDataStore executionData)
+			throws IOException {
+		final CoverageBuilder expected = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(executionData, expected);
+		for (final Map.Entry<String, byte[]> c : classes.entrySet()) {
+			analyzer.analyzeClass(c.getValue(), c.getKey());
+		}
+
+		final CoverageBuilder actual = new CoverageBuilder();
+		template.accept(executionData, actual);
+
+		final Map<String, IClassCoverage> actualClasses = new LinkedHashMap<String, IClassCoverage>();
+		for (final IClassCoverage c : actual.getClasses()) {
+			actualClasses.put(c.getName(), c);
+		}
+		assertEquals(expected.getClasses().size(), actualClasses.size());
+		for (final IClassCoverage e : expected.getClasses()) {
+			final IClassCoverage a = actualClasses.get(e.getName());
+			assertNotNull(e.getName(), a);
+			assertEquals(e.getId(), a.getId());
+			assertEquals(e.isNoMatch(), a.isNoMatch());
+			assertEquals(e.getSignature(), a.getSignature());
+			assertEquals(e.getSuperName(), a.getSuperName());
+			assertTrue(Arrays.equals(e.getInterfaceNames(),
+					a.getInterfaceNames()));
+			assertEquals(e.getSourceFileName(), a.getSourceFileName());
+			assertSameNode(e, a);
+			assertEquals(e.getMethods().size(), a.getMethods().size());
+			final Iterator<IMethodCoverage> ai = a.getMethods().iterator();
+			for (final IMethodCoverage em : e.getMethods()) {
+				final IMethodCoverage am = ai.next();
+				assertEquals(em.getDesc(), am.getDesc());
+				assertEquals(em.getSignature(), am.getSignature());
+				assertSameNode(em, am);
+			}
+		}
+	}
+
+	private static void assertSameNode(final ISourceNode expected,
+			final ISourceNode actual) {
+		final String name = expected.getName();
+		assertEquals(name, expected.getName(), actual.getName());
+		for (final ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity
+				.values()) {
+			assertEquals(name + " " + entity, expected.getCounter(entity),
+					actual.getCounter(entity));
+		}
+		assertEquals(name, expected.getFirstLine(), actual.getFirstLine());
+		assertEquals(name, expected.getLastLine(), actual.getLastLine());
+		for (int i = expected.getFirstLine(); i <= expected
+				.getLastLine(); i++) {
+			final ILine el = expected.getLine(i);
+			final ILine al = actual.getLine(i);
+			assertEquals(name + ":" + i, el.getInstructionCounter(),
+					al.getInstructionCounter());
+			assertEquals(name + ":" + i, el.getBranchCounter(),
+					al.getBranchCounter());
+		}
+	}
+
+	private static ExecutionDataStore createExecutionData(final Random random,
+			final double ratio) {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		for (final byte[] bytes : classes.values()) {
+			final ClassReader reader = InstrSupport.classReaderFor(bytes);
+			final int[] count = new int[1];
+			reader.accept(new ClassProbesAdapter(new ClassProbesVisitor() {
+				@Override
+				public MethodProbesVisitor visitMethod(final int access,
+						final String name, final String desc,
+						final String signature, final String[] exceptions) {
+					return null;
+				}
+
+				@Override
+				public void visitTotalProbeCount(final int total) {
+					count[0] = total;
+				}
+			}, false), 0);
+			final boolean[] probes = store
+					.get(Long.valueOf(CRC64.classId(bytes)),
+							reader.getClassName(), count[0])
+					.getProbes();
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] = random.nextDouble() < ratio;
+			}
+		}
+		return store;
+	}
+
+	private static File location(final Class<?> c) {
+		return new File(c.getProtectionDomain().getCodeSource().getLocation()
+				.getFile());
+	}
+
+	private static void collectClasses(final File file) throws IOException {
+		if (file.isDirectory()) {
+			final List<File> files = new ArrayList<File>(
+					Arrays.asList(file.listFiles()));
+			for (final File f : files) {
+				collectClasses(f);
+			}
+		} else if (file.getName().endsWith(".class")) {
+			final InputStream in = new FileInputStream(file);
+			try {
+				classes.put(file.getPath(), InputStreams.readFully(in));
+			} finally {
+				in.close();
+			}
+		} else if (file.getName().endsWith(".jar")) {
+			final ZipInputStream zip = new ZipInputStream(
+					new FileInputStream(file));
+			try {
+				ZipEntry entry;
+				while ((entry = zip.getNextEntry()) != null) {
+					if (entry.getName().endsWith(".class")) {
+						classes.put(file.getPath() + "@" + entry.getName(),
+								InputStreams.readFully(zip));
+					}
+				}
+			} finally {
+				zip.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ClassNameCache}.
+ */
+public class ClassNameCacheTest {
+
+	private ClassNameCache cache;
+
+	@Before
+	public void setup() {
+		cache = new ClassNameCache();
+	}
+
+	@Test
+	public void get_should_decode_name() throws IOException {
+		assertEquals("org/example/Foo", get("org/example/Foo"));
+	}
+
+	@Test
+	public void get_should_decode_non_ascii_name() throws IOException {
+		assertEquals("org/example/Föö€", get("org/example/Föö€"));
+	}
+
+	@Test
+	public void get_should_return_same_instance() throws IOException {
+		final String name = get("org/example/Foo");
+		assertSame(name, get("org/example/Foo"));
+	}
+
+	@Test
+	public void get_should_only_consider_given_length() throws IOException {
+		final byte[] utf = "Foo".getBytes("UTF-8");
+		final byte[] buffer = new byte[10];
+		System.arraycopy(utf, 0, buffer, 0, utf.length);
+		buffer[3] = 'X';
+		assertEquals("Foo", cache.get(buffer, 3));
+		assertEquals("FooX", cache.get(buffer, 4));
+	}
+
+	@Test
+	public void get_should_keep_names_when_growing() throws IOException {
+		final String[] names = new String[1000];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = get("org/example/Class" + i);
+		}
+		for (int i = 0; i < names.length; i++) {
+			assertSame(names[i], get("org/example/Class" + i));
+		}
+	}
+
+	private String get(String name) throws IOException {
+		final byte[] utf = encode(name);
+		return cache.get(utf, utf.length);
+	}
+
+	private static byte[] encode(String name) throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		new DataOutputStream(buffer).writeUTF(name);
+		final byte[] bytes = buffer.toByteArray();
+		final byte[] utf = new byte[bytes.length - 2];
+		System.arraycopy(bytes, 2, utf, 0, utf.length);
+		return utf;
+	}
+
+}
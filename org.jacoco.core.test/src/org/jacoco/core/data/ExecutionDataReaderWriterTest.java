@@ -15,6 +15,7 @@ package org.jacoco.core.data;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -23,7 +24,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import org.junit.Before;
@@ -299,6 +302,251 @@ public class ExecutionDataReaderWriterTest {
 				new ExecutionData(3, "Sample", createData(1)));
 	}
 
+	// === Name Table ===
+
+	@Test
+	public void testNameTable() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				false, true);
+		writer.visitSessionInfo(new SessionInfo("TestSession", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(1, "Sample", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(2, "Other", new boolean[] { true }));
+		writer.visitSessionInfo(new SessionInfo("TestSession", 3, 4));
+		writer.visitClassExecution(
+				new ExecutionData(1, "Sample", new boolean[] { false, true }));
+
+		final ExecutionDataReader reader = createReader();
+		final List<ExecutionData> data = new ArrayList<ExecutionData>();
+		reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+			public void visitClassExecution(ExecutionData d) {
+				data.add(d);
+			}
+		});
+		reader.setSessionInfoVisitor(new SessionInfoStore());
+		assertFalse(reader.read());
+		assertEquals(3, data.size());
+		assertEquals("Sample", data.get(0).getName());
+		assertEquals("Other", data.get(1).getName());
+		assertSame(data.get(0).getName(), data.get(2).getName());
+	}
+
+	@Test
+	public void testNameTableIsSmaller() throws IOException {
+		final ByteArrayOutputStream table = new ByteArrayOutputStream();
+		final ExecutionDataWriter tableWriter = new ExecutionDataWriter(table,
+				false, true);
+		for (int session = 0; session < 10; session++) {
+			for (int i = 0; i < 100; i++) {
+				final ExecutionData data = new ExecutionData(i,
+						"org/example/Sample" + i, new boolean[] { true });
+				writer.visitClassExecution(data);
+				tableWriter.visitClassExecution(data);
+			}
+		}
+		assertTrue(table.size() * 2 < buffer.size());
+	}
+
+	@Test
+	public void testSharedClassNameCache() throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "Sample", new boolean[] { true }));
+		final ClassNameCache cache = new ClassNameCache();
+		final String[] names = new String[2];
+		for (int i = 0; i < 2; i++) {
+			final int index = i;
+			final ExecutionDataReader reader = createReader();
+			reader.setClassNameCache(cache);
+			reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+				public void visitClassExecution(ExecutionData data) {
+					names[index] = data.getName();
+				}
+			});
+			reader.read();
+		}
+		assertEquals("Sample", names[0]);
+		assertSame(names[0], names[1]);
+	}
+
+	// === Compression ===
+
+	@Test
+	public void testCompressed() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				true);
+		final boolean[] data1 = createData(15);
+		final boolean[] data2 = createData(185);
+		writer.visitSessionInfo(new SessionInfo("TestSession", 1, 2));
+		writer.visitClassExecution(new ExecutionData(333, "Sample", data1));
+		writer.visitClassExecution(new ExecutionData(-45, "Sample", data2));
+		writer.flush();
+
+		assertFalse(createReaderWithVisitors().read());
+		assertEquals("TestSession", sessionInfo.getId());
+		assertArrayEquals(data1, store.get(333).getProbes());
+		assertArrayEquals(data2, store.get(-45).getProbes());
+	}
+
+	@Test
+	public void testCompressedHeader() throws IOException {
+		buffer.reset();
+		new ExecutionDataWriter(buffer, true).flush();
+
+		final byte[] header = buffer.toByteArray();
+		assertEquals(5, header.length);
+		final char version = ExecutionDataWriter.EXTENDED_FORMAT_VERSION;
+		assertEquals(version >> 8, 0xFF & header[3]);
+		assertEquals(version & 0xFF, 0xFF & header[4]);
+	}
+
+	@Test
+	public void testNameTableHeader() throws IOException {
+		buffer.reset();
+		new ExecutionDataWriter(buffer, false, true).flush();
+
+		final byte[] header = buffer.toByteArray();
+		final char version = ExecutionDataWriter.EXTENDED_FORMAT_VERSION;
+		assertEquals(version >> 8, 0xFF & header[3]);
+		assertEquals(version & 0xFF, 0xFF & header[4]);
+		assertFalse(createReaderWithVisitors().read());
+	}
+
+	@Test
+	public void testCompressedMultipleFrames() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				true);
+		for (int i = 0; i < 5000; i++) {
+			writer.visitClassExecution(new ExecutionData(i,
+					"org/example/Sample" + (i % 100), new boolean[] { true }));
+			if (i % 1000 == 0) {
+				writer.flush();
+			}
+		}
+		writer.flush();
+
+		assertFalse(createReaderWithVisitors().read());
+		assertEquals(5000, store.getContents().size());
+		assertEquals("org/example/Sample42", store.get(4242).getName());
+	}
+
+	@Test
+	public void testCompressedIsSmaller() throws IOException {
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		final ExecutionDataWriter compressedWriter = new ExecutionDataWriter(
+				compressed, true);
+		for (int i = 0; i < 1000; i++) {
+			final ExecutionData data = new ExecutionData(i,
+					"org/example/Sample" + i, new boolean[100]);
+			data.getProbes()[i % 100] = true;
+			writer.visitClassExecution(data);
+			compressedWriter.visitClassExecution(data);
+		}
+		compressedWriter.flush();
+
+		assertTrue(compressed.size() * 3 < buffer.size());
+	}
+
+	@Test
+	public void testCompressedMultipleStreams() throws IOException {
+		buffer.reset();
+		for (int i = 0; i < 2; i++) {
+			final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+					true);
+			writer.visitClassExecution(
+					new ExecutionData(i, "Sample" + i, new boolean[] { true }));
+			writer.flush();
+		}
+
+		assertFalse(createReaderWithVisitors().read());
+		assertEquals("Sample0", store.get(0).getName());
+		assertEquals("Sample1", store.get(1).getName());
+	}
+
+	@Test
+	public void testCompressedUnknownNameReference() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				true) {
+			{
+				out.writeByte(BLOCK_EXECUTIONDATA_REF);
+				out.writeLong(1);
+				out.writeVarInt(7);
+				out.writeBooleanArray(new boolean[] { true });
+			}
+		};
+		writer.flush();
+		try {
+			createReaderWithVisitors().read();
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Unknown class name reference 7.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testRetryIncompleteNameReference() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				false, true);
+		final int header = buffer.size();
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true }));
+		final int incomplete = buffer.size() - 1;
+		writer.visitClassExecution(
+				new ExecutionData(2, "Bar", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(3, "Bar", new boolean[] { true }));
+		final GrowingInput input = new GrowingInput(buffer.toByteArray(),
+				incomplete);
+		final ExecutionDataReader reader = new ExecutionDataReader(input);
+		reader.setExecutionDataVisitor(store);
+		try {
+			reader.read();
+			fail("EOFException expected");
+		} catch (EOFException e) {
+			// expected
+		}
+
+		input.retry(header);
+
+		assertFalse(reader.read());
+		assertEquals("Foo", store.get(1).getName());
+		assertEquals("Bar", store.get(2).getName());
+		assertEquals("Bar", store.get(3).getName());
+	}
+
+	@Test
+	public void testCorruptCompressedFrame() throws IOException {
+		buffer.write(ExecutionDataWriter.BLOCK_COMPRESSED);
+		buffer.write(10);
+		buffer.write(3);
+		buffer.write(new byte[] { 1, 2, 3 });
+		try {
+			createReaderWithVisitors().read();
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Corrupt compressed frame.", e.getMessage());
+		}
+	}
+
+	@Test(expected = EOFException.class)
+	public void testTruncatedCompressedFrame() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				true);
+		writer.visitClassExecution(
+				new ExecutionData(3, "Sample", createData(8)));
+		writer.flush();
+		final byte[] content = buffer.toByteArray();
+		buffer.reset();
+		buffer.write(content, 0, content.length - 1);
+		createReaderWithVisitors().read();
+	}
+
 	private ExecutionDataReader createReaderWithVisitors() throws IOException {
 		final ExecutionDataReader reader = createReader();
 		reader.setExecutionDataVisitor(store);
@@ -333,4 +581,21 @@ public class ExecutionDataReaderWriterTest {
 				new ByteArrayInputStream(buffer.toByteArray()));
 	}
 
+	/**
+	 * Input which provides only a part of the given content first, like a
+	 * network stream where the remaining data has not been received yet.
+	 */
+	private static class GrowingInput extends ByteArrayInputStream {
+
+		GrowingInput(final byte[] content, final int available) {
+			super(content, 0, available);
+		}
+
+		void retry(final int position) {
+			pos = position;
+			count = buf.length;
+		}
+
+	}
+
 }
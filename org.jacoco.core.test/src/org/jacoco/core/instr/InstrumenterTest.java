@@ -25,7 +25,9 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -34,10 +36,16 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.analysis.AnalyzerTest;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.internal.Pack200Streams;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.runtime.SystemPropertiesRuntime;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.AssumptionViolatedException;
 import org.junit.Before;
@@ -71,6 +79,13 @@ public class InstrumenterTest {
 
 	}
 
+	public static class ContextTarget implements Runnable {
+
+		public void run() {
+		}
+
+	}
+
 	private static final class AccessorGenerator
 			implements IExecutionDataAccessorGenerator {
 
@@ -110,6 +125,61 @@ public class InstrumenterTest {
 		assertEquals(expectedClassId, accessorGenerator.classId);
 	}
 
+	@Test
+	public void should_request_probe_array_again_after_context_boundary()
+			throws Exception {
+		assertProbeArrayRequestedAgain(
+				TargetLoader.getClassDataAsBytes(ContextTarget.class));
+	}
+
+	@Test
+	public void should_request_probe_array_again_after_context_boundary_with_condy()
+			throws Exception {
+		try {
+			Class.forName("java.lang.invoke.ConstantBootstraps");
+		} catch (ClassNotFoundException e) {
+			throw new AssumptionViolatedException(
+					"this test requires JDK with constant dynamic support");
+		}
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(ContextTarget.class);
+		InstrSupport.setMajorVersion(Opcodes.V11, bytes);
+		assertProbeArrayRequestedAgain(bytes);
+	}
+
+	private static void assertProbeArrayRequestedAgain(final byte[] original)
+			throws Exception {
+		final RuntimeData data = new RuntimeData();
+		final IRuntime runtime = new SystemPropertiesRuntime();
+		runtime.startup(data);
+		try {
+			final byte[] bytes = new Instrumenter(runtime).instrument(original,
+					"Test");
+			final Runnable target = (Runnable) new TargetLoader()
+					.add(ContextTarget.class, bytes).newInstance();
+			target.run();
+
+			data.startContext("test1");
+			target.run();
+			final List<ExecutionData> context = new ArrayList<ExecutionData>();
+			data.endContext(new IExecutionDataVisitor() {
+				public void visitClassExecution(final ExecutionData d) {
+					context.add(new ExecutionData(d.getId(), d.getName(),
+							d.getProbes().clone()));
+				}
+			}, new SessionInfoStore());
+
+			assertEquals(1, context.size());
+			assertEquals(ContextTarget.class.getName().replace('.', '/'),
+					context.get(0).getName());
+			// constructor, run() and touched slot:
+			assertArrayEquals(new boolean[] { false, true, true },
+					context.get(0).getProbes());
+		} finally {
+			runtime.shutdown();
+		}
+	}
+
 	private static byte[] createClass(final int version) {
 		final ClassWriter cw = new ClassWriter(0);
 		cw.visit(version, 0, "Foo", null, "java/lang/Object", null);
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Evgeny Mandrikov - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Futures}.
+ */
+public class FuturesTest {
+
+	@Test
+	public void get_should_return_result() throws IOException {
+		assertEquals("result", Futures.get(run(new Callable<String>() {
+			public String call() {
+				return "result";
+			}
+		})));
+	}
+
+	@Test
+	public void get_should_rethrow_IOException() {
+		final IOException exception = new IOException();
+		try {
+			Futures.get(run(new Callable<String>() {
+				public String call() throws IOException {
+					throw exception;
+				}
+			}));
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertSame(exception, e);
+		}
+	}
+
+	@Test
+	public void get_should_rethrow_RuntimeException() throws IOException {
+		final RuntimeException exception = new IllegalStateException();
+		try {
+			Futures.get(run(new Callable<String>() {
+				public String call() {
+					throw exception;
+				}
+			}));
+			fail("RuntimeException expected");
+		} catch (final RuntimeException e) {
+			assertSame(exception, e);
+		}
+	}
+
+	@Test
+	public void get_should_rethrow_Error() throws IOException {
+		final Error error = new AssertionError();
+		try {
+			Futures.get(run(new Callable<String>() {
+				public String call() {
+					throw error;
+				}
+			}));
+			fail("Error expected");
+		} catch (final Error e) {
+			assertSame(error, e);
+		}
+	}
+
+	@Test
+	public void get_should_throw_InterruptedIOException_when_interrupted()
+			throws IOException {
+		Thread.currentThread().interrupt();
+		try {
+			Futures.get(new FutureTask<String>(new Callable<String>() {
+				public String call() {
+					return "never";
+				}
+			}));
+			fail("InterruptedIOException expected");
+		} catch (final InterruptedIOException e) {
+			assertTrue(Thread.interrupted());
+		}
+	}
+
+	private static <T> FutureTask<T> run(final Callable<T> callable) {
+		final FutureTask<T> task = new FutureTask<T>(callable);
+		task.run();
+		return task;
+	}
+
+}
@@ -13,8 +13,7 @@
 package org.jacoco.core.internal.analysis;
 
 import static org.junit.Assert.assertEquals;
-
-import java.util.Map;
+import static org.junit.Assert.assertNull;
 
 import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.flow.LabelInfo;
@@ -22,7 +21,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
 
 /**
@@ -32,159 +31,191 @@ public class InstructionsBuilderTest {
 
 	private InstructionsBuilder builder;
 
+	private InsnList list;
+
 	@Before
 	public void setup() {
 		builder = new InstructionsBuilder(new boolean[] { false, true });
+		list = new InsnList();
+		builder.reset(list);
 	}
 
 	@Test
 	public void current_line_number_should_be_applied_to_instructions() {
 		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		addInstruction(i1);
 
 		builder.setCurrentLine(10);
 		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		addInstruction(i2);
 		InsnNode i3 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i3);
+		addInstruction(i3);
 
 		builder.setCurrentLine(20);
 		InsnNode i4 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i4);
-
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
-		assertEquals(ISourceNode.UNKNOWN_LINE, map.get(i1).getLine());
-		assertEquals(10, map.get(i2).getLine());
-		assertEquals(10, map.get(i3).getLine());
-		assertEquals(20, map.get(i4).getLine());
+		addInstruction(i4);
+
+		Instruction[] instructions = builder.getInstructions();
+		assertEquals(ISourceNode.UNKNOWN_LINE,
+				instructions[list.indexOf(i1)].getLine());
+		assertEquals(10, instructions[list.indexOf(i2)].getLine());
+		assertEquals(10, instructions[list.indexOf(i3)].getLine());
+		assertEquals(20, instructions[list.indexOf(i4)].getLine());
 	}
 
 	@Test
 	public void null_probearray_should_not_mark_instruction_as_covered() {
 		builder = new InstructionsBuilder(null);
+		builder.reset(list);
 
 		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		addInstruction(i1);
 		builder.addProbe(5, 0);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				instructions[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void unexecuted_probe_should_not_mark_instruction_as_covered() {
 		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		addInstruction(i1);
 		builder.addProbe(0, 0);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				instructions[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void executed_probe_should_mark_instruction_as_covered() {
 		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		addInstruction(i1);
 		builder.addProbe(1, 0);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				instructions[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void subsequent_instructions_should_be_linked_by_default() {
 		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		addInstruction(i1);
 
 		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		addInstruction(i2);
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				instructions[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void subsequent_instructions_should_not_be_linked_when_noSuccessor_was_called() {
 		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		addInstruction(i1);
 		builder.noSuccessor();
 
 		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		addInstruction(i2);
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should not be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				instructions[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void subsequent_instructions_should_be_linked_after_label_marked_as_successor() {
 		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		addInstruction(i1);
 
 		Label l = new Label();
 		LabelInfo.setSuccessor(l);
 		builder.addLabel(l);
 		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		addInstruction(i2);
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				instructions[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void subsequent_instructions_should_not_be_linked_after_label_not_marked_as_successor() {
 		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		addInstruction(i1);
 
 		builder.addLabel(new Label());
 		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		addInstruction(i2);
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should not be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				instructions[list.indexOf(i1)].getInstructionCounter());
 	}
 
 	@Test
 	public void jumps_should_propagate_coverage_status() {
 		InsnNode i1 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i1);
+		addInstruction(i1);
 		Label l2 = new Label();
 		builder.addJump(l2, 0);
 
 		builder.addLabel(l2);
 		InsnNode i2 = new InsnNode(Opcodes.NOP);
-		builder.addInstruction(i2);
+		addInstruction(i2);
 
 		// mark i2 as covered
 		builder.addProbe(1, 0);
 
 		// coverage should be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instruction[] instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				instructions[list.indexOf(i1)].getInstructionCounter());
+	}
+
+	@Test
+	public void reset_should_clear_state_of_previous_method() {
+		InsnNode i1 = new InsnNode(Opcodes.NOP);
+		builder.setCurrentLine(10);
+		addInstruction(i1);
+		builder.getInstructions();
+
+		list = new InsnList();
+		builder.reset(list);
+		InsnNode i2 = new InsnNode(Opcodes.NOP);
+		addInstruction(i2);
+		builder.addProbe(1, 0);
+
+		Instruction[] instructions = builder.getInstructions();
+		assertEquals(ISourceNode.UNKNOWN_LINE,
+				instructions[list.indexOf(i2)].getLine());
+		assertEquals(CounterImpl.COUNTER_0_1,
+				instructions[list.indexOf(i2)].getInstructionCounter());
+		assertNull(instructions[1]);
+	}
+
+	private void addInstruction(final InsnNode node) {
+		list.add(node);
+		builder.addInstruction(node);
 	}
 
 }
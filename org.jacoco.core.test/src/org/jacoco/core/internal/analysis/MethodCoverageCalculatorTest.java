@@ -14,10 +14,10 @@ package org.jacoco.core.internal.analysis;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 
 import org.jacoco.core.analysis.ISourceNode;
 import org.junit.Before;
@@ -32,7 +32,7 @@ import org.objectweb.asm.tree.InsnNode;
  */
 public class MethodCoverageCalculatorTest {
 
-	private Map<AbstractInsnNode, Instruction> instructions;
+	private List<Instruction> instructions;
 
 	// The purpose of this list is to link instruction nodes
 	private InsnList list;
@@ -41,7 +41,7 @@ public class MethodCoverageCalculatorTest {
 
 	@Before
 	public void setup() {
-		instructions = new HashMap<AbstractInsnNode, Instruction>();
+		instructions = new ArrayList<Instruction>();
 		coverage = new MethodCoverageImpl("run", "()V", null);
 		list = new InsnList();
 	}
@@ -53,7 +53,7 @@ public class MethodCoverageCalculatorTest {
 		addInsn(2, false);
 		addInsn(3, false);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.calculate(coverage);
 
 		assertLine(1, 0, 1, 0, 0);
@@ -67,7 +67,7 @@ public class MethodCoverageCalculatorTest {
 		addInsn(2, false, false, true);
 		addInsn(3, false, true, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.calculate(coverage);
 
 		assertLine(1, 1, 0, 2, 0);
@@ -81,7 +81,7 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i1 = addInsn(1, false);
 		addInsn(2, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.ignore(i1, i1);
 		c.calculate(coverage);
 
@@ -99,7 +99,7 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i2 = addInsn(2, false);
 		addInsn(3, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.ignore(i1, i2);
 		c.calculate(coverage);
 
@@ -114,7 +114,7 @@ public class MethodCoverageCalculatorTest {
 		addInsn(2, false);
 		InsnNode i3 = addInsn(3, false);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.ignore(i1, i1);
 		c.ignore(i3, i3);
 		c.calculate(coverage);
@@ -130,7 +130,7 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i2 = addInsn(2, true, false);
 		addInsn(3, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.merge(i1, i2);
 		c.calculate(coverage);
 
@@ -145,7 +145,7 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i2 = addInsn(1, false, true, false);
 		InsnNode i3 = addInsn(1, false, false, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.merge(i1, i2);
 		c.merge(i2, i3);
 		c.calculate(coverage);
@@ -160,7 +160,7 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i2 = addInsn(2, true, false);
 		addInsn(3, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.merge(i1, i2);
 		c.merge(i2, i1);
 		c.calculate(coverage);
@@ -177,7 +177,7 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i3 = addInsn(2, true);
 		InsnNode i4 = addInsn(2, false);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.replaceBranches(i1,
 				new HashSet<AbstractInsnNode>(Arrays.asList(i2, i3, i4)));
 		c.calculate(coverage);
@@ -193,7 +193,7 @@ public class MethodCoverageCalculatorTest {
 		InsnNode i3 = addInsn(2, false);
 		InsnNode i4 = addInsn(2, false);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.merge(i4, i3);
 		c.merge(i3, i2);
 		c.replaceBranches(i1,
@@ -209,7 +209,7 @@ public class MethodCoverageCalculatorTest {
 		addInsn(ISourceNode.UNKNOWN_LINE, false);
 		addInsn(ISourceNode.UNKNOWN_LINE, true);
 
-		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		MethodCoverageCalculator c = createCalculator();
 		c.calculate(coverage);
 
 		assertEquals(ISourceNode.UNKNOWN_LINE, coverage.getFirstLine());
@@ -218,6 +218,26 @@ public class MethodCoverageCalculatorTest {
 				coverage.getInstructionCounter());
 	}
 
+	@Test
+	public void should_not_keep_filtering_state_after_reset() {
+		InsnNode i1 = addInsn(1, true);
+		InsnNode i2 = addInsn(1, false);
+		MethodCoverageCalculator c = createCalculator();
+		c.ignore(i1, i1);
+		c.merge(i1, i2);
+		c.calculate(new MethodCoverageImpl("other", "()V", null));
+
+		instructions.clear();
+		list = new InsnList();
+		addInsn(1, true);
+		addInsn(1, false);
+		c.reset(list,
+				instructions.toArray(new Instruction[instructions.size()]));
+		c.calculate(coverage);
+
+		assertLine(1, 1, 1, 0, 0);
+	}
+
 	private void assertLine(int idx, int mi, int ci, int mb, int cb) {
 		assertEquals("instructions", CounterImpl.getInstance(mi, ci),
 				coverage.getLine(idx).getInstructionCounter());
@@ -233,8 +253,13 @@ public class MethodCoverageCalculatorTest {
 		}
 		InsnNode node = new InsnNode(Opcodes.NOP);
 		list.add(node);
-		instructions.put(node, i);
+		instructions.add(i);
 		return node;
 	}
 
+	private MethodCoverageCalculator createCalculator() {
+		return new MethodCoverageCalculator(list,
+				instructions.toArray(new Instruction[instructions.size()]));
+	}
+
 }
@@ -14,7 +14,9 @@ package org.jacoco.core.internal.analysis;
 
 import static org.junit.Assert.assertEquals;
 
+import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.ILine;
 import org.jacoco.core.analysis.ISourceNode;
 import org.junit.Test;
 
@@ -223,4 +225,87 @@ public class SourceNodeImplTest {
 		assertEquals(CounterImpl.getInstance(0, 1), node.getLineCounter());
 	}
 
+	@Test
+	public void testIncrementChildWithLinesOfOtherImplementation() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		final SourceNodeImpl child = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		child.increment(CounterImpl.getInstance(1, 11),
+				CounterImpl.getInstance(3, 33), 5);
+		child.increment(CounterImpl.getInstance(2, 0), CounterImpl.COUNTER_0_0,
+				7);
+
+		node.increment(new SourceNodeWrapper(child));
+
+		assertEquals(5, node.getFirstLine());
+		assertEquals(7, node.getLastLine());
+		assertEquals(CounterImpl.getInstance(1, 11),
+				node.getLine(5).getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(3, 33),
+				node.getLine(5).getBranchCounter());
+		assertEquals(LineImpl.EMPTY, node.getLine(6));
+		assertEquals(CounterImpl.getInstance(1, 1), node.getLineCounter());
+	}
+
+	@Test
+	public void testIncrementLargeLine() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		node.increment(CounterImpl.getInstance(0xFE, 0),
+				CounterImpl.getInstance(1, 2), 10);
+		node.increment(CounterImpl.getInstance(1, 0x100),
+				CounterImpl.getInstance(3, 4), 10);
+		node.increment(CounterImpl.getInstance(5, 6),
+				CounterImpl.getInstance(7, 8), 5);
+
+		assertEquals(CounterImpl.getInstance(0xFF, 0x100),
+				node.getLine(10).getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(4, 6),
+				node.getLine(10).getBranchCounter());
+		assertEquals(CounterImpl.getInstance(5, 6),
+				node.getLine(5).getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(0, 2), node.getLineCounter());
+
+		final SourceNodeImpl parent = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		parent.increment(node);
+		parent.increment(node);
+
+		assertEquals(CounterImpl.getInstance(0x1FE, 0x200),
+				parent.getLine(10).getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(8, 12),
+				parent.getLine(10).getBranchCounter());
+		assertEquals(CounterImpl.getInstance(10, 12),
+				parent.getLine(5).getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(0, 2), parent.getLineCounter());
+	}
+
+	/**
+	 * {@link ISourceNode} which is not a {@link SourceNodeImpl}.
+	 */
+	private static class SourceNodeWrapper extends CoverageNodeImpl
+			implements ISourceNode {
+
+		private final ISourceNode delegate;
+
+		SourceNodeWrapper(final ISourceNode delegate) {
+			super(delegate.getElementType(), delegate.getName());
+			this.delegate = delegate;
+			increment(delegate);
+		}
+
+		public int getFirstLine() {
+			return delegate.getFirstLine();
+		}
+
+		public int getLastLine() {
+			return delegate.getLastLine();
+		}
+
+		public ILine getLine(final int nr) {
+			return delegate.getLine(nr);
+		}
+	}
+
 }
@@ -16,6 +16,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.util.concurrent.CountDownLatch;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -70,4 +72,40 @@ public class StringPoolTest {
 		assertSame(arr1[0], arr2[0]);
 	}
 
+	@Test
+	public void should_return_same_instance_for_concurrent_lookups()
+			throws InterruptedException {
+		final int threads = 4;
+		final String[][] results = new String[threads][1000];
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final String[] result = results[t];
+			workers[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (final InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < result.length; i++) {
+						result[i] = pool.get(new String("s" + i));
+					}
+				}
+			};
+			workers[t].start();
+		}
+		start.countDown();
+		for (final Thread w : workers) {
+			w.join();
+		}
+
+		for (int t = 1; t < threads; t++) {
+			for (int i = 0; i < results[0].length; i++) {
+				assertSame(results[0][i], results[t][i]);
+			}
+		}
+	}
+
 }
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Evgeny Mandrikov - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Unit tests for {@link Filters}.
+ */
+public class FiltersTest extends FilterTestBase {
+
+	private final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION, 0,
+			"example", "()V", null, null);
+
+	@Test
+	public void none_should_not_filter() {
+		m.visitInsn(Opcodes.NOP);
+
+		Filters.NONE.filter(m, context, output);
+
+		assertIgnored();
+	}
+
+	@Test
+	public void all_should_invoke_filters_when_preconditions_are_met() {
+		m.visitInsn(Opcodes.NOP);
+		m.visitFieldInsn(Opcodes.GETSTATIC, "Foo", "$assertionsDisabled", "Z");
+		final Label label = new Label();
+		m.visitJumpInsn(Opcodes.IFNE, label);
+		final Range range = new Range(m.instructions.getLast(),
+				m.instructions.getLast());
+		m.visitLabel(label);
+		m.visitInsn(Opcodes.RETURN);
+
+		Filters.all().filter(m, context, output);
+
+		assertIgnored(range);
+	}
+
+	@Test
+	public void all_should_invoke_filters_for_kotlin_patterns() {
+		m.visitVarInsn(Opcodes.ALOAD, 1);
+		final Label label = new Label();
+		m.visitJumpInsn(Opcodes.IFNONNULL, label);
+		final Range range = new Range();
+		range.fromInclusive = m.instructions.getLast();
+		m.visitMethodInsn(Opcodes.INVOKESTATIC,
+				"kotlin/jvm/internal/Intrinsics", "throwNpe", "()V", false);
+		range.toInclusive = m.instructions.getLast();
+		m.visitLabel(label);
+		m.visitInsn(Opcodes.RETURN);
+
+		Filters.all().filter(m, context, output);
+
+		assertIgnored(range);
+	}
+
+	@Test
+	public void all_should_not_filter_methods_without_patterns() {
+		m.visitVarInsn(Opcodes.ALOAD, 1);
+		final Label label = new Label();
+		m.visitJumpInsn(Opcodes.IFNONNULL, label);
+		m.visitInsn(Opcodes.NOP);
+		m.visitLabel(label);
+		m.visitInsn(Opcodes.RETURN);
+
+		Filters.all().filter(m, context, output);
+
+		assertIgnored();
+	}
+
+}
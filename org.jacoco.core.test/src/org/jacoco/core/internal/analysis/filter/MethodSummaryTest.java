@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Evgeny Mandrikov - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Unit tests for {@link MethodSummary}.
+ */
+public class MethodSummaryTest {
+
+	private MethodSummary summary;
+
+	private MethodNode m;
+
+	@Before
+	public void setup() {
+		summary = new MethodSummary();
+		m = new MethodNode(InstrSupport.ASM_API_VERSION, 0, "m", "()V", null,
+				null);
+	}
+
+	@Test
+	public void should_match_contained_opcodes() {
+		m.visitInsn(Opcodes.NOP);
+		m.visitInsn(Opcodes.RETURN);
+
+		summary.scan(m);
+
+		assertTrue(summary.matches(MethodSummary.anyOf(Opcodes.NOP)));
+		assertTrue(summary.matches(MethodSummary.anyOf(Opcodes.RETURN)));
+		assertTrue(summary
+				.matches(MethodSummary.anyOf(Opcodes.ATHROW, Opcodes.RETURN)));
+		assertTrue(summary.matches());
+	}
+
+	@Test
+	public void should_not_match_missing_opcodes() {
+		m.visitInsn(Opcodes.NOP);
+		final Label label = new Label();
+		m.visitLabel(label);
+		m.visitJumpInsn(Opcodes.IFNONNULL, label);
+
+		summary.scan(m);
+
+		assertFalse(summary.matches(MethodSummary.anyOf(Opcodes.ATHROW)));
+		assertFalse(summary.matches(MethodSummary.anyOf(Opcodes.NOP),
+				MethodSummary.anyOf(Opcodes.LOOKUPSWITCH)));
+		assertFalse(summary
+				.matches(MethodSummary.anyOf(MethodSummary.KOTLIN_REFERENCE)));
+	}
+
+	@Test
+	public void should_detect_references_to_kotlin_runtime() {
+		m.visitMethodInsn(Opcodes.INVOKESTATIC,
+				"kotlin/jvm/internal/Intrinsics", "throwNpe", "()V", false);
+
+		summary.scan(m);
+
+		assertTrue(summary
+				.matches(MethodSummary.anyOf(MethodSummary.KOTLIN_REFERENCE)));
+	}
+
+	@Test
+	public void should_detect_kotlin_types_and_fields() {
+		m.visitTypeInsn(Opcodes.NEW, "kotlin/NoWhenBranchMatchedException");
+		summary.scan(m);
+		assertTrue(summary
+				.matches(MethodSummary.anyOf(MethodSummary.KOTLIN_REFERENCE)));
+
+		m = new MethodNode(InstrSupport.ASM_API_VERSION, 0, "m", "()V", null,
+				null);
+		m.visitFieldInsn(Opcodes.GETSTATIC, "kotlin/Unit", "INSTANCE",
+				"Lkotlin/Unit;");
+		summary.scan(m);
+		assertTrue(summary
+				.matches(MethodSummary.anyOf(MethodSummary.KOTLIN_REFERENCE)));
+	}
+
+	@Test
+	public void should_discard_previous_method() {
+		m.visitInsn(Opcodes.ATHROW);
+		summary.scan(m);
+
+		summary.scan(new MethodNode(InstrSupport.ASM_API_VERSION, 0, "m", "()V",
+				null, null));
+
+		assertFalse(summary.matches(MethodSummary.anyOf(Opcodes.ATHROW)));
+	}
+
+}
@@ -23,6 +23,7 @@ import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.TypeInsnNode;
 import org.objectweb.asm.tree.VarInsnNode;
@@ -63,12 +64,20 @@ public class CondyProbeArrayStrategyTest {
 		assertEquals(Opcodes.CHECKCAST, castInstruction.getOpcode());
 		assertEquals("[Z", castInstruction.desc);
 
-		final VarInsnNode storeInstruction = (VarInsnNode) m.instructions
+		final MethodInsnNode checkInstruction = (MethodInsnNode) m.instructions
 				.get(2);
+		assertEquals(Opcodes.INVOKESTATIC, checkInstruction.getOpcode());
+		assertEquals("ClassName", checkInstruction.owner);
+		assertEquals("$jacocoCheck", checkInstruction.name);
+		assertEquals("([Z)[Z", checkInstruction.desc);
+		assertTrue(checkInstruction.itf);
+
+		final VarInsnNode storeInstruction = (VarInsnNode) m.instructions
+				.get(3);
 		assertEquals(Opcodes.ASTORE, storeInstruction.getOpcode());
 		assertEquals(1, storeInstruction.var);
 
-		assertEquals(3, m.instructions.size());
+		assertEquals(4, m.instructions.size());
 	}
 
 	@Test
@@ -84,7 +93,7 @@ public class CondyProbeArrayStrategyTest {
 		final ClassNode c = new ClassNode();
 		strategy.addMembers(c, 1);
 
-		assertEquals(1, c.methods.size());
+		assertEquals(2, c.methods.size());
 
 		final MethodNode m = c.methods.get(0);
 		assertEquals(Opcodes.ACC_SYNTHETIC | Opcodes.ACC_PRIVATE
@@ -98,4 +107,19 @@ public class CondyProbeArrayStrategyTest {
 		assertEquals(3, m.maxLocals);
 	}
 
+	@Test
+	public void should_add_check_method() {
+		final ClassNode c = new ClassNode();
+		strategy.addMembers(c, 1);
+
+		final MethodNode m = c.methods.get(1);
+		assertEquals(Opcodes.ACC_SYNTHETIC | Opcodes.ACC_PRIVATE
+				| Opcodes.ACC_STATIC, m.access);
+		assertEquals("$jacocoCheck", m.name);
+		assertEquals("([Z)[Z", m.desc);
+
+		assertEquals(3, m.maxStack);
+		assertEquals(1, m.maxLocals);
+	}
+
 }
@@ -15,6 +15,7 @@ package org.jacoco.core.internal.instr;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
@@ -329,6 +330,13 @@ public class ProbeArrayStrategyFactoryTest {
 			assertEquals(Boolean.valueOf(frames), Boolean.valueOf(frames));
 		}
 
+		void assertCheckMethod() {
+			assertEquals(InstrSupport.CHECKMETHOD_NAME, name);
+			assertEquals(InstrSupport.CHECKMETHOD_DESC, desc);
+			assertEquals(InstrSupport.INITMETHOD_ACC, access);
+			assertTrue(frames);
+		}
+
 		void assertClinit() {
 			assertEquals(InstrSupport.CLINIT_NAME, name);
 			assertEquals(InstrSupport.CLINIT_DESC, desc);
@@ -400,6 +408,15 @@ public class ProbeArrayStrategyFactoryTest {
 						assertFalse(itf);
 						return;
 					}
+					if (CondyProbeArrayStrategy.B_DESC.equals(desc)) {
+						// check method calls the bootstrap method again:
+						assertEquals(InstrSupport.CHECKMETHOD_NAME,
+								methods.get(methods.size() - 1).name);
+						assertEquals(Opcodes.INVOKESTATIC, opcode);
+						assertEquals("Foo", owner);
+						assertEquals(InstrSupport.INITMETHOD_NAME, name);
+						return;
+					}
 					assertEquals(Boolean.valueOf(itf),
 							Boolean.valueOf(isInterface));
 
@@ -428,9 +445,10 @@ public class ProbeArrayStrategyFactoryTest {
 	}
 
 	void assertCondyBootstrapMethod() {
-		assertEquals(cv.methods.size(), 1);
+		assertEquals(cv.methods.size(), 2);
 		cv.methods.get(0).assertInitMethod(CondyProbeArrayStrategy.B_DESC,
 				false);
+		cv.methods.get(1).assertCheckMethod();
 	}
 
 	void assertInitAndClinitMethods() {
@@ -52,7 +52,18 @@ public class AgentOptionsTest {
 		assertEquals(AgentOptions.DEFAULT_ADDRESS, options.getAddress());
 		assertEquals(AgentOptions.DEFAULT_PORT, options.getPort());
 		assertNull(options.getClassDumpDir());
+		assertFalse(options.getClassDumpArchive());
 		assertFalse(options.getJmx());
+		assertEquals(AgentOptions.DEFAULT_RECONNECTDELAY,
+				options.getReconnectDelay());
+		assertNull(options.getSpoolFile());
+		assertEquals(AgentOptions.DEFAULT_SPOOLLIMIT, options.getSpoolLimit());
+		assertEquals(AgentOptions.DEFAULT_SHUTDOWNTIMEOUT,
+				options.getShutdownTimeout());
+		assertFalse(options.getCompress());
+		assertEquals(0, options.getDumpInterval());
+		assertFalse(options.getRotate());
+		assertEquals(0, options.getMaxFiles());
 
 		assertEquals("", options.toString());
 	}
@@ -85,7 +96,16 @@ public class AgentOptionsTest {
 		properties.put("address", "remotehost");
 		properties.put("port", "1234");
 		properties.put("classdumpdir", "target/dump");
+		properties.put("classdumparchive", "true");
 		properties.put("jmx", "true");
+		properties.put("reconnectdelay", "500");
+		properties.put("spoolfile", "target/spool.exec");
+		properties.put("spoollimit", "1024");
+		properties.put("shutdowntimeout", "3000");
+		properties.put("compress", "true");
+		properties.put("dumpinterval", "60000");
+		properties.put("rotate", "true");
+		properties.put("maxfiles", "10");
 
 		AgentOptions options = new AgentOptions(properties);
 
@@ -103,7 +123,16 @@ public class AgentOptionsTest {
 		assertEquals("remotehost", options.getAddress());
 		assertEquals(1234, options.getPort());
 		assertEquals("target/dump", options.getClassDumpDir());
+		assertTrue(options.getClassDumpArchive());
 		assertTrue(options.getJmx());
+		assertEquals(500, options.getReconnectDelay());
+		assertEquals("target/spool.exec", options.getSpoolFile());
+		assertEquals(1024, options.getSpoolLimit());
+		assertEquals(3000, options.getShutdownTimeout());
+		assertTrue(options.getCompress());
+		assertEquals(60000, options.getDumpInterval());
+		assertTrue(options.getRotate());
+		assertEquals(10, options.getMaxFiles());
 	}
 
 	@Test
@@ -388,6 +417,19 @@ public class AgentOptionsTest {
 		assertEquals("classdumpdir=target/dump", options.toString());
 	}
 
+	@Test
+	public void testGetClassDumpArchive() {
+		AgentOptions options = new AgentOptions("classdumparchive=true");
+		assertTrue(options.getClassDumpArchive());
+	}
+
+	@Test
+	public void testSetClassDumpArchive() {
+		AgentOptions options = new AgentOptions();
+		options.setClassDumpArchive(true);
+		assertTrue(options.getClassDumpArchive());
+	}
+
 	@Test
 	public void testGetJmx() {
 		AgentOptions options = new AgentOptions("jmx=true");
@@ -401,6 +443,149 @@ public class AgentOptionsTest {
 		assertTrue(options.getJmx());
 	}
 
+	@Test
+	public void testGetReconnectDelay() {
+		AgentOptions options = new AgentOptions("reconnectdelay=500");
+		assertEquals(500, options.getReconnectDelay());
+	}
+
+	@Test
+	public void testSetReconnectDelay() {
+		AgentOptions options = new AgentOptions();
+		options.setReconnectDelay(500);
+		assertEquals(500, options.getReconnectDelay());
+		assertEquals("reconnectdelay=500", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidReconnectDelayOptionValue() {
+		new AgentOptions("reconnectdelay=-1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroReconnectDelayOptionValue() {
+		new AgentOptions("reconnectdelay=0");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetZeroReconnectDelay() {
+		AgentOptions options = new AgentOptions();
+		options.setReconnectDelay(0);
+	}
+
+	@Test
+	public void testGetSpoolFile() {
+		AgentOptions options = new AgentOptions("spoolfile=target/spool.exec");
+		assertEquals("target/spool.exec", options.getSpoolFile());
+	}
+
+	@Test
+	public void testSetSpoolFile() {
+		AgentOptions options = new AgentOptions();
+		options.setSpoolFile("target/spool.exec");
+		assertEquals("target/spool.exec", options.getSpoolFile());
+		assertEquals("spoolfile=target/spool.exec", options.toString());
+	}
+
+	@Test
+	public void testGetSpoolLimit() {
+		AgentOptions options = new AgentOptions("spoollimit=1024");
+		assertEquals(1024, options.getSpoolLimit());
+	}
+
+	@Test
+	public void testSetSpoolLimit() {
+		AgentOptions options = new AgentOptions();
+		options.setSpoolLimit(1024);
+		assertEquals(1024, options.getSpoolLimit());
+		assertEquals("spoollimit=1024", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetNegativeSpoolLimit() {
+		AgentOptions options = new AgentOptions();
+		options.setSpoolLimit(-1);
+	}
+
+	@Test
+	public void testGetShutdownTimeout() {
+		AgentOptions options = new AgentOptions("shutdowntimeout=3000");
+		assertEquals(3000, options.getShutdownTimeout());
+	}
+
+	@Test
+	public void testSetShutdownTimeout() {
+		AgentOptions options = new AgentOptions();
+		options.setShutdownTimeout(3000);
+		assertEquals(3000, options.getShutdownTimeout());
+		assertEquals("shutdowntimeout=3000", options.toString());
+	}
+
+	@Test
+	public void testGetCompress() {
+		AgentOptions options = new AgentOptions("compress=true");
+		assertTrue(options.getCompress());
+	}
+
+	@Test
+	public void testSetCompress() {
+		AgentOptions options = new AgentOptions();
+		options.setCompress(true);
+		assertTrue(options.getCompress());
+		assertEquals("compress=true", options.toString());
+	}
+
+	@Test
+	public void testGetDumpInterval() {
+		AgentOptions options = new AgentOptions("dumpinterval=60000");
+		assertEquals(60000, options.getDumpInterval());
+	}
+
+	@Test
+	public void testSetDumpInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpInterval(60000);
+		assertEquals(60000, options.getDumpInterval());
+		assertEquals("dumpinterval=60000", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDumpInterval() {
+		new AgentOptions("dumpinterval=-1");
+	}
+
+	@Test
+	public void testGetRotate() {
+		AgentOptions options = new AgentOptions("rotate=true");
+		assertTrue(options.getRotate());
+	}
+
+	@Test
+	public void testSetRotate() {
+		AgentOptions options = new AgentOptions();
+		options.setRotate(true);
+		assertTrue(options.getRotate());
+	}
+
+	@Test
+	public void testGetMaxFiles() {
+		AgentOptions options = new AgentOptions("maxfiles=10");
+		assertEquals(10, options.getMaxFiles());
+	}
+
+	@Test
+	public void testSetMaxFiles() {
+		AgentOptions options = new AgentOptions();
+		options.setMaxFiles(10);
+		assertEquals(10, options.getMaxFiles());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidMaxFiles() {
+		AgentOptions options = new AgentOptions();
+		options.setMaxFiles(-1);
+	}
+
 	@Test
 	public void testGetVMArgumentWithNoOptions() {
 		AgentOptions options = new AgentOptions();
@@ -21,7 +21,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReaderWriterTest;
+import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.junit.Before;
 import org.junit.Test;
@@ -92,6 +94,32 @@ public class RemoteControlReaderWriterTest
 		assertTrue(reader.read());
 	}
 
+	@Test
+	public void testCompressedCommandsAreReadableWithoutFlush()
+			throws IOException {
+		buffer.reset();
+		final RemoteControlWriter writer = new RemoteControlWriter(buffer,
+				true);
+		writer.visitClassExecution(
+				new ExecutionData(3, "Sample", new boolean[] { true }));
+		writer.sendCmdOk();
+		writer.visitDumpCommand(true, false);
+
+		final RemoteControlReader reader = createReader();
+		final ExecutionDataStore store = new ExecutionDataStore();
+		reader.setExecutionDataVisitor(store);
+		final StringBuilder calls = new StringBuilder();
+		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+			public void visitDumpCommand(boolean dump, boolean reset) {
+				calls.append("cmd(" + dump + "," + reset + ")");
+			}
+		});
+		assertTrue(reader.read());
+		assertEquals("Sample", store.get(3).getName());
+		assertFalse(reader.read());
+		assertEquals("cmd(true,false)", calls.toString());
+	}
+
 	@Override
 	protected RemoteControlReader createReader() throws IOException {
 		return new RemoteControlReader(
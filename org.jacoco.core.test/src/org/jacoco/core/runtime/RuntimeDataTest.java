@@ -12,14 +12,26 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.Before;
 import org.junit.Test;
@@ -63,7 +75,7 @@ public class RuntimeDataTest {
 		assertEquals(3, data.length, 0.0);
 		assertFalse(data[0]);
 		assertFalse(data[1]);
-		assertFalse(data[2]);
+		assertTrue(data[2]);
 		assertSame(storage.getData(123).getProbes(), data);
 		assertEquals("Foo", storage.getData(123).getName());
 	}
@@ -100,6 +112,215 @@ public class RuntimeDataTest {
 		assertEquals("testsession", storage.getSessionInfo().getId());
 	}
 
+	@Test
+	public void getProbes_should_mark_class_as_touched() {
+		boolean[] probes = data.getProbes(Long.valueOf(123), "Foo", 2);
+
+		assertArrayEquals(new boolean[] { false, true }, probes);
+		assertSame(probes, data.getProbes(Long.valueOf(123), "Foo", 2));
+		assertSame(probes,
+				data.getExecutionData(Long.valueOf(123), "Foo", 2).getProbes());
+	}
+
+	@Test
+	public void startContext_should_clear_touched_slot() {
+		boolean[] probes = data.getProbes(Long.valueOf(123), "Foo", 2);
+
+		data.startContext("test1");
+
+		assertArrayEquals(new boolean[] { false, false }, probes);
+	}
+
+	@Test
+	public void startContext_should_ignore_classes_not_touched() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(1), "Foo", 2)
+				.getProbes();
+		probes[0] = true;
+
+		data.startContext("test1");
+		final ContextStorage context = new ContextStorage();
+		data.endContext(context, context);
+
+		assertTrue(context.probes.isEmpty());
+		assertTrue(probes[0]);
+	}
+
+	@Test
+	public void endContext_should_report_probes_executed_within_context() {
+		boolean[] probes1 = data.getProbes(Long.valueOf(1), "Foo", 3);
+		data.getProbes(Long.valueOf(2), "Bar", 3);
+		probes1[0] = true;
+
+		data.startContext("test1");
+		assertEquals("test1", data.getContextId());
+		boolean[] probes2 = data.getProbes(Long.valueOf(2), "Bar", 3);
+		probes2[1] = true;
+		final ContextStorage context = new ContextStorage();
+		data.endContext(context, context);
+
+		assertNull(data.getContextId());
+		assertEquals("test1", context.info.getId());
+		assertEquals(1, context.probes.size());
+		assertArrayEquals(new boolean[] { false, true, true },
+				context.probes.get("Bar"));
+		assertFalse(probes1[0]);
+		assertFalse(probes2[1]);
+	}
+
+	@Test
+	public void endContext_should_report_probes_executed_before_context() {
+		boolean[] probes = data.getProbes(Long.valueOf(1), "Foo", 3);
+		probes[0] = true;
+
+		data.startContext("test1");
+		probes = data.getProbes(Long.valueOf(1), "Foo", 3);
+		probes[0] = true;
+		final ContextStorage context = new ContextStorage();
+		data.endContext(context, context);
+
+		assertArrayEquals(new boolean[] { true, false, true },
+				context.probes.get("Foo"));
+	}
+
+	@Test
+	public void collect_should_include_data_from_contexts() {
+		boolean[] probes = data.getProbes(Long.valueOf(1), "Foo", 4);
+		probes[0] = true;
+		data.startContext("test1");
+		probes = data.getProbes(Long.valueOf(1), "Foo", 4);
+		probes[1] = true;
+		data.endContext();
+		data.startContext("test2");
+		probes = data.getProbes(Long.valueOf(1), "Foo", 4);
+		probes[2] = true;
+
+		data.collect(storage, storage, false);
+
+		assertArrayEquals(new boolean[] { true, true, true, true },
+				storage.getData(1).getProbes());
+		assertTrue(probes[2]);
+	}
+
+	@Test
+	public void collect_should_reset_data_from_contexts() {
+		data.getProbes(Long.valueOf(1), "Foo", 2);
+		data.startContext("test1");
+		boolean[] probes = data.getProbes(Long.valueOf(1), "Foo", 2);
+		probes[0] = true;
+		data.endContext();
+
+		data.collect(storage, storage, true);
+		final TestStorage storage2 = new TestStorage();
+		data.collect(storage2, storage2, false);
+
+		assertFalse(storage2.getData(1).hasHits());
+	}
+
+	@Test
+	public void collectSnapshot_should_copy_probes() {
+		data.setSessionId("testsession");
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 2)
+				.getProbes();
+		probes[0] = true;
+
+		data.collectSnapshot(storage, storage, false);
+
+		assertNotSame(probes, storage.getData(123).getProbes());
+		assertArrayEquals(new boolean[] { true, false },
+				storage.getData(123).getProbes());
+		assertEquals("Foo", storage.getData(123).getName());
+		assertEquals("testsession", storage.getSessionInfo().getId());
+		assertTrue(probes[0]);
+	}
+
+	@Test
+	public void collectSnapshot_should_reset_probes() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getProbes();
+		probes[0] = true;
+
+		data.collectSnapshot(storage, storage, true);
+
+		assertTrue(storage.getData(123).getProbes()[0]);
+		assertFalse(probes[0]);
+	}
+
+	@Test
+	public void collectSnapshot_should_include_data_from_contexts() {
+		data.getProbes(Long.valueOf(1), "Foo", 3);
+		data.startContext("test1");
+		boolean[] probes = data.getProbes(Long.valueOf(1), "Foo", 3);
+		probes[0] = true;
+		data.endContext();
+		data.startContext("test2");
+		probes = data.getProbes(Long.valueOf(1), "Foo", 3);
+		probes[1] = true;
+
+		data.collectSnapshot(storage, storage, false);
+
+		assertArrayEquals(new boolean[] { true, true, true },
+				storage.getData(1).getProbes());
+	}
+
+	@Test
+	public void collectSnapshot_should_call_visitors_without_lock() {
+		data.getExecutionData(Long.valueOf(1), "Foo", 1);
+		final List<Boolean> locked = new ArrayList<Boolean>();
+		data.collectSnapshot(new IExecutionDataVisitor() {
+			public void visitClassExecution(ExecutionData d) {
+				locked.add(Boolean.valueOf(Thread.holdsLock(data.store)));
+			}
+		}, new ISessionInfoVisitor() {
+			public void visitSessionInfo(SessionInfo info) {
+				locked.add(Boolean.valueOf(Thread.holdsLock(data.store)));
+			}
+		}, false);
+
+		assertEquals(Arrays.asList(Boolean.FALSE, Boolean.FALSE), locked);
+	}
+
+	@Test
+	public void endContext_should_not_report_probes_cleared_by_reset() {
+		data.startContext("test1");
+		boolean[] probes = data.getProbes(Long.valueOf(1), "Foo", 3);
+		probes[0] = true;
+		data.collectSnapshot(storage, storage, true);
+		probes = data.getProbes(Long.valueOf(1), "Foo", 3);
+		probes[1] = true;
+		final ContextStorage context = new ContextStorage();
+		data.endContext(context, context);
+
+		assertTrue(storage.getData(1).getProbes()[0]);
+		assertEquals("test1", context.info.getId());
+		assertArrayEquals(new boolean[] { false, true, true },
+				context.probes.get("Foo"));
+		final TestStorage storage2 = new TestStorage();
+		data.collect(storage2, storage2, false);
+		assertArrayEquals(new boolean[] { false, true, false },
+				storage2.getData(1).getProbes());
+	}
+
+	@Test
+	public void collect_should_not_copy_probes_of_classes_not_executed_in_contexts() {
+		data.getProbes(Long.valueOf(1), "Foo", 2);
+		boolean[] probes2 = data.getProbes(Long.valueOf(2), "Bar", 2);
+		data.startContext("test1");
+		boolean[] probes1 = data.getProbes(Long.valueOf(1), "Foo", 2);
+		probes1[0] = true;
+		data.endContext();
+
+		data.collect(storage, storage, false);
+
+		assertNotSame(probes1, storage.getData(1).getProbes());
+		assertTrue(storage.getData(1).getProbes()[0]);
+		assertSame(probes2, storage.getData(2).getProbes());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void endContext_should_throw_exception_when_no_context_is_started() {
+		data.endContext();
+	}
+
 	@Test
 	public void testEquals() {
 		assertTrue(data.equals(data));
@@ -196,4 +417,21 @@ public class RuntimeDataTest {
 		assertSame(probes, callable.call());
 	}
 
+	private static class ContextStorage
+			implements IExecutionDataVisitor, ISessionInfoVisitor {
+
+		SessionInfo info;
+
+		final Map<String, boolean[]> probes = new HashMap<String, boolean[]>();
+
+		public void visitSessionInfo(final SessionInfo info) {
+			this.info = info;
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			probes.put(data.getName(), data.getProbes().clone());
+		}
+
+	}
+
 }
@@ -128,8 +128,8 @@ public abstract class RuntimeTestBase {
 		gen.invokeConstructor(Type.getType(Object.class),
 				new Method("<init>", "()V"));
 		gen.loadThis();
-		final int size = runtime.generateDataAccessor(classid, className, 2,
-				gen);
+		final int size = runtime.generateDataAccessor(classid, className,
+				InstrSupport.getProbeArrayLength(2), gen);
 		gen.putStatic(classType, InstrSupport.DATAFIELD_NAME,
 				Type.getObjectType(InstrSupport.DATAFIELD_DESC));
 		gen.returnValue();
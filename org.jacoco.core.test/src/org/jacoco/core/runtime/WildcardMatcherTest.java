@@ -12,9 +12,14 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
+import java.util.regex.Pattern;
+
 import org.junit.Test;
 
 public class WildcardMatcherTest {
@@ -75,4 +80,162 @@ public class WildcardMatcherTest {
 				.matches("org/example/Enity$$$generated123"));
 	}
 
+	@Test
+	public void should_match_empty_expressions() {
+		assertTrue(new WildcardMatcher(":").matches(""));
+		assertFalse(new WildcardMatcher(":").matches(":"));
+		assertTrue(new WildcardMatcher("a::b").matches(""));
+		assertFalse(new WildcardMatcher("a:").matches(""));
+	}
+
+	@Test
+	public void should_match_prefix_expressions() {
+		final WildcardMatcher matcher = new WildcardMatcher(
+				"java/*:javax/*:jdk/internal/*:sun/*:org/jacoco/Foo");
+		assertTrue(matcher.matches("java/lang/Object"));
+		assertTrue(matcher.matches("javax/"));
+		assertTrue(matcher.matches("jdk/internal/misc/Unsafe"));
+		assertTrue(matcher.matches("org/jacoco/Foo"));
+		assertFalse(matcher.matches("org/jacoco/Foo$1"));
+		assertFalse(matcher.matches("java"));
+		assertFalse(matcher.matches("jdk/Foo"));
+		assertFalse(matcher.matches("com/sun/Foo"));
+	}
+
+	@Test
+	public void should_match_consecutive_wildcards() {
+		assertTrue(new WildcardMatcher("**").matches(""));
+		assertTrue(new WildcardMatcher("a**b").matches("ab"));
+		assertTrue(new WildcardMatcher("*?").matches("a"));
+		assertFalse(new WildcardMatcher("*?").matches(""));
+		assertTrue(new WildcardMatcher("?*?").matches("ab"));
+		assertFalse(new WildcardMatcher("?*?").matches("a"));
+	}
+
+	@Test
+	public void matchesAllWithPrefix_should_detect_prefix_expressions() {
+		final WildcardMatcher matcher = new WildcardMatcher(
+				"java/*:org/*/internal/**:com/example/Foo");
+		assertTrue(matcher.matchesAllWithPrefix("java/"));
+		assertTrue(matcher.matchesAllWithPrefix("java/util/"));
+		assertTrue(matcher.matchesAllWithPrefix("org/jacoco/internal/"));
+		assertFalse(matcher.matchesAllWithPrefix("org/jacoco/"));
+		assertFalse(matcher.matchesAllWithPrefix("com/example/"));
+		assertFalse(matcher.matchesAllWithPrefix("com/example/Foo"));
+		assertFalse(matcher.matchesAllWithPrefix("ja"));
+		assertTrue(new WildcardMatcher("*").matchesAllWithPrefix(""));
+		assertFalse(new WildcardMatcher("*Test").matchesAllWithPrefix("org/"));
+	}
+
+	@Test
+	public void matchesAnyWithPrefix_should_detect_possible_matches() {
+		final WildcardMatcher matcher = new WildcardMatcher(
+				"java/*:org/*/internal/*Impl:com/example/Foo");
+		assertTrue(matcher.matchesAnyWithPrefix("java/util/"));
+		assertTrue(matcher.matchesAnyWithPrefix("org/jacoco/"));
+		assertTrue(matcher.matchesAnyWithPrefix("com/example/"));
+		assertTrue(matcher.matchesAnyWithPrefix("com/example/Foo"));
+		assertFalse(matcher.matchesAnyWithPrefix("com/example/Foo$1"));
+		assertFalse(matcher.matchesAnyWithPrefix("net/"));
+		assertFalse(new WildcardMatcher("").matchesAnyWithPrefix("org/"));
+	}
+
+	@Test
+	public void should_match_like_regular_expressions() {
+		final Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			final StringBuilder expression = new StringBuilder();
+			final int parts = 1 + random.nextInt(4);
+			for (int p = 0; p < parts; p++) {
+				if (p > 0) {
+					expression.append(':');
+				}
+				expression.append(randomString(random, "ab*?"));
+			}
+			final WildcardMatcher matcher = new WildcardMatcher(
+					expression.toString());
+			final Pattern pattern = toRegex(expression.toString());
+			for (int j = 0; j < 20; j++) {
+				final String s = randomString(random, "ab");
+				assertEquals(expression + " / " + s,
+						Boolean.valueOf(pattern.matcher(s).matches()),
+						Boolean.valueOf(matcher.matches(s)));
+			}
+		}
+	}
+
+	@Test
+	public void should_match_concurrently() throws Exception {
+		final WildcardMatcher matcher = new WildcardMatcher("a*b?:*ab*a");
+		final Pattern pattern = toRegex("a*b?:*ab*a");
+		final Throwable[] failure = new Throwable[1];
+		final Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final Random random = new Random(t);
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 10000; i++) {
+							final String s = randomString(random, "ab");
+							assertEquals(s,
+									Boolean.valueOf(
+											pattern.matcher(s).matches()),
+									Boolean.valueOf(matcher.matches(s)));
+						}
+					} catch (final Throwable e) {
+						synchronized (failure) {
+							failure[0] = e;
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (final Thread t : threads) {
+			t.join();
+		}
+		synchronized (failure) {
+			assertNull(failure[0]);
+		}
+	}
+
+	private static String randomString(final Random random,
+			final String alphabet) {
+		final StringBuilder s = new StringBuilder();
+		final int length = random.nextInt(7);
+		for (int i = 0; i < length; i++) {
+			s.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Reference implementation based on regular expressions.
+	 */
+	private static Pattern toRegex(final String expression) {
+		final StringBuilder regex = new StringBuilder();
+		for (final String part : expression.split("\\:")) {
+			if (regex.length() > 0) {
+				regex.append('|');
+			}
+			regex.append('(');
+			for (final char c : part.toCharArray()) {
+				switch (c) {
+				case '?':
+					regex.append(".");
+					break;
+				case '*':
+					regex.append(".*");
+					break;
+				default:
+					regex.append(Pattern.quote(String.valueOf(c)));
+					break;
+				}
+			}
+			regex.append(')');
+		}
+		return Pattern.compile(regex.toString());
+	}
+
 }
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.test.TargetLoader;
+
+/**
+ * Scenario to measure the heap memory allocated by the analysis of a single
+ * class. The scenario is skipped on VMs which do not support allocation
+ * tracking per thread.
+ */
+public class AnalysisAllocationScenario implements IPerfScenario {
+
+	private static final int WARMUP = 1000;
+
+	private final Class<?> target;
+
+	private final int count;
+
+	protected AnalysisAllocationScenario(Class<?> target, int count) {
+		this.target = target;
+		this.count = count;
+	}
+
+	public void run(IPerfOutput output) throws Exception {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		final Method allocatedBytes;
+		try {
+			allocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+					.getMethod("getThreadAllocatedBytes", long.class);
+		} catch (final ClassNotFoundException e) {
+			return;
+		}
+		final Long threadId = Long.valueOf(Thread.currentThread().getId());
+
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(target);
+		final ExecutionDataStore executionData = new ExecutionDataStore();
+		final ICoverageVisitor visitor = new ICoverageVisitor() {
+			public void visitCoverage(IClassCoverage coverage) {
+			}
+		};
+		final Analyzer analyzer = new Analyzer(executionData, visitor);
+		for (int i = 0; i < WARMUP; i++) {
+			analyzer.analyzeClass(bytes, target.getName());
+		}
+
+		final long start = ((Long) allocatedBytes.invoke(bean, threadId))
+				.longValue();
+		for (int i = 0; i < count; i++) {
+			analyzer.analyzeClass(bytes, target.getName());
+		}
+		final long end = ((Long) allocatedBytes.invoke(bean, threadId))
+				.longValue();
+		output.writeByteResult("allocation per class analysis",
+				(end - start) / count, IPerfOutput.NO_REFERENCE);
+	}
+
+}
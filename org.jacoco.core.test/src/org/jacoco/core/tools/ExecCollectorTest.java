@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.RemoteControlWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecCollector}.
+ */
+public class ExecCollectorTest {
+
+	private static final long TIMEOUT = 5000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecCollector collector;
+
+	private List<String> callbacks;
+
+	private List<Socket> agents;
+
+	@Before
+	public void setup() throws IOException {
+		callbacks = Collections.synchronizedList(new ArrayList<String>());
+		agents = new ArrayList<Socket>();
+		collector = new ExecCollector(
+				new InetSocketAddress(InetAddress.getByName(null), 0)) {
+			@Override
+			protected void onConnected(SocketAddress address) {
+				callbacks.add("onConnected");
+			}
+
+			@Override
+			protected void onDisconnected(SocketAddress address) {
+				callbacks.add("onDisconnected");
+			}
+
+			@Override
+			protected void onError(SocketAddress address, Exception exception) {
+				callbacks.add("onError");
+			}
+		};
+		collector.start();
+	}
+
+	@After
+	public void teardown() throws Exception {
+		for (final Socket agent : agents) {
+			agent.close();
+		}
+		collector.shutdown();
+	}
+
+	@Test
+	public void getPort_should_return_bound_port() {
+		assertTrue(collector.getPort() > 0);
+	}
+
+	@Test
+	public void should_merge_execution_data_from_multiple_agents()
+			throws Exception {
+		final Socket agent1 = connect();
+		final Socket agent2 = connect();
+		awaitConnections(2);
+
+		final RemoteControlWriter writer1 = new RemoteControlWriter(
+				agent1.getOutputStream());
+		writer1.visitSessionInfo(new SessionInfo("agent1", 1, 2));
+		writer1.visitClassExecution(new ExecutionData(0x10, "Foo",
+				new boolean[] { true, false, false }));
+		awaitData(1, 1);
+		final RemoteControlWriter writer2 = new RemoteControlWriter(
+				agent2.getOutputStream());
+		writer2.visitSessionInfo(new SessionInfo("agent2", 3, 4));
+		writer2.visitClassExecution(new ExecutionData(0x10, "Foo",
+				new boolean[] { false, false, true }));
+		writer2.visitClassExecution(
+				new ExecutionData(0x20, "Bar", new boolean[] { true }));
+
+		final ExecutionDataStore store = awaitData(2, 2);
+		assertArrayEquals(new boolean[] { true, false, true },
+				store.get(0x10).getProbes());
+		assertArrayEquals(new boolean[] { true }, store.get(0x20).getProbes());
+	}
+
+	@Test
+	public void should_process_blocks_received_in_fragments() throws Exception {
+		final Socket agent = connect();
+		awaitConnections(1);
+
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final RemoteControlWriter writer = new RemoteControlWriter(buffer);
+		writer.visitSessionInfo(new SessionInfo("agent", 1, 2));
+		writer.visitClassExecution(new ExecutionData(0x10, "Foo",
+				new boolean[] { true, false, true }));
+
+		final OutputStream out = agent.getOutputStream();
+		for (final byte b : buffer.toByteArray()) {
+			out.write(b);
+			out.flush();
+		}
+
+		final ExecutionDataStore store = awaitData(1, 1);
+		assertArrayEquals(new boolean[] { true, false, true },
+				store.get(0x10).getProbes());
+	}
+
+	@Test
+	public void should_process_name_references_received_in_fragments()
+			throws Exception {
+		final Socket agent = connect();
+		agent.setTcpNoDelay(true);
+		awaitConnections(1);
+
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				false, true);
+		writer.visitClassExecution(
+				new ExecutionData(0x10, "Foo", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(0x20, "Bar", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(0x30, "Bar", new boolean[] { true }));
+
+		final OutputStream out = agent.getOutputStream();
+		for (final byte b : buffer.toByteArray()) {
+			out.write(b);
+			out.flush();
+		}
+
+		final ExecutionDataStore store = awaitData(3, 0);
+		assertEquals("Foo", store.get(0x10).getName());
+		assertEquals("Bar", store.get(0x20).getName());
+		assertEquals("Bar", store.get(0x30).getName());
+		assertFalse(callbacks.contains("onError"));
+	}
+
+	@Test
+	public void requestDump_should_send_command_to_agents() throws Exception {
+		final Socket agent = connect();
+		awaitConnections(1);
+
+		collector.requestDump(true);
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		new RemoteControlWriter(expected).visitDumpCommand(true, true);
+		assertArrayEquals(expected.toByteArray(), readDumpCommand(agent));
+	}
+
+	@Test
+	public void awaitDumps_should_return_when_agents_answered()
+			throws Exception {
+		final Socket agent = connect();
+		awaitConnections(1);
+		collector.requestDump(false);
+		readDumpCommand(agent);
+
+		final RemoteControlWriter writer = new RemoteControlWriter(
+				agent.getOutputStream());
+		writer.visitClassExecution(
+				new ExecutionData(0x10, "Foo", new boolean[] { true }));
+		writer.sendCmdOk();
+
+		assertTrue(collector.awaitDumps(TIMEOUT));
+		final ExecutionDataStore store = new ExecutionDataStore();
+		collector.accept(store, new SessionInfoStore());
+		assertArrayEquals(new boolean[] { true }, store.get(0x10).getProbes());
+	}
+
+	@Test
+	public void awaitDumps_should_return_false_when_agents_do_not_answer()
+			throws Exception {
+		connect();
+		awaitConnections(1);
+		collector.requestDump(false);
+
+		assertFalse(collector.awaitDumps(100));
+	}
+
+	@Test
+	public void awaitDumps_should_return_when_agents_disconnect()
+			throws Exception {
+		final Socket agent = connect();
+		awaitConnections(1);
+		collector.requestDump(false);
+		readDumpCommand(agent);
+		agent.close();
+
+		assertTrue(collector.awaitDumps(TIMEOUT));
+	}
+
+	@Test
+	public void awaitDumps_should_return_without_connections()
+			throws Exception {
+		collector.requestDump(false);
+
+		assertTrue(collector.awaitDumps(TIMEOUT));
+	}
+
+	@Test
+	public void save_should_write_collected_data() throws Exception {
+		final Socket agent = connect();
+		awaitConnections(1);
+		final RemoteControlWriter writer = new RemoteControlWriter(
+				agent.getOutputStream());
+		writer.visitSessionInfo(new SessionInfo("agent", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(0x10, "Foo", new boolean[] { true }));
+		awaitData(1, 1);
+
+		final File file = new File(folder.getRoot(), "sub/jacoco.exec");
+		collector.save(file);
+		collector.save(file);
+
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(file);
+		assertEquals("agent",
+				loader.getSessionInfoStore().getInfos().get(0).getId());
+		assertArrayEquals(new boolean[] { true },
+				loader.getExecutionDataStore().get(0x10).getProbes());
+		assertFalse(new File(folder.getRoot(), "sub/jacoco.exec.tmp").exists());
+	}
+
+	@Test
+	public void should_close_connection_on_invalid_data() throws Exception {
+		final Socket agent = connect();
+		awaitConnections(1);
+
+		agent.getOutputStream().write(new byte[] { 0x01, 0x12, 0x34 });
+
+		awaitConnections(0);
+		assertEquals(Arrays.asList("onConnected", "onError", "onDisconnected"),
+				callbacks);
+	}
+
+	@Test
+	public void should_close_connection_when_agent_disconnects()
+			throws Exception {
+		final Socket agent = connect();
+		awaitConnections(1);
+
+		agent.close();
+
+		awaitConnections(0);
+		assertEquals(Arrays.asList("onConnected", "onDisconnected"), callbacks);
+	}
+
+	@Test
+	public void shutdown_should_keep_collected_data() throws Exception {
+		final Socket agent = connect();
+		awaitConnections(1);
+		final RemoteControlWriter writer = new RemoteControlWriter(
+				agent.getOutputStream());
+		writer.visitClassExecution(
+				new ExecutionData(0x10, "Foo", new boolean[] { true }));
+		awaitData(1, 0);
+
+		collector.shutdown();
+
+		assertEquals(0, collector.getConnectionCount());
+		final ExecutionDataStore store = new ExecutionDataStore();
+		collector.accept(store, new SessionInfoStore());
+		assertArrayEquals(new boolean[] { true }, store.get(0x10).getProbes());
+	}
+
+	private static byte[] readDumpCommand(final Socket agent)
+			throws IOException {
+		final ByteArrayOutputStream command = new ByteArrayOutputStream();
+		new RemoteControlWriter(command).visitDumpCommand(true, false);
+		final byte[] actual = new byte[command.size()];
+		new DataInputStream(agent.getInputStream()).readFully(actual);
+		return actual;
+	}
+
+	private Socket connect() throws IOException {
+		final Socket socket = new Socket(InetAddress.getByName(null),
+				collector.getPort());
+		agents.add(socket);
+		return socket;
+	}
+
+	private void awaitConnections(final int count) throws Exception {
+		final long end = System.currentTimeMillis() + TIMEOUT;
+		while (collector.getConnectionCount() != count) {
+			if (System.currentTimeMillis() > end) {
+				fail("Expected " + count + " connections but was "
+						+ collector.getConnectionCount());
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private ExecutionDataStore awaitData(final int classes, final int sessions)
+			throws Exception {
+		final long end = System.currentTimeMillis() + TIMEOUT;
+		while (true) {
+			final ExecutionDataStore store = new ExecutionDataStore();
+			final SessionInfoStore infos = new SessionInfoStore();
+			collector.accept(store, infos);
+			if (store.getContents().size() == classes
+					&& infos.getInfos().size() == sessions) {
+				return store;
+			}
+			if (System.currentTimeMillis() > end) {
+				fail("Expected data not received");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileDiff.Operation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecFileDiff}.
+ */
+public class ExecFileDiffTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void getOperation_should_return_operation() {
+		assertSame(Operation.INTERSECTION,
+				new ExecFileDiff(Operation.INTERSECTION).getOperation());
+	}
+
+	@Test
+	public void union_should_contain_probes_of_input_and_baseline()
+			throws IOException {
+		final ExecFileDiff diff = new ExecFileDiff(Operation.UNION);
+		diff.loadBaseline(createStream(new SessionInfo("base", 1, 2),
+				new ExecutionData(1, "A", new boolean[] { true, false, false }),
+				new ExecutionData(2, "B", new boolean[] { true })));
+
+		final ExecFileLoader result = process(diff,
+				createStream(new SessionInfo("input", 3, 4),
+						new ExecutionData(1, "A",
+								new boolean[] { false, true, false }),
+						new ExecutionData(3, "C", new boolean[] { true })));
+
+		assertEquals(2, result.getSessionInfoStore().getInfos().size());
+		final ExecutionDataStore store = result.getExecutionDataStore();
+		assertArrayEquals(new boolean[] { true, true, false },
+				store.get(1).getProbes());
+		assertArrayEquals(new boolean[] { true }, store.get(2).getProbes());
+		assertArrayEquals(new boolean[] { true }, store.get(3).getProbes());
+	}
+
+	@Test
+	public void intersection_should_contain_probes_of_input_and_baseline()
+			throws IOException {
+		final ExecFileDiff diff = new ExecFileDiff(Operation.INTERSECTION);
+		diff.loadBaseline(createStream(new SessionInfo("base", 1, 2),
+				new ExecutionData(1, "A", new boolean[] { true, true, false }),
+				new ExecutionData(2, "B", new boolean[] { true })));
+
+		final ExecFileLoader result = process(diff,
+				createStream(new SessionInfo("input", 3, 4),
+						new ExecutionData(1, "A",
+								new boolean[] { false, true, true }),
+						new ExecutionData(3, "C", new boolean[] { true })));
+
+		assertEquals("input",
+				result.getSessionInfoStore().getInfos().get(0).getId());
+		assertEquals(1, result.getSessionInfoStore().getInfos().size());
+		final ExecutionDataStore store = result.getExecutionDataStore();
+		assertArrayEquals(new boolean[] { false, true, false },
+				store.get(1).getProbes());
+		assertNull(store.get(2));
+		assertNull(store.get(3));
+	}
+
+	@Test
+	public void subtraction_should_contain_probes_of_input_only()
+			throws IOException {
+		final ExecFileDiff diff = new ExecFileDiff(Operation.SUBTRACTION);
+		diff.loadBaseline(createStream(new SessionInfo("base", 1, 2),
+				new ExecutionData(1, "A", new boolean[] { true, true, false }),
+				new ExecutionData(2, "B", new boolean[] { true })));
+
+		final ExecFileLoader result = process(diff,
+				createStream(new SessionInfo("input", 3, 4),
+						new ExecutionData(1, "A",
+								new boolean[] { false, true, true }),
+						new ExecutionData(2, "B", new boolean[] { true }),
+						new ExecutionData(3, "C", new boolean[] { true })));
+
+		assertEquals(1, result.getSessionInfoStore().getInfos().size());
+		final ExecutionDataStore store = result.getExecutionDataStore();
+		assertArrayEquals(new boolean[] { false, false, true },
+				store.get(1).getProbes());
+		assertNull(store.get(2));
+		assertArrayEquals(new boolean[] { true }, store.get(3).getProbes());
+	}
+
+	@Test
+	public void subtraction_should_apply_to_every_occurrence_of_a_class()
+			throws IOException {
+		final ExecFileDiff diff = new ExecFileDiff(Operation.SUBTRACTION);
+		diff.loadBaseline(
+				createStream(new SessionInfo("base", 1, 2), new ExecutionData(1,
+						"A", new boolean[] { true, false, false })));
+
+		final ExecFileLoader result = process(diff,
+				createStream(new SessionInfo("s1", 3, 4),
+						new ExecutionData(1, "A",
+								new boolean[] { true, true, false }),
+						new SessionInfo("s2", 5, 6), new ExecutionData(1, "A",
+								new boolean[] { true, false, true })));
+
+		assertEquals(2, result.getSessionInfoStore().getInfos().size());
+		assertArrayEquals(new boolean[] { false, true, true },
+				result.getExecutionDataStore().get(1).getProbes());
+	}
+
+	@Test
+	public void intersection_should_fail_for_incompatible_classes()
+			throws IOException {
+		final ExecFileDiff diff = new ExecFileDiff(Operation.INTERSECTION);
+		diff.loadBaseline(createStream(new SessionInfo("base", 1, 2),
+				new ExecutionData(1, "A", new boolean[] { true })));
+
+		try {
+			process(diff, createStream(new SessionInfo("input", 3, 4),
+					new ExecutionData(1, "A", new boolean[] { true, true })));
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals(
+					"Incompatible execution data for class A with id 0000000000000001.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void save_should_write_result_of_all_files() throws IOException {
+		final ExecFileDiff diff = new ExecFileDiff(Operation.SUBTRACTION);
+		diff.loadBaseline(createFile("base.exec", new SessionInfo("base", 1, 2),
+				new ExecutionData(1, "A", new boolean[] { true, false })));
+		final List<File> inputs = Arrays.asList(
+				createFile("input1.exec", new SessionInfo("input1", 3, 4),
+						new ExecutionData(1, "A",
+								new boolean[] { true, true })),
+				createFile("input2.exec", new SessionInfo("input2", 5, 6),
+						new ExecutionData(2, "B", new boolean[] { true })));
+		final File result = new File(folder.getRoot(), "sub/result.exec");
+
+		diff.save(inputs, result);
+
+		assertTrue(result.isFile());
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(result);
+		assertEquals(2, loader.getSessionInfoStore().getInfos().size());
+		assertArrayEquals(new boolean[] { false, true },
+				loader.getExecutionDataStore().get(1).getProbes());
+		assertArrayEquals(new boolean[] { true },
+				loader.getExecutionDataStore().get(2).getProbes());
+	}
+
+	private ExecFileLoader process(final ExecFileDiff diff,
+			final ByteArrayInputStream input) throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
+		diff.process(input, writer);
+		diff.finish(writer);
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(new ByteArrayInputStream(buffer.toByteArray()));
+		return loader;
+	}
+
+	private ByteArrayInputStream createStream(final Object... content)
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		write(buffer, content);
+		return new ByteArrayInputStream(buffer.toByteArray());
+	}
+
+	private File createFile(final String name, final Object... content)
+			throws IOException {
+		final File file = new File(folder.getRoot(), name);
+		final OutputStream out = new FileOutputStream(file);
+		write(out, content);
+		out.close();
+		return file;
+	}
+
+	private void write(final OutputStream out, final Object... content)
+			throws IOException {
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		for (final Object c : content) {
+			if (c instanceof SessionInfo) {
+				writer.visitSessionInfo((SessionInfo) c);
+			} else {
+				writer.visitClassExecution((ExecutionData) c);
+			}
+		}
+		writer.flush();
+	}
+
+}
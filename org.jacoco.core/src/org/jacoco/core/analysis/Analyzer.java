@@ -43,6 +43,11 @@ import org.objectweb.asm.Opcodes;
  * {@link Analyzer} requires a {@link ExecutionDataStore} instance that holds
  * the execution data for the classes to analyze. The {@link Analyzer} offers
  * several methods to analyze classes from a variety of sources.
+ *
+ * An {@link Analyzer} may be used by multiple threads at the same time if the
+ * given {@link ICoverageVisitor} is thread-safe, like
+ * {@link ConcurrentCoverageBuilder}, and the {@link ExecutionDataStore} is not
+ * modified during analysis.
  */
 public class Analyzer {
 
@@ -77,7 +82,7 @@ public class Analyzer {
 	 *            VM name of the class
 	 * @return ASM visitor to write class definition to
 	 */
-	private ClassVisitor createAnalyzingVisitor(final long classid,
+	ClassVisitor createAnalyzingVisitor(final long classid,
 			final String className) {
 		final ExecutionData data = executionData.get(classid);
 		final boolean[] probes;
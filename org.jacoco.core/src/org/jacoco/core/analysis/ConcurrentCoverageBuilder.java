@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+
+/**
+ * Thread-safe variant of {@link CoverageBuilder}. Class nodes may be added from
+ * multiple threads at the same time, for example from an {@link Analyzer} which
+ * is shared by several threads analyzing different archives. Classes are added
+ * without locking, only the aggregation of source files is synchronized for
+ * each source file individually. Therefore threads only wait for each other if
+ * they add classes of the same source file at the same time.
+ *
+ * The aggregated data should be obtained after all threads have finished adding
+ * classes. Otherwise the result may not contain all classes added so far.
+ */
+public class ConcurrentCoverageBuilder implements ICoverageVisitor {
+
+	private final ConcurrentMap<String, IClassCoverage> classes;
+
+	private final ConcurrentMap<String, SourceFileCoverageImpl> sourcefiles;
+
+	/**
+	 * Create a new builder.
+	 */
+	public ConcurrentCoverageBuilder() {
+		this.classes = new ConcurrentHashMap<String, IClassCoverage>();
+		this.sourcefiles = new ConcurrentHashMap<String, SourceFileCoverageImpl>();
+	}
+
+	/**
+	 * Returns all class nodes currently contained in this builder.
+	 *
+	 * @return all class nodes
+	 */
+	public Collection<IClassCoverage> getClasses() {
+		return Collections.unmodifiableCollection(classes.values());
+	}
+
+	/**
+	 * Returns all source file nodes currently contained in this builder.
+	 *
+	 * @return all source file nodes
+	 */
+	public Collection<ISourceFileCoverage> getSourceFiles() {
+		return Collections.<ISourceFileCoverage> unmodifiableCollection(
+				sourcefiles.values());
+	}
+
+	/**
+	 * Creates a bundle from all nodes currently contained in this bundle.
+	 *
+	 * @param name
+	 *            Name of the bundle
+	 * @return bundle containing all classes and source files
+	 */
+	public IBundleCoverage getBundle(final String name) {
+		return new BundleCoverageImpl(name, classes.values(), getSourceFiles());
+	}
+
+	/**
+	 * Returns all classes for which execution data does not match.
+	 *
+	 * @see IClassCoverage#isNoMatch()
+	 * @return collection of classes with non-matching execution data
+	 */
+	public Collection<IClassCoverage> getNoMatchClasses() {
+		final Collection<IClassCoverage> result = new ArrayList<IClassCoverage>();
+		for (final IClassCoverage c : classes.values()) {
+			if (c.isNoMatch()) {
+				result.add(c);
+			}
+		}
+		return result;
+	}
+
+	// === ICoverageVisitor ===
+
+	public void visitCoverage(final IClassCoverage coverage) {
+		final String name = coverage.getName();
+		final IClassCoverage dup = classes.putIfAbsent(name, coverage);
+		if (dup != null) {
+			if (dup.getId() != coverage.getId()) {
+				throw new IllegalStateException(
+						"Can't add different class with same name: " + name);
+			}
+		} else {
+			final String source = coverage.getSourceFileName();
+			if (source != null) {
+				final SourceFileCoverageImpl sourceFile = getSourceFile(source,
+						coverage.getPackageName());
+				synchronized (sourceFile) {
+					sourceFile.increment(coverage);
+				}
+			}
+		}
+	}
+
+	private SourceFileCoverageImpl getSourceFile(final String filename,
+			final String packagename) {
+		final String key = packagename + '/' + filename;
+		final SourceFileCoverageImpl sourcefile = sourcefiles.get(key);
+		if (sourcefile != null) {
+			return sourcefile;
+		}
+		final SourceFileCoverageImpl created = new SourceFileCoverageImpl(
+				filename, packagename);
+		final SourceFileCoverageImpl existing = sourcefiles.putIfAbsent(key,
+				created);
+		return existing == null ? created : existing;
+	}
+
+}
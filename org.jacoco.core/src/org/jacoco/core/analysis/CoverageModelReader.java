@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.jacoco.core.internal.data.CompactDataInput;
+
+/**
+ * Deserialization of {@link IBundleCoverage} instances written by a
+ * {@link CoverageModelWriter}. The resulting bundles are identical to the
+ * bundles created by a {@link CoverageBuilder} for the same classes. Depending
+ * on the nature of the underlying stream input should be buffered as most data
+ * is read in single bytes.
+ */
+public class CoverageModelReader {
+
+	private final CompactDataInput in;
+
+	private final List<String> strings;
+
+	private boolean headerRead;
+
+	/**
+	 * Creates a new reader based on the given input stream.
+	 *
+	 * @param input
+	 *            input stream to read the coverage model from
+	 */
+	public CoverageModelReader(final InputStream input) {
+		this.in = new CompactDataInput(input);
+		this.strings = new ArrayList<String>();
+		this.headerRead = false;
+	}
+
+	/**
+	 * Reads the next bundle from the stream.
+	 *
+	 * @return next bundle or <code>null</code> if the end of the stream has
+	 *         been reached
+	 * @throws IOException
+	 *             if the stream can't be read or contains invalid data
+	 */
+	public IBundleCoverage readBundle() throws IOException {
+		if (!headerRead) {
+			readHeader();
+			headerRead = true;
+		}
+		final int type = in.read();
+		if (type == -1) {
+			return null;
+		}
+		if (type != CoverageModelWriter.BLOCK_BUNDLE) {
+			throw new IOException(
+					format("Unknown block type %x.", Integer.valueOf(type)));
+		}
+		final String name = readString();
+		final CoverageBuilder builder = new CoverageBuilder();
+		for (int count = in.readVarInt(); count > 0; count--) {
+			builder.visitCoverage(readClass());
+		}
+		return builder.getBundle(name);
+	}
+
+	private void readHeader() throws IOException {
+		if (in.readChar() != CoverageModelWriter.MAGIC_NUMBER) {
+			throw new IOException("Invalid coverage model file.");
+		}
+		final char version = in.readChar();
+		if (version != CoverageModelWriter.FORMAT_VERSION) {
+			throw new IOException(format(
+					"Cannot read coverage model version 0x%x. "
+							+ "This version of JaCoCo uses coverage model version 0x%x.",
+					Integer.valueOf(version),
+					Integer.valueOf(CoverageModelWriter.FORMAT_VERSION)));
+		}
+	}
+
+	private IClassCoverage readClass() throws IOException {
+		final String name = readString();
+		final long id = in.readLong();
+		final boolean noMatch = in.readBoolean();
+		final ClassCoverageImpl c = new ClassCoverageImpl(name, id, noMatch);
+		c.setSignature(readString());
+		c.setSuperName(readString());
+		final int interfaceCount = in.readVarInt();
+		if (interfaceCount > 0) {
+			final String[] interfaces = new String[interfaceCount - 1];
+			for (int i = 0; i < interfaces.length; i++) {
+				interfaces[i] = readString();
+			}
+			c.setInterfaces(interfaces);
+		}
+		c.setSourceFileName(readString());
+		final CoverageNodeImpl counters = readCounters();
+		for (int count = in.readVarInt(); count > 0; count--) {
+			final MethodCoverageImpl m = new MethodCoverageImpl(readString(),
+					readString(), readString());
+			final CoverageNodeImpl methodCounters = readCounters();
+			readLines(m);
+			setCounters(m, methodCounters);
+			c.addMethod(m);
+		}
+		setCounters(c, counters);
+		return c;
+	}
+
+	private CoverageNodeImpl readCounters() throws IOException {
+		final CoverageNodeImpl counters = new CoverageNodeImpl(null, null);
+		counters.instructionCounter = readCounter();
+		counters.branchCounter = readCounter();
+		counters.lineCounter = readCounter();
+		counters.complexityCounter = readCounter();
+		counters.methodCounter = readCounter();
+		counters.classCounter = readCounter();
+		return counters;
+	}
+
+	/**
+	 * Replaces the counters of the given node, which have been calculated while
+	 * adding lines and methods, with the original values.
+	 */
+	private static void setCounters(final CoverageNodeImpl node,
+			final CoverageNodeImpl counters) {
+		node.instructionCounter = counters.instructionCounter;
+		node.branchCounter = counters.branchCounter;
+		node.lineCounter = counters.lineCounter;
+		node.complexityCounter = counters.complexityCounter;
+		node.methodCounter = counters.methodCounter;
+		node.classCounter = counters.classCounter;
+	}
+
+	private CounterImpl readCounter() throws IOException {
+		final int missed = in.readVarInt();
+		final int covered = in.readVarInt();
+		return CounterImpl.getInstance(missed, covered);
+	}
+
+	private void readLines(final MethodCoverageImpl m) throws IOException {
+		final int count = in.readVarInt();
+		if (count == 0) {
+			return;
+		}
+		final int first = in.readVarInt();
+		m.ensureCapacity(first, first + count - 1);
+		for (int i = 0; i < count; i++) {
+			final CounterImpl instructions = readCounter();
+			final CounterImpl branches = readCounter();
+			if (instructions.getTotalCount() > 0
+					|| branches.getTotalCount() > 0) {
+				m.increment(instructions, branches, first + i);
+			}
+		}
+	}
+
+	private String readString() throws IOException {
+		final int ref = in.readVarInt();
+		if (ref == CoverageModelWriter.REF_NULL) {
+			return null;
+		}
+		if (ref == CoverageModelWriter.REF_NEW) {
+			final String s = in.readUTF();
+			strings.add(s);
+			return s;
+		}
+		final int index = ref - CoverageModelWriter.REF_FIRST;
+		if (index >= strings.size()) {
+			throw new IOException(format("Unknown string reference %s.",
+					Integer.valueOf(ref)));
+		}
+		return strings.get(index);
+	}
+
+}
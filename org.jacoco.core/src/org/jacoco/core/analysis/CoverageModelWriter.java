@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Serialization of {@link IBundleCoverage} instances into binary streams, so
+ * that reports can be created in other processes without analyzing the class
+ * files again, see {@link CoverageModelReader}. Only classes with their
+ * methods, counters and lines are written, packages and source files are
+ * derived again when reading. All names are written once per stream and
+ * subsequently referenced by index. Depending on the nature of the underlying
+ * stream output should be buffered as most data is written in single bytes.
+ */
+public class CoverageModelWriter {
+
+	/**
+	 * File format version, will be incremented for each incompatible change.
+	 */
+	public static final char FORMAT_VERSION;
+
+	static {
+		// Runtime initialize to ensure javac does not inline the value.
+		FORMAT_VERSION = 0x0001;
+	}
+
+	/** Magic number in header for file format identification. */
+	public static final char MAGIC_NUMBER = 0xC0C1;
+
+	/** Block identifier for a bundle. */
+	public static final byte BLOCK_BUNDLE = 0x01;
+
+	/** Reference for <code>null</code> strings */
+	static final int REF_NULL = 0;
+
+	/** Reference which is followed by a new string */
+	static final int REF_NEW = 1;
+
+	/** Reference to the first string in the string table */
+	static final int REF_FIRST = 2;
+
+	private final CompactDataOutput out;
+
+	private final Map<String, Integer> strings;
+
+	/**
+	 * Creates a new writer based on the given output stream and writes the file
+	 * header.
+	 *
+	 * @param output
+	 *            binary stream to write the coverage model to
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public CoverageModelWriter(final OutputStream output) throws IOException {
+		this.out = new CompactDataOutput(output);
+		this.strings = new HashMap<String, Integer>();
+		out.writeChar(MAGIC_NUMBER);
+		out.writeChar(FORMAT_VERSION);
+	}
+
+	/**
+	 * Writes the given bundle with all its classes.
+	 *
+	 * @param bundle
+	 *            bundle to write
+	 * @throws IOException
+	 *             if the bundle can't be written
+	 */
+	public void writeBundle(final IBundleCoverage bundle) throws IOException {
+		out.writeByte(BLOCK_BUNDLE);
+		writeString(bundle.getName());
+		int count = 0;
+		for (final IPackageCoverage p : bundle.getPackages()) {
+			count += p.getClasses().size();
+		}
+		out.writeVarInt(count);
+		for (final IPackageCoverage p : bundle.getPackages()) {
+			for (final IClassCoverage c : p.getClasses()) {
+				writeClass(c);
+			}
+		}
+	}
+
+	/**
+	 * Flushes the underlying stream.
+	 *
+	 * @throws IOException
+	 *             if the underlying stream can't be flushed
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	private void writeClass(final IClassCoverage c) throws IOException {
+		writeString(c.getName());
+		out.writeLong(c.getId());
+		out.writeBoolean(c.isNoMatch());
+		writeString(c.getSignature());
+		writeString(c.getSuperName());
+		final String[] interfaces = c.getInterfaceNames();
+		if (interfaces == null) {
+			out.writeVarInt(0);
+		} else {
+			out.writeVarInt(interfaces.length + 1);
+			for (final String i : interfaces) {
+				writeString(i);
+			}
+		}
+		writeString(c.getSourceFileName());
+		writeCounters(c);
+		out.writeVarInt(c.getMethods().size());
+		for (final IMethodCoverage m : c.getMethods()) {
+			writeString(m.getName());
+			writeString(m.getDesc());
+			writeString(m.getSignature());
+			writeCounters(m);
+			writeLines(m);
+		}
+	}
+
+	private void writeCounters(final ICoverageNode node) throws IOException {
+		writeCounter(node.getInstructionCounter());
+		writeCounter(node.getBranchCounter());
+		writeCounter(node.getLineCounter());
+		writeCounter(node.getComplexityCounter());
+		writeCounter(node.getMethodCounter());
+		writeCounter(node.getClassCounter());
+	}
+
+	private void writeCounter(final ICounter counter) throws IOException {
+		out.writeVarInt(counter.getMissedCount());
+		out.writeVarInt(counter.getCoveredCount());
+	}
+
+	private void writeLines(final ISourceNode node) throws IOException {
+		final int first = node.getFirstLine();
+		if (first == ISourceNode.UNKNOWN_LINE) {
+			out.writeVarInt(0);
+			return;
+		}
+		final int last = node.getLastLine();
+		out.writeVarInt(last - first + 1);
+		out.writeVarInt(first);
+		for (int nr = first; nr <= last; nr++) {
+			final ILine line = node.getLine(nr);
+			writeCounter(line.getInstructionCounter());
+			writeCounter(line.getBranchCounter());
+		}
+	}
+
+	/**
+	 * Writes a reference to the string table, the string itself is only written
+	 * on its first occurrence.
+	 */
+	private void writeString(final String s) throws IOException {
+		if (s == null) {
+			out.writeVarInt(REF_NULL);
+			return;
+		}
+		final Integer index = strings.get(s);
+		if (index == null) {
+			strings.put(s, Integer.valueOf(REF_FIRST + strings.size()));
+			out.writeVarInt(REF_NEW);
+			out.writeUTF(s);
+		} else {
+			out.writeVarInt(index.intValue());
+		}
+	}
+
+}
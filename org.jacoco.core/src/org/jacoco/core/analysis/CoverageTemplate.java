@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.analysis.ClassTemplate;
+
+/**
+ * Immutable structure of a set of analyzed classes. A template is created once
+ * with a {@link CoverageTemplateBuilder} and can then be used to calculate
+ * coverage data for any number of {@link ExecutionDataStore}s without analyzing
+ * the class files again. The results are identical to those of an
+ * {@link Analyzer} processing the same class files. Instances of this class can
+ * be safely used by multiple threads.
+ */
+public final class CoverageTemplate {
+
+	private final ClassTemplate[] classes;
+
+	CoverageTemplate(final ClassTemplate[] classes) {
+		this.classes = classes;
+	}
+
+	/**
+	 * Returns the number of classes contained in this template.
+	 *
+	 * @return number of classes
+	 */
+	public int getClassCount() {
+		return classes.length;
+	}
+
+	/**
+	 * Calculates the coverage of all classes of this template for the given
+	 * execution data. For each class the result is reported to the given
+	 * {@link ICoverageVisitor} in the order the classes have been analyzed.
+	 *
+	 * @param executionData
+	 *            execution data
+	 * @param coverageVisitor
+	 *            the output instance that will receive coverage data for every
+	 *            class
+	 */
+	public void accept(final ExecutionDataStore executionData,
+			final ICoverageVisitor coverageVisitor) {
+		for (final ClassTemplate c : classes) {
+			final ExecutionData data = executionData.get(c.getId());
+			final boolean[] probes;
+			final boolean noMatch;
+			if (data == null) {
+				probes = null;
+				noMatch = executionData.contains(c.getName());
+			} else {
+				probes = data.getProbes();
+				noMatch = false;
+			}
+			coverageVisitor.visitCoverage(c.createCoverage(probes, noMatch));
+		}
+	}
+
+	/**
+	 * Creates a bundle from all classes of this template for the given
+	 * execution data.
+	 *
+	 * @param name
+	 *            Name of the bundle
+	 * @param executionData
+	 *            execution data
+	 * @return bundle containing all classes and source files
+	 */
+	public IBundleCoverage createBundle(final String name,
+			final ExecutionDataStore executionData) {
+		final CoverageBuilder builder = new CoverageBuilder();
+		accept(executionData, builder);
+		return builder.getBundle(name);
+	}
+
+}
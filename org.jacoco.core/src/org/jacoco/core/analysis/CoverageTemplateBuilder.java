@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.internal.analysis.ClassTemplate;
+import org.jacoco.core.internal.analysis.ClassTemplateAnalyzer;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * Builder for a {@link CoverageTemplate}. The class files are provided with the
+ * same methods as for the {@link Analyzer}, but instead of calculating coverage
+ * data the structure of every class is recorded. Afterwards the template can be
+ * obtained with {@link #getTemplate()}.
+ */
+public class CoverageTemplateBuilder extends Analyzer {
+
+	private final StringPool stringPool;
+
+	private final List<ClassTemplate> classes;
+
+	/**
+	 * Creates a new builder.
+	 */
+	public CoverageTemplateBuilder() {
+		// Execution data and coverage visitor are not used by this subclass
+		super(null, null);
+		this.stringPool = new StringPool();
+		this.classes = new ArrayList<ClassTemplate>();
+	}
+
+	@Override
+	ClassVisitor createAnalyzingVisitor(final long classid,
+			final String className) {
+		final ClassTemplateAnalyzer analyzer = new ClassTemplateAnalyzer(
+				className, classid, stringPool) {
+			@Override
+			public void visitEnd() {
+				super.visitEnd();
+				classes.add(getTemplate());
+			}
+		};
+		return new ClassProbesAdapter(analyzer, false);
+	}
+
+	/**
+	 * Returns an immutable template for all classes analyzed so far.
+	 *
+	 * @return template for all classes analyzed so far
+	 */
+	public CoverageTemplate getTemplate() {
+		return new CoverageTemplate(
+				classes.toArray(new ClassTemplate[classes.size()]));
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Cache for class names read from execution data. Names are identified by their
+ * encoded representation, so every distinct name is decoded only once and all
+ * readers using the same cache return the same {@link String} instance for it.
+ * A single cache can be shared by readers which are used sequentially, it must
+ * not be used by multiple threads concurrently.
+ */
+public final class ClassNameCache {
+
+	private byte[][] keys;
+
+	private String[] values;
+
+	private int size;
+
+	/**
+	 * Creates a new empty cache.
+	 */
+	public ClassNameCache() {
+		keys = new byte[256][];
+		values = new String[256];
+	}
+
+	/**
+	 * Returns the name for the given modified UTF-8 encoded bytes.
+	 *
+	 * @param utf
+	 *            buffer containing the encoded name
+	 * @param length
+	 *            number of bytes in the buffer
+	 * @return decoded name
+	 * @throws IOException
+	 *             if the bytes are not a valid encoding
+	 */
+	String get(final byte[] utf, final int length) throws IOException {
+		final int mask = keys.length - 1;
+		int i = hash(utf, length) & mask;
+		byte[] key;
+		while ((key = keys[i]) != null) {
+			if (matches(key, utf, length)) {
+				return values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		key = new byte[length];
+		System.arraycopy(utf, 0, key, 0, length);
+		final String value = decode(key);
+		keys[i] = key;
+		values[i] = value;
+		if (++size * 2 > keys.length) {
+			grow();
+		}
+		return value;
+	}
+
+	private void grow() {
+		final byte[][] oldKeys = keys;
+		final String[] oldValues = values;
+		keys = new byte[oldKeys.length * 2][];
+		values = new String[oldKeys.length * 2];
+		final int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			final byte[] key = oldKeys[j];
+			if (key != null) {
+				int i = hash(key, key.length) & mask;
+				while (keys[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = key;
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	private static int hash(final byte[] utf, final int length) {
+		int h = length;
+		for (int i = 0; i < length; i++) {
+			h = 31 * h + utf[i];
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean matches(final byte[] key, final byte[] utf,
+			final int length) {
+		if (key.length != length) {
+			return false;
+		}
+		for (int i = length; --i >= 0;) {
+			if (key[i] != utf[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String decode(final byte[] utf) throws IOException {
+		final byte[] buffer = new byte[utf.length + 2];
+		buffer[0] = (byte) (utf.length >>> 8);
+		buffer[1] = (byte) utf.length;
+		System.arraycopy(utf, 0, buffer, 2, utf.length);
+		return new DataInputStream(new ByteArrayInputStream(buffer)).readUTF();
+	}
+
+}
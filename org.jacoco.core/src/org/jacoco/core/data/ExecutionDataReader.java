@@ -16,8 +16,11 @@ import static java.lang.String.format;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompressedFrameInput;
 
 /**
  * Deserialization of execution data from binary streams.
@@ -27,6 +30,15 @@ public class ExecutionDataReader {
 	/** Underlying data input */
 	protected final CompactDataInput in;
 
+	private final CompressedFrameInput frames;
+
+	/** Name table of the current stream */
+	private final List<String> names = new ArrayList<String>();
+
+	private ClassNameCache classNames = new ClassNameCache();
+
+	private byte[] utf = new byte[256];
+
 	private ISessionInfoVisitor sessionInfoVisitor = null;
 
 	private IExecutionDataVisitor executionDataVisitor = null;
@@ -36,13 +48,28 @@ public class ExecutionDataReader {
 	/**
 	 * Creates a new reader based on the given input stream input. Depending on
 	 * the nature of the underlying stream input should be buffered as most data
-	 * is read in single bytes.
+	 * is read in single bytes. Compressed execution data is detected
+	 * automatically.
 	 *
 	 * @param input
 	 *            input stream to read execution data from
 	 */
 	public ExecutionDataReader(final InputStream input) {
-		this.in = new CompactDataInput(input);
+		this.frames = new CompressedFrameInput(input);
+		this.in = new CompactDataInput(frames);
+	}
+
+	/**
+	 * Sets the cache used to obtain class names. Sharing one cache between
+	 * multiple readers avoids decoding the same class names again and ensures
+	 * that only one {@link String} instance exists for every class name. By
+	 * default every reader uses its own cache.
+	 *
+	 * @param cache
+	 *            cache for class names
+	 */
+	public void setClassNameCache(final ClassNameCache cache) {
+		this.classNames = cache;
 	}
 
 	/**
@@ -115,6 +142,12 @@ public class ExecutionDataReader {
 		case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
 			readExecutionData();
 			return true;
+		case ExecutionDataWriter.BLOCK_COMPRESSED:
+			frames.readFrame(in);
+			return true;
+		case ExecutionDataWriter.BLOCK_EXECUTIONDATA_REF:
+			readExecutionDataRef();
+			return true;
 		default:
 			throw new IOException(
 					format("Unknown block type %x.", Byte.valueOf(blocktype)));
@@ -126,9 +159,12 @@ public class ExecutionDataReader {
 			throw new IOException("Invalid execution data file.");
 		}
 		final char version = in.readChar();
-		if (version != ExecutionDataWriter.FORMAT_VERSION) {
+		if (version != ExecutionDataWriter.FORMAT_VERSION
+				&& version != ExecutionDataWriter.EXTENDED_FORMAT_VERSION) {
 			throw new IncompatibleExecDataVersionException(version);
 		}
+		// Every stream has its own dictionary
+		names.clear();
 	}
 
 	private void readSessionInfo() throws IOException {
@@ -146,10 +182,44 @@ public class ExecutionDataReader {
 			throw new IOException("No execution data visitor.");
 		}
 		final long id = in.readLong();
-		final String name = in.readUTF();
+		final String name = readClassName();
 		final boolean[] probes = in.readBooleanArray();
 		executionDataVisitor
 				.visitClassExecution(new ExecutionData(id, name, probes));
 	}
 
+	private void readExecutionDataRef() throws IOException {
+		if (executionDataVisitor == null) {
+			throw new IOException("No execution data visitor.");
+		}
+		final long id = in.readLong();
+		final int index = in.readVarInt();
+		final String name;
+		if (index == 0) {
+			name = readClassName();
+		} else if (index <= names.size()) {
+			name = names.get(index - 1);
+		} else {
+			throw new IOException(format("Unknown class name reference %s.",
+					Integer.valueOf(index)));
+		}
+		final boolean[] probes = in.readBooleanArray();
+		// Update the name table only for complete blocks, so readers can
+		// retry incomplete blocks once more data is available
+		if (index == 0) {
+			names.add(name);
+		}
+		executionDataVisitor
+				.visitClassExecution(new ExecutionData(id, name, probes));
+	}
+
+	private String readClassName() throws IOException {
+		final int length = in.readUnsignedShort();
+		if (utf.length < length) {
+			utf = new byte[Math.max(length, utf.length * 2)];
+		}
+		in.readFully(utf, 0, length);
+		return classNames.get(utf, length);
+	}
+
 }
@@ -15,8 +15,11 @@ package org.jacoco.core.data;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.jacoco.core.internal.data.CompactDataOutput;
+import org.jacoco.core.internal.data.CompressedFrameOutput;
 
 /**
  * Serialization of execution data into binary streams.
@@ -29,9 +32,17 @@ public class ExecutionDataWriter
 	 */
 	public static final char FORMAT_VERSION;
 
+	/**
+	 * File format version of streams which are compressed or use a name table
+	 * for class names. Such streams contain blocks which can't be read by
+	 * JaCoCo versions before 0.8.8.
+	 */
+	public static final char EXTENDED_FORMAT_VERSION;
+
 	static {
 		// Runtime initialize to ensure javac does not inline the value.
 		FORMAT_VERSION = 0x1007;
+		EXTENDED_FORMAT_VERSION = 0x1008;
 	}
 
 	/** Magic number in header for file format identification. */
@@ -40,15 +51,34 @@ public class ExecutionDataWriter
 	/** Block identifier for file headers. */
 	public static final byte BLOCK_HEADER = 0x01;
 
+	/**
+	 * Block identifier for a deflate compressed frame which contains a sequence
+	 * of complete blocks.
+	 */
+	public static final byte BLOCK_COMPRESSED = 0x02;
+
 	/** Block identifier for session information. */
 	public static final byte BLOCK_SESSIONINFO = 0x10;
 
 	/** Block identifier for execution data of a single class. */
 	public static final byte BLOCK_EXECUTIONDATA = 0x11;
 
+	/**
+	 * Block identifier for execution data of a single class where the class
+	 * name is a reference to the name table of the stream. A reference 0 is
+	 * followed by a new name which is added to the table, every subsequent
+	 * occurrence refers to the 1-based index of the name in the table.
+	 */
+	public static final byte BLOCK_EXECUTIONDATA_REF = 0x12;
+
 	/** Underlying data output */
 	protected final CompactDataOutput out;
 
+	private final CompressedFrameOutput frames;
+
+	/** Class names written so far or <code>null</code> without name table */
+	private final Map<String, Integer> names;
+
 	/**
 	 * Creates a new writer based on the given output stream. Depending on the
 	 * nature of the underlying stream output should be buffered as most data is
@@ -60,8 +90,58 @@ public class ExecutionDataWriter
 	 *             if the header can't be written
 	 */
 	public ExecutionDataWriter(final OutputStream output) throws IOException {
-		this.out = new CompactDataOutput(output);
-		writeHeader();
+		this(output, false);
+	}
+
+	/**
+	 * Creates a new writer based on the given output stream which optionally
+	 * compresses the execution data. Except the header compressed data is
+	 * written in frames which are completed on {@link #flush()}. Compressed
+	 * streams also use a name table for class names and can only be read with
+	 * JaCoCo 0.8.8 or later.
+	 *
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @param compress
+	 *            whether execution data should be compressed
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public ExecutionDataWriter(final OutputStream output,
+			final boolean compress) throws IOException {
+		this(output, compress, compress);
+	}
+
+	/**
+	 * Creates a new writer based on the given output stream which optionally
+	 * compresses the execution data and optionally writes every class name only
+	 * once per stream. Subsequent occurrences of the same name refer to a name
+	 * table by index, which reduces the size of streams with multiple sessions
+	 * and the number of strings which have to be decoded by the reader. Streams
+	 * using any of these options are written with
+	 * {@link #EXTENDED_FORMAT_VERSION} and can only be read with JaCoCo 0.8.8
+	 * or later.
+	 *
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @param compress
+	 *            whether execution data should be compressed
+	 * @param nameTable
+	 *            whether class names should be written to a name table
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public ExecutionDataWriter(final OutputStream output,
+			final boolean compress, final boolean nameTable)
+			throws IOException {
+		this.frames = new CompressedFrameOutput(output, BLOCK_COMPRESSED);
+		this.out = new CompactDataOutput(frames);
+		writeHeader(compress || nameTable ? EXTENDED_FORMAT_VERSION
+				: FORMAT_VERSION);
+		if (compress) {
+			frames.startCompression();
+		}
+		names = nameTable ? new HashMap<String, Integer>() : null;
 	}
 
 	/**
@@ -70,10 +150,10 @@ public class ExecutionDataWriter
 	 * @throws IOException
 	 *             if the header can't be written
 	 */
-	private void writeHeader() throws IOException {
+	private void writeHeader(final char version) throws IOException {
 		out.writeByte(BLOCK_HEADER);
 		out.writeChar(MAGIC_NUMBER);
-		out.writeChar(FORMAT_VERSION);
+		out.writeChar(version);
 	}
 
 	/**
@@ -86,8 +166,21 @@ public class ExecutionDataWriter
 		out.flush();
 	}
 
+	/**
+	 * Writes the current compressed frame to the underlying stream without
+	 * flushing it, so that all blocks written so far can be read from the
+	 * stream. Does nothing if the stream is not compressed.
+	 *
+	 * @throws IOException
+	 *             if the frame can't be written
+	 */
+	protected void endFrame() throws IOException {
+		frames.endFrame();
+	}
+
 	public void visitSessionInfo(final SessionInfo info) {
 		try {
+			frames.startBlock();
 			out.writeByte(BLOCK_SESSIONINFO);
 			out.writeUTF(info.getId());
 			out.writeLong(info.getStartTimeStamp());
@@ -100,9 +193,16 @@ public class ExecutionDataWriter
 	public void visitClassExecution(final ExecutionData data) {
 		if (data.hasHits()) {
 			try {
-				out.writeByte(BLOCK_EXECUTIONDATA);
-				out.writeLong(data.getId());
-				out.writeUTF(data.getName());
+				frames.startBlock();
+				if (names == null) {
+					out.writeByte(BLOCK_EXECUTIONDATA);
+					out.writeLong(data.getId());
+					out.writeUTF(data.getName());
+				} else {
+					out.writeByte(BLOCK_EXECUTIONDATA_REF);
+					out.writeLong(data.getId());
+					writeNameRef(data.getName());
+				}
 				out.writeBooleanArray(data.getProbes());
 			} catch (final IOException e) {
 				throw new RuntimeException(e);
@@ -110,6 +210,21 @@ public class ExecutionDataWriter
 		}
 	}
 
+	/**
+	 * Writes the index of the given name in the dictionary, or 0 followed by
+	 * the name itself if it is written for the first time.
+	 */
+	private void writeNameRef(final String name) throws IOException {
+		final Integer index = names.get(name);
+		if (index == null) {
+			names.put(name, Integer.valueOf(names.size() + 1));
+			out.writeVarInt(0);
+			out.writeUTF(name);
+		} else {
+			out.writeVarInt(index.intValue());
+		}
+	}
+
 	/**
 	 * Returns the first bytes of a file that represents a valid execution data
 	 * file. In any case every execution data file starts with the three bytes
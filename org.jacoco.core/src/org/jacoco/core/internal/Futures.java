@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Evgeny Mandrikov - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Utilities for {@link Future}s.
+ */
+public final class Futures {
+
+	private Futures() {
+	}
+
+	/**
+	 * Waits for the result of the given future. Exceptions of the computation
+	 * are rethrown without the wrapping {@link ExecutionException}.
+	 *
+	 * @param <T>
+	 *            type of the result
+	 * @param future
+	 *            future to wait for
+	 * @return result of the computation
+	 * @throws IOException
+	 *             if the computation failed with an {@link IOException}
+	 * @throws InterruptedIOException
+	 *             if the current thread has been interrupted while waiting, the
+	 *             interrupted flag of the thread is set again
+	 */
+	public static <T> T get(final Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw (RuntimeException) cause;
+		}
+	}
+
+}
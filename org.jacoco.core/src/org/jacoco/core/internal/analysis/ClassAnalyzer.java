@@ -18,6 +18,7 @@ import java.util.Set;
 import org.jacoco.core.internal.analysis.filter.Filters;
 import org.jacoco.core.internal.analysis.filter.IFilter;
 import org.jacoco.core.internal.analysis.filter.IFilterContext;
+import org.jacoco.core.internal.analysis.filter.IFilterOutput;
 import org.jacoco.core.internal.flow.ClassProbesVisitor;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
 import org.jacoco.core.internal.instr.InstrSupport;
@@ -45,6 +46,12 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 	private final IFilter filter;
 
+	/** Builder which is reused for all methods of this class. */
+	private InstructionsBuilder builder;
+
+	/** Calculator which is reused for all methods of this class. */
+	private MethodCoverageCalculator calculator;
+
 	/**
 	 * Creates a new analyzer that builds coverage data for a class.
 	 *
@@ -97,7 +104,9 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 		InstrSupport.assertNotInstrumented(name, coverage.getName());
 
-		final InstructionsBuilder builder = new InstructionsBuilder(probes);
+		if (builder == null) {
+			builder = new InstructionsBuilder(probes);
+		}
 
 		return new MethodAnalyzer(builder) {
 
@@ -114,13 +123,18 @@ public class ClassAnalyzer extends ClassProbesVisitor
 	private void addMethodCoverage(final String name, final String desc,
 			final String signature, final InstructionsBuilder icc,
 			final MethodNode methodNode) {
-		final MethodCoverageCalculator mcc = new MethodCoverageCalculator(
-				icc.getInstructions());
-		filter.filter(methodNode, this, mcc);
+		final Instruction[] instructions = icc.getInstructions();
+		if (calculator == null) {
+			calculator = new MethodCoverageCalculator(methodNode.instructions,
+					instructions);
+		} else {
+			calculator.reset(methodNode.instructions, instructions);
+		}
+		filter(methodNode, calculator);
 
 		final MethodCoverageImpl mc = new MethodCoverageImpl(name, desc,
 				signature);
-		mcc.calculate(mc);
+		calculator.calculate(mc);
 
 		if (mc.containsCode()) {
 			// Only consider methods that actually contain code
@@ -129,6 +143,18 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 	}
 
+	/**
+	 * Applies all filters to the given method in the context of this class.
+	 *
+	 * @param methodNode
+	 *            method to filter
+	 * @param output
+	 *            output for the filtering commands
+	 */
+	void filter(final MethodNode methodNode, final IFilterOutput output) {
+		filter.filter(methodNode, this, output);
+	}
+
 	@Override
 	public FieldVisitor visitField(final int access, final String name,
 			final String desc, final String signature, final Object value) {
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+/**
+ * Immutable structure of a single class from which coverage nodes can be
+ * created for arbitrary probe arrays.
+ */
+public class ClassTemplate {
+
+	private final String name;
+	private final long id;
+	private final String signature;
+	private final String superName;
+	private final String[] interfaces;
+	private final String sourceFileName;
+	private final MethodTemplate[] methods;
+
+	/**
+	 * Creates a template from the static information of the given coverage node
+	 * and the given method templates.
+	 *
+	 * @param coverage
+	 *            coverage node with the class information
+	 * @param methods
+	 *            templates of all methods containing code
+	 */
+	ClassTemplate(final ClassCoverageImpl coverage,
+			final MethodTemplate[] methods) {
+		this.name = coverage.getName();
+		this.id = coverage.getId();
+		this.signature = coverage.getSignature();
+		this.superName = coverage.getSuperName();
+		this.interfaces = coverage.getInterfaceNames();
+		this.sourceFileName = coverage.getSourceFileName();
+		this.methods = methods;
+	}
+
+	/**
+	 * Returns the VM name of the class.
+	 *
+	 * @return VM name of the class
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the identifier of the class.
+	 *
+	 * @return class identifier
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Calculates the coverage of this class for the given probes.
+	 *
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @param noMatch
+	 *            <code>true</code>, if class id does not match with execution
+	 *            data
+	 * @return new coverage node for this class
+	 */
+	public ClassCoverageImpl createCoverage(final boolean[] probes,
+			final boolean noMatch) {
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(name, id,
+				noMatch);
+		coverage.setSignature(signature);
+		coverage.setSuperName(superName);
+		coverage.setInterfaces(interfaces);
+		coverage.setSourceFileName(sourceFileName);
+		for (final MethodTemplate m : methods) {
+			coverage.addMethod(m.createCoverage(probes));
+		}
+		return coverage;
+	}
+
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Analyzes the structure of a class and creates a {@link ClassTemplate} instead
+ * of coverage data.
+ */
+public class ClassTemplateAnalyzer extends ClassAnalyzer {
+
+	private final ClassCoverageImpl coverage;
+	private final StringPool stringPool;
+	private final List<MethodTemplate> methods;
+
+	/**
+	 * Creates a new analyzer that builds a template for a class.
+	 *
+	 * @param name
+	 *            VM name of the class
+	 * @param id
+	 *            class identifier
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 */
+	public ClassTemplateAnalyzer(final String name, final long id,
+			final StringPool stringPool) {
+		this(new ClassCoverageImpl(name, id, false), stringPool);
+	}
+
+	private ClassTemplateAnalyzer(final ClassCoverageImpl coverage,
+			final StringPool stringPool) {
+		super(coverage, null, stringPool);
+		this.coverage = coverage;
+		this.stringPool = stringPool;
+		this.methods = new ArrayList<MethodTemplate>();
+	}
+
+	@Override
+	public MethodProbesVisitor visitMethod(final int access, final String name,
+			final String desc, final String signature,
+			final String[] exceptions) {
+
+		InstrSupport.assertNotInstrumented(name, coverage.getName());
+
+		final MethodTemplateRecorder recorder = new MethodTemplateRecorder();
+		final InstructionsBuilder builder = new InstructionsBuilder(null,
+				recorder);
+
+		return new MethodAnalyzer(builder) {
+
+			@Override
+			public void accept(final MethodNode methodNode,
+					final MethodVisitor methodVisitor) {
+				super.accept(methodNode, methodVisitor);
+				builder.getInstructions();
+				filter(methodNode, recorder);
+				final MethodTemplate method = recorder.createTemplate(
+						stringPool.get(name), stringPool.get(desc),
+						stringPool.get(signature));
+				if (method != null) {
+					// Only consider methods that actually contain code
+					methods.add(method);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns the template for the analyzed class. Must be called after the
+	 * class has been visited completely.
+	 *
+	 * @return template for the class
+	 */
+	public ClassTemplate getTemplate() {
+		return new ClassTemplate(coverage,
+				methods.toArray(new MethodTemplate[methods.size()]));
+	}
+
+}
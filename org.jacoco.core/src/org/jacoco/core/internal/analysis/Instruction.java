@@ -59,7 +59,11 @@ public class Instruction {
 
 	private int branches;
 
-	private final BitSet coveredBranches;
+	/** Covered branches with numbers below 64 */
+	private long coveredBranches;
+
+	/** Covered branches with numbers of 64 and above, lazily created */
+	private BitSet coveredBranchesOverflow;
 
 	private Instruction predecessor;
 
@@ -74,7 +78,6 @@ public class Instruction {
 	public Instruction(final int line) {
 		this.line = line;
 		this.branches = 0;
-		this.coveredBranches = new BitSet();
 	}
 
 	/**
@@ -95,7 +98,7 @@ public class Instruction {
 		branches++;
 		target.predecessor = this;
 		target.predecessorBranch = branch;
-		if (!target.coveredBranches.isEmpty()) {
+		if (target.isCovered()) {
 			propagateExecutedBranch(this, branch);
 		}
 	}
@@ -123,16 +126,49 @@ public class Instruction {
 	private static void propagateExecutedBranch(Instruction insn, int branch) {
 		// No recursion here, as there can be very long chains of instructions
 		while (insn != null) {
-			if (!insn.coveredBranches.isEmpty()) {
-				insn.coveredBranches.set(branch);
+			if (insn.isCovered()) {
+				insn.setCovered(branch);
 				break;
 			}
-			insn.coveredBranches.set(branch);
+			insn.setCovered(branch);
 			branch = insn.predecessorBranch;
 			insn = insn.predecessor;
 		}
 	}
 
+	private boolean isCovered() {
+		return coveredBranches != 0 || coveredBranchesOverflow != null;
+	}
+
+	private void setCovered(final int branch) {
+		if (branch < 64) {
+			coveredBranches |= 1L << branch;
+		} else {
+			if (coveredBranchesOverflow == null) {
+				coveredBranchesOverflow = new BitSet();
+			}
+			coveredBranchesOverflow.set(branch);
+		}
+	}
+
+	private void setCovered(final Instruction other) {
+		coveredBranches |= other.coveredBranches;
+		if (other.coveredBranchesOverflow != null) {
+			if (coveredBranchesOverflow == null) {
+				coveredBranchesOverflow = new BitSet();
+			}
+			coveredBranchesOverflow.or(other.coveredBranchesOverflow);
+		}
+	}
+
+	private int getCoveredCount() {
+		int count = Long.bitCount(coveredBranches);
+		if (coveredBranchesOverflow != null) {
+			count += coveredBranchesOverflow.cardinality();
+		}
+		return count;
+	}
+
 	/**
 	 * Returns the source line this instruction belongs to.
 	 *
@@ -153,8 +189,8 @@ public class Instruction {
 	public Instruction merge(final Instruction other) {
 		final Instruction result = new Instruction(this.line);
 		result.branches = this.branches;
-		result.coveredBranches.or(this.coveredBranches);
-		result.coveredBranches.or(other.coveredBranches);
+		result.setCovered(this);
+		result.setCovered(other);
 		return result;
 	}
 
@@ -173,8 +209,8 @@ public class Instruction {
 		result.branches = newBranches.size();
 		int idx = 0;
 		for (final Instruction b : newBranches) {
-			if (!b.coveredBranches.isEmpty()) {
-				result.coveredBranches.set(idx++);
+			if (b.isCovered()) {
+				result.setCovered(idx++);
 			}
 		}
 		return result;
@@ -187,8 +223,7 @@ public class Instruction {
 	 * @return the instruction coverage counter
 	 */
 	public ICounter getInstructionCounter() {
-		return coveredBranches.isEmpty() ? CounterImpl.COUNTER_1_0
-				: CounterImpl.COUNTER_0_1;
+		return isCovered() ? CounterImpl.COUNTER_0_1 : CounterImpl.COUNTER_1_0;
 	}
 
 	/**
@@ -201,7 +236,7 @@ public class Instruction {
 		if (branches < 2) {
 			return CounterImpl.COUNTER_0_0;
 		}
-		final int covered = coveredBranches.cardinality();
+		final int covered = getCoveredCount();
 		return CounterImpl.getInstance(branches - covered, covered);
 	}
 
@@ -13,20 +13,23 @@
 package org.jacoco.core.internal.analysis;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.flow.LabelInfo;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
 
 /**
  * Stateful builder for the {@link Instruction}s of a method. All instructions
  * of a method must be added in their original sequence along with additional
  * information like line numbers. Afterwards the instructions can be obtained
  * with the <code>getInstructions()</code> method.
+ *
+ * The builder can be reused for subsequent methods of the same class. Each
+ * method has to be started with {@link #reset(InsnList)}. Internal buffers are
+ * kept between methods to minimize allocations.
  */
 class InstructionsBuilder {
 
@@ -39,11 +42,15 @@ class InstructionsBuilder {
 	/** The last instruction which has been added. */
 	private Instruction currentInsn;
 
+	/** The ASM nodes of the current method. */
+	private InsnList nodes;
+
 	/**
-	 * All instructions of a method mapped from the ASM node to the
-	 * corresponding {@link Instruction} instance.
+	 * All instructions of a method indexed by the position of the corresponding
+	 * ASM node in {@link #nodes}. Positions of nodes which do not represent
+	 * instructions are <code>null</code>.
 	 */
-	private final Map<AbstractInsnNode, Instruction> instructions;
+	private Instruction[] instructions;
 
 	/**
 	 * The labels which mark the subsequent instructions.
@@ -52,27 +59,87 @@ class InstructionsBuilder {
 	 */
 	private final List<Label> currentLabel;
 
+	/*
+	 * All jumps within the control flow stored as source, target and branch
+	 * number. We need to store jumps temporarily as the target {@link
+	 * Instruction} may not been known yet.
+	 */
+
+	private Instruction[] jumpSources;
+
+	private Label[] jumpTargets;
+
+	private int[] jumpBranches;
+
+	private int jumpCount;
+
 	/**
-	 * List of all jumps within the control flow. We need to store jumps
-	 * temporarily as the target {@link Instruction} may not been known yet.
+	 * Optional recorder for the structure of the method or <code>null</code>
 	 */
-	private final List<Jump> jumps;
+	private final MethodTemplateRecorder recorder;
 
 	/**
-	 * Creates a new builder instance which can be used to analyze a single
-	 * method.
+	 * Creates a new builder instance which can be used to analyze the methods
+	 * of a class.
 	 *
 	 * @param probes
 	 *            probe array of the corresponding class used to determine the
 	 *            coverage status of every instruction.
 	 */
 	InstructionsBuilder(final boolean[] probes) {
+		this(probes, null);
+	}
+
+	/**
+	 * Creates a new builder instance which can be used to analyze the methods
+	 * of a class and additionally reports the control flow of the methods to
+	 * the given recorder.
+	 *
+	 * @param probes
+	 *            probe array of the corresponding class used to determine the
+	 *            coverage status of every instruction.
+	 * @param recorder
+	 *            recorder for the method structure or <code>null</code>
+	 */
+	InstructionsBuilder(final boolean[] probes,
+			final MethodTemplateRecorder recorder) {
 		this.probes = probes;
-		this.currentLine = ISourceNode.UNKNOWN_LINE;
-		this.currentInsn = null;
-		this.instructions = new HashMap<AbstractInsnNode, Instruction>();
+		this.recorder = recorder;
+		this.instructions = new Instruction[64];
 		this.currentLabel = new ArrayList<Label>(2);
-		this.jumps = new ArrayList<Jump>();
+		this.jumpSources = new Instruction[16];
+		this.jumpTargets = new Label[16];
+		this.jumpBranches = new int[16];
+	}
+
+	/**
+	 * Prepares this builder for a new method.
+	 *
+	 * @param nodes
+	 *            ASM nodes of the method, all instructions added subsequently
+	 *            must be contained in this list
+	 */
+	void reset(final InsnList nodes) {
+		this.nodes = nodes;
+		final int size = nodes.size();
+		if (instructions.length < size) {
+			instructions = new Instruction[Math.max(size,
+					instructions.length * 2)];
+		} else {
+			clear(instructions, instructions.length);
+		}
+		currentLine = ISourceNode.UNKNOWN_LINE;
+		currentInsn = null;
+		currentLabel.clear();
+		clear(jumpSources, jumpCount);
+		clear(jumpTargets, jumpCount);
+		jumpCount = 0;
+	}
+
+	private static void clear(final Object[] array, final int length) {
+		for (int i = 0; i < length; i++) {
+			array[i] = null;
+		}
 	}
 
 	/**
@@ -109,11 +176,14 @@ class InstructionsBuilder {
 			}
 			currentLabel.clear();
 		}
+		if (recorder != null) {
+			recorder.addInstruction(node, insn, currentLine);
+		}
 		if (currentInsn != null) {
-			currentInsn.addBranch(insn, 0);
+			addBranch(currentInsn, insn, 0);
 		}
 		currentInsn = insn;
-		instructions.put(node, insn);
+		instructions[nodes.indexOf(node)] = insn;
 	}
 
 	/**
@@ -134,7 +204,22 @@ class InstructionsBuilder {
 	 *            unique branch number
 	 */
 	void addJump(final Label target, final int branch) {
-		jumps.add(new Jump(currentInsn, target, branch));
+		if (jumpCount == jumpSources.length) {
+			final int length = jumpCount * 2;
+			final Instruction[] newSources = new Instruction[length];
+			System.arraycopy(jumpSources, 0, newSources, 0, jumpCount);
+			jumpSources = newSources;
+			final Label[] newTargets = new Label[length];
+			System.arraycopy(jumpTargets, 0, newTargets, 0, jumpCount);
+			jumpTargets = newTargets;
+			final int[] newBranches = new int[length];
+			System.arraycopy(jumpBranches, 0, newBranches, 0, jumpCount);
+			jumpBranches = newBranches;
+		}
+		jumpSources[jumpCount] = currentInsn;
+		jumpTargets[jumpCount] = target;
+		jumpBranches[jumpCount] = branch;
+		jumpCount++;
 	}
 
 	/**
@@ -148,40 +233,37 @@ class InstructionsBuilder {
 	void addProbe(final int probeId, final int branch) {
 		final boolean executed = probes != null && probes[probeId];
 		currentInsn.addBranch(executed, branch);
+		if (recorder != null) {
+			recorder.addProbe(currentInsn, probeId, branch);
+		}
+	}
+
+	private void addBranch(final Instruction source, final Instruction target,
+			final int branch) {
+		source.addBranch(target, branch);
+		if (recorder != null) {
+			recorder.addBranch(source, target, branch);
+		}
 	}
 
 	/**
 	 * Returns the status for all instructions of this method. This method must
-	 * be called exactly once after the instructions have been added.
+	 * be called exactly once after the instructions have been added. The
+	 * returned array is only valid until the builder is reset for the next
+	 * method.
 	 *
-	 * @return map of ASM instruction nodes to corresponding {@link Instruction}
-	 *         instances
+	 * @return {@link Instruction} instances indexed by the position of the
+	 *         corresponding ASM instruction node in the list of the method, the
+	 *         array might be longer than the list
 	 */
-	Map<AbstractInsnNode, Instruction> getInstructions() {
+	Instruction[] getInstructions() {
 		// Wire jumps:
-		for (final Jump j : jumps) {
-			j.wire();
+		for (int i = 0; i < jumpCount; i++) {
+			addBranch(jumpSources[i], LabelInfo.getInstruction(jumpTargets[i]),
+					jumpBranches[i]);
 		}
 
 		return instructions;
 	}
 
-	private static class Jump {
-
-		private final Instruction source;
-		private final Label target;
-		private final int branch;
-
-		Jump(final Instruction source, final Label target, final int branch) {
-			this.source = source;
-			this.target = target;
-			this.branch = branch;
-		}
-
-		void wire() {
-			source.addBranch(LabelInfo.getInstruction(target), branch);
-		}
-
-	}
-
 }
@@ -62,6 +62,29 @@ public abstract class LineImpl implements ILine {
 		return new Var(instructions, branches);
 	}
 
+	/**
+	 * Returns a line with the given counter values.
+	 *
+	 * @param im
+	 *            missed instructions
+	 * @param ic
+	 *            covered instructions
+	 * @param bm
+	 *            missed branches
+	 * @param bc
+	 *            covered branches
+	 * @return line instance, shared for small values
+	 */
+	static LineImpl getInstance(final int im, final int ic, final int bm,
+			final int bc) {
+		if (im <= SINGLETON_INS_LIMIT && ic <= SINGLETON_INS_LIMIT
+				&& bm <= SINGLETON_BRA_LIMIT && bc <= SINGLETON_BRA_LIMIT) {
+			return SINGLETONS[im][ic][bm][bc];
+		}
+		return new Var(CounterImpl.getInstance(im, ic),
+				CounterImpl.getInstance(bm, bc));
+	}
+
 	/**
 	 * Mutable version.
 	 */
@@ -91,7 +114,8 @@ public abstract class LineImpl implements ILine {
 		@Override
 		public LineImpl increment(final ICounter instructions,
 				final ICounter branches) {
-			return getInstance(this.instructions.increment(instructions),
+			return LineImpl.getInstance(
+					this.instructions.increment(instructions),
 					this.branches.increment(branches));
 		}
 	}
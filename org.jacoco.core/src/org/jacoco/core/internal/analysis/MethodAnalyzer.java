@@ -43,6 +43,7 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	@Override
 	public void accept(final MethodNode methodNode,
 			final MethodVisitor methodVisitor) {
+		builder.reset(methodNode.instructions);
 		methodVisitor.visitCode();
 		for (final TryCatchBlockNode n : methodNode.tryCatchBlocks) {
 			n.accept(methodVisitor);
@@ -13,8 +13,8 @@
 package org.jacoco.core.internal.analysis;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -23,17 +23,28 @@ import java.util.Set;
 import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.analysis.filter.IFilterOutput;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
 
 /**
  * Calculates the filtered coverage of a single method. A instance of this class
  * can be first used as {@link IFilterOutput} before the coverage result is
  * calculated.
+ *
+ * All instructions are identified by the index of their node in the
+ * {@link InsnList} of the method. An instance can be reused for subsequent
+ * methods with {@link #reset(InsnList, Instruction[])}.
  */
 class MethodCoverageCalculator implements IFilterOutput {
 
-	private final Map<AbstractInsnNode, Instruction> instructions;
+	private InsnList nodes;
+
+	/**
+	 * Instructions indexed by the position of their node, <code>null</code> for
+	 * nodes which do not represent instructions.
+	 */
+	private Instruction[] instructions;
 
-	private final Set<AbstractInsnNode> ignored;
+	private boolean[] ignored;
 
 	/**
 	 * Instructions that should be merged form disjoint sets. Coverage
@@ -44,18 +55,45 @@ class MethodCoverageCalculator implements IFilterOutput {
 	 * one references another element from the same set, element without
 	 * reference - is a representative of this set.
 	 *
-	 * This map stores reference (value) for elements of sets (key).
+	 * This array stores the index of the reference for every element or -1. It
+	 * is only allocated if merges are actually requested.
 	 */
-	private final Map<AbstractInsnNode, AbstractInsnNode> merged;
+	private int[] merged;
+
+	private boolean hasMerges;
 
 	private final Map<AbstractInsnNode, Set<AbstractInsnNode>> replacements;
 
-	MethodCoverageCalculator(
-			final Map<AbstractInsnNode, Instruction> instructions) {
+	MethodCoverageCalculator(final InsnList nodes,
+			final Instruction[] instructions) {
+		this.ignored = new boolean[0];
+		this.merged = new int[0];
+		this.replacements = new LinkedHashMap<AbstractInsnNode, Set<AbstractInsnNode>>();
+		reset(nodes, instructions);
+	}
+
+	/**
+	 * Prepares this calculator for the next method.
+	 *
+	 * @param nodes
+	 *            ASM nodes of the method
+	 * @param instructions
+	 *            instructions indexed by the position of their node
+	 */
+	void reset(final InsnList nodes, final Instruction[] instructions) {
+		this.nodes = nodes;
 		this.instructions = instructions;
-		this.ignored = new HashSet<AbstractInsnNode>();
-		this.merged = new HashMap<AbstractInsnNode, AbstractInsnNode>();
-		this.replacements = new HashMap<AbstractInsnNode, Set<AbstractInsnNode>>();
+		final int size = nodes.size();
+		if (ignored.length < size) {
+			ignored = new boolean[size];
+		} else {
+			Arrays.fill(ignored, 0, size, false);
+		}
+		if (hasMerges) {
+			Arrays.fill(merged, -1);
+			hasMerges = false;
+		}
+		replacements.clear();
 	}
 
 	/**
@@ -70,10 +108,10 @@ class MethodCoverageCalculator implements IFilterOutput {
 		applyReplacements();
 		ensureCapacity(coverage);
 
-		for (final Entry<AbstractInsnNode, Instruction> entry : instructions
-				.entrySet()) {
-			if (!ignored.contains(entry.getKey())) {
-				final Instruction instruction = entry.getValue();
+		final int size = nodes.size();
+		for (int i = 0; i < size; i++) {
+			final Instruction instruction = instructions[i];
+			if (instruction != null && !ignored[i]) {
 				coverage.increment(instruction.getInstructionCounter(),
 						instruction.getBranchCounter(), instruction.getLine());
 			}
@@ -83,24 +121,27 @@ class MethodCoverageCalculator implements IFilterOutput {
 	}
 
 	private void applyMerges() {
+		if (!hasMerges) {
+			return;
+		}
+		final int size = nodes.size();
+
 		// Merge to the representative:
-		for (final Entry<AbstractInsnNode, AbstractInsnNode> entry : merged
-				.entrySet()) {
-			final AbstractInsnNode node = entry.getKey();
-			final Instruction instruction = instructions.get(node);
-			final AbstractInsnNode representativeNode = findRepresentative(
-					node);
-			ignored.add(node);
-			instructions.put(representativeNode,
-					instructions.get(representativeNode).merge(instruction));
-			entry.setValue(representativeNode);
+		for (int i = 0; i < size; i++) {
+			if (merged[i] != -1) {
+				final int representative = findRepresentative(i);
+				ignored[i] = true;
+				instructions[representative] = instructions[representative]
+						.merge(instructions[i]);
+				merged[i] = representative;
+			}
 		}
 
 		// Get merged value back from representative
-		for (final Entry<AbstractInsnNode, AbstractInsnNode> entry : merged
-				.entrySet()) {
-			instructions.put(entry.getKey(),
-					instructions.get(entry.getValue()));
+		for (int i = 0; i < size; i++) {
+			if (merged[i] != -1) {
+				instructions[i] = instructions[merged[i]];
+			}
 		}
 	}
 
@@ -111,11 +152,11 @@ class MethodCoverageCalculator implements IFilterOutput {
 			final List<Instruction> newBranches = new ArrayList<Instruction>(
 					replacements.size());
 			for (final AbstractInsnNode b : replacements) {
-				newBranches.add(instructions.get(b));
+				newBranches.add(instructions[nodes.indexOf(b)]);
 			}
-			final AbstractInsnNode node = entry.getKey();
-			instructions.put(node,
-					instructions.get(node).replaceBranches(newBranches));
+			final int index = nodes.indexOf(entry.getKey());
+			instructions[index] = instructions[index]
+					.replaceBranches(newBranches);
 		}
 	}
 
@@ -123,10 +164,11 @@ class MethodCoverageCalculator implements IFilterOutput {
 		// Determine line range:
 		int firstLine = ISourceNode.UNKNOWN_LINE;
 		int lastLine = ISourceNode.UNKNOWN_LINE;
-		for (final Entry<AbstractInsnNode, Instruction> entry : instructions
-				.entrySet()) {
-			if (!ignored.contains(entry.getKey())) {
-				final int line = entry.getValue().getLine();
+		final int size = nodes.size();
+		for (int i = 0; i < size; i++) {
+			final Instruction instruction = instructions[i];
+			if (instruction != null && !ignored[i]) {
+				final int line = instruction.getLine();
 				if (line != ISourceNode.UNKNOWN_LINE) {
 					if (firstLine > line
 							|| lastLine == ISourceNode.UNKNOWN_LINE) {
@@ -143,9 +185,9 @@ class MethodCoverageCalculator implements IFilterOutput {
 		coverage.ensureCapacity(firstLine, lastLine);
 	}
 
-	private AbstractInsnNode findRepresentative(AbstractInsnNode i) {
-		AbstractInsnNode r;
-		while ((r = merged.get(i)) != null) {
+	private int findRepresentative(int i) {
+		int r;
+		while ((r = merged[i]) != -1) {
 			i = r;
 		}
 		return i;
@@ -157,16 +199,24 @@ class MethodCoverageCalculator implements IFilterOutput {
 			final AbstractInsnNode toInclusive) {
 		for (AbstractInsnNode i = fromInclusive; i != toInclusive; i = i
 				.getNext()) {
-			ignored.add(i);
+			ignored[nodes.indexOf(i)] = true;
 		}
-		ignored.add(toInclusive);
+		ignored[nodes.indexOf(toInclusive)] = true;
 	}
 
-	public void merge(AbstractInsnNode i1, AbstractInsnNode i2) {
-		i1 = findRepresentative(i1);
-		i2 = findRepresentative(i2);
-		if (i1 != i2) {
-			merged.put(i2, i1);
+	public void merge(final AbstractInsnNode i1, final AbstractInsnNode i2) {
+		if (!hasMerges) {
+			final int size = nodes.size();
+			if (merged.length < size) {
+				merged = new int[size];
+			}
+			Arrays.fill(merged, -1);
+			hasMerges = true;
+		}
+		final int r1 = findRepresentative(nodes.indexOf(i1));
+		final int r2 = findRepresentative(nodes.indexOf(i2));
+		if (r1 != r2) {
+			merged[r2] = r1;
 		}
 	}
 
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.analysis.ISourceNode;
+
+/**
+ * Immutable structure of a single method which allows to calculate its coverage
+ * for arbitrary probe arrays without analyzing the class file again. The
+ * template consists of the instructions of the method identified by their index
+ * and the branches between them in the exact order they have been added during
+ * analysis. The result of filtering is stored as well.
+ */
+public class MethodTemplate {
+
+	private final String name;
+
+	private final String desc;
+
+	private final String signature;
+
+	/** Source line for every instruction */
+	private final int[] lines;
+
+	/**
+	 * Triples of source index, target and branch number for every branch in the
+	 * order of creation. Negative targets encode probe ids.
+	 */
+	private final int[] branches;
+
+	/** Instructions which are ignored or merged into other instructions */
+	private final boolean[] skipped;
+
+	/** Representative for every merged instruction or -1, may be null */
+	private final int[] representatives;
+
+	private final int[] replacementSources;
+
+	private final int[][] replacementTargets;
+
+	private final int firstLine;
+
+	private final int lastLine;
+
+	MethodTemplate(final String name, final String desc, final String signature,
+			final int[] lines, final int[] branches, final boolean[] skipped,
+			final int[] representatives, final int[] replacementSources,
+			final int[][] replacementTargets) {
+		this.name = name;
+		this.desc = desc;
+		this.signature = signature;
+		this.lines = lines;
+		this.branches = branches;
+		this.skipped = skipped;
+		this.representatives = representatives;
+		this.replacementSources = replacementSources;
+		this.replacementTargets = replacementTargets;
+
+		int first = ISourceNode.UNKNOWN_LINE;
+		int last = ISourceNode.UNKNOWN_LINE;
+		for (int i = 0; i < lines.length; i++) {
+			final int line = lines[i];
+			if (!skipped[i] && line != ISourceNode.UNKNOWN_LINE) {
+				if (first > line || last == ISourceNode.UNKNOWN_LINE) {
+					first = line;
+				}
+				if (last < line) {
+					last = line;
+				}
+			}
+		}
+		this.firstLine = first;
+		this.lastLine = last;
+	}
+
+	/**
+	 * Encodes the given probe id as a branch target.
+	 */
+	static int probeTarget(final int probeId) {
+		return -1 - probeId;
+	}
+
+	/**
+	 * Calculates the coverage of this method for the given probes.
+	 *
+	 * @param probes
+	 *            probe array of the class the method belongs to or
+	 *            <code>null</code>
+	 * @return new coverage node for this method
+	 */
+	public MethodCoverageImpl createCoverage(final boolean[] probes) {
+		final Instruction[] instructions = new Instruction[lines.length];
+		for (int i = 0; i < instructions.length; i++) {
+			instructions[i] = new Instruction(lines[i]);
+		}
+		for (int i = 0; i < branches.length; i += 3) {
+			final Instruction source = instructions[branches[i]];
+			final int target = branches[i + 1];
+			if (target < 0) {
+				final int probeId = -1 - target;
+				source.addBranch(probes != null && probes[probeId],
+						branches[i + 2]);
+			} else {
+				source.addBranch(instructions[target], branches[i + 2]);
+			}
+		}
+
+		applyMerges(instructions);
+		applyReplacements(instructions);
+
+		final MethodCoverageImpl coverage = new MethodCoverageImpl(name, desc,
+				signature);
+		coverage.ensureCapacity(firstLine, lastLine);
+		for (int i = 0; i < instructions.length; i++) {
+			if (!skipped[i]) {
+				final Instruction instruction = instructions[i];
+				coverage.increment(instruction.getInstructionCounter(),
+						instruction.getBranchCounter(), instruction.getLine());
+			}
+		}
+		coverage.incrementMethodCounter();
+		return coverage;
+	}
+
+	private void applyMerges(final Instruction[] instructions) {
+		if (representatives == null) {
+			return;
+		}
+		// Merge to the representative:
+		for (int i = 0; i < representatives.length; i++) {
+			final int r = representatives[i];
+			if (r != -1) {
+				instructions[r] = instructions[r].merge(instructions[i]);
+			}
+		}
+		// Get merged value back from representative
+		for (int i = 0; i < representatives.length; i++) {
+			final int r = representatives[i];
+			if (r != -1) {
+				instructions[i] = instructions[r];
+			}
+		}
+	}
+
+	private void applyReplacements(final Instruction[] instructions) {
+		for (int i = 0; i < replacementSources.length; i++) {
+			final int[] targets = replacementTargets[i];
+			final List<Instruction> newBranches = new ArrayList<Instruction>(
+					targets.length);
+			for (final int t : targets) {
+				newBranches.add(instructions[t]);
+			}
+			final int source = replacementSources[i];
+			instructions[source] = instructions[source]
+					.replaceBranches(newBranches);
+		}
+	}
+
+	/**
+	 * Returns the name of the method.
+	 *
+	 * @return name of the method
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the descriptor of the method.
+	 *
+	 * @return descriptor of the method
+	 */
+	public String getDesc() {
+		return desc;
+	}
+
+	/**
+	 * Returns the generic signature of the method.
+	 *
+	 * @return generic signature or <code>null</code>
+	 */
+	public String getSignature() {
+		return signature;
+	}
+
+}
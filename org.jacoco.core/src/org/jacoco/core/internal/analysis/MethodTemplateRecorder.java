@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.jacoco.core.internal.analysis.filter.IFilterOutput;
+import org.objectweb.asm.tree.AbstractInsnNode;
+
+/**
+ * Records the structure of a single method while it is analyzed by the
+ * {@link InstructionsBuilder} and the filters. Instructions are identified by
+ * their index in the sequence they have been added. The recorded information is
+ * finally compiled into a {@link MethodTemplate}.
+ */
+class MethodTemplateRecorder implements IFilterOutput {
+
+	private final Map<AbstractInsnNode, Integer> nodes;
+
+	private final Map<Instruction, Integer> instructions;
+
+	private int[] lines;
+
+	private int[] branches;
+
+	private int branchesSize;
+
+	/** Reference to another element of the merge set or -1 per instruction */
+	private int[] merged;
+
+	private final Map<Integer, int[]> replacements;
+
+	private boolean[] ignored;
+
+	/**
+	 * Creates a new recorder for a single method.
+	 */
+	MethodTemplateRecorder() {
+		this.nodes = new IdentityHashMap<AbstractInsnNode, Integer>();
+		this.instructions = new IdentityHashMap<Instruction, Integer>();
+		this.lines = new int[16];
+		this.branches = new int[48];
+		this.branchesSize = 0;
+		this.replacements = new LinkedHashMap<Integer, int[]>();
+	}
+
+	void addInstruction(final AbstractInsnNode node,
+			final Instruction instruction, final int line) {
+		final int index = instructions.size();
+		nodes.put(node, Integer.valueOf(index));
+		instructions.put(instruction, Integer.valueOf(index));
+		if (index == lines.length) {
+			lines = copyOf(lines, index * 2);
+		}
+		lines[index] = line;
+	}
+
+	void addBranch(final Instruction source, final Instruction target,
+			final int branch) {
+		addBranchOp(indexOf(source), indexOf(target), branch);
+	}
+
+	void addProbe(final Instruction source, final int probeId,
+			final int branch) {
+		addBranchOp(indexOf(source), MethodTemplate.probeTarget(probeId),
+				branch);
+	}
+
+	private void addBranchOp(final int source, final int target,
+			final int branch) {
+		if (branchesSize + 3 > branches.length) {
+			branches = copyOf(branches, branches.length * 2);
+		}
+		branches[branchesSize++] = source;
+		branches[branchesSize++] = target;
+		branches[branchesSize++] = branch;
+	}
+
+	private static int[] copyOf(final int[] array, final int length) {
+		final int[] copy = new int[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+
+	private int indexOf(final Instruction instruction) {
+		return instructions.get(instruction).intValue();
+	}
+
+	/**
+	 * Returns the index of the given node or -1 if the node does not represent
+	 * an instruction.
+	 */
+	private int indexOf(final AbstractInsnNode node) {
+		final Integer index = nodes.get(node);
+		return index == null ? -1 : index.intValue();
+	}
+
+	private int findRepresentative(int i) {
+		if (merged == null) {
+			return i;
+		}
+		while (merged[i] != -1) {
+			i = merged[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Compiles the recorded information into a template.
+	 *
+	 * @param name
+	 *            name of the method
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            generic signature or <code>null</code>
+	 * @return template for the method or <code>null</code> if the method does
+	 *         not contain any code after filtering
+	 */
+	MethodTemplate createTemplate(final String name, final String desc,
+			final String signature) {
+		final int size = instructions.size();
+		final boolean[] skipped = new boolean[size];
+		if (ignored != null) {
+			System.arraycopy(ignored, 0, skipped, 0, size);
+		}
+		int[] representatives = null;
+		if (merged != null) {
+			representatives = new int[size];
+			for (int i = 0; i < size; i++) {
+				if (merged[i] == -1) {
+					representatives[i] = -1;
+				} else {
+					representatives[i] = findRepresentative(i);
+					skipped[i] = true;
+				}
+			}
+		}
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (!skipped[i]) {
+				count++;
+			}
+		}
+		if (count == 0) {
+			return null;
+		}
+		final int[] replacementSources = new int[replacements.size()];
+		final int[][] replacementTargets = new int[replacements.size()][];
+		int idx = 0;
+		for (final Entry<Integer, int[]> entry : replacements.entrySet()) {
+			replacementSources[idx] = entry.getKey().intValue();
+			replacementTargets[idx] = entry.getValue();
+			idx++;
+		}
+		return new MethodTemplate(name, desc, signature, copyOf(lines, size),
+				copyOf(branches, branchesSize), skipped, representatives,
+				replacementSources, replacementTargets);
+	}
+
+	// === IFilterOutput API ===
+
+	public void ignore(final AbstractInsnNode fromInclusive,
+			final AbstractInsnNode toInclusive) {
+		if (ignored == null) {
+			ignored = new boolean[instructions.size()];
+		}
+		for (AbstractInsnNode i = fromInclusive; i != toInclusive; i = i
+				.getNext()) {
+			ignore(i);
+		}
+		ignore(toInclusive);
+	}
+
+	private void ignore(final AbstractInsnNode node) {
+		final int index = indexOf(node);
+		if (index != -1) {
+			ignored[index] = true;
+		}
+	}
+
+	public void merge(final AbstractInsnNode i1, final AbstractInsnNode i2) {
+		if (merged == null) {
+			merged = new int[instructions.size()];
+			Arrays.fill(merged, -1);
+		}
+		final int r1 = findRepresentative(indexOf(i1));
+		final int r2 = findRepresentative(indexOf(i2));
+		if (r1 != r2) {
+			merged[r2] = r1;
+		}
+	}
+
+	public void replaceBranches(final AbstractInsnNode source,
+			final Set<AbstractInsnNode> newTargets) {
+		final int[] targets = new int[newTargets.size()];
+		int idx = 0;
+		for (final AbstractInsnNode t : newTargets) {
+			targets[idx++] = indexOf(t);
+		}
+		replacements.put(Integer.valueOf(indexOf(source)), targets);
+	}
+
+}
@@ -12,6 +12,9 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ILine;
@@ -19,14 +22,32 @@ import org.jacoco.core.analysis.ISourceNode;
 
 /**
  * Implementation of {@link ISourceNode}.
+ *
+ * Line counters are packed into a single <code>int</code> per line with 8 bits
+ * for each of missed instructions, covered instructions, missed branches and
+ * covered branches. This needs the same space as a reference to a shared
+ * {@link LineImpl} singleton, but avoids a separate {@link LineImpl} instance
+ * for every line which exceeds the singleton range. {@link ILine} instances are
+ * created on request. The rare lines with counter values which do not fit into
+ * 8 bits are kept in a separate map.
  */
 public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 
-	private LineImpl[] lines;
+	/** Maximum counter value which is packed */
+	private static final int MAX_PACKED = 0xFE;
+
+	/** Marker for lines which are kept in {@link #largeLines} */
+	private static final int LARGE = -1;
+
+	/** packed counters of each line, see {@link #pack(int, int, int, int)} */
+	private int[] lines;
 
 	/** first line number in {@link #lines} */
 	private int offset;
 
+	/** lines by line number with counter values above {@link #MAX_PACKED} */
+	private Map<Integer, LineImpl> largeLines;
+
 	/**
 	 * Create a new source node implementation instance.
 	 *
@@ -39,6 +60,7 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 		super(elementType, name);
 		lines = null;
 		offset = UNKNOWN_LINE;
+		largeLines = null;
 	}
 
 	/**
@@ -57,13 +79,13 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 		}
 		if (lines == null) {
 			offset = first;
-			lines = new LineImpl[last - first + 1];
+			lines = new int[last - first + 1];
 		} else {
 			final int newFirst = Math.min(getFirstLine(), first);
 			final int newLast = Math.max(getLastLine(), last);
 			final int newLength = newLast - newFirst + 1;
 			if (newLength > lines.length) {
-				final LineImpl[] newLines = new LineImpl[newLength];
+				final int[] newLines = new int[newLength];
 				System.arraycopy(lines, 0, newLines, offset - newFirst,
 						lines.length);
 				offset = newFirst;
@@ -88,6 +110,10 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 				.increment(child.getComplexityCounter());
 		methodCounter = methodCounter.increment(child.getMethodCounter());
 		classCounter = classCounter.increment(child.getClassCounter());
+		if (child instanceof SourceNodeImpl) {
+			incrementLines((SourceNodeImpl) child);
+			return;
+		}
 		final int firstLine = child.getFirstLine();
 		if (firstLine != UNKNOWN_LINE) {
 			final int lastLine = child.getLastLine();
@@ -100,6 +126,31 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 		}
 	}
 
+	/**
+	 * Adds the lines of the given child directly from its packed
+	 * representation.
+	 */
+	private void incrementLines(final SourceNodeImpl child) {
+		final int[] childLines = child.lines;
+		if (childLines == null) {
+			return;
+		}
+		ensureCapacity(child.getFirstLine(), child.getLastLine());
+		for (int i = 0; i < childLines.length; i++) {
+			final int packed = childLines[i];
+			if (packed == LARGE) {
+				final int nr = child.offset + i;
+				final LineImpl line = child.largeLines.get(Integer.valueOf(nr));
+				incrementLine(line.getInstructionCounter(),
+						line.getBranchCounter(), nr);
+			} else if (packed != 0) {
+				incrementLine(missedInstructions(packed),
+						coveredInstructions(packed), missedBranches(packed),
+						coveredBranches(packed), child.offset + i);
+			}
+		}
+	}
+
 	/**
 	 * Increments instructions and branches by the given counter values. If a
 	 * optional line number is specified the instructions and branches are added
@@ -123,15 +174,54 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 
 	private void incrementLine(final ICounter instructions,
 			final ICounter branches, final int line) {
+		incrementLine(instructions.getMissedCount(),
+				instructions.getCoveredCount(), branches.getMissedCount(),
+				branches.getCoveredCount(), line);
+	}
+
+	private void incrementLine(final int im, final int ic, final int bm,
+			final int bc, final int line) {
 		ensureCapacity(line, line);
-		final LineImpl l = getLine(line);
-		final int oldTotal = l.getInstructionCounter().getTotalCount();
-		final int oldCovered = l.getInstructionCounter().getCoveredCount();
-		lines[line - offset] = l.increment(instructions, branches);
+		final int index = line - offset;
+		final int old = lines[index];
+		final int oldMissed;
+		final int oldCovered;
+		final int newIm;
+		final int newIc;
+		final int newBm;
+		final int newBc;
+		if (old == LARGE) {
+			final LineImpl l = largeLines.get(Integer.valueOf(line));
+			final ICounter i = l.getInstructionCounter();
+			final ICounter b = l.getBranchCounter();
+			oldMissed = i.getMissedCount();
+			oldCovered = i.getCoveredCount();
+			newBm = b.getMissedCount() + bm;
+			newBc = b.getCoveredCount() + bc;
+		} else {
+			oldMissed = missedInstructions(old);
+			oldCovered = coveredInstructions(old);
+			newBm = missedBranches(old) + bm;
+			newBc = coveredBranches(old) + bc;
+		}
+		newIm = oldMissed + im;
+		newIc = oldCovered + ic;
+		if (newIm <= MAX_PACKED && newIc <= MAX_PACKED && newBm <= MAX_PACKED
+				&& newBc <= MAX_PACKED) {
+			lines[index] = pack(newIm, newIc, newBm, newBc);
+		} else {
+			if (largeLines == null) {
+				largeLines = new HashMap<Integer, LineImpl>();
+			}
+			lines[index] = LARGE;
+			largeLines.put(Integer.valueOf(line),
+					LineImpl.getInstance(newIm, newIc, newBm, newBc));
+		}
 
 		// Increment line counter:
-		if (instructions.getTotalCount() > 0) {
-			if (instructions.getCoveredCount() == 0) {
+		final int oldTotal = oldMissed + oldCovered;
+		if (im + ic > 0) {
+			if (ic == 0) {
 				if (oldTotal == 0) {
 					lineCounter = lineCounter
 							.increment(CounterImpl.COUNTER_1_0);
@@ -149,6 +239,27 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 		}
 	}
 
+	private static int pack(final int im, final int ic, final int bm,
+			final int bc) {
+		return (im << 24) | (ic << 16) | (bm << 8) | bc;
+	}
+
+	private static int missedInstructions(final int packed) {
+		return packed >>> 24;
+	}
+
+	private static int coveredInstructions(final int packed) {
+		return (packed >>> 16) & 0xFF;
+	}
+
+	private static int missedBranches(final int packed) {
+		return (packed >>> 8) & 0xFF;
+	}
+
+	private static int coveredBranches(final int packed) {
+		return packed & 0xFF;
+	}
+
 	// === ISourceNode implementation ===
 
 	public int getFirstLine() {
@@ -163,8 +274,13 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 		if (lines == null || nr < getFirstLine() || nr > getLastLine()) {
 			return LineImpl.EMPTY;
 		}
-		final LineImpl line = lines[nr - offset];
-		return line == null ? LineImpl.EMPTY : line;
+		final int packed = lines[nr - offset];
+		if (packed == LARGE) {
+			return largeLines.get(Integer.valueOf(nr));
+		}
+		return LineImpl.getInstance(missedInstructions(packed),
+				coveredInstructions(packed), missedBranches(packed),
+				coveredBranches(packed));
 	}
 
 }
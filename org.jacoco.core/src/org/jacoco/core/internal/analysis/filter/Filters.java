@@ -12,10 +12,22 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis.filter;
 
+import static org.jacoco.core.internal.analysis.filter.MethodSummary.KOTLIN_REFERENCE;
+import static org.jacoco.core.internal.analysis.filter.MethodSummary.anyOf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.MethodNode;
 
 /**
  * Filter that combines other filters.
+ *
+ * Filters which scan all instructions of a method for their pattern can be
+ * registered with preconditions. A filter is only invoked if the method
+ * contains at least one opcode of every precondition. The opcodes of a method
+ * are determined with a single pass before the filters are invoked.
  */
 public final class Filters implements IFilter {
 
@@ -24,7 +36,25 @@ public final class Filters implements IFilter {
 	 */
 	public static final IFilter NONE = new Filters();
 
-	private final IFilter[] filters;
+	private static final long[] SWITCH = anyOf(Opcodes.LOOKUPSWITCH,
+			Opcodes.TABLESWITCH);
+
+	private static final long[] STATIC_FIELD = anyOf(Opcodes.GETSTATIC,
+			Opcodes.PUTSTATIC);
+
+	private static final long[] IFNONNULL = anyOf(Opcodes.IFNONNULL);
+
+	private static final long[] NEW = anyOf(Opcodes.NEW);
+
+	private static final long[] KOTLIN = anyOf(KOTLIN_REFERENCE);
+
+	private static final long[][] ALWAYS = new long[0][];
+
+	private final List<IFilter> filters;
+
+	private final List<long[][]> preconditions;
+
+	private final MethodSummary summary;
 
 	/**
 	 * Creates filter that combines all other filters.
@@ -32,31 +62,66 @@ public final class Filters implements IFilter {
 	 * @return filter that combines all other filters
 	 */
 	public static IFilter all() {
-		return new Filters(new EnumFilter(), new SyntheticFilter(),
-				new BridgeFilter(), new SynchronizedFilter(),
-				new TryWithResourcesJavac11Filter(),
-				new TryWithResourcesJavacFilter(),
-				new TryWithResourcesEcjFilter(), new FinallyFilter(),
-				new PrivateEmptyNoArgConstructorFilter(), new AssertFilter(),
-				new StringSwitchJavacFilter(), new StringSwitchFilter(),
-				new EnumEmptyConstructorFilter(), new RecordsFilter(),
-				new AnnotationGeneratedFilter(), new KotlinGeneratedFilter(),
-				new KotlinLateinitFilter(), new KotlinWhenFilter(),
-				new KotlinWhenStringFilter(),
-				new KotlinUnsafeCastOperatorFilter(),
-				new KotlinNotNullOperatorFilter(),
-				new KotlinDefaultArgumentsFilter(), new KotlinInlineFilter(),
-				new KotlinCoroutineFilter(), new KotlinDefaultMethodsFilter());
+		return new Filters() //
+				.add(new EnumFilter()) //
+				.add(new SyntheticFilter()) //
+				.add(new BridgeFilter()) //
+				.add(new SynchronizedFilter()) //
+				.add(new TryWithResourcesJavac11Filter()) //
+				.add(new TryWithResourcesJavacFilter()) //
+				.add(new TryWithResourcesEcjFilter()) //
+				.add(new FinallyFilter()) //
+				.add(new PrivateEmptyNoArgConstructorFilter()) //
+				.add(new AssertFilter(), STATIC_FIELD) //
+				.add(new StringSwitchJavacFilter(), SWITCH) //
+				.add(new StringSwitchFilter(), SWITCH) //
+				.add(new EnumEmptyConstructorFilter()) //
+				.add(new RecordsFilter()) //
+				.add(new AnnotationGeneratedFilter()) //
+				.add(new KotlinGeneratedFilter()) //
+				.add(new KotlinLateinitFilter(), IFNONNULL, KOTLIN) //
+				.add(new KotlinWhenFilter(), NEW, KOTLIN) //
+				.add(new KotlinWhenStringFilter(), SWITCH) //
+				.add(new KotlinUnsafeCastOperatorFilter()) //
+				.add(new KotlinNotNullOperatorFilter(), IFNONNULL, KOTLIN) //
+				.add(new KotlinDefaultArgumentsFilter()) //
+				.add(new KotlinInlineFilter()) //
+				.add(new KotlinCoroutineFilter()) //
+				.add(new KotlinDefaultMethodsFilter());
+	}
+
+	private Filters() {
+		this.filters = new ArrayList<IFilter>();
+		this.preconditions = new ArrayList<long[][]>();
+		this.summary = new MethodSummary();
+	}
+
+	private Filters add(final IFilter filter) {
+		return add(filter, ALWAYS);
 	}
 
-	private Filters(final IFilter... filters) {
-		this.filters = filters;
+	private Filters add(final IFilter filter, final long[]... precondition) {
+		filters.add(filter);
+		preconditions.add(precondition);
+		return this;
 	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
-		for (final IFilter filter : filters) {
-			filter.filter(methodNode, context, output);
+		boolean scanned = false;
+		final int size = filters.size();
+		for (int i = 0; i < size; i++) {
+			final long[][] precondition = preconditions.get(i);
+			if (precondition.length != 0) {
+				if (!scanned) {
+					summary.scan(methodNode);
+					scanned = true;
+				}
+				if (!summary.matches(precondition)) {
+					continue;
+				}
+			}
+			filters.get(i).filter(methodNode, context, output);
 		}
 	}
 
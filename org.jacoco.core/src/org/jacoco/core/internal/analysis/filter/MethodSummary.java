@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Evgeny Mandrikov - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+
+/**
+ * Summary of the instructions of a method which is created with a single pass
+ * over the instruction list. It allows to skip filters which can not match
+ * because the method does not contain the instructions their patterns start
+ * with.
+ */
+final class MethodSummary {
+
+	/**
+	 * Pseudo opcode for instructions which reference a type from the Kotlin
+	 * runtime library.
+	 */
+	static final int KOTLIN_REFERENCE = 255;
+
+	private static final String KOTLIN_PACKAGE = "kotlin/";
+
+	private final long[] opcodes = new long[4];
+
+	/**
+	 * Creates a mask which matches if at least one of the given opcodes is
+	 * contained in a method.
+	 *
+	 * @param opcodes
+	 *            opcodes or {@link #KOTLIN_REFERENCE}
+	 * @return mask for the given opcodes
+	 */
+	static long[] anyOf(final int... opcodes) {
+		final long[] mask = new long[4];
+		for (final int opcode : opcodes) {
+			mask[opcode >> 6] |= 1L << opcode;
+		}
+		return mask;
+	}
+
+	/**
+	 * Calculates the summary for the given method. Previous information is
+	 * discarded.
+	 *
+	 * @param methodNode
+	 *            method to summarize
+	 */
+	void scan(final MethodNode methodNode) {
+		opcodes[0] = opcodes[1] = opcodes[2] = opcodes[3] = 0;
+		for (final AbstractInsnNode i : methodNode.instructions) {
+			final int opcode = i.getOpcode();
+			if (opcode == -1) {
+				continue;
+			}
+			add(opcode);
+			if (isKotlinReference(i)) {
+				add(KOTLIN_REFERENCE);
+			}
+		}
+	}
+
+	private void add(final int opcode) {
+		opcodes[opcode >> 6] |= 1L << opcode;
+	}
+
+	private static boolean isKotlinReference(final AbstractInsnNode i) {
+		switch (i.getType()) {
+		case AbstractInsnNode.METHOD_INSN:
+			return ((MethodInsnNode) i).owner.startsWith(KOTLIN_PACKAGE);
+		case AbstractInsnNode.FIELD_INSN:
+			return ((FieldInsnNode) i).owner.startsWith(KOTLIN_PACKAGE);
+		case AbstractInsnNode.TYPE_INSN:
+			return ((TypeInsnNode) i).desc.startsWith(KOTLIN_PACKAGE);
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Checks whether the summarized method contains at least one opcode of
+	 * every given mask.
+	 *
+	 * @param masks
+	 *            masks created with {@link #anyOf(int...)}
+	 * @return <code>true</code> if all masks match
+	 */
+	boolean matches(final long[]... masks) {
+		for (final long[] mask : masks) {
+			if ((opcodes[0] & mask[0]) == 0 && (opcodes[1] & mask[1]) == 0
+					&& (opcodes[2] & mask[2]) == 0
+					&& (opcodes[3] & mask[3]) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
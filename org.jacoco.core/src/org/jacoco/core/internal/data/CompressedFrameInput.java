@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Input stream which reads from the content of the current decompressed frame
+ * and from the underlying stream once the frame has been consumed.
+ *
+ * @see CompressedFrameOutput
+ */
+public class CompressedFrameInput extends InputStream {
+
+	private final InputStream in;
+
+	private byte[] frame;
+
+	private int position;
+
+	private int length;
+
+	/**
+	 * Creates a new stream which initially reads from the given stream.
+	 *
+	 * @param in
+	 *            underlying input stream
+	 */
+	public CompressedFrameInput(final InputStream in) {
+		this.in = in;
+		this.frame = new byte[0];
+	}
+
+	/**
+	 * Reads a compressed frame from the given input and provides its content
+	 * for subsequent reads. The block type has already been consumed. The
+	 * previous frame must have been read completely.
+	 *
+	 * @param input
+	 *            input which reads from this stream
+	 * @throws IOException
+	 *             if the frame can't be read or is corrupt
+	 */
+	public void readFrame(final CompactDataInput input) throws IOException {
+		if (position < length) {
+			throw new IOException("Nested compressed frame.");
+		}
+		final int size = input.readVarInt();
+		final byte[] compressed = new byte[input.readVarInt()];
+		input.readFully(compressed);
+		if (frame.length < size) {
+			frame = new byte[size];
+		}
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			int count = 0;
+			while (count < size && !inflater.finished()) {
+				final int n = inflater.inflate(frame, count, size - count);
+				if (n == 0 && (inflater.needsInput()
+						|| inflater.needsDictionary())) {
+					break;
+				}
+				count += n;
+			}
+			if (count != size) {
+				throw new IOException("Corrupt compressed frame.");
+			}
+		} catch (final DataFormatException e) {
+			final IOException ex = new IOException("Corrupt compressed frame.");
+			ex.initCause(e);
+			throw ex;
+		} finally {
+			inflater.end();
+		}
+		position = 0;
+		length = size;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (position < length) {
+			return frame[position++] & 0xff;
+		}
+		return in.read();
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len)
+			throws IOException {
+		if (position < length) {
+			final int count = Math.min(len, length - position);
+			System.arraycopy(frame, position, b, off, count);
+			position += count;
+			return count;
+		}
+		return in.read(b, off, len);
+	}
+
+}
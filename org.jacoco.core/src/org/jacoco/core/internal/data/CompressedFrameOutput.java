@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream which optionally collects all written bytes and writes them as
+ * deflate compressed frames to the underlying stream. Every frame starts with
+ * the given block type followed by the uncompressed and the compressed length
+ * as variable length integers.
+ *
+ * @see CompressedFrameInput
+ */
+public class CompressedFrameOutput extends OutputStream {
+
+	/** Uncompressed size after which a frame is completed at the next block */
+	private static final int FRAME_SIZE = 0x10000;
+
+	private final CompactDataOutput out;
+
+	private final byte blocktype;
+
+	private final ByteArrayOutputStream frame;
+
+	private byte[] compressed;
+
+	private boolean compressing;
+
+	/**
+	 * Creates a new stream which initially writes all bytes uncompressed.
+	 *
+	 * @param out
+	 *            underlying output stream
+	 * @param blocktype
+	 *            block type identifying compressed frames
+	 */
+	public CompressedFrameOutput(final OutputStream out, final byte blocktype) {
+		this.out = new CompactDataOutput(out);
+		this.blocktype = blocktype;
+		this.frame = new ByteArrayOutputStream();
+		this.compressed = new byte[0x1000];
+	}
+
+	/**
+	 * Starts compression, all subsequently written bytes are collected into
+	 * frames.
+	 */
+	public void startCompression() {
+		compressing = true;
+	}
+
+	/**
+	 * Must be called before every new block. Completes the current frame if it
+	 * exceeds its maximum size.
+	 *
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void startBlock() throws IOException {
+		if (frame.size() >= FRAME_SIZE) {
+			endFrame();
+		}
+	}
+
+	/**
+	 * Writes all bytes collected so far as a compressed frame to the underlying
+	 * stream.
+	 *
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void endFrame() throws IOException {
+		if (frame.size() == 0) {
+			return;
+		}
+		final byte[] data = frame.toByteArray();
+		frame.reset();
+		final Deflater deflater = new Deflater();
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			int length = 0;
+			while (!deflater.finished()) {
+				if (length == compressed.length) {
+					final byte[] newBuffer = new byte[length * 2];
+					System.arraycopy(compressed, 0, newBuffer, 0, length);
+					compressed = newBuffer;
+				}
+				length += deflater.deflate(compressed, length,
+						compressed.length - length);
+			}
+			out.writeByte(blocktype);
+			out.writeVarInt(data.length);
+			out.writeVarInt(length);
+			out.write(compressed, 0, length);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		if (compressing) {
+			frame.write(b);
+		} else {
+			out.write(b);
+		}
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len)
+			throws IOException {
+		if (compressing) {
+			frame.write(b, off, len);
+		} else {
+			out.write(b, off, len);
+		}
+	}
+
+	/**
+	 * Completes the current frame and flushes the underlying stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		endFrame();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		endFrame();
+		out.close();
+	}
+
+}
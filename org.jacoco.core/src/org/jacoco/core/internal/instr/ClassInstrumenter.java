@@ -79,7 +79,8 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 
 	@Override
 	public void visitTotalProbeCount(final int count) {
-		probeArrayStrategy.addMembers(cv, count);
+		probeArrayStrategy.addMembers(cv,
+				InstrSupport.getProbeArrayLength(count));
 	}
 
 }
@@ -16,16 +16,29 @@ import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
 /**
  * This strategy for Java 11+ class files uses {@link ConstantDynamic} to hold
  * the probe array and adds bootstrap method requesting the probe array from the
- * runtime.
+ * runtime. As the constant is resolved only once, an additional method requests
+ * the probe array again after it has been reset by the runtime.
  */
 public class CondyProbeArrayStrategy implements IProbeArrayStrategy {
 
+	/**
+	 * Frame locals with a single boolean array.
+	 */
+	private static final Object[] FRAME_LOCALS_ARRZ = new Object[] {
+			InstrSupport.DATAFIELD_DESC };
+
+	/**
+	 * Empty frame stack.
+	 */
+	private static final Object[] FRAME_STACK_EMPTY = new Object[0];
+
 	/**
 	 * Descriptor of the bootstrap method.
 	 */
@@ -57,11 +70,19 @@ public class CondyProbeArrayStrategy implements IProbeArrayStrategy {
 		mv.visitLdcInsn(new ConstantDynamic(InstrSupport.DATAFIELD_NAME,
 				"Ljava/lang/Object;", bootstrapMethod));
 		mv.visitTypeInsn(Opcodes.CHECKCAST, "[Z");
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, className,
+				InstrSupport.CHECKMETHOD_NAME, InstrSupport.CHECKMETHOD_DESC,
+				isInterface);
 		mv.visitVarInsn(Opcodes.ASTORE, variable);
 		return 1;
 	}
 
 	public void addMembers(final ClassVisitor cv, final int probeCount) {
+		createInitMethod(cv, probeCount);
+		createCheckMethod(cv, probeCount);
+	}
+
+	private void createInitMethod(final ClassVisitor cv, final int probeCount) {
 		final MethodVisitor mv = cv.visitMethod(InstrSupport.INITMETHOD_ACC,
 				InstrSupport.INITMETHOD_NAME, B_DESC, null, null);
 		final int maxStack = accessorGenerator.generateDataAccessor(classId,
@@ -71,4 +92,37 @@ public class CondyProbeArrayStrategy implements IProbeArrayStrategy {
 		mv.visitEnd();
 	}
 
+	private void createCheckMethod(final ClassVisitor cv,
+			final int probeCount) {
+		final MethodVisitor mv = cv.visitMethod(InstrSupport.INITMETHOD_ACC,
+				InstrSupport.CHECKMETHOD_NAME, InstrSupport.CHECKMETHOD_DESC,
+				null, null);
+		mv.visitCode();
+
+		// Return the given probe array if it has been requested since the
+		// last reset:
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		InstrSupport.push(mv, probeCount - 1);
+		mv.visitInsn(Opcodes.BALOAD);
+		final Label request = new Label();
+		mv.visitJumpInsn(Opcodes.IFEQ, request);
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitInsn(Opcodes.ARETURN);
+
+		// Otherwise request it again through the bootstrap method, which
+		// does not use its arguments:
+		mv.visitFrame(Opcodes.F_NEW, 1, FRAME_LOCALS_ARRZ, 0,
+				FRAME_STACK_EMPTY);
+		mv.visitLabel(request);
+		mv.visitInsn(Opcodes.ACONST_NULL);
+		mv.visitInsn(Opcodes.ACONST_NULL);
+		mv.visitInsn(Opcodes.ACONST_NULL);
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, className,
+				InstrSupport.INITMETHOD_NAME, B_DESC, isInterface);
+		mv.visitInsn(Opcodes.ARETURN);
+
+		mv.visitMaxs(3, 1);
+		mv.visitEnd();
+	}
+
 }
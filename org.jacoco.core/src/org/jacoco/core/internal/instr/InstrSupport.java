@@ -98,6 +98,17 @@ public final class InstrSupport {
 	public static final int INITMETHOD_ACC = Opcodes.ACC_SYNTHETIC
 			| Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC;
 
+	/**
+	 * Name of the method which requests the probe array again for classes
+	 * holding it in a dynamic constant, see {@link #getProbeArrayLength(int)}.
+	 */
+	public static final String CHECKMETHOD_NAME = "$jacocoCheck";
+
+	/**
+	 * Descriptor of the check method.
+	 */
+	public static final String CHECKMETHOD_DESC = "([Z)[Z";
+
 	/**
 	 * Name of the interface initialization method.
 	 *
@@ -159,6 +170,22 @@ public final class InstrSupport {
 	 */
 	static final int CLINIT_ACC = Opcodes.ACC_SYNTHETIC | Opcodes.ACC_STATIC;
 
+	/**
+	 * Returns the length of the probe array for a class with the given number
+	 * of probes. The probe array of instrumented classes has one additional
+	 * slot at the end which is set by the runtime whenever the class requests
+	 * its probe array. As a reset of the execution data clears this slot, the
+	 * class requests its probe array again on the next execution. This way the
+	 * runtime learns which classes have been executed since the last reset.
+	 *
+	 * @param probeCount
+	 *            number of probes of the class
+	 * @return length of the probe array
+	 */
+	public static int getProbeArrayLength(final int probeCount) {
+		return probeCount + 1;
+	}
+
 	/**
 	 * Gets major version number from given bytes of class (unsigned two bytes
 	 * at offset 6).
@@ -234,7 +261,8 @@ public final class InstrSupport {
 	 */
 	public static void assertNotInstrumented(final String member,
 			final String owner) throws IllegalStateException {
-		if (member.equals(DATAFIELD_NAME) || member.equals(INITMETHOD_NAME)) {
+		if (member.equals(DATAFIELD_NAME) || member.equals(INITMETHOD_NAME)
+				|| member.equals(CHECKMETHOD_NAME)) {
 			throw new IllegalStateException(format(
 					"Cannot process instrumented class %s. Please supply original non-instrumented classes.",
 					owner));
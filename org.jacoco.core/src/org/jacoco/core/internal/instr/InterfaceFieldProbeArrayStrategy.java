@@ -111,12 +111,28 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 		// Stack[1]: [Z
 		// Stack[0]: [Z
 
-		// Skip initialization when we already have a data array:
+		// Skip initialization when we already have a data array which has
+		// been requested since the last reset:
+		final Label initialize = new Label();
+		mv.visitJumpInsn(Opcodes.IFNULL, initialize);
+
+		// Stack[0]: [Z
+
+		mv.visitInsn(Opcodes.DUP);
+		InstrSupport.push(mv, probeCount - 1);
+		mv.visitInsn(Opcodes.BALOAD);
+
+		// Stack[1]: Z
+		// Stack[0]: [Z
+
 		final Label alreadyInitialized = new Label();
-		mv.visitJumpInsn(Opcodes.IFNONNULL, alreadyInitialized);
+		mv.visitJumpInsn(Opcodes.IFNE, alreadyInitialized);
 
 		// Stack[0]: [Z
 
+		mv.visitFrame(Opcodes.F_NEW, 0, FRAME_LOCALS_EMPTY, 1,
+				FRAME_STACK_ARRZ);
+		mv.visitLabel(initialize);
 		mv.visitInsn(Opcodes.POP);
 		final int size = accessorGenerator.generateDataAccessor(classId,
 				className, probeCount, mv);
@@ -129,7 +145,7 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 		mv.visitLabel(alreadyInitialized);
 		mv.visitInsn(Opcodes.ARETURN);
 
-		mv.visitMaxs(Math.max(size, 2), 0); // Maximum local stack size is 2
+		mv.visitMaxs(Math.max(size, 3), 0); // Maximum local stack size is 3
 		mv.visitEnd();
 	}
 
@@ -55,12 +55,14 @@ public final class ProbeArrayStrategyFactory {
 				return new CondyProbeArrayStrategy(className, true, classId,
 						accessorGenerator);
 			}
+			final int length = InstrSupport
+					.getProbeArrayLength(counter.getCount());
 			if (version >= Opcodes.V1_8 && counter.hasMethods()) {
 				return new InterfaceFieldProbeArrayStrategy(className, classId,
-						counter.getCount(), accessorGenerator);
+						length, accessorGenerator);
 			} else {
-				return new LocalProbeArrayStrategy(className, classId,
-						counter.getCount(), accessorGenerator);
+				return new LocalProbeArrayStrategy(className, classId, length,
+						accessorGenerator);
 			}
 		} else {
 			if (version >= Opcodes.V11) {
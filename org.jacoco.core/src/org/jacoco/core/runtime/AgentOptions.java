@@ -183,16 +183,96 @@ public final class AgentOptions {
 	 */
 	public static final String CLASSDUMPDIR = "classdumpdir";
 
+	/**
+	 * Specifies whether dumped class files are written to a JAR archive in the
+	 * {@link #CLASSDUMPDIR} instead of individual files. Default is
+	 * <code>false</code>.
+	 */
+	public static final String CLASSDUMPARCHIVE = "classdumparchive";
+
 	/**
 	 * Specifies whether the agent should expose functionality via JMX under the
 	 * name "org.jacoco:type=Runtime". Default is <code>false</code>.
 	 */
 	public static final String JMX = "jmx";
 
+	/**
+	 * Initial delay in milliseconds before the tcpclient tries to connect again
+	 * after the connection could not be established or has been lost. The delay
+	 * is doubled after every failed attempt up to one minute. Default is
+	 * defined by {@link #DEFAULT_RECONNECTDELAY}.
+	 */
+	public static final String RECONNECTDELAY = "reconnectdelay";
+
+	/**
+	 * Default value for the "reconnectdelay" agent option.
+	 */
+	public static final int DEFAULT_RECONNECTDELAY = 1000;
+
+	/**
+	 * Path to a file where the tcpclient buffers execution data while it is not
+	 * connected. The buffered data is sent as soon as the connection is
+	 * established again. Default is <code>null</code> (data is only buffered in
+	 * memory).
+	 */
+	public static final String SPOOLFILE = "spoolfile";
+
+	/**
+	 * Maximum number of bytes the tcpclient buffers in memory and in the spool
+	 * file. Default is defined by {@link #DEFAULT_SPOOLLIMIT}.
+	 */
+	public static final String SPOOLLIMIT = "spoollimit";
+
+	/**
+	 * Default value for the "spoollimit" agent option.
+	 */
+	public static final int DEFAULT_SPOOLLIMIT = 16 * 1024 * 1024;
+
+	/**
+	 * Maximum time in milliseconds the tcpclient waits for buffered execution
+	 * data to be sent when the VM terminates. Data which can't be sent within
+	 * this time is written to the spool file if configured. Default is defined
+	 * by {@link #DEFAULT_SHUTDOWNTIMEOUT}.
+	 */
+	public static final String SHUTDOWNTIMEOUT = "shutdowntimeout";
+
+	/**
+	 * Default value for the "shutdowntimeout" agent option.
+	 */
+	public static final int DEFAULT_SHUTDOWNTIMEOUT = 10000;
+
+	/**
+	 * Specifies whether execution data written to files or TCP connections is
+	 * compressed. Default is <code>false</code>.
+	 */
+	public static final String COMPRESS = "compress";
+
+	/**
+	 * Interval in milliseconds in which the agent dumps execution data to the
+	 * configured output. Default is <code>0</code> (no periodic dumps).
+	 */
+	public static final String DUMPINTERVAL = "dumpinterval";
+
+	/**
+	 * Specifies whether the file output writes every dump to a new file. The
+	 * file names are derived from {@link #DESTFILE} with a time stamp appended.
+	 * Default is <code>false</code>.
+	 */
+	public static final String ROTATE = "rotate";
+
+	/**
+	 * Maximum number of execution data files kept when {@link #ROTATE} is
+	 * enabled. The oldest files are deleted first. Default is <code>0</code>
+	 * (all files are kept).
+	 */
+	public static final String MAXFILES = "maxfiles";
+
 	private static final Collection<String> VALID_OPTIONS = Arrays.asList(
 			DESTFILE, APPEND, INCLUDES, EXCLUDES, EXCLCLASSLOADER,
 			INCLBOOTSTRAPCLASSES, INCLNOLOCATIONCLASSES, SESSIONID, DUMPONEXIT,
-			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX);
+			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, CLASSDUMPARCHIVE, JMX,
+			RECONNECTDELAY, SPOOLFILE, SPOOLLIMIT, SHUTDOWNTIMEOUT, COMPRESS,
+			DUMPINTERVAL, ROTATE, MAXFILES);
 
 	private final Map<String, String> options;
 
@@ -251,6 +331,11 @@ public final class AgentOptions {
 	private void validateAll() {
 		validatePort(getPort());
 		getOutput();
+		validateGreaterZero(RECONNECTDELAY, getReconnectDelay());
+		validatePositive(SPOOLLIMIT, getSpoolLimit());
+		validatePositive(SHUTDOWNTIMEOUT, getShutdownTimeout());
+		validatePositive(DUMPINTERVAL, getDumpInterval());
+		validatePositive(MAXFILES, getMaxFiles());
 	}
 
 	private void validatePort(final int port) {
@@ -259,6 +344,18 @@ public final class AgentOptions {
 		}
 	}
 
+	private void validateGreaterZero(final String key, final int value) {
+		if (value <= 0) {
+			throw new IllegalArgumentException(key + " must be greater than 0");
+		}
+	}
+
+	private void validatePositive(final String key, final int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException(key + " must be positive");
+		}
+	}
+
 	/**
 	 * Returns the output file location.
 	 *
@@ -538,6 +635,26 @@ public final class AgentOptions {
 		setOption(CLASSDUMPDIR, location);
 	}
 
+	/**
+	 * Returns whether dumped class files are written to a JAR archive.
+	 *
+	 * @return <code>true</code>, when class files are dumped to an archive
+	 */
+	public boolean getClassDumpArchive() {
+		return getOption(CLASSDUMPARCHIVE, false);
+	}
+
+	/**
+	 * Sets whether dumped class files should be written to a JAR archive.
+	 *
+	 * @param archive
+	 *            <code>true</code> if class files should be dumped to an
+	 *            archive
+	 */
+	public void setClassDumpArchive(final boolean archive) {
+		setOption(CLASSDUMPARCHIVE, archive);
+	}
+
 	/**
 	 * Returns whether the agent exposes functionality via JMX.
 	 *
@@ -557,6 +674,168 @@ public final class AgentOptions {
 		setOption(JMX, jmx);
 	}
 
+	/**
+	 * Returns the initial delay before the tcpclient reconnects.
+	 *
+	 * @return delay in milliseconds
+	 */
+	public int getReconnectDelay() {
+		return getOption(RECONNECTDELAY, DEFAULT_RECONNECTDELAY);
+	}
+
+	/**
+	 * Sets the initial delay before the tcpclient reconnects.
+	 *
+	 * @param delay
+	 *            delay in milliseconds, must be greater than 0
+	 */
+	public void setReconnectDelay(final int delay) {
+		validateGreaterZero(RECONNECTDELAY, delay);
+		setOption(RECONNECTDELAY, delay);
+	}
+
+	/**
+	 * Returns the location of the file where the tcpclient buffers execution
+	 * data while it is not connected.
+	 *
+	 * @return spool file location or <code>null</code> (no spool file)
+	 */
+	public String getSpoolFile() {
+		return getOption(SPOOLFILE, null);
+	}
+
+	/**
+	 * Sets the location of the file where the tcpclient buffers execution data
+	 * while it is not connected.
+	 *
+	 * @param location
+	 *            spool file location or <code>null</code> (no spool file)
+	 */
+	public void setSpoolFile(final String location) {
+		setOption(SPOOLFILE, location);
+	}
+
+	/**
+	 * Returns the maximum number of bytes the tcpclient buffers.
+	 *
+	 * @return buffer limit in bytes
+	 */
+	public int getSpoolLimit() {
+		return getOption(SPOOLLIMIT, DEFAULT_SPOOLLIMIT);
+	}
+
+	/**
+	 * Sets the maximum number of bytes the tcpclient buffers.
+	 *
+	 * @param limit
+	 *            buffer limit in bytes
+	 */
+	public void setSpoolLimit(final int limit) {
+		validatePositive(SPOOLLIMIT, limit);
+		setOption(SPOOLLIMIT, limit);
+	}
+
+	/**
+	 * Returns the maximum time the tcpclient waits for buffered data to be sent
+	 * on shutdown.
+	 *
+	 * @return timeout in milliseconds
+	 */
+	public int getShutdownTimeout() {
+		return getOption(SHUTDOWNTIMEOUT, DEFAULT_SHUTDOWNTIMEOUT);
+	}
+
+	/**
+	 * Sets the maximum time the tcpclient waits for buffered data to be sent on
+	 * shutdown.
+	 *
+	 * @param timeout
+	 *            timeout in milliseconds
+	 */
+	public void setShutdownTimeout(final int timeout) {
+		validatePositive(SHUTDOWNTIMEOUT, timeout);
+		setOption(SHUTDOWNTIMEOUT, timeout);
+	}
+
+	/**
+	 * Returns whether execution data is written compressed.
+	 *
+	 * @return <code>true</code>, when execution data is compressed
+	 */
+	public boolean getCompress() {
+		return getOption(COMPRESS, false);
+	}
+
+	/**
+	 * Sets whether execution data should be written compressed.
+	 *
+	 * @param compress
+	 *            <code>true</code> if execution data should be compressed
+	 */
+	public void setCompress(final boolean compress) {
+		setOption(COMPRESS, compress);
+	}
+
+	/**
+	 * Returns the interval for periodic dumps.
+	 *
+	 * @return interval in milliseconds or <code>0</code> for no periodic dumps
+	 */
+	public int getDumpInterval() {
+		return getOption(DUMPINTERVAL, 0);
+	}
+
+	/**
+	 * Sets the interval for periodic dumps.
+	 *
+	 * @param interval
+	 *            interval in milliseconds or <code>0</code> for no periodic
+	 *            dumps
+	 */
+	public void setDumpInterval(final int interval) {
+		validatePositive(DUMPINTERVAL, interval);
+		setOption(DUMPINTERVAL, interval);
+	}
+
+	/**
+	 * Returns whether every dump is written to a new file.
+	 *
+	 * @return <code>true</code>, when execution data files are rotated
+	 */
+	public boolean getRotate() {
+		return getOption(ROTATE, false);
+	}
+
+	/**
+	 * Sets whether every dump should be written to a new file.
+	 *
+	 * @param rotate
+	 *            <code>true</code> if execution data files should be rotated
+	 */
+	public void setRotate(final boolean rotate) {
+		setOption(ROTATE, rotate);
+	}
+
+	/**
+	 * Returns the maximum number of rotated execution data files.
+	 *
+	 * @return maximum number of files or <code>0</code> for no limit
+	 */
+	public int getMaxFiles() {
+		return getOption(MAXFILES, 0);
+	}
+
+	/**
+	 * Sets the maximum number of rotated execution data files.
+	 *
+	 * @param maxFiles
+	 *            maximum number of files or <code>0</code> for no limit
+	 */
+	public void setMaxFiles(final int maxFiles) {
+		validatePositive(MAXFILES, maxFiles);
+		setOption(MAXFILES, maxFiles);
+	}
+
 	private void setOption(final String key, final int value) {
 		setOption(key, Integer.toString(value));
 	}
@@ -41,6 +41,23 @@ public class RemoteControlWriter extends ExecutionDataWriter
 		super(output);
 	}
 
+	/**
+	 * Creates a new writer based on the given output stream which optionally
+	 * compresses the execution data. Compressed frames are completed with every
+	 * command.
+	 *
+	 * @param output
+	 *            stream to write commands to
+	 * @param compress
+	 *            whether execution data should be compressed
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public RemoteControlWriter(final OutputStream output,
+			final boolean compress) throws IOException {
+		super(output, compress);
+	}
+
 	/**
 	 * Sends a confirmation that a commands has been successfully executed and
 	 * the response is completed.
@@ -50,6 +67,7 @@ public class RemoteControlWriter extends ExecutionDataWriter
 	 */
 	public void sendCmdOk() throws IOException {
 		out.writeByte(RemoteControlWriter.BLOCK_CMDOK);
+		endFrame();
 	}
 
 	public void visitDumpCommand(final boolean dump, final boolean reset)
@@ -57,6 +75,7 @@ public class RemoteControlWriter extends ExecutionDataWriter
 		out.writeByte(RemoteControlWriter.BLOCK_CMDDUMP);
 		out.writeBoolean(dump);
 		out.writeBoolean(reset);
+		endFrame();
 	}
 
 }
@@ -12,6 +12,10 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.IExecutionDataVisitor;
@@ -34,11 +38,30 @@ public class RuntimeData {
 
 	private String sessionId;
 
+	/**
+	 * Execution data recorded before the current coverage context. Only
+	 * contains classes which have been executed before a context boundary.
+	 */
+	private ExecutionDataStore baseline;
+
+	/**
+	 * Classes which have requested their probe array since the last context
+	 * boundary or reset. Only these classes can have hits which need to be
+	 * moved to the baseline.
+	 */
+	private final List<ExecutionData> touched;
+
+	private String contextId;
+
+	private long contextStartTimeStamp;
+
 	/**
 	 * Creates a new runtime.
 	 */
 	public RuntimeData() {
 		store = new ExecutionDataStore();
+		baseline = new ExecutionDataStore();
+		touched = new ArrayList<ExecutionData>();
 		sessionId = "<none>";
 		startTimeStamp = System.currentTimeMillis();
 	}
@@ -77,7 +100,7 @@ public class RuntimeData {
 	 *            handler to write session information to
 	 * @param reset
 	 *            if <code>true</code> the current coverage information is also
-	 *            cleared
+	 *            cleared, see {@link #reset()}
 	 */
 	public final void collect(final IExecutionDataVisitor executionDataVisitor,
 			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
@@ -85,7 +108,9 @@ public class RuntimeData {
 			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
 					System.currentTimeMillis());
 			sessionInfoVisitor.visitSessionInfo(info);
-			store.accept(executionDataVisitor);
+			for (final ExecutionData data : getTotals()) {
+				executionDataVisitor.visitClassExecution(data);
+			}
 			if (reset) {
 				reset();
 			}
@@ -93,15 +118,203 @@ public class RuntimeData {
 	}
 
 	/**
-	 * Resets all coverage information.
+	 * Collects a copy of the current execution data and writes it to the given
+	 * {@link IExecutionDataVisitor} object. Other than
+	 * {@link #collect(IExecutionDataVisitor, ISessionInfoVisitor, boolean)}
+	 * this method holds the lock on the runtime data only to copy the probe
+	 * arrays. The visitors are called afterwards, so slow visitors like network
+	 * or file writers do not block classes which are initialized concurrently.
+	 *
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 * @param reset
+	 *            if <code>true</code> the current coverage information is also
+	 *            cleared, see {@link #reset()}
+	 */
+	public final void collectSnapshot(
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
+		final SessionInfo info;
+		final List<ExecutionData> snapshot;
+		synchronized (store) {
+			info = new SessionInfo(sessionId, startTimeStamp,
+					System.currentTimeMillis());
+			final Collection<ExecutionData> contents = getTotals();
+			snapshot = new ArrayList<ExecutionData>(contents.size());
+			for (final ExecutionData data : contents) {
+				snapshot.add(new ExecutionData(data.getId(), data.getName(),
+						data.getProbes().clone()));
+			}
+			if (reset) {
+				reset();
+			}
+		}
+		sessionInfoVisitor.visitSessionInfo(info);
+		for (final ExecutionData data : snapshot) {
+			executionDataVisitor.visitClassExecution(data);
+		}
+	}
+
+	/**
+	 * Resets all coverage information. If a coverage context is active, the
+	 * context is continued but the coverage recorded within the context so far
+	 * is cleared as well. It is therefore not reported when the context ends.
 	 */
 	public final void reset() {
 		synchronized (store) {
 			store.reset();
+			baseline = new ExecutionDataStore();
+			touched.clear();
 			startTimeStamp = System.currentTimeMillis();
 		}
 	}
 
+	/**
+	 * Starts a new coverage context, for example for a single test. All
+	 * coverage recorded from now on until the call of
+	 * {@link #endContext(IExecutionDataVisitor, ISessionInfoVisitor)} is
+	 * attributed to this context. Coverage information collected with
+	 * {@link #collect(IExecutionDataVisitor, ISessionInfoVisitor, boolean)} is
+	 * not affected by contexts. If another context is still active it is ended
+	 * without reporting its data.
+	 *
+	 * Starting and ending a context only processes the classes which have
+	 * requested their probe array since the last context boundary, see
+	 * {@link #getProbes(Long, String, int)}. Hits of a method invocation which
+	 * is still running at a context boundary are attributed to the context in
+	 * which its class is executed next. Classes executed before a context
+	 * boundary keep an additional copy of their probe array for the overall
+	 * execution data.
+	 *
+	 * @param id
+	 *            identifier of the context, e.g. the name of a test
+	 */
+	public final void startContext(final String id) {
+		synchronized (store) {
+			updateBaseline();
+			contextId = id;
+			contextStartTimeStamp = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Ends the current coverage context and writes the execution data of all
+	 * classes which have been executed within the context to the given
+	 * visitors. The data is preceded by a {@link SessionInfo} which carries the
+	 * identifier of the context.
+	 *
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 * @throws IllegalStateException
+	 *             if no context has been started
+	 */
+	public final void endContext(
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor)
+			throws IllegalStateException {
+		synchronized (store) {
+			assertContext();
+			final SessionInfo info = new SessionInfo(contextId,
+					contextStartTimeStamp, System.currentTimeMillis());
+			sessionInfoVisitor.visitSessionInfo(info);
+			for (final ExecutionData data : touched) {
+				if (data.hasHits()) {
+					executionDataVisitor.visitClassExecution(data);
+				}
+			}
+			closeContext();
+		}
+	}
+
+	/**
+	 * Ends the current coverage context without reporting its execution data
+	 * separately. The data is still part of the overall execution data.
+	 *
+	 * @throws IllegalStateException
+	 *             if no context has been started
+	 */
+	public final void endContext() throws IllegalStateException {
+		synchronized (store) {
+			assertContext();
+			closeContext();
+		}
+	}
+
+	private void assertContext() {
+		if (contextId == null) {
+			throw new IllegalStateException("No coverage context started.");
+		}
+	}
+
+	private void closeContext() {
+		updateBaseline();
+		contextId = null;
+	}
+
+	/**
+	 * Returns the identifier of the current coverage context.
+	 *
+	 * @return identifier of the current context or <code>null</code> if no
+	 *         context has been started
+	 */
+	public String getContextId() {
+		synchronized (store) {
+			return contextId;
+		}
+	}
+
+	/**
+	 * Moves the probes of all classes executed since the last context boundary
+	 * from the store to the baseline. Only touched classes are considered,
+	 * their last slot is cleared so they request their probe array again on
+	 * their next execution. Only classes with hits are copied and reset. Must
+	 * be called while holding the monitor of the store.
+	 */
+	private void updateBaseline() {
+		for (final ExecutionData data : touched) {
+			final boolean[] probes = data.getProbes();
+			probes[probes.length - 1] = false;
+			if (data.hasHits()) {
+				final ExecutionData entry = baseline.get(data.getId());
+				if (entry == null) {
+					baseline.put(new ExecutionData(data.getId(), data.getName(),
+							probes.clone()));
+				} else {
+					entry.merge(data);
+				}
+				data.reset();
+			}
+		}
+		touched.clear();
+	}
+
+	/**
+	 * Returns the overall execution data of all classes, i.e. the store
+	 * combined with the baseline. Classes without baseline are returned as is.
+	 * Must be called while holding the monitor of the store.
+	 */
+	private Collection<ExecutionData> getTotals() {
+		final Collection<ExecutionData> contents = store.getContents();
+		final List<ExecutionData> totals = new ArrayList<ExecutionData>(
+				contents.size());
+		for (final ExecutionData data : contents) {
+			final ExecutionData base = baseline.get(data.getId());
+			if (base == null) {
+				totals.add(data);
+			} else {
+				final ExecutionData total = new ExecutionData(data.getId(),
+						data.getName(), base.getProbes().clone());
+				total.merge(data);
+				totals.add(total);
+			}
+		}
+		return totals;
+	}
+
 	/**
 	 * Returns the coverage data for the class with the given identifier. If
 	 * there is no data available under the given id a new entry is created.
@@ -122,6 +335,36 @@ public class RuntimeData {
 		}
 	}
 
+	/**
+	 * Returns the probe array for the class with the given identifier and
+	 * records the class as executed since the last context boundary. This is
+	 * the access path of instrumented classes: The last slot of their probe
+	 * array is set here and cleared when the execution data is reset, which
+	 * makes the class call this method again on its next execution, see
+	 * {@link InstrSupport#getProbeArrayLength(int)}. If there is no data
+	 * available under the given id a new entry is created.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length including the additional slot
+	 * @return probe array of the class
+	 */
+	public boolean[] getProbes(final Long id, final String name,
+			final int probecount) {
+		synchronized (store) {
+			final ExecutionData data = store.get(id, name, probecount);
+			final boolean[] probes = data.getProbes();
+			if (!probes[probecount - 1]) {
+				probes[probecount - 1] = true;
+				touched.add(data);
+			}
+			return probes;
+		}
+	}
+
 	/**
 	 * Retrieves the execution probe array for a given class. The passed
 	 * {@link Object} array instance is used for parameters and the return value
@@ -146,7 +389,7 @@ public class RuntimeData {
 		final Long classid = (Long) args[0];
 		final String name = (String) args[1];
 		final int probecount = ((Integer) args[2]).intValue();
-		args[0] = getExecutionData(classid, name, probecount).getProbes();
+		args[0] = getProbes(classid, name, probecount);
 	}
 
 	/**
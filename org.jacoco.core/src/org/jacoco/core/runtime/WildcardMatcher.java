@@ -12,17 +12,56 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Matches strings against glob like wildcard expressions where <code>?</code>
  * matches any single character and <code>*</code> matches any number of any
  * character. Multiple expressions can be separated with a colon (:). In this
  * case the expression matches if at least one part matches.
+ *
+ * The expressions are compiled once: Expressions without wildcards and
+ * expressions with a single trailing <code>*</code> only are stored in a prefix
+ * tree. All other expressions are combined into a nondeterministic automaton
+ * which is simulated for all expressions at the same time. Therefore the time
+ * to match a string is linear with its length and no backtracking happens.
  */
 public class WildcardMatcher {
 
-	private final Pattern pattern;
+	private static final byte LITERAL = 0;
+
+	private static final byte ANY_CHAR = 1;
+
+	private static final byte ANY_STRING = 2;
+
+	private static final byte ACCEPT = 3;
+
+	/** Root of the prefix tree for literal and prefix expressions */
+	private final Node root;
+
+	/**
+	 * States of the automaton for all other expressions: Every expression
+	 * contributes one state per character and a final {@link #ACCEPT} state.
+	 */
+	private final byte[] kinds;
+
+	/** Character for every {@link #LITERAL} state */
+	private final char[] chars;
+
+	/** Start state for every expression in the automaton */
+	private final int[] starts;
+
+	/** Working memory of the automaton, allocated once per thread */
+	private final ThreadLocal<Workspace> workspace = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return new Workspace(kinds.length);
+		}
+	};
 
 	/**
 	 * Creates a new matcher with the given expression.
@@ -31,35 +70,59 @@ public class WildcardMatcher {
 	 *            wildcard expressions
 	 */
 	public WildcardMatcher(final String expression) {
-		final String[] parts = expression.split("\\:");
-		final StringBuilder regex = new StringBuilder(expression.length() * 2);
-		boolean next = false;
+		String[] parts = expression.split("\\:");
+		if (parts.length == 0) {
+			parts = new String[] { "" };
+		}
+		root = new Node();
+		final List<String> patterns = new ArrayList<String>();
+		final Set<String> unique = new HashSet<String>();
+		int size = 0;
 		for (final String part : parts) {
-			if (next) {
-				regex.append('|');
+			final int wildcard = indexOfWildcard(part);
+			if (wildcard == -1) {
+				root.add(part, 0).exact = true;
+			} else if (wildcard == part.length() - 1
+					&& part.charAt(wildcard) == '*') {
+				root.add(part.substring(0, wildcard), 0).prefix = true;
+			} else if (unique.add(part)) {
+				patterns.add(part);
+				size += part.length() + 1;
+			}
+		}
+		kinds = new byte[size];
+		chars = new char[size];
+		starts = new int[patterns.size()];
+		int state = 0;
+		for (int i = 0; i < starts.length; i++) {
+			starts[i] = state;
+			for (final char c : patterns.get(i).toCharArray()) {
+				switch (c) {
+				case '?':
+					kinds[state] = ANY_CHAR;
+					break;
+				case '*':
+					kinds[state] = ANY_STRING;
+					break;
+				default:
+					kinds[state] = LITERAL;
+					chars[state] = c;
+					break;
+				}
+				state++;
 			}
-			regex.append('(').append(toRegex(part)).append(')');
-			next = true;
+			kinds[state++] = ACCEPT;
 		}
-		pattern = Pattern.compile(regex.toString());
 	}
 
-	private static CharSequence toRegex(final String expression) {
-		final StringBuilder regex = new StringBuilder(expression.length() * 2);
-		for (final char c : expression.toCharArray()) {
-			switch (c) {
-			case '?':
-				regex.append(".");
-				break;
-			case '*':
-				regex.append(".*");
-				break;
-			default:
-				regex.append(Pattern.quote(String.valueOf(c)));
-				break;
+	private static int indexOfWildcard(final String s) {
+		for (int i = 0; i < s.length(); i++) {
+			final char c = s.charAt(i);
+			if (c == '*' || c == '?') {
+				return i;
 			}
 		}
-		return regex;
+		return -1;
 	}
 
 	/**
@@ -70,7 +133,294 @@ public class WildcardMatcher {
 	 * @return <code>true</code>, if the expression matches
 	 */
 	public boolean matches(final String s) {
-		return pattern.matcher(s).matches();
+		if (root.matches(s)) {
+			return true;
+		}
+		if (starts.length > 0) {
+			final int[] states = simulate(s);
+			for (int i = 0; states[i] != -1; i++) {
+				if (kinds[states[i]] == ACCEPT) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether all strings starting with the given prefix are matched by
+	 * the expressions of this matcher. The result is conservative, i.e. if
+	 * <code>false</code> is returned some strings with this prefix might still
+	 * match.
+	 *
+	 * @param prefix
+	 *            common prefix of strings to test
+	 * @return <code>true</code>, if every string with this prefix matches
+	 */
+	public boolean matchesAllWithPrefix(final String prefix) {
+		if (root.isPrefixMatch(prefix)) {
+			return true;
+		}
+		if (starts.length > 0) {
+			final int[] states = simulate(prefix);
+			for (int i = 0; states[i] != -1; i++) {
+				if (isTrailingWildcard(states[i])) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether any string starting with the given prefix might be matched
+	 * by the expressions of this matcher. If <code>false</code> is returned no
+	 * string with this prefix matches.
+	 *
+	 * @param prefix
+	 *            common prefix of strings to test
+	 * @return <code>true</code>, if some string with this prefix matches
+	 */
+	public boolean matchesAnyWithPrefix(final String prefix) {
+		if (root.isPrefixMatch(prefix) || root.find(prefix) != null) {
+			return true;
+		}
+		// Every active state of the automaton still can reach a final state:
+		return starts.length > 0 && simulate(prefix)[0] != -1;
+	}
+
+	/**
+	 * Checks whether the given state is a <code>*</code> wildcard which is only
+	 * followed by more <code>*</code> wildcards.
+	 */
+	private boolean isTrailingWildcard(final int state) {
+		if (kinds[state] != ANY_STRING) {
+			return false;
+		}
+		int s = state;
+		while (kinds[s] == ANY_STRING) {
+			s++;
+		}
+		return kinds[s] == ACCEPT;
+	}
+
+	/**
+	 * Runs the automaton for all expressions on the given string.
+	 *
+	 * @return the states which are active after the string has been consumed,
+	 *         terminated by <code>-1</code>; the array is reused by the next
+	 *         simulation in the same thread
+	 */
+	private int[] simulate(final String s) {
+		// Active states are kept in lists, the stamp of the current step
+		// avoids duplicate entries:
+		final Workspace w = workspace.get();
+		int[] current = w.current;
+		int[] next = w.next;
+		final int[] stamps = w.stamps;
+		final int length = s.length();
+		if (w.stamp > Integer.MAX_VALUE - length - 1) {
+			Arrays.fill(stamps, 0);
+			w.stamp = 0;
+		}
+		int stamp = ++w.stamp;
+		int count = 0;
+		for (final int start : starts) {
+			count = activate(start, current, count, stamps, stamp);
+		}
+		for (int pos = 0; pos < length && count > 0; pos++) {
+			final char c = s.charAt(pos);
+			stamp++;
+			int nextCount = 0;
+			for (int i = 0; i < count; i++) {
+				final int state = current[i];
+				switch (kinds[state]) {
+				case ANY_STRING:
+					nextCount = activate(state, next, nextCount, stamps, stamp);
+					break;
+				case ANY_CHAR:
+					nextCount = activate(state + 1, next, nextCount, stamps,
+							stamp);
+					break;
+				case LITERAL:
+					if (chars[state] == c) {
+						nextCount = activate(state + 1, next, nextCount, stamps,
+								stamp);
+					}
+					break;
+				}
+			}
+			final int[] swap = current;
+			current = next;
+			next = swap;
+			count = nextCount;
+		}
+		w.stamp = stamp;
+		current[count] = -1;
+		return current;
+	}
+
+	/**
+	 * Adds the given state to the list of active states. As <code>*</code> also
+	 * matches the empty string the subsequent state is added as well.
+	 *
+	 * @return new number of active states
+	 */
+	private int activate(final int state, final int[] states, final int count,
+			final int[] stamps, final int stamp) {
+		int s = state;
+		int c = count;
+		while (stamps[s] != stamp) {
+			stamps[s] = stamp;
+			states[c++] = s;
+			if (kinds[s] != ANY_STRING) {
+				break;
+			}
+			s++;
+		}
+		return c;
+	}
+
+	/**
+	 * Lists of active states and stamps for the simulation of the automaton.
+	 * Stamps of previous runs are always smaller than the stamps of the current
+	 * run, so the stamps are not cleared between runs.
+	 */
+	private static class Workspace {
+
+		final int[] current;
+
+		final int[] next;
+
+		final int[] stamps;
+
+		int stamp;
+
+		Workspace(final int size) {
+			current = new int[size + 1];
+			next = new int[size + 1];
+			stamps = new int[size];
+		}
+
+	}
+
+	/**
+	 * Node of the prefix tree which represents the string consumed from the
+	 * root to this node.
+	 */
+	private static class Node {
+
+		/** The string of this node is a match */
+		boolean exact;
+
+		/** Every string starting with the string of this node is a match */
+		boolean prefix;
+
+		/** Sorted characters of the child nodes */
+		private char[] keys = new char[0];
+
+		private Node[] children = new Node[0];
+
+		Node add(final String s, final int pos) {
+			if (pos == s.length()) {
+				return this;
+			}
+			final char c = s.charAt(pos);
+			int index = indexOf(c);
+			if (index < 0) {
+				index = -index - 1;
+				final char[] newKeys = new char[keys.length + 1];
+				final Node[] newChildren = new Node[keys.length + 1];
+				System.arraycopy(keys, 0, newKeys, 0, index);
+				System.arraycopy(children, 0, newChildren, 0, index);
+				System.arraycopy(keys, index, newKeys, index + 1,
+						keys.length - index);
+				System.arraycopy(children, index, newChildren, index + 1,
+						keys.length - index);
+				newKeys[index] = c;
+				newChildren[index] = new Node();
+				keys = newKeys;
+				children = newChildren;
+			}
+			return children[index].add(s, pos + 1);
+		}
+
+		/**
+		 * @return node for the given string or <code>null</code> if no
+		 *         expression starts with this string
+		 */
+		Node find(final String s) {
+			Node node = this;
+			final int length = s.length();
+			for (int pos = 0; pos < length; pos++) {
+				final int index = node.indexOf(s.charAt(pos));
+				if (index < 0) {
+					return null;
+				}
+				node = node.children[index];
+			}
+			return node;
+		}
+
+		/**
+		 * @return <code>true</code> if a prefix expression matches the given
+		 *         string and all its extensions
+		 */
+		boolean isPrefixMatch(final String s) {
+			Node node = this;
+			final int length = s.length();
+			for (int pos = 0; pos < length; pos++) {
+				if (node.prefix) {
+					return true;
+				}
+				final int index = node.indexOf(s.charAt(pos));
+				if (index < 0) {
+					return false;
+				}
+				node = node.children[index];
+			}
+			return node.prefix;
+		}
+
+		boolean matches(final String s) {
+			Node node = this;
+			final int length = s.length();
+			for (int pos = 0; pos < length; pos++) {
+				if (node.prefix) {
+					return true;
+				}
+				final int index = node.indexOf(s.charAt(pos));
+				if (index < 0) {
+					return false;
+				}
+				node = node.children[index];
+			}
+			return node.exact || node.prefix;
+		}
+
+		/**
+		 * Binary search for the given character.
+		 *
+		 * @return index of the child node or
+		 *         <code>-(insertion point) - 1</code>
+		 */
+		private int indexOf(final char c) {
+			int low = 0;
+			int high = keys.length - 1;
+			while (low <= high) {
+				final int mid = (low + high) >>> 1;
+				final char key = keys[mid];
+				if (key < c) {
+					low = mid + 1;
+				} else if (key > c) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -(low + 1);
+		}
+
 	}
 
 }
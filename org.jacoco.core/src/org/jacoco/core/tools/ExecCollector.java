@@ -0,0 +1,626 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jacoco.core.data.ClassNameCache;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.RemoteControlReader;
+import org.jacoco.core.runtime.RemoteControlWriter;
+
+/**
+ * A server which collects execution data from agents running in
+ * <code>tcpclient</code> output mode. All connections are served by a single
+ * thread with non-blocking IO, so a large number of agents can be connected at
+ * the same time. Execution data received from the agents is merged in memory
+ * and can be written at any time, e.g. for periodic checkpoints. Dumps can be
+ * requested from all connected agents at once.
+ */
+public class ExecCollector {
+
+	private static final int READ_BUFFER_SIZE = 0x10000;
+
+	private final Selector selector;
+
+	private final ServerSocketChannel serverChannel;
+
+	private final ByteBuffer readBuffer;
+
+	private final byte[] header;
+
+	private final ConcurrentMap<Long, ExecutionData> executionData;
+
+	private final SessionInfoStore sessionInfos;
+
+	private final Queue<byte[]> pendingCommands;
+
+	private final Object dumpLock = new Object();
+
+	/**
+	 * Number of dump requests which have not been answered yet: Requests not
+	 * sent so far plus the requests sent to every connection.
+	 */
+	private int unansweredDumps;
+
+	/** Shared by all connections, only used by the worker thread */
+	private final ClassNameCache classNames;
+
+	private volatile boolean running;
+
+	private volatile int connectionCount;
+
+	private Thread worker;
+
+	/**
+	 * Creates a new collector listening on the given address. The server does
+	 * not accept connections before {@link #start()} is called.
+	 *
+	 * @param address
+	 *            local address to bind to, port 0 selects a free port
+	 * @throws IOException
+	 *             if the server socket can not be opened
+	 */
+	public ExecCollector(final InetSocketAddress address) throws IOException {
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.socket().setReuseAddress(true);
+		serverChannel.socket().bind(address);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		header = createCommand(null);
+		executionData = new ConcurrentHashMap<Long, ExecutionData>();
+		sessionInfos = new SessionInfoStore();
+		pendingCommands = new ConcurrentLinkedQueue<byte[]>();
+		classNames = new ClassNameCache();
+	}
+
+	/**
+	 * Returns the bytes of the header and the given dump command.
+	 */
+	private static byte[] createCommand(final Boolean reset) {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try {
+			final RemoteControlWriter writer = new RemoteControlWriter(buffer);
+			if (reset == null) {
+				return buffer.toByteArray();
+			}
+			final int headerSize = buffer.size();
+			writer.visitDumpCommand(true, reset.booleanValue());
+			final byte[] all = buffer.toByteArray();
+			final byte[] command = new byte[all.length - headerSize];
+			System.arraycopy(all, headerSize, command, 0, command.length);
+			return command;
+		} catch (final IOException e) {
+			// Can't happen with ByteArrayOutputStream
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Returns the local port the server is listening on.
+	 *
+	 * @return local port
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * Returns the number of currently connected agents.
+	 *
+	 * @return number of connections
+	 */
+	public int getConnectionCount() {
+		return connectionCount;
+	}
+
+	/**
+	 * Starts a background thread which accepts and serves connections.
+	 */
+	public void start() {
+		running = true;
+		worker = new Thread(new Runnable() {
+			public void run() {
+				serve();
+			}
+		}, getClass().getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Closes all connections and stops the server. Execution data received so
+	 * far is still available afterwards.
+	 *
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the server to terminate
+	 */
+	public void shutdown() throws InterruptedException {
+		running = false;
+		selector.wakeup();
+		if (worker == null) {
+			closeAll();
+		} else {
+			worker.join();
+		}
+	}
+
+	/**
+	 * Requests a dump from all currently connected agents. The execution data
+	 * is sent back asynchronously by the agents, use {@link #awaitDumps(long)}
+	 * to wait for it.
+	 *
+	 * @param reset
+	 *            if <code>true</code> the agents reset their execution data
+	 *            after the dump
+	 */
+	public void requestDump(final boolean reset) {
+		updateUnansweredDumps(1);
+		pendingCommands.add(createCommand(Boolean.valueOf(reset)));
+		selector.wakeup();
+	}
+
+	/**
+	 * Waits until all agents which have been connected when a dump was
+	 * requested have answered the request or have disconnected.
+	 *
+	 * @param timeout
+	 *            maximum time to wait in milliseconds
+	 * @return <code>true</code> if all requests have been answered,
+	 *         <code>false</code> if the timeout elapsed before
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public boolean awaitDumps(final long timeout) throws InterruptedException {
+		final long end = System.currentTimeMillis() + timeout;
+		synchronized (dumpLock) {
+			while (unansweredDumps > 0) {
+				final long remaining = end - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				dumpLock.wait(remaining);
+			}
+			return true;
+		}
+	}
+
+	private void updateUnansweredDumps(final int delta) {
+		synchronized (dumpLock) {
+			unansweredDumps += delta;
+			dumpLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Writes a snapshot of all execution data and session information collected
+	 * so far to the given visitors.
+	 *
+	 * @param executionDataVisitor
+	 *            visitor for execution data
+	 * @param sessionInfoVisitor
+	 *            visitor for session information
+	 */
+	public void accept(final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor) {
+		synchronized (sessionInfos) {
+			sessionInfos.accept(sessionInfoVisitor);
+		}
+		for (final ExecutionData entry : executionData.values()) {
+			final ExecutionData copy;
+			synchronized (entry) {
+				copy = new ExecutionData(entry.getId(), entry.getName(),
+						entry.getProbes().clone());
+			}
+			executionDataVisitor.visitClassExecution(copy);
+		}
+	}
+
+	/**
+	 * Saves a snapshot of all execution data collected so far to the given
+	 * file. The data is first written to a temporary file which then replaces
+	 * the given file, so the file always contains a complete data set.
+	 *
+	 * @param file
+	 *            file to write the execution data to
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public void save(final File file) throws IOException {
+		final File folder = file.getAbsoluteFile().getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final File tmp = new File(file.getPath() + ".tmp");
+		final OutputStream out = new BufferedOutputStream(
+				new FileOutputStream(tmp));
+		try {
+			final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+			accept(writer, writer);
+		} finally {
+			out.close();
+		}
+		if (!tmp.renameTo(file)) {
+			// Some platforms do not replace existing files on rename
+			file.delete();
+			if (!tmp.renameTo(file)) {
+				throw new IOException(
+						"Unable to rename " + tmp + " to " + file + ".");
+			}
+		}
+	}
+
+	/**
+	 * Called when a new agent has connected.
+	 *
+	 * @param address
+	 *            remote address of the agent
+	 */
+	protected void onConnected(final SocketAddress address) {
+	}
+
+	/**
+	 * Called when the connection to an agent has been closed.
+	 *
+	 * @param address
+	 *            remote address of the agent
+	 */
+	protected void onDisconnected(final SocketAddress address) {
+	}
+
+	/**
+	 * Called when an error occurs. If the error is related to a connection, the
+	 * connection is closed afterwards.
+	 *
+	 * @param address
+	 *            remote address of the agent or <code>null</code> if the error
+	 *            is not related to a specific connection
+	 * @param exception
+	 *            the error
+	 */
+	protected void onError(final SocketAddress address,
+			final Exception exception) {
+	}
+
+	private void serve() {
+		try {
+			while (running) {
+				selector.select();
+				byte[] command;
+				while ((command = pendingCommands.poll()) != null) {
+					broadcast(command);
+					updateUnansweredDumps(-1);
+				}
+				final Iterator<SelectionKey> keys = selector.selectedKeys()
+						.iterator();
+				while (keys.hasNext()) {
+					final SelectionKey key = keys.next();
+					keys.remove();
+					if (key.isValid()) {
+						handle(key);
+					}
+				}
+			}
+		} catch (final IOException e) {
+			onError(null, e);
+		} finally {
+			closeAll();
+		}
+	}
+
+	private void handle(final SelectionKey key) {
+		if (key.isAcceptable()) {
+			try {
+				accept();
+			} catch (final IOException e) {
+				onError(null, e);
+			}
+			return;
+		}
+		final Connection connection = (Connection) key.attachment();
+		try {
+			if (key.isReadable()) {
+				connection.read();
+			}
+			if (key.isValid() && key.isWritable()) {
+				connection.write();
+			}
+		} catch (final IOException e) {
+			onError(connection.address, e);
+			connection.close();
+		} catch (final IllegalStateException e) {
+			// Incompatible execution data
+			onError(connection.address, e);
+			connection.close();
+		}
+	}
+
+	private void accept() throws IOException {
+		final SocketChannel channel = serverChannel.accept();
+		if (channel == null) {
+			return;
+		}
+		final Connection connection;
+		try {
+			channel.configureBlocking(false);
+			connection = new Connection(channel);
+		} catch (final IOException e) {
+			channel.close();
+			throw e;
+		}
+		connectionCount++;
+		onConnected(connection.address);
+		send(connection, header);
+	}
+
+	private void broadcast(final byte[] command) {
+		for (final SelectionKey key : selector.keys()) {
+			final Connection connection = (Connection) key.attachment();
+			if (connection != null && key.isValid()) {
+				connection.requestDump(command);
+			}
+		}
+	}
+
+	private void send(final Connection connection, final byte[] bytes) {
+		try {
+			connection.send(bytes);
+		} catch (final IOException e) {
+			onError(connection.address, e);
+			connection.close();
+		}
+	}
+
+	private void closeAll() {
+		for (final SelectionKey key : selector.keys()) {
+			final Connection connection = (Connection) key.attachment();
+			if (connection != null) {
+				connection.close();
+			}
+		}
+		while (pendingCommands.poll() != null) {
+			updateUnansweredDumps(-1);
+		}
+		try {
+			serverChannel.close();
+			selector.close();
+		} catch (final IOException e) {
+			onError(null, e);
+		}
+	}
+
+	private void merge(final ExecutionData data) {
+		final Long id = Long.valueOf(data.getId());
+		ExecutionData entry = executionData.get(id);
+		if (entry == null) {
+			entry = executionData.putIfAbsent(id, data);
+			if (entry == null) {
+				return;
+			}
+		}
+		synchronized (entry) {
+			entry.merge(data);
+		}
+	}
+
+	/**
+	 * State of a single agent connection. Received bytes are buffered until
+	 * complete blocks are available.
+	 */
+	private class Connection
+			implements IExecutionDataVisitor, ISessionInfoVisitor {
+
+		private final SocketChannel channel;
+
+		private final SelectionKey key;
+
+		private final SocketAddress address;
+
+		private final BlockInput input;
+
+		private final RemoteControlReader reader;
+
+		private final LinkedList<ByteBuffer> output;
+
+		/**
+		 * Number of bytes of the input which belong to completely processed
+		 * blocks. Parsing restarts at this offset when more data arrives.
+		 */
+		private int consumed;
+
+		/** Dump requests sent to this agent which have not been answered */
+		private int pendingDumps;
+
+		Connection(final SocketChannel channel) throws IOException {
+			this.channel = channel;
+			this.address = channel.socket().getRemoteSocketAddress();
+			this.key = channel.register(selector, SelectionKey.OP_READ, this);
+			this.input = new BlockInput();
+			this.reader = new RemoteControlReader(input) {
+				@Override
+				protected boolean readBlock(final byte blocktype)
+						throws IOException {
+					final boolean result = super.readBlock(blocktype);
+					consumed = input.position;
+					if (blocktype == RemoteControlWriter.BLOCK_CMDOK
+							&& pendingDumps > 0) {
+						pendingDumps--;
+						updateUnansweredDumps(-1);
+					}
+					return result;
+				}
+			};
+			this.reader.setClassNameCache(classNames);
+			this.reader.setExecutionDataVisitor(this);
+			this.reader.setSessionInfoVisitor(this);
+			this.output = new LinkedList<ByteBuffer>();
+		}
+
+		void read() throws IOException {
+			int count;
+			while ((count = channel.read(readBuffer)) > 0) {
+				readBuffer.flip();
+				input.append(readBuffer);
+				readBuffer.clear();
+			}
+			parse();
+			if (count == -1) {
+				close();
+			}
+		}
+
+		private void parse() throws IOException {
+			input.position = consumed;
+			try {
+				while (reader.read()) {
+					// Read until all complete blocks are consumed
+				}
+			} catch (final EOFException e) {
+				// Incomplete block, retried from its start with more data
+			}
+			input.discard(consumed);
+			consumed = 0;
+		}
+
+		void requestDump(final byte[] command) {
+			pendingDumps++;
+			updateUnansweredDumps(1);
+			ExecCollector.this.send(this, command);
+		}
+
+		void send(final byte[] bytes) throws IOException {
+			output.add(ByteBuffer.wrap(bytes));
+			write();
+		}
+
+		void write() throws IOException {
+			while (!output.isEmpty()) {
+				final ByteBuffer buffer = output.getFirst();
+				channel.write(buffer);
+				if (buffer.hasRemaining()) {
+					key.interestOps(
+							SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+					return;
+				}
+				output.removeFirst();
+			}
+			key.interestOps(SelectionKey.OP_READ);
+		}
+
+		void close() {
+			if (!channel.isOpen()) {
+				return;
+			}
+			key.cancel();
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				onError(address, e);
+			}
+			updateUnansweredDumps(-pendingDumps);
+			pendingDumps = 0;
+			connectionCount--;
+			onDisconnected(address);
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			merge(data);
+		}
+
+		public void visitSessionInfo(final SessionInfo info) {
+			synchronized (sessionInfos) {
+				sessionInfos.visitSessionInfo(info);
+			}
+		}
+
+	}
+
+	/**
+	 * Input stream over the received but not yet consumed bytes of a
+	 * connection. Reading beyond the available bytes signals the end of the
+	 * stream.
+	 */
+	private static class BlockInput extends InputStream {
+
+		private byte[] buffer = new byte[256];
+
+		private int length;
+
+		private int position;
+
+		void append(final ByteBuffer data) {
+			final int count = data.remaining();
+			if (length + count > buffer.length) {
+				final byte[] newBuffer = new byte[Math.max(length + count,
+						buffer.length * 2)];
+				System.arraycopy(buffer, 0, newBuffer, 0, length);
+				buffer = newBuffer;
+			}
+			data.get(buffer, length, count);
+			length += count;
+		}
+
+		void discard(final int count) {
+			System.arraycopy(buffer, count, buffer, 0, length - count);
+			length -= count;
+		}
+
+		@Override
+		public int read() {
+			if (position >= length) {
+				return -1;
+			}
+			return buffer[position++] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) {
+			if (position >= length) {
+				return -1;
+			}
+			final int count = Math.min(len, length - position);
+			System.arraycopy(buffer, position, b, off, count);
+			position += count;
+			return count;
+		}
+
+	}
+
+}
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.jacoco.core.data.ClassNameCache;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+
+/**
+ * Calculates the union, intersection or difference of execution data with a
+ * baseline. Only the baseline is kept in memory. All other execution data is
+ * streamed: every class is combined with the baseline as soon as it has been
+ * read and then written to the result. If the input contains the same class
+ * multiple times, the result contains it multiple times as well and is merged
+ * when read again.
+ */
+public class ExecFileDiff {
+
+	/**
+	 * Set operation applied to the probes of every class.
+	 */
+	public enum Operation {
+
+		/** Probes executed in the input or in the baseline. */
+		UNION,
+
+		/** Probes executed in the input and in the baseline. */
+		INTERSECTION,
+
+		/** Probes executed in the input but not in the baseline. */
+		SUBTRACTION
+
+	}
+
+	private final Operation operation;
+	private final ExecFileLoader baseline;
+	private final ClassNameCache classNames;
+
+	/**
+	 * New instance for the given operation with an empty baseline.
+	 *
+	 * @param operation
+	 *            operation to apply
+	 */
+	public ExecFileDiff(final Operation operation) {
+		this.operation = operation;
+		this.baseline = new ExecFileLoader();
+		this.classNames = new ClassNameCache();
+	}
+
+	/**
+	 * Returns the operation of this instance.
+	 *
+	 * @return operation to apply
+	 */
+	public Operation getOperation() {
+		return operation;
+	}
+
+	/**
+	 * Adds execution data from the given stream to the baseline.
+	 *
+	 * @param stream
+	 *            Stream to read data from
+	 * @throws IOException
+	 *             in case of problems while reading from the stream
+	 */
+	public void loadBaseline(final InputStream stream) throws IOException {
+		baseline.load(stream);
+	}
+
+	/**
+	 * Adds execution data from the given file to the baseline.
+	 *
+	 * @param file
+	 *            file to read data from
+	 * @throws IOException
+	 *             in case of problems while reading from the file
+	 */
+	public void loadBaseline(final File file) throws IOException {
+		baseline.load(file);
+	}
+
+	/**
+	 * Reads execution data from the given stream, applies the operation with
+	 * the baseline and writes the result to the given writer. Session infos are
+	 * written unchanged. The baseline itself is not written by this method, see
+	 * {@link #finish(ExecutionDataWriter)}.
+	 *
+	 * @param stream
+	 *            Stream to read data from
+	 * @param writer
+	 *            writer for the result
+	 * @throws IOException
+	 *             in case of problems while reading or writing
+	 */
+	public void process(final InputStream stream,
+			final ExecutionDataWriter writer) throws IOException {
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new BufferedInputStream(stream));
+		reader.setSessionInfoVisitor(writer);
+		reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				final ExecutionData result = apply(data);
+				if (result != null) {
+					writer.visitClassExecution(result);
+				}
+			}
+		});
+		reader.setClassNameCache(classNames);
+		reader.read();
+	}
+
+	/**
+	 * Reads execution data from the given file, applies the operation with the
+	 * baseline and writes the result to the given writer.
+	 *
+	 * @param file
+	 *            file to read data from
+	 * @param writer
+	 *            writer for the result
+	 * @throws IOException
+	 *             in case of problems while reading or writing
+	 * @see #process(InputStream, ExecutionDataWriter)
+	 */
+	public void process(final File file, final ExecutionDataWriter writer)
+			throws IOException {
+		final InputStream stream = new FileInputStream(file);
+		try {
+			process(stream, writer);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Completes the result after all input has been processed. For
+	 * {@link Operation#UNION} the session infos and execution data of the
+	 * baseline are written, for all other operations nothing is written.
+	 *
+	 * @param writer
+	 *            writer for the result
+	 * @throws IOException
+	 *             in case of problems while writing
+	 */
+	public void finish(final ExecutionDataWriter writer) throws IOException {
+		if (operation == Operation.UNION) {
+			baseline.getSessionInfoStore().accept(writer);
+			baseline.getExecutionDataStore().accept(writer);
+		}
+	}
+
+	/**
+	 * Processes the given files and writes the complete result to the given
+	 * file. Parent directories are created as needed and an existing file is
+	 * overwritten.
+	 *
+	 * @param inputs
+	 *            files to read data from
+	 * @param file
+	 *            file to write the result to
+	 * @throws IOException
+	 *             in case of problems while reading or writing
+	 */
+	public void save(final List<File> inputs, final File file)
+			throws IOException {
+		final File folder = file.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final FileOutputStream fileStream = new FileOutputStream(file);
+		// Avoid concurrent writes from other processes:
+		fileStream.getChannel().lock();
+		final OutputStream bufferedStream = new BufferedOutputStream(
+				fileStream);
+		try {
+			final ExecutionDataWriter writer = new ExecutionDataWriter(
+					bufferedStream);
+			for (final File input : inputs) {
+				process(input, writer);
+			}
+			finish(writer);
+		} finally {
+			bufferedStream.close();
+		}
+	}
+
+	/**
+	 * Applies the operation to the given class.
+	 *
+	 * @return result or <code>null</code> if the class is not part of the
+	 *         result
+	 */
+	private ExecutionData apply(final ExecutionData data) {
+		if (operation == Operation.UNION) {
+			return data;
+		}
+		final ExecutionData other = baseline.getExecutionDataStore()
+				.get(data.getId());
+		if (operation == Operation.SUBTRACTION) {
+			if (other != null) {
+				data.merge(other, false);
+			}
+			return data;
+		}
+		if (other == null) {
+			return null;
+		}
+		data.assertCompatibility(other.getId(), other.getName(),
+				other.getProbes().length);
+		final boolean[] probes = data.getProbes();
+		final boolean[] otherProbes = other.getProbes();
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] &= otherProbes[i];
+		}
+		return data;
+	}
+
+}
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.jacoco.core.data.ClassNameCache;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
@@ -34,6 +35,7 @@ public class ExecFileLoader {
 
 	private final SessionInfoStore sessionInfos;
 	private final ExecutionDataStore executionData;
+	private final ClassNameCache classNames;
 
 	/**
 	 * New instance to combine session infos and execution data from multiple
@@ -42,6 +44,7 @@ public class ExecFileLoader {
 	public ExecFileLoader() {
 		sessionInfos = new SessionInfoStore();
 		executionData = new ExecutionDataStore();
+		classNames = new ClassNameCache();
 	}
 
 	/**
@@ -57,6 +60,7 @@ public class ExecFileLoader {
 				new BufferedInputStream(stream));
 		reader.setExecutionDataVisitor(executionData);
 		reader.setSessionInfoVisitor(sessionInfos);
+		reader.setClassNameCache(classNames);
 		reader.read();
 	}
 
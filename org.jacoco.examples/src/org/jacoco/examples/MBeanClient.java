@@ -76,6 +76,10 @@ public final class MBeanClient {
 		void dump(boolean reset);
 
 		void reset();
+
+		void startContext(String id);
+
+		void endContext();
 	}
 
 	private MBeanClient() {
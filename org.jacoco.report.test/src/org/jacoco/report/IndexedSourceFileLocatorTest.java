@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link IndexedSourceFileLocator}.
+ */
+public class IndexedSourceFileLocatorTest {
+
+	@Rule
+	public final TemporaryFolder sourceFolder = new TemporaryFolder();
+
+	private File dir1;
+
+	private File dir2;
+
+	private IndexedSourceFileLocator locator;
+
+	@Before
+	public void setup() {
+		dir1 = new File(sourceFolder.getRoot(), "dir1");
+		dir2 = new File(sourceFolder.getRoot(), "dir2");
+		locator = new IndexedSourceFileLocator(Arrays.asList(dir1, dir2),
+				"UTF-8", 4);
+	}
+
+	@Test
+	public void getTabWidth_should_return_tab_width() {
+		assertEquals(4, locator.getTabWidth());
+	}
+
+	@Test
+	public void getSourceFile_should_return_null_when_source_does_not_exist()
+			throws IOException {
+		assertNull(locator.getSourceFile("org/jacoco/example",
+				"DoesNotExist.java"));
+	}
+
+	@Test
+	public void getSourceFile_should_return_null_when_source_is_folder()
+			throws IOException {
+		new File(dir1, "org/jacoco/example").mkdirs();
+		assertNull(locator.getSourceFile("org/jacoco", "example"));
+	}
+
+	@Test
+	public void getSourceFile_should_return_content_when_file_exists_in_any_directory()
+			throws IOException {
+		createFile(dir1, "org/jacoco/example/Test1.java", "Source1");
+		createFile(dir2, "org/jacoco/example/Test2.java", "Source2");
+		assertContent("Source1",
+				locator.getSourceFile("org/jacoco/example", "Test1.java"));
+		assertContent("Source2",
+				locator.getSourceFile("org/jacoco/example", "Test2.java"));
+	}
+
+	@Test
+	public void getSourceFile_should_return_content_of_default_package()
+			throws IOException {
+		createFile(dir2, "Test.java", "Source");
+		assertContent("Source", locator.getSourceFile("", "Test.java"));
+	}
+
+	@Test
+	public void getSourceFile_should_prefer_first_directory()
+			throws IOException {
+		createFile(dir1, "org/jacoco/example/Test.java", "Source1");
+		createFile(dir2, "org/jacoco/example/Test.java", "Source2");
+		assertContent("Source1",
+				locator.getSourceFile("org/jacoco/example", "Test.java"));
+	}
+
+	@Test
+	public void add_should_include_directory_in_index() throws IOException {
+		final File dir3 = new File(sourceFolder.getRoot(), "dir3");
+		createFile(dir3, "org/jacoco/example/Test.java", "Source3");
+		assertNull(locator.getSourceFile("org/jacoco/example", "Test.java"));
+
+		locator.add(dir3);
+
+		assertContent("Source3",
+				locator.getSourceFile("org/jacoco/example", "Test.java"));
+	}
+
+	@Test
+	public void getSourceFile_should_probe_directories_when_file_is_not_in_index()
+			throws IOException {
+		createFile(dir1, "org/jacoco/example/Test1.java", "Source1");
+		assertNull(locator.getSourceFile("org/jacoco/example", "Test2.java"));
+
+		createFile(dir2, "org/jacoco/example/Test2.java", "Source2");
+
+		assertContent("Source2",
+				locator.getSourceFile("org/jacoco/example", "Test2.java"));
+	}
+
+	private void createFile(final File dir, final String path,
+			final String content) throws IOException {
+		final File file = new File(dir, path);
+		file.getParentFile().mkdirs();
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+				"UTF-8");
+		writer.write(content);
+		writer.close();
+	}
+
+	private void assertContent(final String expected, final Reader source)
+			throws IOException {
+		assertNotNull(source);
+		final BufferedReader buffer = new BufferedReader(source);
+		assertEquals(expected, buffer.readLine());
+		assertNull(buffer.readLine());
+		buffer.close();
+	}
+
+}
@@ -139,6 +139,55 @@ public class ZipMultiReportOutputTest {
 		assertArrayEquals(content2, entries.get("readme.txt"));
 	}
 
+	@Test
+	public void testCompressedFilesAreStored() throws IOException {
+		final byte[] content1 = "GIF89a".getBytes("ISO-8859-1");
+		final byte[] content2 = "HelloZip".getBytes("ISO-8859-1");
+
+		OutputStream out = zipOutput.createFile("img/icon.GIF");
+		out.write(content1, 0, 3);
+		out.write(content1[3]);
+		out.write(Arrays.copyOfRange(content1, 4, 6));
+		out.flush();
+		out.close();
+
+		out = zipOutput.createFile("index.html");
+		out.write(content2);
+		out.close();
+
+		zipOutput.close();
+
+		final Map<String, byte[]> entries = readEntries();
+		assertArrayEquals(content1, entries.get("img/icon.GIF"));
+		assertArrayEquals(content2, entries.get("index.html"));
+		assertEquals(ZipEntry.STORED, getMethod("img/icon.GIF"));
+		assertEquals(ZipEntry.DEFLATED, getMethod("index.html"));
+	}
+
+	@Test
+	public void testCreateStoredFilesWithoutClose() throws IOException {
+		final byte[] content1 = "GIF89a".getBytes("ISO-8859-1");
+
+		OutputStream out = zipOutput.createFile("a.gif");
+		out.write(content1);
+
+		out = zipOutput.createFile("b.png");
+		out.write(content1);
+
+		zipOutput.close();
+
+		final Map<String, byte[]> entries = readEntries();
+		assertArrayEquals(content1, entries.get("a.gif"));
+		assertArrayEquals(content1, entries.get("b.png"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteToClosedStoredStream() throws IOException {
+		OutputStream out = zipOutput.createFile("a.gif");
+		out.close();
+		out.write(32);
+	}
+
 	@Test(expected = IOException.class)
 	public void testWriteToClosedStream1() throws IOException {
 		OutputStream out = zipOutput.createFile("index.html");
@@ -174,6 +223,18 @@ public class ZipMultiReportOutputTest {
 		out1.write(32);
 	}
 
+	private int getMethod(final String name) throws IOException {
+		final ZipInputStream input = new ZipInputStream(
+				new ByteArrayInputStream(buffer.toByteArray()));
+		ZipEntry entry;
+		while ((entry = input.getNextEntry()) != null) {
+			if (entry.getName().equals(name)) {
+				return entry.getMethod();
+			}
+		}
+		throw new AssertionError("Missing entry " + name);
+	}
+
 	private Map<String, byte[]> readEntries() throws IOException {
 		final Map<String, byte[]> entries = new HashMap<String, byte[]>();
 		final byte[] bytes = buffer.toByteArray();
@@ -13,6 +13,7 @@
 package org.jacoco.report.html;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -98,6 +99,23 @@ public class HTMLFormatterTest {
 		output.assertNoFile("empty/Empty.java.html");
 	}
 
+	@Test
+	public void testStructureWithSourcePrefetch() throws IOException {
+		formatter.setSourcePrefetch(true);
+		driver.sendBundle(formatter.createVisitor(output));
+
+		output.assertFile("org.jacoco.example/index.source.html");
+		output.assertFile("org.jacoco.example/FooClass.java.html");
+		output.assertNoFile("org.jacoco.example/Empty.java.html");
+	}
+
+	@Test
+	public void getSourceExecutor_should_return_null() throws IOException {
+		formatter.setSourcePrefetch(true);
+		assertNull(formatter.getSourceExecutor());
+		output.close();
+	}
+
 	@Test
 	public void testDefaultEncoding() throws Exception {
 		driver.sendBundle(formatter.createVisitor(output));
@@ -14,6 +14,8 @@ package org.jacoco.report.internal.html.page;
 
 import java.io.IOException;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.jacoco.report.ILanguageNames;
 import org.jacoco.report.JavaNames;
@@ -43,12 +45,15 @@ public abstract class PageTestBase {
 
 	protected HTMLSupport support;
 
+	private ExecutorService executor;
+
 	protected void setup() throws Exception {
 		output = new MemoryMultiReportOutput();
 		rootFolder = new ReportOutputFolder(output);
 		final Resources resources = new Resources(rootFolder);
 		final Table table = new Table();
 		table.add("Element", null, new LabelColumn(), true);
+		executor = Executors.newSingleThreadExecutor();
 		context = new IHTMLReportContext() {
 
 			public ILanguageNames getLanguageNames() {
@@ -87,12 +92,17 @@ public abstract class PageTestBase {
 				return Locale.ENGLISH;
 			}
 
+			public ExecutorService getSourceExecutor() {
+				return executor;
+			}
+
 		};
 		support = new HTMLSupport();
 	}
 
 	@After
 	public void teardown() throws IOException {
+		executor.shutdownNow();
 		output.close();
 		output.assertAllClosed();
 	}
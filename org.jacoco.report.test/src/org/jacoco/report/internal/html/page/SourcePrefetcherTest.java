@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal.html.page;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jacoco.report.ISourceFileLocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SourcePrefetcher}.
+ */
+public class SourcePrefetcherTest {
+
+	private ExecutorService executor;
+
+	@Before
+	public void setup() {
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void teardown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void next_should_return_content_in_requested_order()
+			throws IOException {
+		final List<String> names = new ArrayList<String>();
+		for (int i = 0; i < 10; i++) {
+			names.add("Src" + i + ".java");
+		}
+		final SourcePrefetcher prefetcher = new SourcePrefetcher(executor,
+				new TestLocator(), "org/jacoco/example", names);
+		try {
+			for (final String name : names) {
+				assertContent("org/jacoco/example/" + name, prefetcher.next());
+			}
+		} finally {
+			prefetcher.cancel();
+		}
+	}
+
+	@Test
+	public void next_should_return_null_when_source_does_not_exist()
+			throws IOException {
+		final SourcePrefetcher prefetcher = new SourcePrefetcher(executor,
+				new TestLocator(), "org/jacoco/example",
+				Arrays.asList("Src.java", "Missing.java"));
+		try {
+			assertContent("org/jacoco/example/Src.java", prefetcher.next());
+			assertNull(prefetcher.next());
+		} finally {
+			prefetcher.cancel();
+		}
+	}
+
+	@Test
+	public void next_should_throw_IOException_from_locator() {
+		final IOException expected = new IOException("Cannot read");
+		final SourcePrefetcher prefetcher = new SourcePrefetcher(executor,
+				new ISourceFileLocator() {
+					public Reader getSourceFile(final String packageName,
+							final String fileName) throws IOException {
+						throw expected;
+					}
+
+					public int getTabWidth() {
+						return 4;
+					}
+				}, "", Collections.singletonList("Src.java"));
+		try {
+			prefetcher.next();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals(expected, e);
+		} finally {
+			prefetcher.cancel();
+		}
+	}
+
+	@Test
+	public void cancel_should_not_shutdown_executor() throws IOException {
+		final SourcePrefetcher first = new SourcePrefetcher(executor,
+				new TestLocator(), "a", Arrays.asList("A.java", "B.java"));
+		first.cancel();
+		assertFalse(executor.isShutdown());
+
+		final SourcePrefetcher second = new SourcePrefetcher(executor,
+				new TestLocator(), "b", Arrays.asList("C.java"));
+		try {
+			assertContent("b/C.java", second.next());
+		} finally {
+			second.cancel();
+		}
+	}
+
+	private static class TestLocator implements ISourceFileLocator {
+
+		public Reader getSourceFile(final String packageName,
+				final String fileName) {
+			if (fileName.startsWith("Missing")) {
+				return null;
+			}
+			return new StringReader(packageName + "/" + fileName);
+		}
+
+		public int getTabWidth() {
+			return 4;
+		}
+	}
+
+	private void assertContent(final String expected, final Reader source)
+			throws IOException {
+		final BufferedReader buffer = new BufferedReader(source);
+		assertEquals(expected, buffer.readLine());
+		assertNull(buffer.readLine());
+	}
+
+}
@@ -12,7 +12,9 @@
  *******************************************************************************/
 package org.jacoco.report.internal.html.resources;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 
@@ -72,6 +74,18 @@ public class ResourcesTest {
 		output.assertFile("jacoco-resources/up.gif");
 	}
 
+	@Test
+	public void testCopyResourcesToMultipleReports() throws IOException {
+		final MemoryMultiReportOutput output2 = new MemoryMultiReportOutput();
+		resources.copyResources();
+		new Resources(new ReportOutputFolder(output2)).copyResources();
+
+		final byte[] expected = output.getFile("jacoco-resources/report.css");
+		assertTrue(expected.length > 0);
+		assertArrayEquals(expected,
+				output2.getFile("jacoco-resources/report.css"));
+	}
+
 	@Test
 	public void testGetElementStyle() {
 		assertEquals("el_group", Resources.getElementStyle(ElementType.GROUP));
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MarkupWriter}.
+ */
+public class MarkupWriterTest {
+
+	private ByteArrayOutputStream buffer;
+
+	private MarkupWriter writer;
+
+	@Before
+	public void setup() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		writer = new MarkupWriter(buffer, "UTF-8");
+	}
+
+	@Test
+	public void writeEscaped_should_replace_markup_characters()
+			throws IOException {
+		writer.writeEscaped("a<b>c\"d&e");
+		writer.writeEscaped("<>");
+		writer.writeEscaped("");
+		assertContent("a&lt;b&gt;c&quot;d&amp;e&lt;&gt;", "UTF-8");
+	}
+
+	@Test
+	public void write_should_write_all_kinds_of_content() throws IOException {
+		writer.write('a');
+		writer.append('b');
+		writer.write("cde", 1, 1);
+		writer.write(new char[] { 'e', 'f', 'g' }, 1, 2);
+		writer.write("h");
+		assertContent("abdfgh", "UTF-8");
+	}
+
+	@Test
+	public void write_should_support_content_larger_than_buffer()
+			throws IOException {
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 50000; i++) {
+			expected.append((char) ('a' + i % 26));
+		}
+		final String text = expected.toString();
+		writer.write(text);
+		writer.write(text.toCharArray(), 0, text.length());
+		writer.writeEscaped(text);
+		for (int i = 0; i < text.length(); i++) {
+			writer.write(text.charAt(i));
+		}
+		assertContent(text + text + text + text, "UTF-8");
+	}
+
+	@Test
+	public void write_should_use_given_encoding() throws IOException {
+		writer = new MarkupWriter(buffer, "UTF-16");
+		writer.writeEscaped("\u00e4\u00f6\u00fc<");
+		writer.write("\u20ac");
+		assertContent("\u00e4\u00f6\u00fc&lt;\u20ac", "UTF-16");
+	}
+
+	@Test
+	public void close_should_release_buffer_for_next_writer()
+			throws IOException {
+		writer.write("first");
+		writer.close();
+		writer.close();
+
+		final ByteArrayOutputStream buffer2 = new ByteArrayOutputStream();
+		final MarkupWriter writer2 = new MarkupWriter(buffer2, "UTF-8");
+		writer2.write("second");
+		writer2.close();
+
+		assertEquals("first", buffer.toString("UTF-8"));
+		assertEquals("second", buffer2.toString("UTF-8"));
+	}
+
+	@Test
+	public void write_should_throw_exception_when_closed() throws IOException {
+		writer.close();
+		try {
+			writer.write('a');
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Stream closed.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void flush_should_write_buffered_content() throws IOException {
+		writer.write("abc");
+		writer.flush();
+		assertEquals("abc", buffer.toString("UTF-8"));
+	}
+
+	private void assertContent(final String expected, final String encoding)
+			throws IOException {
+		writer.close();
+		assertEquals(expected, buffer.toString(encoding));
+	}
+
+}
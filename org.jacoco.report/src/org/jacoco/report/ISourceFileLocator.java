@@ -22,7 +22,11 @@ public interface ISourceFileLocator {
 
 	/**
 	 * Tries to locate the given source file and opens a reader with the
-	 * appropriate encoding.
+	 * appropriate encoding. If source prefetching is enabled for the HTML
+	 * formatter this method is called from a background thread of the report
+	 * while pages are rendered in the calling thread, therefore implementations
+	 * must not rely on the calling thread. Calls for the same report are never
+	 * concurrent.
 	 *
 	 * @param packageName
 	 *            VM name of the package
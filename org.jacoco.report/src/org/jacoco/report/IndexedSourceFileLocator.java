@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Locator for source files that picks source files from multiple directories in
+ * the file system. In contrast to multiple {@link DirectorySourceFileLocator}
+ * instances all directories are walked once before the first lookup and source
+ * files are then found with a single map lookup instead of probing every
+ * directory. Only files missing in the index are probed in every directory. If
+ * a source file exists in multiple directories the first directory added wins.
+ */
+public class IndexedSourceFileLocator extends InputStreamSourceFileLocator {
+
+	private final List<File> directories;
+
+	/** Files by path relative to their source directory, built lazily */
+	private Map<String, File> index;
+
+	/**
+	 * Creates a new locator without directories.
+	 *
+	 * @param encoding
+	 *            encoding of the source files, <code>null</code> for platform
+	 *            default encoding
+	 * @param tabWidth
+	 *            tab width in source files as number of blanks
+	 */
+	public IndexedSourceFileLocator(final String encoding, final int tabWidth) {
+		super(encoding, tabWidth);
+		this.directories = new ArrayList<File>();
+	}
+
+	/**
+	 * Creates a new locator that searches for source files in the given
+	 * directories.
+	 *
+	 * @param directories
+	 *            directories to search for source files
+	 * @param encoding
+	 *            encoding of the source files, <code>null</code> for platform
+	 *            default encoding
+	 * @param tabWidth
+	 *            tab width in source files as number of blanks
+	 */
+	public IndexedSourceFileLocator(final List<File> directories,
+			final String encoding, final int tabWidth) {
+		this(encoding, tabWidth);
+		this.directories.addAll(directories);
+	}
+
+	/**
+	 * Adds the given directory. Directories are searched in the sequence they
+	 * have been added. Directories which do not exist are ignored.
+	 *
+	 * @param directory
+	 *            directory to search for source files
+	 */
+	public synchronized void add(final File directory) {
+		directories.add(directory);
+		index = null;
+	}
+
+	@Override
+	protected synchronized InputStream getSourceStream(final String path)
+			throws IOException {
+		if (index == null) {
+			index = createIndex();
+		}
+		File file = index.get(path);
+		if (file == null) {
+			file = probe(path);
+		}
+		return file == null ? null : new FileInputStream(file);
+	}
+
+	/**
+	 * Looks up the given path in every directory. The index lookup is exact,
+	 * this finds files on case insensitive file systems where the path differs
+	 * from the file name in case only.
+	 */
+	private File probe(final String path) {
+		for (final File directory : directories) {
+			final File file = new File(directory, path);
+			if (file.isFile()) {
+				return file;
+			}
+		}
+		return null;
+	}
+
+	private Map<String, File> createIndex() {
+		final Map<String, File> result = new HashMap<String, File>();
+		for (final File directory : directories) {
+			final Set<String> visited = new HashSet<String>();
+			final LinkedList<File> dirs = new LinkedList<File>();
+			final LinkedList<String> prefixes = new LinkedList<String>();
+			dirs.add(directory);
+			prefixes.add("");
+			while (!dirs.isEmpty()) {
+				final File dir = dirs.removeFirst();
+				final String prefix = prefixes.removeFirst();
+				final File[] children = dir.listFiles();
+				if (children == null || !visited.add(canonicalPath(dir))) {
+					continue;
+				}
+				for (final File child : children) {
+					final String path = prefix + child.getName();
+					if (child.isDirectory()) {
+						dirs.add(child);
+						prefixes.add(path + "/");
+					} else if (!result.containsKey(path)) {
+						result.put(path, child);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private static String canonicalPath(final File dir) {
+		// Protects against cycles through symbolic links:
+		try {
+			return dir.getCanonicalPath();
+		} catch (final IOException e) {
+			return dir.getAbsolutePath();
+		}
+	}
+
+}
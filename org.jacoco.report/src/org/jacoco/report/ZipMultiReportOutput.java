@@ -12,8 +12,11 @@
  *******************************************************************************/
 package org.jacoco.report;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -23,6 +26,10 @@ import java.util.zip.ZipOutputStream;
  */
 public class ZipMultiReportOutput implements IMultiReportOutput {
 
+	/** File extensions of formats which are already compressed */
+	private static final String[] COMPRESSED_EXTENSIONS = { ".gif", ".png",
+			".jpg", ".jpeg", ".zip", ".gz" };
+
 	private final ZipOutputStream zip;
 
 	private OutputStream currentEntry;
@@ -51,50 +58,110 @@ public class ZipMultiReportOutput implements IMultiReportOutput {
 		if (currentEntry != null) {
 			currentEntry.close();
 		}
-		final ZipEntry entry = new ZipEntry(path);
-		zip.putNextEntry(entry);
-		currentEntry = new EntryOutput();
+		if (isCompressed(path)) {
+			currentEntry = new EntryOutput(path);
+		} else {
+			zip.putNextEntry(new ZipEntry(path));
+			currentEntry = new EntryOutput(null);
+		}
 		return currentEntry;
 	}
 
 	public void close() throws IOException {
+		if (currentEntry != null) {
+			currentEntry.close();
+		}
 		zip.close();
 	}
 
+	/**
+	 * Checks whether the file with the given path is already compressed, like
+	 * images. Such files are stored without compression as deflating them again
+	 * costs time but does not reduce the size.
+	 */
+	private static boolean isCompressed(final String path) {
+		final String name = path.toLowerCase(Locale.ENGLISH);
+		for (final String extension : COMPRESSED_EXTENSIONS) {
+			if (name.endsWith(extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void writeStored(final String path, final byte[] content)
+			throws IOException {
+		final CRC32 crc = new CRC32();
+		crc.update(content);
+		final ZipEntry entry = new ZipEntry(path);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(content.length);
+		entry.setCompressedSize(content.length);
+		entry.setCrc(crc.getValue());
+		zip.putNextEntry(entry);
+		zip.write(content);
+		zip.closeEntry();
+	}
+
 	private final class EntryOutput extends OutputStream {
 
+		/** Path of a stored entry, <code>null</code> for deflated entries */
+		private final String storedPath;
+
+		/** Content of a stored entry which is written on close */
+		private final ByteArrayOutputStream storedContent;
+
 		private boolean closed = false;
 
+		EntryOutput(final String storedPath) {
+			this.storedPath = storedPath;
+			this.storedContent = storedPath == null ? null
+					: new ByteArrayOutputStream();
+		}
+
 		@Override
 		public void write(final byte[] b, final int off, final int len)
 				throws IOException {
 			ensureNotClosed();
-			zip.write(b, off, len);
+			if (storedContent == null) {
+				zip.write(b, off, len);
+			} else {
+				storedContent.write(b, off, len);
+			}
 		}
 
 		@Override
 		public void write(final byte[] b) throws IOException {
-			ensureNotClosed();
-			zip.write(b);
+			write(b, 0, b.length);
 		}
 
 		@Override
 		public void write(final int b) throws IOException {
 			ensureNotClosed();
-			zip.write(b);
+			if (storedContent == null) {
+				zip.write(b);
+			} else {
+				storedContent.write(b);
+			}
 		}
 
 		@Override
 		public void flush() throws IOException {
 			ensureNotClosed();
-			zip.flush();
+			if (storedContent == null) {
+				zip.flush();
+			}
 		}
 
 		@Override
 		public void close() throws IOException {
 			if (!closed) {
 				closed = true;
-				zip.closeEntry();
+				if (storedContent == null) {
+					zip.closeEntry();
+				} else {
+					writeStored(storedPath, storedContent.toByteArray());
+				}
 			}
 		}
 
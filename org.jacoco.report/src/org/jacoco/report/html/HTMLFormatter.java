@@ -16,6 +16,9 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
@@ -65,6 +68,8 @@ public class HTMLFormatter implements IHTMLReportContext {
 
 	private Table table;
 
+	private boolean sourcePrefetch = false;
+
 	/**
 	 * New instance with default settings.
 	 */
@@ -113,6 +118,20 @@ public class HTMLFormatter implements IHTMLReportContext {
 		this.outputEncoding = outputEncoding;
 	}
 
+	/**
+	 * Enables reading of source files in a background thread while pages are
+	 * rendered. Disabled by default. If enabled, every visitor created by this
+	 * formatter uses its own background thread and the
+	 * {@link ISourceFileLocator} instances passed to the visitor are called
+	 * from this thread.
+	 *
+	 * @param sourcePrefetch
+	 *            <code>true</code> to read source files in background
+	 */
+	public void setSourcePrefetch(final boolean sourcePrefetch) {
+		this.sourcePrefetch = sourcePrefetch;
+	}
+
 	// === IHTMLReportContext ===
 
 	public ILanguageNames getLanguageNames() {
@@ -176,6 +195,20 @@ public class HTMLFormatter implements IHTMLReportContext {
 		return locale;
 	}
 
+	public ExecutorService getSourceExecutor() {
+		return null;
+	}
+
+	private static ExecutorService createSourceExecutor() {
+		return Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, HTMLFormatter.class.getName());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
 	/**
 	 * Creates a new visitor to write a report to the given output.
 	 *
@@ -191,6 +224,10 @@ public class HTMLFormatter implements IHTMLReportContext {
 		resources = new Resources(root);
 		resources.copyResources();
 		index = new ElementIndex(root);
+		final ExecutorService executor = sourcePrefetch ? createSourceExecutor()
+				: null;
+		final IHTMLReportContext context = executor == null ? this
+				: new PrefetchContext(executor);
 		return new IReportVisitor() {
 
 			private List<SessionInfo> sessionInfos;
@@ -208,15 +245,14 @@ public class HTMLFormatter implements IHTMLReportContext {
 			public void visitBundle(final IBundleCoverage bundle,
 					final ISourceFileLocator locator) throws IOException {
 				final BundlePage page = new BundlePage(bundle, null, locator,
-						root, HTMLFormatter.this);
+						root, context);
 				createSessionsPage(page);
 				page.render();
 			}
 
 			public IReportGroupVisitor visitGroup(final String name)
 					throws IOException {
-				groupHandler = new HTMLGroupVisitor(null, root,
-						HTMLFormatter.this, name);
+				groupHandler = new HTMLGroupVisitor(null, root, context, name);
 				createSessionsPage(groupHandler.getPage());
 				return groupHandler;
 
@@ -224,16 +260,73 @@ public class HTMLFormatter implements IHTMLReportContext {
 
 			private void createSessionsPage(final ReportPage rootpage) {
 				sessionsPage = new SessionsPage(sessionInfos, executionData,
-						index, rootpage, root, HTMLFormatter.this);
+						index, rootpage, root, context);
 			}
 
 			public void visitEnd() throws IOException {
-				if (groupHandler != null) {
-					groupHandler.visitEnd();
+				try {
+					if (groupHandler != null) {
+						groupHandler.visitEnd();
+					}
+					sessionsPage.render();
+				} finally {
+					if (executor != null) {
+						executor.shutdownNow();
+					}
 				}
-				sessionsPage.render();
 				output.close();
 			}
 		};
 	}
+
+	/**
+	 * Context of a single visitor which reads source files with its own
+	 * executor.
+	 */
+	private class PrefetchContext implements IHTMLReportContext {
+
+		private final ExecutorService sourceExecutor;
+
+		PrefetchContext(final ExecutorService sourceExecutor) {
+			this.sourceExecutor = sourceExecutor;
+		}
+
+		public ILanguageNames getLanguageNames() {
+			return HTMLFormatter.this.getLanguageNames();
+		}
+
+		public Resources getResources() {
+			return HTMLFormatter.this.getResources();
+		}
+
+		public Table getTable() {
+			return HTMLFormatter.this.getTable();
+		}
+
+		public String getFooterText() {
+			return HTMLFormatter.this.getFooterText();
+		}
+
+		public ILinkable getSessionsPage() {
+			return HTMLFormatter.this.getSessionsPage();
+		}
+
+		public String getOutputEncoding() {
+			return HTMLFormatter.this.getOutputEncoding();
+		}
+
+		public IIndexUpdate getIndexUpdate() {
+			return HTMLFormatter.this.getIndexUpdate();
+		}
+
+		public Locale getLocale() {
+			return HTMLFormatter.this.getLocale();
+		}
+
+		public ExecutorService getSourceExecutor() {
+			return sourceExecutor;
+		}
+
+	}
+
 }
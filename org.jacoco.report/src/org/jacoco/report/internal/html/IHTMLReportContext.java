@@ -13,6 +13,7 @@
 package org.jacoco.report.internal.html;
 
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 
 import org.jacoco.report.ILanguageNames;
 import org.jacoco.report.internal.html.index.IIndexUpdate;
@@ -80,4 +81,13 @@ public interface IHTMLReportContext {
 	 */
 	Locale getLocale();
 
+	/**
+	 * Returns the executor used to read source files in background while pages
+	 * are rendered. The executor is shared by all pages of the report.
+	 *
+	 * @return executor for reading source files or <code>null</code> if source
+	 *         files are read in the rendering thread
+	 */
+	ExecutorService getSourceExecutor();
+
 }
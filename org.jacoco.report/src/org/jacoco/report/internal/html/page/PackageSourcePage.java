@@ -14,8 +14,11 @@ package org.jacoco.report.internal.html.page;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.analysis.ISourceFileCoverage;
@@ -78,24 +81,47 @@ public class PackageSourcePage extends TablePage<IPackageCoverage> {
 	}
 
 	private final void renderSourceFilePages() throws IOException {
-		final String packagename = getNode().getName();
+		final List<ISourceFileCoverage> sources = new ArrayList<ISourceFileCoverage>();
+		final List<String> sourcenames = new ArrayList<String>();
 		for (final ISourceFileCoverage s : getNode().getSourceFiles()) {
-			if (!s.containsCode()) {
-				continue;
+			if (s.containsCode()) {
+				sources.add(s);
+				sourcenames.add(s.getName());
 			}
-			final String sourcename = s.getName();
-			final Reader reader = locator.getSourceFile(packagename,
-					sourcename);
-			if (reader == null) {
-				addItem(new SourceFileItem(s));
-			} else {
-				final SourceFilePage sourcePage = new SourceFilePage(s, reader,
-						locator.getTabWidth(), this, folder, context);
-				sourcePage.render();
-				sourceFilePages.put(sourcename, sourcePage);
-				addItem(sourcePage);
+		}
+		if (sources.isEmpty()) {
+			return;
+		}
+		final ExecutorService executor = context.getSourceExecutor();
+		if (executor == null) {
+			for (final ISourceFileCoverage s : sources) {
+				renderSourceFilePage(s, locator
+						.getSourceFile(getNode().getName(), s.getName()));
+			}
+			return;
+		}
+		// Source files are read in background while pages are rendered:
+		final SourcePrefetcher prefetcher = new SourcePrefetcher(executor,
+				locator, getNode().getName(), sourcenames);
+		try {
+			for (final ISourceFileCoverage s : sources) {
+				renderSourceFilePage(s, prefetcher.next());
 			}
+		} finally {
+			prefetcher.cancel();
+		}
+	}
 
+	private void renderSourceFilePage(final ISourceFileCoverage s,
+			final Reader reader) throws IOException {
+		if (reader == null) {
+			addItem(new SourceFileItem(s));
+		} else {
+			final SourceFilePage sourcePage = new SourceFilePage(s, reader,
+					locator.getTabWidth(), this, folder, context);
+			sourcePage.render();
+			sourceFilePages.put(s.getName(), sourcePage);
+			addItem(sourcePage);
 		}
 	}
 
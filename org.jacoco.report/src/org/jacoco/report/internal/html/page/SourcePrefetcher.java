@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal.html.page;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.jacoco.core.internal.Futures;
+import org.jacoco.report.ISourceFileLocator;
+
+/**
+ * Reads the source files of a package with the executor of the report while the
+ * previous source files are rendered. At most {@link #AHEAD} source files are
+ * read ahead and kept in memory.
+ */
+class SourcePrefetcher {
+
+	/** Number of source files which are read ahead */
+	static final int AHEAD = 4;
+
+	private final ISourceFileLocator locator;
+
+	private final String packageName;
+
+	private final Iterator<String> names;
+
+	private final LinkedList<Future<String>> pending;
+
+	private final ExecutorService executor;
+
+	/**
+	 * Starts reading the given source files.
+	 *
+	 * @param executor
+	 *            executor to read the source files with
+	 * @param locator
+	 *            locator for the source files
+	 * @param packageName
+	 *            VM name of the package
+	 * @param fileNames
+	 *            local names of the source files in the order they are
+	 *            requested
+	 */
+	SourcePrefetcher(final ExecutorService executor,
+			final ISourceFileLocator locator, final String packageName,
+			final List<String> fileNames) {
+		this.executor = executor;
+		this.locator = locator;
+		this.packageName = packageName;
+		this.names = fileNames.iterator();
+		this.pending = new LinkedList<Future<String>>();
+		while (pending.size() < AHEAD && submitNext()) {
+			// fill
+		}
+	}
+
+	/**
+	 * Returns the content of the next source file.
+	 *
+	 * @return reader for the source content or <code>null</code> if the source
+	 *         file could not be located
+	 * @throws IOException
+	 *             if the source file can't be read
+	 */
+	Reader next() throws IOException {
+		final String content = Futures.get(pending.removeFirst());
+		submitNext();
+		return content == null ? null : new StringReader(content);
+	}
+
+	/**
+	 * Cancels all pending reads. The executor itself is not shut down.
+	 */
+	void cancel() {
+		for (final Future<String> f : pending) {
+			f.cancel(true);
+		}
+		pending.clear();
+	}
+
+	private boolean submitNext() {
+		if (!names.hasNext()) {
+			return false;
+		}
+		final String name = names.next();
+		pending.add(executor.submit(new Callable<String>() {
+			public String call() throws IOException {
+				return read(name);
+			}
+		}));
+		return true;
+	}
+
+	private String read(final String fileName) throws IOException {
+		final Reader reader = locator.getSourceFile(packageName, fileName);
+		if (reader == null) {
+			return null;
+		}
+		try {
+			final StringBuilder content = new StringBuilder();
+			final char[] buffer = new char[0x2000];
+			int len;
+			while ((len = reader.read(buffer)) != -1) {
+				content.append(buffer, 0, len);
+			}
+			return content.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+}
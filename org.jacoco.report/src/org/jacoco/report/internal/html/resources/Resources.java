@@ -12,9 +12,12 @@
  *******************************************************************************/
 package org.jacoco.report.internal.html.resources;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.jacoco.core.analysis.ICoverageNode.ElementType;
 import org.jacoco.report.internal.ReportOutputFolder;
@@ -43,6 +46,9 @@ public class Resources {
 	/** The name of the green part of the coverage bar */
 	public static final String GREENBAR = "greenbar.gif";
 
+	/** Content of static resources by name, shared by all instances */
+	private static final Map<String, byte[]> CONTENTS = new HashMap<String, byte[]>();
+
 	private final ReportOutputFolder folder;
 
 	/**
@@ -123,15 +129,40 @@ public class Resources {
 	}
 
 	private void copyResource(final String name) throws IOException {
-		final InputStream in = Resources.class.getResourceAsStream(name);
 		final OutputStream out = folder.createFile(name);
-		final byte[] buffer = new byte[256];
-		int len;
-		while ((len = in.read(buffer)) != -1) {
-			out.write(buffer, 0, len);
-		}
-		in.close();
+		out.write(getContent(name));
 		out.close();
 	}
 
+	/**
+	 * Returns the content of the given resource. The content is read from the
+	 * class path only once and shared by all reports created with this class
+	 * loader.
+	 */
+	private static byte[] getContent(final String name) throws IOException {
+		synchronized (CONTENTS) {
+			byte[] content = CONTENTS.get(name);
+			if (content == null) {
+				content = readResource(name);
+				CONTENTS.put(name, content);
+			}
+			return content;
+		}
+	}
+
+	private static byte[] readResource(final String name) throws IOException {
+		final InputStream in = Resources.class.getResourceAsStream(name);
+		try {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[0x1000];
+			int len;
+			while ((len = in.read(buffer)) != -1) {
+				content.write(buffer, 0, len);
+			}
+			return content.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
 }
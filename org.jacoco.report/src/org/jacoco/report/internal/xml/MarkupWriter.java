@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2021 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Unsynchronized writer for markup documents. Characters are collected in a
+ * large buffer and encoded in bulk, text content is escaped with a lookup
+ * table. Buffers of closed documents are reused by the next document created in
+ * the same thread.
+ */
+final class MarkupWriter extends Writer {
+
+	private static final int BUFFER_SIZE = 0x8000;
+
+	/** Escape sequences by character, <code>null</code> if not escaped */
+	private static final String[] ESCAPES = new String['>' + 1];
+
+	static {
+		ESCAPES['<'] = "&lt;";
+		ESCAPES['>'] = "&gt;";
+		ESCAPES['"'] = "&quot;";
+		ESCAPES['&'] = "&amp;";
+	}
+
+	/** Empty buffer of closed writers, any write attempt fails */
+	private static final char[] CLOSED = new char[0];
+
+	/** Buffer which is not in use by any document of the current thread */
+	private static final ThreadLocal<char[]> FREE_BUFFER = new ThreadLocal<char[]>();
+
+	private final Writer out;
+
+	private char[] buffer;
+
+	private int pos;
+
+	/**
+	 * Creates a new writer for the given stream.
+	 *
+	 * @param output
+	 *            stream to write to, will be closed with this writer
+	 * @param encoding
+	 *            character encoding used for output
+	 * @throws IOException
+	 *             if the encoding is not supported
+	 */
+	MarkupWriter(final OutputStream output, final String encoding)
+			throws IOException {
+		this.out = new OutputStreamWriter(output, encoding);
+		final char[] free = FREE_BUFFER.get();
+		if (free == null) {
+			buffer = new char[BUFFER_SIZE];
+		} else {
+			FREE_BUFFER.set(null);
+			buffer = free;
+		}
+		pos = 0;
+	}
+
+	/**
+	 * Writes the given text where the markup characters <code>&lt;</code>,
+	 * <code>&gt;</code>, <code>&quot;</code> and <code>&amp;</code> are
+	 * replaced by entities.
+	 *
+	 * @param text
+	 *            text to write
+	 * @throws IOException
+	 *             in case of problems with the underlying output
+	 */
+	void writeEscaped(final String text) throws IOException {
+		final int len = text.length();
+		int start = 0;
+		for (int i = 0; i < len; i++) {
+			final char c = text.charAt(i);
+			if (c < ESCAPES.length && ESCAPES[c] != null) {
+				write(text, start, i - start);
+				write(ESCAPES[c]);
+				start = i + 1;
+			}
+		}
+		write(text, start, len - start);
+	}
+
+	@Override
+	public void write(final int c) throws IOException {
+		if (pos == buffer.length) {
+			flushBuffer();
+		}
+		buffer[pos++] = (char) c;
+	}
+
+	@Override
+	public void write(final String str) throws IOException {
+		write(str, 0, str.length());
+	}
+
+	@Override
+	public void write(final String str, final int off, final int len)
+			throws IOException {
+		int start = off;
+		int remaining = len;
+		while (remaining > 0) {
+			if (pos == buffer.length) {
+				flushBuffer();
+			}
+			final int n = Math.min(remaining, buffer.length - pos);
+			str.getChars(start, start + n, buffer, pos);
+			pos += n;
+			start += n;
+			remaining -= n;
+		}
+	}
+
+	@Override
+	public void write(final char[] cbuf, final int off, final int len)
+			throws IOException {
+		if (len > buffer.length - pos) {
+			flushBuffer();
+			if (len > buffer.length) {
+				out.write(cbuf, off, len);
+				return;
+			}
+		}
+		System.arraycopy(cbuf, off, buffer, pos, len);
+		pos += len;
+	}
+
+	@Override
+	public Writer append(final char c) throws IOException {
+		write(c);
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (buffer != CLOSED) {
+			flushBuffer();
+			FREE_BUFFER.set(buffer);
+			buffer = CLOSED;
+			out.close();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (buffer == CLOSED) {
+			throw new IOException("Stream closed.");
+		}
+		out.write(buffer, 0, pos);
+		pos = 0;
+	}
+
+}
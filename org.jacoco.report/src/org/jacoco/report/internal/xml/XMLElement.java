@@ -16,7 +16,6 @@ import static java.lang.String.format;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 
 /**
@@ -27,18 +26,11 @@ import java.io.Writer;
  */
 public class XMLElement {
 
-	/** XML header template */
-	private static final String HEADER = "<?xml version=\"1.0\" encoding=\"%s\"?>";
-
-	/** XML header template for standalone documents */
-	private static final String HEADER_STANDALONE = "<?xml version=\"1.0\" encoding=\"%s\" standalone=\"yes\"?>";
-
-	/** DOCTYPE declaration template */
-	private static final String DOCTYPE = "<!DOCTYPE %s PUBLIC \"%s\" \"%s\">";
-
 	/** Writer for content output */
 	protected final Writer writer;
 
+	private final MarkupWriter out;
+
 	private final String name;
 
 	private boolean openTagDone;
@@ -49,9 +41,10 @@ public class XMLElement {
 
 	private final boolean root;
 
-	private XMLElement(final Writer writer, final String name,
+	private XMLElement(final MarkupWriter out, final String name,
 			final boolean root) throws IOException {
-		this.writer = writer;
+		this.writer = out;
+		this.out = out;
 		this.name = name;
 		this.openTagDone = false;
 		this.closed = false;
@@ -81,17 +74,25 @@ public class XMLElement {
 			final String system, final boolean standalone,
 			final String encoding, final OutputStream output)
 			throws IOException {
-		this(new OutputStreamWriter(output, encoding), name, true);
+		this(new MarkupWriter(output, encoding), name, true);
+		out.write("<?xml version=\"1.0\" encoding=\"");
+		out.write(encoding);
 		if (standalone) {
-			writer.write(format(HEADER_STANDALONE, encoding));
+			out.write("\" standalone=\"yes\"?>");
 		} else {
-			writer.write(format(HEADER, encoding));
+			out.write("\"?>");
 		}
 		if (pubId != null) {
-			writer.write(format(DOCTYPE, name, pubId, system));
+			out.write("<!DOCTYPE ");
+			out.write(name);
+			out.write(" PUBLIC \"");
+			out.write(pubId);
+			out.write("\" \"");
+			out.write(system);
+			out.write("\">");
 		}
-		writer.write('<');
-		writer.write(name);
+		out.write('<');
+		out.write(name);
 	}
 
 	/**
@@ -108,10 +109,10 @@ public class XMLElement {
 	 */
 	protected XMLElement(final String name, final XMLElement parent)
 			throws IOException {
-		this(parent.writer, name, false);
+		this(parent.out, name, false);
 		parent.addChildElement(this);
-		writer.write('<');
-		writer.write(name);
+		out.write('<');
+		out.write(name);
 	}
 
 	private void addChildElement(final XMLElement child) throws IOException {
@@ -127,35 +128,11 @@ public class XMLElement {
 
 	private void finishOpenTag() throws IOException {
 		if (!openTagDone) {
-			writer.append('>');
+			out.write('>');
 			openTagDone = true;
 		}
 	}
 
-	private void quote(final String text) throws IOException {
-		final int len = text.length();
-		for (int i = 0; i < len; i++) {
-			final char c = text.charAt(i);
-			switch (c) {
-			case '<':
-				writer.write("&lt;");
-				break;
-			case '>':
-				writer.write("&gt;");
-				break;
-			case '"':
-				writer.write("&quot;");
-				break;
-			case '&':
-				writer.write("&amp;");
-				break;
-			default:
-				writer.write(c);
-				break;
-			}
-		}
-	}
-
 	/**
 	 * Adds an attribute to this element. May only be called before an child
 	 * element is added or this element has been closed. The attribute value
@@ -179,12 +156,12 @@ public class XMLElement {
 			throw new IOException(
 					format("Element %s already closed.", this.name));
 		}
-		writer.write(' ');
-		writer.write(name);
-		writer.write('=');
-		writer.write('"');
-		quote(value);
-		writer.write('"');
+		out.write(' ');
+		out.write(name);
+		out.write('=');
+		out.write('"');
+		out.writeEscaped(value);
+		out.write('"');
 	}
 
 	/**
@@ -241,7 +218,7 @@ public class XMLElement {
 		if (lastchild != null) {
 			lastchild.close();
 		}
-		quote(text);
+		out.writeEscaped(text);
 	}
 
 	/**
@@ -270,17 +247,17 @@ public class XMLElement {
 				lastchild.close();
 			}
 			if (openTagDone) {
-				writer.write('<');
-				writer.write('/');
-				writer.write(name);
+				out.write('<');
+				out.write('/');
+				out.write(name);
 			} else {
-				writer.write('/');
+				out.write('/');
 			}
-			writer.write('>');
+			out.write('>');
 			closed = true;
 			openTagDone = true;
 			if (root) {
-				writer.close();
+				out.close();
 			}
 		}
 	}